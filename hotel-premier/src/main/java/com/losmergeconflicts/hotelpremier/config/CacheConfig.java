@@ -0,0 +1,50 @@
+package com.losmergeconflicts.hotelpremier.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de los cachés en memoria (Caffeine).
+ *
+ * - habitaciones: catálogo de habitaciones (ver CatalogoHabitaciones).
+ * - usuarios: conserjes por username para el login (ver UserDetailsServiceImpl),
+ *   con su propio tamaño y expiración.
+ *
+ * El CacheManager es transaccional: un @CacheEvict ejecutado dentro de una
+ * transacción se aplica recién después del commit, así una lectura concurrente
+ * no vuelve a cargar en el caché datos que todavía no se confirmaron.
+ *
+ * Con recordStats en la especificación, Actuator publica aciertos y fallos en
+ * /actuator/metrics/cache.gets.
+ *
+ * @Configuration: Indica que esta clase contiene definiciones de beans
+ * @EnableCaching: Activa el procesamiento de @Cacheable / @CacheEvict
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CACHE_HABITACIONES = "habitaciones";
+    public static final String CACHE_USUARIOS = "usuarios";
+
+    /**
+     * @param especificacion especificación Caffeine (tamaño máximo, expiración y estadísticas)
+     * @param especificacionUsuarios especificación Caffeine del caché de usuarios
+     * @return CacheManager con los cachés de la aplicación
+     */
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${hotel.cache.habitaciones.spec:maximumSize=100,expireAfterWrite=10m,recordStats}") String especificacion,
+            @Value("${hotel.cache.usuarios.spec:maximumSize=1000,expireAfterWrite=5m,recordStats}") String especificacionUsuarios) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager(CACHE_HABITACIONES);
+        caffeine.setCacheSpecification(especificacion);
+        caffeine.registerCustomCache(CACHE_USUARIOS, Caffeine.from(especificacionUsuarios).build());
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
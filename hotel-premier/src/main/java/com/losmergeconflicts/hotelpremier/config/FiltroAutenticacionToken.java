@@ -0,0 +1,60 @@
+package com.losmergeconflicts.hotelpremier.config;
+
+import com.losmergeconflicts.hotelpremier.dto.UsuarioAutenticado;
+import com.losmergeconflicts.hotelpremier.service.EmisorTokens;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Autentica los requests de la API con el token del encabezado
+ * "Authorization: Bearer ...", sin sesión HTTP (ver EmisorTokens).
+ *
+ * - Sin encabezado Bearer: el request sigue como anónimo.
+ * - Con un token inválido o vencido: se responde 401 sin seguir la cadena.
+ *
+ * No es un @Component a propósito: Spring Boot registraría el filtro para todas
+ * las URLs. Lo agrega SecurityConfig sólo a la cadena de /api/**.
+ */
+class FiltroAutenticacionToken extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+
+    private final EmisorTokens emisorTokens;
+
+    FiltroAutenticacionToken(EmisorTokens emisorTokens) {
+        this.emisorTokens = emisorTokens;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encabezado = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (encabezado == null || !encabezado.regionMatches(true, 0, PREFIJO, 0, PREFIJO.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<UsuarioAutenticado> usuario = emisorTokens.verificar(encabezado.substring(PREFIJO.length()).trim());
+        if (usuario.isEmpty()) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token inválido o vencido");
+            return;
+        }
+
+        SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+        contexto.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                usuario.get(), null, usuario.get().getAuthorities()));
+        SecurityContextHolder.setContext(contexto);
+        chain.doFilter(request, response);
+    }
+}
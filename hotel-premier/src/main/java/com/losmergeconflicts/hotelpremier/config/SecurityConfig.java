@@ -1,13 +1,35 @@
 package com.losmergeconflicts.hotelpremier.config;
 
+import com.losmergeconflicts.hotelpremier.service.CodificadorContrasenias;
+import com.losmergeconflicts.hotelpremier.service.EmisorTokens;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.DelegatingSecurityContextRepository;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.csrf.CsrfFilter;
+
+import java.util.Map;
 
 /**
  * Configuración de seguridad para Spring Security.
@@ -18,13 +40,23 @@ import org.springframework.security.web.SecurityFilterChain;
  * - El comportamiento del logout
  * - El algoritmo de encriptación de contraseñas
  * 
+ * Hay dos cadenas de filtros:
+ * - /api/**: sin estado. Se autentica con el token firmado que emite
+ *   POST /api/auth/token (ver EmisorTokens), sin sesión HTTP ni JSESSIONID,
+ *   así cualquier instancia puede atender cualquier llamada. Las pantallas
+ *   llaman a la API desde el navegador con la sesión del login por formulario:
+ *   esa sesión también se acepta, pero la API nunca la crea.
+ * - El resto (pantallas): login por formulario con sesión HTTP.
+ * 
  * ⚠️ IMPORTANTE - CONFIGURACIÓN DE DESARROLLO:
- * Actualmente todos los endpoints /api/** están públicos para facilitar
- * el desarrollo y testing con Swagger UI.
+ * Mientras hotel.seguridad.api.requiere-token sea false (valor por defecto),
+ * los endpoints /api/** siguen públicos para facilitar el desarrollo y testing
+ * con Swagger UI; si llega un token, igual se verifica.
  * 
  * 🔒 PARA PRODUCCIÓN:
+ * - Activar hotel.seguridad.api.requiere-token y configurar
+ *   hotel.seguridad.token.secreto (el mismo en todas las instancias)
  * - Restringir endpoints /api/** según roles y permisos
- * - Implementar JWT o sesiones seguras para APIs
  * - Habilitar CORS solo para dominios confiables
  * - Implementar rate limiting y protección contra ataques
  * 
@@ -43,19 +75,122 @@ public class SecurityConfig {
      * BCrypt es un algoritmo de hash seguro diseñado específicamente para contraseñas:
      * - Incluye un "salt" aleatorio (previene rainbow table attacks)
      * - Es computacionalmente costoso (previene brute force attacks)
-     * - El nivel 10 (default) realiza 2^10 = 1024 rondas de hashing
+     * - El costo N realiza 2^N rondas de hashing (10 = 1024 rondas)
+     * 
+     * Los hashes nuevos se guardan con prefijo de algoritmo ("{bcrypt}$2a$...")
+     * mediante DelegatingPasswordEncoder. Los hashes sin prefijo (anteriores a esta
+     * configuración) se siguen verificando como BCrypt.
+     * 
+     * Al hacer login, si el hash guardado no tiene prefijo o tiene un costo menor
+     * al configurado, Spring Security lo recalcula con la contraseña recién
+     * verificada y lo guarda con UserDetailsServiceImpl.updatePassword. Así, subir
+     * hotel.seguridad.bcrypt.costo actualiza los hashes a medida que cada conserje
+     * inicia sesión, sin pedirle que cambie la contraseña.
+     * 
+     * Los hashes se calculan en un pool acotado de hilos (ver CodificadorContrasenias)
+     * para que una ráfaga de logins no ocupe todos los núcleos.
      * 
      * Este bean será inyectado automáticamente donde se necesite hashear/verificar passwords.
      * 
-     * @return BCryptPasswordEncoder configurado
+     * @param costo costo de BCrypt para los hashes nuevos (4 a 31)
+     * @param hilos cálculos de hash simultáneos; 0 = cantidad de núcleos
+     * @param cola cálculos que pueden esperar turno antes de rechazar logins
+     * @return PasswordEncoder configurado
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${hotel.seguridad.bcrypt.costo:10}") int costo,
+                                           @Value("${hotel.seguridad.hash.hilos:0}") int hilos,
+                                           @Value("${hotel.seguridad.hash.cola:200}") int cola) {
+        DelegatingPasswordEncoder delegante = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(costo)));
+        delegante.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(costo));
+        int cantidadHilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        return new CodificadorContrasenias(delegante, cantidadHilos, cola);
+    }
+
+    /**
+     * AuthenticationManager con los conserjes de la base. Lo usan el login por
+     * formulario y la emisión de tokens de la API (GestorSeguridad.emitirToken).
+     * 
+     * @param userDetailsService carga de usuarios (UserDetailsServiceImpl)
+     * @param passwordEncoder encoder de contraseñas
+     * @param userDetailsPasswordService actualización de hashes viejos al autenticar
+     * @return AuthenticationManager configurado
+     */
+    @Bean
+    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService,
+                                                       PasswordEncoder passwordEncoder,
+                                                       UserDetailsPasswordService userDetailsPasswordService) {
+        DaoAuthenticationProvider proveedor = new DaoAuthenticationProvider(userDetailsService);
+        proveedor.setPasswordEncoder(passwordEncoder);
+        proveedor.setUserDetailsPasswordService(userDetailsPasswordService);
+        return new ProviderManager(proveedor);
+    }
+
+    /**
+     * Configura la cadena de filtros de la API REST (/api/**), sin estado.
+     * 
+     * - No crea la sesión HTTP: el SecurityContext se arma con el token del
+     *   encabezado Authorization o, en las llamadas de las pantallas (fetch desde
+     *   el navegador), se lee de la sesión ya abierta con el login por formulario.
+     * - CSRF: las llamadas con token no lo necesitan (no hay cookie que un sitio
+     *   ajeno pueda aprovechar). Si la API exige autenticación, las que modifican
+     *   datos con la cookie de sesión deben traer el encabezado CSRF, que agrega
+     *   /js/api.js en las pantallas.
+     * - Sin autenticación responde 401 (no redirige al formulario de login).
+     * 
+     * @param http objeto HttpSecurity para configurar
+     * @param emisorTokens verificación de los tokens
+     * @param requiereToken si las llamadas a /api/** deben estar autenticadas
+     * @return SecurityFilterChain configurado
+     * @throws Exception si hay error en la configuración
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Order(1)
+    public SecurityFilterChain apiSecurityFilterChain(
+            HttpSecurity http,
+            EmisorTokens emisorTokens,
+            @Value("${hotel.seguridad.api.requiere-token:false}") boolean requiereToken) throws Exception {
+        // Sólo lee la sesión de las pantallas; la API nunca la crea ni la modifica
+        HttpSessionSecurityContextRepository sesionPantallas = new HttpSessionSecurityContextRepository();
+        sesionPantallas.setAllowSessionCreation(false);
+
+        http
+            .securityMatcher("/api/**")
+            .csrf(csrf -> csrf
+                .ignoringRequestMatchers("/api/auth/token")
+                .requireCsrfProtectionMatcher(request -> requiereToken
+                        && CsrfFilter.DEFAULT_CSRF_MATCHER.matches(request)
+                        && request.getHeader(HttpHeaders.AUTHORIZATION) == null
+                        && request.getSession(false) != null)
+            )
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .securityContext(context -> context.securityContextRepository(new DelegatingSecurityContextRepository(
+                    new RequestAttributeSecurityContextRepository(), sesionPantallas)))
+            .requestCache(AbstractHttpConfigurer::disable)
+            .formLogin(AbstractHttpConfigurer::disable)
+            .httpBasic(AbstractHttpConfigurer::disable)
+            .logout(AbstractHttpConfigurer::disable)
+            .addFilterBefore(new FiltroAutenticacionToken(emisorTokens), UsernamePasswordAuthenticationFilter.class)
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+            )
+            .authorizeHttpRequests(authorize -> {
+                // Emisión de tokens: pública
+                authorize.requestMatchers("/api/auth/token").permitAll();
+                if (requiereToken) {
+                    authorize.anyRequest().authenticated();
+                } else {
+                    // API REST pública (para desarrollo y testing con Swagger)
+                    authorize.anyRequest().permitAll();
+                }
+            });
+
+        return http.build();
     }
 
     /**
-     * Configura la cadena de filtros de seguridad.
+     * Configura la cadena de filtros de las pantallas (todo lo que no es /api/**).
      * 
      * Este es el corazón de la configuración de Spring Security.
      * Define las reglas de acceso y comportamiento de autenticación.
@@ -65,13 +200,9 @@ public class SecurityConfig {
      * @throws Exception si hay error en la configuración
      */
     @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
-            // Deshabilitar CSRF para endpoints de API REST
-            .csrf(csrf -> csrf
-                .ignoringRequestMatchers("/api/**")
-            )
-            
             // Configuración de autorización de requests
             .authorizeHttpRequests(authorize -> authorize
                 // Recursos estáticos públicos (CSS, JS, imágenes)
@@ -80,9 +211,6 @@ public class SecurityConfig {
                 // Endpoints de autenticación públicos
                 .requestMatchers("/login", "/registro").permitAll()
                 
-                // API REST endpoints públicos (para desarrollo y testing con Swagger)
-                .requestMatchers("/api/**").permitAll()
-                
                 // Swagger UI y documentación API pública
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
                 
@@ -2,19 +2,28 @@ package com.losmergeconflicts.hotelpremier.controller;
 
 import com.losmergeconflicts.hotelpremier.dto.EstadiaDTOResponse;
 import com.losmergeconflicts.hotelpremier.dto.EstadiaDTORequest;
+import com.losmergeconflicts.hotelpremier.dto.ModoLote;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoCierreEstadiasDTO;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoOcupacionLoteDTO;
+import com.losmergeconflicts.hotelpremier.service.CierreEstadias;
 import com.losmergeconflicts.hotelpremier.service.GestorEstadias;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/estadias")
 @RequiredArgsConstructor
@@ -23,6 +32,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class EstadiaController {
 
     private final GestorEstadias gestorEstadias;
+    private final CierreEstadias cierreEstadias;
 
     @Operation(summary = "Ocupar Habitación (Check-in)", description = "Registra una nueva estadía asignando responsable y acompañantes.")
     @PostMapping("/ocupar")
@@ -30,4 +40,45 @@ public class EstadiaController {
         EstadiaDTOResponse response = gestorEstadias.registrarOcupacion(request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
+
+    /**
+     * Registra el check-in de un grupo (por ejemplo, un contingente que llega junto).
+     *
+     * Responde 201 si se registraron todas las ocupaciones y 200 si en modo
+     * MEJOR_ESFUERZO alguna fue rechazada (el detalle va en cada resultado).
+     */
+    @Operation(summary = "Ocupar Habitaciones en lote (Check-in grupal)",
+            description = "Registra varias estadías en una sola operación e informa el resultado de cada una.")
+    @PostMapping("/ocupar-lote")
+    public ResponseEntity<ResultadoOcupacionLoteDTO> ocuparHabitacionesEnLote(
+            @RequestBody List<@Valid EstadiaDTORequest> requests,
+            @RequestParam(defaultValue = "TODO_O_NADA") ModoLote modo) {
+
+        log.info("Iniciando check-in grupal de {} ocupaciones", requests.size());
+
+        ResultadoOcupacionLoteDTO resultado = gestorEstadias.registrarOcupacionesEnLote(requests, modo);
+
+        HttpStatus status = resultado.rechazadas() == 0 ? HttpStatus.CREATED : HttpStatus.OK;
+        return new ResponseEntity<>(resultado, status);
+    }
+
+    /**
+     * Ejecuta a pedido el cierre de estadías (egreso, facturación y liberación de
+     * habitaciones) que también corre todos los días en forma programada. Sin fecha
+     * cierra las del día; con una fecha anterior, las que hayan quedado pendientes,
+     * con la salida de esa fecha a la hora de check-out.
+     *
+     * Responde 400 si la fecha es posterior a hoy y 409 si ya hay un cierre en ejecución.
+     */
+    @Operation(summary = "Cerrar Estadías del día (Check-out en lote)",
+            description = "Registra el egreso, factura y libera las habitaciones de las estadías con egreso previsto para la fecha.")
+    @PostMapping("/cierre")
+    public ResponseEntity<ResultadoCierreEstadiasDTO> cerrarEstadias(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+
+        LocalDate fechaCierre = fecha != null ? fecha : LocalDate.now();
+        log.info("Cierre de estadías a pedido para el {}", fechaCierre);
+
+        return ResponseEntity.ok(cierreEstadias.cerrarEstadias(fechaCierre));
+    }
 }
@@ -0,0 +1,35 @@
+package com.losmergeconflicts.hotelpremier.controller;
+
+import com.losmergeconflicts.hotelpremier.dto.FacturaDTOResponse;
+import com.losmergeconflicts.hotelpremier.service.GestorFacturacion;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/facturas")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Facturación", description = "Endpoints para la emisión de facturas de estadías")
+public class FacturaController {
+
+    private final GestorFacturacion gestorFacturacion;
+
+    @Operation(summary = "Facturar Estadía",
+            description = "Emite la factura de una estadía (alojamiento más consumos) al responsable de pago indicado.")
+    @PostMapping("/estadias/{idEstadia}")
+    public ResponseEntity<FacturaDTOResponse> facturarEstadia(@PathVariable Long idEstadia,
+                                                              @RequestParam Long idResponsableDePago) {
+        log.info("Facturando estadía {} al responsable de pago {}", idEstadia, idResponsableDePago);
+        FacturaDTOResponse response = gestorFacturacion.facturarEstadia(idEstadia, idResponsableDePago);
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+}
@@ -1,19 +1,29 @@
 package com.losmergeconflicts.hotelpremier.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.losmergeconflicts.hotelpremier.dto.DetalleReservaDTO;
+import com.losmergeconflicts.hotelpremier.dto.GrillaCompactaDTO;
 import com.losmergeconflicts.hotelpremier.dto.GrillaDisponibilidadDTO;
 import com.losmergeconflicts.hotelpremier.dto.HabitacionDTOResponse;
 import com.losmergeconflicts.hotelpremier.entity.TipoHabitacion;
 import com.losmergeconflicts.hotelpremier.service.GestorHabitaciones;
+import com.losmergeconflicts.hotelpremier.service.GrillaEnStreaming;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -24,22 +34,90 @@ import java.util.List;
 @Tag(name = "Gestión de Habitaciones", description = "Endpoints del GestorHabitaciones")
 public class HabitacionController {
 
+    /**
+     * Cada cuántas filas se fuerza el envío al cliente en la grilla en streaming.
+     */
+    private static final int FILAS_POR_ENVIO = 31;
+
     private final GestorHabitaciones gestorHabitaciones;
+    private final ObjectMapper objectMapper;
 
-    @Operation(summary = "Obtener estados (CU05)", description = "Devuelve la grilla de disponibilidad. Si no se envía 'tipo', devuelve todas.")
+    @Operation(summary = "Obtener estados (CU05)",
+            description = "Devuelve la grilla de disponibilidad. Si no se envía 'tipo', devuelve todas. " +
+                    "Con 'formato=compacto' (o Accept: " + GrillaCompactaDTO.MEDIA_TYPE + ") devuelve la grilla " +
+                    "por columnas, un carácter por día; con 'rle=true' además comprime cada columna por rachas.")
     @GetMapping("/estados")
     public ResponseEntity<?> obtenerEstados(
             @RequestParam(value = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
             @RequestParam(value = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
-            @RequestParam(value = "tipo", required = false) TipoHabitacion tipo) {
+            @RequestParam(value = "tipo", required = false) TipoHabitacion tipo,
+            @RequestParam(value = "formato", required = false) String formato,
+            @RequestParam(value = "rle", defaultValue = "false") boolean rle,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
 
         log.info("REST: Solicitando estados. Desde: {}, Hasta: {}, Tipo: {}", desde, hasta, (tipo != null ? tipo : "TODAS"));
 
+        if ("compacto".equalsIgnoreCase(formato) || (accept != null && accept.contains(GrillaCompactaDTO.MEDIA_TYPE))) {
+            return ResponseEntity.ok(gestorHabitaciones.obtenerEstadosCompactos(desde, hasta, tipo, rle));
+        }
+
         GrillaDisponibilidadDTO grilla = gestorHabitaciones.obtenerEstados(desde, hasta, tipo);
 
         return ResponseEntity.ok(grilla);
     }
 
+    /**
+     * Grilla de disponibilidad en streaming (NDJSON).
+     *
+     * La primera línea trae las habitaciones (nombres e IDs) y cada línea siguiente
+     * una fila de la grilla. Los intervalos se cargan y validan antes de responder,
+     * así un rango inválido sigue devolviendo 400; las filas se calculan y se escriben
+     * de a una mientras se envía la respuesta.
+     */
+    @Operation(summary = "Obtener estados en streaming (CU05)",
+            description = "Igual que /estados pero emite NDJSON: una línea de encabezado y luego una línea por día.")
+    @GetMapping(value = "/estados", params = "formato=ndjson")
+    public ResponseEntity<StreamingResponseBody> obtenerEstadosEnStreaming(
+            @RequestParam(value = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(value = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(value = "tipo", required = false) TipoHabitacion tipo) {
+
+        log.info("REST: Solicitando estados en streaming. Desde: {}, Hasta: {}, Tipo: {}", desde, hasta, (tipo != null ? tipo : "TODAS"));
+
+        GrillaEnStreaming grilla = gestorHabitaciones.obtenerEstadosEnStreaming(desde, hasta, tipo);
+        ObjectWriter writer = objectMapper.writer();
+
+        StreamingResponseBody cuerpo = out -> {
+            escribirLinea(writer, out, grilla.getEncabezado());
+            int[] pendientes = {0};
+            try {
+                grilla.emitirFilas(fila -> {
+                    try {
+                        escribirLinea(writer, out, fila);
+                        if (++pendientes[0] == FILAS_POR_ENVIO) {
+                            out.flush();
+                            pendientes[0] = 0;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
+    }
+
+    private static void escribirLinea(ObjectWriter writer, OutputStream out, Object valor) throws IOException {
+        out.write(writer.writeValueAsBytes(valor));
+        out.write('\n');
+    }
+
     @GetMapping("/reserva-detalle")
     public ResponseEntity<DetalleReservaDTO> obtenerDetalleReserva(
             @RequestParam("nombre") String nombre,
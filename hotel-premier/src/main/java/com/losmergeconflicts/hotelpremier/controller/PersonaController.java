@@ -1,8 +1,11 @@
 package com.losmergeconflicts.hotelpremier.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,11 +15,16 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.losmergeconflicts.hotelpremier.dto.FormatoImportacion;
 import com.losmergeconflicts.hotelpremier.dto.HuespedDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.HuespedDTOResponse;
 import com.losmergeconflicts.hotelpremier.dto.LocalidadDTO;
 import com.losmergeconflicts.hotelpremier.dto.NacionalidadDTO;
+import com.losmergeconflicts.hotelpremier.dto.PaginaHuespedesDTO;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoImportacionDTO;
 import com.losmergeconflicts.hotelpremier.entity.TipoDocumento;
+import com.losmergeconflicts.hotelpremier.service.DatosReferencia;
+import com.losmergeconflicts.hotelpremier.service.GestorImportacionHuespedes;
 import com.losmergeconflicts.hotelpremier.service.GestorPersonas;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -38,10 +46,15 @@ import lombok.extern.slf4j.Slf4j;
 public class PersonaController {
 
     private final GestorPersonas gestorPersonas;
+    private final DatosReferencia datosReferencia;
+    private final GestorImportacionHuespedes gestorImportacionHuespedes;
 
     @Autowired
-    public PersonaController(GestorPersonas gestorPersonas) {
+    public PersonaController(GestorPersonas gestorPersonas, DatosReferencia datosReferencia,
+                             GestorImportacionHuespedes gestorImportacionHuespedes) {
         this.gestorPersonas = gestorPersonas;
+        this.datosReferencia = datosReferencia;
+        this.gestorImportacionHuespedes = gestorImportacionHuespedes;
     }
 
     /**
@@ -86,6 +99,33 @@ public class PersonaController {
         return new ResponseEntity<>(nuevoHuesped, HttpStatus.CREATED);
     }
 
+    /**
+     * Importa huéspedes en forma masiva desde un archivo CSV o JSON (migración desde
+     * otro sistema). El cuerpo se lee de a una fila, sin cargarlo entero en memoria.
+     *
+     * @param formato formato del cuerpo (CSV por defecto)
+     * @param cuerpo contenido del archivo, en UTF-8
+     * @return ResponseEntity con las cantidades importadas, omitidas y rechazadas
+     * @throws IOException si no se puede leer el cuerpo
+     */
+    @Operation(summary = "Importación masiva de huéspedes",
+                description = "Importa huéspedes desde un archivo CSV (con encabezado) o JSON (arreglo de objetos). "
+                        + "Las filas inválidas se rechazan y los documentos ya registrados se omiten.",
+                responses = {
+                    @ApiResponse(responseCode = "200", description = "Importación procesada (ver filas rechazadas)"),
+                    @ApiResponse(responseCode = "400", description = "Archivo vacío o formato inválido"),
+                    @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+                })
+    @PostMapping("/huesped/importar")
+    public ResponseEntity<ResultadoImportacionDTO> importarHuespedes(
+            @RequestParam(value = "formato", defaultValue = "CSV") FormatoImportacion formato,
+            InputStream cuerpo) throws IOException {
+        log.info("POST /api/personas/huesped/importar - Formato: {}", formato);
+        try (cuerpo) {
+            return ResponseEntity.ok(gestorImportacionHuespedes.importarHuespedes(cuerpo, formato));
+        }
+    }
+
     /**
      * Obtiene todas las localidades disponibles en el sistema.
      * 
@@ -100,8 +140,7 @@ public class PersonaController {
     @GetMapping("/localidades")
     public ResponseEntity<List<LocalidadDTO>> listarLocalidades() {
         log.info("GET /api/personas/localidades - Solicitando lista de localidades");
-        List<LocalidadDTO> localidades = gestorPersonas.listarLocalidades();
-        return new ResponseEntity<>(localidades, HttpStatus.OK);
+        return conETag(datosReferencia.getLocalidades());
     }
 
     /**
@@ -118,38 +157,79 @@ public class PersonaController {
     @GetMapping("/nacionalidades")
     public ResponseEntity<List<NacionalidadDTO>> listarNacionalidades() {
         log.info("GET /api/personas/nacionalidades - Solicitando lista de nacionalidades");
-        List<NacionalidadDTO> nacionalidades = gestorPersonas.listarNacionalidades();
-        return new ResponseEntity<>(nacionalidades, HttpStatus.OK);
+        return conETag(datosReferencia.getNacionalidades());
+    }
+
+    /**
+     * Recarga desde la base de datos las localidades y nacionalidades servidas en memoria.
+     *
+     * @return 204 al terminar la recarga
+     */
+    @Operation(summary = "Recargar datos de referencia",
+                description = "Vuelve a leer localidades y nacionalidades de la base de datos; cambia el ETag si cambiaron.",
+                responses = {
+                    @ApiResponse(responseCode = "204", description = "Datos de referencia recargados"),
+                    @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+                })
+    @PostMapping("/referencias/recargar")
+    public ResponseEntity<Void> recargarDatosReferencia() {
+        log.info("POST /api/personas/referencias/recargar - Recargando datos de referencia");
+        datosReferencia.recargar();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Respuesta con ETag fuerte y Cache-Control no-cache: el navegador guarda la lista
+     * pero la revalida en cada uso. Si el If-None-Match coincide, Spring responde
+     * 304 sin cuerpo.
+     */
+    private static <T> ResponseEntity<List<T>> conETag(DatosReferencia.ListaVersionada<T> lista) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(lista.etag())
+                .body(lista.datos());
     }
 
     /**
      * Busca huéspedes en el sistema según los criterios proporcionados.
      * Este endpoint corresponde a CU02: Buscar Huésped.
      *
+     * Los resultados se devuelven de a una página; para la siguiente se reenvían
+     * los mismos criterios junto con el cursor recibido.
+     *
      * @param apellido      Criterio de búsqueda (opcional)
      * @param nombre        Criterio de búsqueda (opcional)
      * @param tipoDocumento Criterio de búsqueda (opcional)
      * @param documento     Criterio de búsqueda (opcional)
-     * @return ResponseEntity con la lista de huéspedes que coinciden con los criterios
+     * @param cursor        Cursor de la página anterior (opcional)
+     * @param tamanio       Tamaño de página (opcional)
+     * @param conTotal      Si se informa el total de coincidencias en la primera página
+     * @return ResponseEntity con la página de huéspedes que coinciden con los criterios
      */
     @Operation(summary = "Buscar huéspedes",
-                description = "Busca huéspedes en el sistema según apellido, nombre, tipo de documento y/o número de documento.",
+                description = "Busca huéspedes en el sistema según apellido, nombre, tipo de documento y/o número de documento. "
+                        + "Devuelve una página ordenada por apellido y nombre, con un cursor para pedir la siguiente.",
                 responses = {
                     @ApiResponse(responseCode = "200", description = "Búsqueda realizada correctamente"),
+                    @ApiResponse(responseCode = "400", description = "Cursor o tamaño de página inválido"),
                     @ApiResponse(responseCode = "500", description = "Error interno del servidor")
                 })
     @PostMapping("/huesped/buscar")
-    public ResponseEntity<List<HuespedDTOResponse>> buscarHuespedes(
+    public ResponseEntity<PaginaHuespedesDTO> buscarHuespedes(
             @RequestParam(value = "apellido", required = false) String apellido,
             @RequestParam(value = "nombre", required = false) String nombre,
             @RequestParam(value = "tipoDocumento", required = false) TipoDocumento tipoDocumento,
-            @RequestParam(value = "documento", required = false) String documento) {
+            @RequestParam(value = "documento", required = false) String documento,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "tamanio", required = false) Integer tamanio,
+            @RequestParam(value = "conTotal", defaultValue = "false") boolean conTotal) {
 
         log.info("POST /api/personas/huesped/buscar - Params recibidos");
 
-        List<HuespedDTOResponse> huespedes = gestorPersonas.buscarHuespedes(apellido, nombre, tipoDocumento, documento);
+        PaginaHuespedesDTO pagina = gestorPersonas.buscarHuespedes(
+                apellido, nombre, tipoDocumento, documento, cursor, tamanio, conTotal);
 
-        return ResponseEntity.ok(huespedes);
+        return ResponseEntity.ok(pagina);
     }
 
 }
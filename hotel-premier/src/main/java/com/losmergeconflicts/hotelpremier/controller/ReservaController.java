@@ -2,6 +2,8 @@ package com.losmergeconflicts.hotelpremier.controller;
 
 import com.losmergeconflicts.hotelpremier.dto.ReservaDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.ReservaDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.ModoLote;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoLoteDTO;
 import com.losmergeconflicts.hotelpremier.service.GestorReservas;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,7 +16,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -48,26 +49,29 @@ public class ReservaController {
 
     /**
      * Registra MÚLTIPLES reservas en una sola operación.
+     *
+     * Todo el lote se procesa en una única transacción. Por defecto (TODO_O_NADA) si
+     * alguna reserva es inválida no se registra ninguna; con modo=MEJOR_ESFUERZO se
+     * registran las válidas y la respuesta informa el motivo de cada rechazo.
      */
     @Operation(summary = "Alta de múltiples reservas",
             description = "Permite registrar varias habitaciones con rangos de fechas independientes.",
             responses = {
-                @ApiResponse(responseCode = "201", description = "Reserva dada de alta correctamente"),
+                @ApiResponse(responseCode = "201", description = "Todas las reservas dadas de alta correctamente"),
+                @ApiResponse(responseCode = "200", description = "Lote procesado en modo MEJOR_ESFUERZO con reservas rechazadas"),
                 @ApiResponse(responseCode = "400", description = "Error de validación en los datos"),
                 @ApiResponse(responseCode = "500", description = "Error interno del servidor")
             })
     @PostMapping("/registrar-multiples")
-    public ResponseEntity<List<ReservaDTOResponse>> registrarMultiplesReservas(
-            @RequestBody List<@Valid ReservaDTORequest> requests) {
+    public ResponseEntity<ResultadoLoteDTO> registrarMultiplesReservas(
+            @RequestBody List<@Valid ReservaDTORequest> requests,
+            @RequestParam(defaultValue = "TODO_O_NADA") ModoLote modo) {
 
         log.info("Iniciando registro masivo de {} reservas", requests.size());
 
-        List<ReservaDTOResponse> respuestas = new ArrayList<>();
+        ResultadoLoteDTO resultado = gestorReservas.registrarReservasEnLote(requests, modo);
 
-        for (ReservaDTORequest req : requests) {
-            respuestas.add(gestorReservas.registrarReserva(req));
-        }
-
-        return new ResponseEntity<>(respuestas, HttpStatus.CREATED);
+        HttpStatus status = resultado.rechazadas() == 0 ? HttpStatus.CREATED : HttpStatus.OK;
+        return new ResponseEntity<>(resultado, status);
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.losmergeconflicts.hotelpremier.controller;
 
 import com.losmergeconflicts.hotelpremier.dto.ConserjeDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.ConserjeDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.TokenDTOResponse;
 import com.losmergeconflicts.hotelpremier.service.GestorSeguridad;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,6 +14,8 @@ import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 /**
@@ -102,4 +105,26 @@ public class SeguridadController {
         }
     }
 
+    /**
+     * Emite un token de acceso a la API REST (/api/**).
+     * 
+     * El token se envía en cada llamada en el encabezado "Authorization: Bearer ...";
+     * la API no usa sesión HTTP.
+     * 
+     * @param request DTO con username y password
+     * @return token firmado y su validez
+     */
+    @Operation(summary = "Obtener token de API",
+                description = "Verifica usuario y contraseña y devuelve un token firmado para las llamadas a /api/**.",
+                responses = {
+                    @ApiResponse(responseCode = "200", description = "Token emitido"),
+                    @ApiResponse(responseCode = "400", description = "Datos inválidos"),
+                    @ApiResponse(responseCode = "401", description = "Usuario o contraseña incorrectos")
+                })
+    @PostMapping("/api/auth/token")
+    @ResponseBody
+    public TokenDTOResponse emitirToken(@Valid @RequestBody ConserjeDTORequest request) {
+        log.debug("Procesando petición de token para: {}", request.username());
+        return gestorSeguridad.emitirToken(request);
+    }
 }
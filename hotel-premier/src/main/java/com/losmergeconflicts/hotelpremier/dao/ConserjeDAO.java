@@ -1,6 +1,8 @@
 package com.losmergeconflicts.hotelpremier.dao;
 
+import com.losmergeconflicts.hotelpremier.config.CacheConfig;
 import com.losmergeconflicts.hotelpremier.entity.Conserje;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -40,4 +42,16 @@ public interface ConserjeDAO extends JpaRepository<Conserje, Long> {
      * @return true si existe, false si no
      */
     boolean existsByUsername(String username);
+
+    /**
+     * Guarda un conserje (alta o cambio de contraseña) e invalida su entrada en el
+     * caché de usuarios (después del commit, ver CacheConfig), así el próximo login
+     * lee los datos nuevos.
+     *
+     * @param conserje conserje a guardar
+     * @return el conserje guardado
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.CACHE_USUARIOS, key = "#p0.username")
+    <S extends Conserje> S save(S conserje);
 }
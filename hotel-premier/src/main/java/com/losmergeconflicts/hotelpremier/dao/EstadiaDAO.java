@@ -1,25 +1,101 @@
 package com.losmergeconflicts.hotelpremier.dao;
 
+import com.losmergeconflicts.hotelpremier.dto.ConsumoEstadiaDTO;
+import com.losmergeconflicts.hotelpremier.dto.EgresoPendienteDTO;
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
 import com.losmergeconflicts.hotelpremier.entity.Estadia;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface EstadiaDAO extends JpaRepository<Estadia, Long> {
 
-    @Query("SELECT e FROM Estadia e WHERE " +
+    /**
+     * Intervalos ocupados que se superponen con el rango, sin cargar las entidades.
+     * El intervalo termina el día de egreso; si todavía no hubo egreso, el día de egreso
+     * esperado; y si tampoco hay fecha esperada queda abierto (hasta = null).
+     */
+    @Query("SELECT new com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO(" +
+            "e.habitacion.id, CAST(e.fechaHoraIngreso AS LocalDate), " +
+            "COALESCE(CAST(e.fechaHoraEgreso AS LocalDate), e.fechaEgresoEsperado), " +
+            "com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion.OCUPADA) " +
+            "FROM Estadia e WHERE " +
             "e.fechaHoraIngreso <= :fechaHasta AND " +
             "(e.fechaHoraEgreso IS NULL OR e.fechaHoraEgreso >= :fechaDesde)")
-    List<Estadia> findEstadiasEnRango(@Param("fechaDesde") LocalDateTime fechaDesde,
-                                      @Param("fechaHasta") LocalDateTime fechaHasta);
+    List<IntervaloOcupacionDTO> findIntervalosOcupadosEnRango(@Param("fechaDesde") LocalDateTime fechaDesde,
+                                                              @Param("fechaHasta") LocalDateTime fechaHasta);
 
+    /**
+     * Igual que findIntervalosOcupadosEnRango pero sólo para las habitaciones indicadas.
+     */
+    @Query("SELECT new com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO(" +
+            "e.habitacion.id, CAST(e.fechaHoraIngreso AS LocalDate), " +
+            "COALESCE(CAST(e.fechaHoraEgreso AS LocalDate), e.fechaEgresoEsperado), " +
+            "com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion.OCUPADA) " +
+            "FROM Estadia e WHERE e.habitacion.id IN :idsHabitaciones AND " +
+            "e.fechaHoraIngreso <= :fechaHasta AND " +
+            "(e.fechaHoraEgreso IS NULL OR e.fechaHoraEgreso >= :fechaDesde)")
+    List<IntervaloOcupacionDTO> findIntervalosOcupadosDeHabitaciones(@Param("idsHabitaciones") Collection<Long> idsHabitaciones,
+                                                                     @Param("fechaDesde") LocalDateTime fechaDesde,
+                                                                     @Param("fechaHasta") LocalDateTime fechaHasta);
+
+    /**
+     * Bloquea (SELECT ... FOR UPDATE) las estadías indicadas hasta el fin de la
+     * transacción, siempre en orden de ID. Se usa antes de facturar para que dos
+     * facturaciones simultáneas de la misma estadía no pasen las dos el control de
+     * "ya facturada": la segunda espera y ve la factura de la primera.
+     *
+     * @param ids IDs de las estadías
+     * @return IDs de las estadías encontradas, ordenados
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e.id FROM Estadia e WHERE e.id IN :ids ORDER BY e.id")
+    List<Long> bloquearParaFacturar(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Datos para facturar las estadías indicadas, con sus consumos, en una sola
+     * consulta y sin cargar las entidades: una fila por consumo, o una fila con el
+     * consumo en null si la estadía no tiene consumos (ver ConsumoEstadiaDTO).
+     */
+    @Query("SELECT new com.losmergeconflicts.hotelpremier.dto.ConsumoEstadiaDTO(" +
+            "e.id, e.fechaHoraIngreso, e.fechaHoraEgreso, " +
+            "CASE WHEN EXISTS (SELECT 1 FROM Factura f WHERE f.estadia = e) THEN true ELSE false END, " +
+            "h.nombre, h.tipoHabitacion, h.precio, i.id, i.nombre, i.precio) " +
+            "FROM Estadia e JOIN e.habitacion h LEFT JOIN e.itemsConsumo i " +
+            "WHERE e.id IN :ids ORDER BY e.id, i.id")
+    List<ConsumoEstadiaDTO> findConsumosParaFacturar(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Estadías con egreso previsto para la fecha que todavía no registraron el egreso
+     * (cierre de estadías en lote), ordenadas por ID. El responsable de pago es el
+     * que tiene el mismo CUIT que el huésped asignado, si existe.
+     */
+    @Query("SELECT new com.losmergeconflicts.hotelpremier.dto.EgresoPendienteDTO(" +
+            "e.id, e.habitacion.id, " +
+            "(SELECT MIN(r.id) FROM ResponsableDePago r WHERE r.cuit = hu.cuit)) " +
+            "FROM Estadia e JOIN e.huespedAsignado hu " +
+            "WHERE e.fechaEgresoEsperado = :fecha AND e.fechaHoraEgreso IS NULL ORDER BY e.id")
+    List<EgresoPendienteDTO> findEgresosPendientes(@Param("fecha") LocalDate fecha);
+
+    /**
+     * Registra el egreso de varias estadías con un único UPDATE. Las que ya tenían
+     * egreso no se modifican.
+     *
+     * @param ids IDs de las estadías
+     * @param egreso fecha y hora de egreso
+     * @return cantidad de estadías actualizadas
+     */
     @Modifying
-    @Query(value = "INSERT INTO estadia_huespedes_acompaniantes (estadia_id, huesped_id) VALUES (:idEstadia, :idHuesped)", nativeQuery = true)
-    void registrarAcompanante(@Param("idEstadia") Long idEstadia, @Param("idHuesped") Long idHuesped);
-}
\ No newline at end of file
+    @Query("UPDATE Estadia e SET e.fechaHoraEgreso = :egreso WHERE e.id IN :ids AND e.fechaHoraEgreso IS NULL")
+    int registrarEgresos(@Param("ids") Collection<Long> ids, @Param("egreso") LocalDateTime egreso);
+}
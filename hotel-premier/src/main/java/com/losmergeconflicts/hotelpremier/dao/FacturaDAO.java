@@ -0,0 +1,9 @@
+package com.losmergeconflicts.hotelpremier.dao;
+
+import com.losmergeconflicts.hotelpremier.entity.Factura;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FacturaDAO extends JpaRepository<Factura, Long> {
+}
@@ -1,26 +1,98 @@
 package com.losmergeconflicts.hotelpremier.dao;
 
+import com.losmergeconflicts.hotelpremier.config.CacheConfig;
 import com.losmergeconflicts.hotelpremier.entity.Habitacion;
 import com.losmergeconflicts.hotelpremier.entity.TipoHabitacion;
 import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion; // <--- AGREGAR IMPORT
+import org.springframework.cache.annotation.CacheEvict;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface HabitacionDAO extends JpaRepository<Habitacion, Long> {
 
-    List<Habitacion> findAllByOrderByNombreAsc();
-
-    List<Habitacion> findByTipoHabitacionOrderByNombreAsc(TipoHabitacion tipo);
-
     List<Habitacion> findByTipoHabitacion(TipoHabitacion tipo);
 
+    /**
+     * Busca y bloquea (SELECT ... FOR UPDATE) las habitaciones indicadas hasta el fin
+     * de la transacción. Las filas se bloquean siempre en orden de ID, así dos
+     * transacciones que piden las mismas habitaciones en distinto orden no se bloquean
+     * mutuamente (deadlock).
+     *
+     * @param ids IDs de las habitaciones
+     * @return habitaciones encontradas, ordenadas por ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Habitacion h WHERE h.id IN :ids ORDER BY h.id")
+    List<Habitacion> findAllByIdParaActualizar(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Cambia el estado de una habitación e invalida el catálogo cacheado
+     * (después del commit, ver CacheConfig).
+     */
     @Modifying
-    @Query("UPDATE Habitacion h SET h.estadoHabitacion = :nuevoEstado WHERE h.id = :id")
+    @CacheEvict(cacheNames = CacheConfig.CACHE_HABITACIONES, allEntries = true)
+    @Query("UPDATE Habitacion h SET h.estadoHabitacion = :nuevoEstado, h.version = h.version + 1 WHERE h.id = :id")
     void actualizarEstado(@Param("id") Long id, @Param("nuevoEstado") TipoEstadoHabitacion nuevoEstado);
+
+    /**
+     * Cambia el estado de varias habitaciones con un único UPDATE e invalida el
+     * catálogo cacheado. Incrementa la versión de cada una, así los check-ins
+     * individuales que las hayan leído antes detectan el cambio.
+     *
+     * @param ids IDs de las habitaciones
+     * @param nuevoEstado estado a asignar
+     * @return cantidad de habitaciones actualizadas
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.CACHE_HABITACIONES, allEntries = true)
+    @Query("UPDATE Habitacion h SET h.estadoHabitacion = :nuevoEstado, h.version = h.version + 1 WHERE h.id IN :ids")
+    int actualizarEstadoDeHabitaciones(@Param("ids") Collection<Long> ids,
+                                       @Param("nuevoEstado") TipoEstadoHabitacion nuevoEstado);
+
+    /**
+     * Libera con un único UPDATE las habitaciones de estadías que se acaban de
+     * cerrar, salvo las que tienen otra estadía abierta (un huésped que ingresó el
+     * mismo día del egreso). Incrementa la versión e invalida el catálogo cacheado
+     * igual que actualizarEstadoDeHabitaciones.
+     *
+     * @param ids IDs de las habitaciones
+     * @param cerradas IDs de las estadías cerradas, que no cuentan como abiertas
+     * @return cantidad de habitaciones liberadas
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.CACHE_HABITACIONES, allEntries = true)
+    @Query("UPDATE Habitacion h SET " +
+            "h.estadoHabitacion = com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion.LIBRE, " +
+            "h.version = h.version + 1 " +
+            "WHERE h.id IN :ids AND NOT EXISTS (SELECT 1 FROM Estadia e " +
+            "WHERE e.habitacion.id = h.id AND e.fechaHoraEgreso IS NULL AND e.id NOT IN :cerradas)")
+    int liberarHabitacionesSinOtraEstadia(@Param("ids") Collection<Long> ids,
+                                          @Param("cerradas") Collection<Long> cerradas);
+
+    /**
+     * Cambia el estado de una habitación sólo si su versión no cambió desde que se
+     * leyó (control optimista). Si otra transacción la modificó entretanto, la fila
+     * no coincide y no se actualiza nada.
+     *
+     * @param id ID de la habitación
+     * @param nuevoEstado estado a asignar
+     * @param version versión leída
+     * @return 1 si se actualizó; 0 si la versión ya no coincide
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.CACHE_HABITACIONES, allEntries = true)
+    @Query("UPDATE Habitacion h SET h.estadoHabitacion = :nuevoEstado, h.version = h.version + 1 " +
+            "WHERE h.id = :id AND h.version = :version")
+    int actualizarEstadoSiNoCambio(@Param("id") Long id,
+                                   @Param("nuevoEstado") TipoEstadoHabitacion nuevoEstado,
+                                   @Param("version") Long version);
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.losmergeconflicts.hotelpremier.dao;
+
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
+import com.losmergeconflicts.hotelpremier.entity.HabitacionFueraServicio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO (Data Access Object) para la entidad HabitacionFueraServicio.
+ *
+ * Extiende JpaRepository que proporciona métodos CRUD básicos.
+ * Spring Data JPA genera automáticamente la implementación.
+ */
+@Repository
+public interface HabitacionFueraServicioDAO extends JpaRepository<HabitacionFueraServicio, Long> {
+
+    /**
+     * Busca los períodos fuera de servicio que se superponen con el rango indicado.
+     * Un período sin fecha de fin se considera vigente.
+     *
+     * @param fechaDesde inicio del rango (inclusive)
+     * @param fechaHasta fin del rango (inclusive)
+     * @return intervalos fuera de servicio que tocan el rango, sin cargar las entidades
+     */
+    @Query("SELECT new com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO(" +
+            "f.habitacion.id, f.fechaInicio, f.fechaFin, " +
+            "com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion.FUERA_DE_SERVICIO) " +
+            "FROM HabitacionFueraServicio f WHERE " +
+            "f.fechaInicio <= :fechaHasta AND (f.fechaFin IS NULL OR f.fechaFin >= :fechaDesde)")
+    List<IntervaloOcupacionDTO> findIntervalosFueraServicioEnRango(@Param("fechaDesde") LocalDate fechaDesde,
+                                                                   @Param("fechaHasta") LocalDate fechaHasta);
+
+    /**
+     * Igual que findIntervalosFueraServicioEnRango pero sólo para las habitaciones indicadas.
+     *
+     * @param idsHabitaciones habitaciones a consultar
+     * @param fechaDesde inicio del rango (inclusive)
+     * @param fechaHasta fin del rango (inclusive)
+     * @return intervalos fuera de servicio de esas habitaciones que tocan el rango
+     */
+    @Query("SELECT new com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO(" +
+            "f.habitacion.id, f.fechaInicio, f.fechaFin, " +
+            "com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion.FUERA_DE_SERVICIO) " +
+            "FROM HabitacionFueraServicio f WHERE f.habitacion.id IN :idsHabitaciones AND " +
+            "f.fechaInicio <= :fechaHasta AND (f.fechaFin IS NULL OR f.fechaFin >= :fechaDesde)")
+    List<IntervaloOcupacionDTO> findIntervalosFueraServicioDeHabitaciones(@Param("idsHabitaciones") Collection<Long> idsHabitaciones,
+                                                                          @Param("fechaDesde") LocalDate fechaDesde,
+                                                                          @Param("fechaHasta") LocalDate fechaHasta);
+}
@@ -1,23 +1,37 @@
 package com.losmergeconflicts.hotelpremier.dao;
 
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.losmergeconflicts.hotelpremier.dto.CursorHuespedDTO;
+import com.losmergeconflicts.hotelpremier.dto.DocumentoHuespedDTO;
 import com.losmergeconflicts.hotelpremier.entity.Huesped;
 import com.losmergeconflicts.hotelpremier.entity.TipoDocumento;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * DAO (Data Access Object) para la entidad Huesped.
  *
- * Extiende JpaRepository que proporciona métodos CRUD básicos.
+ * Extiende JpaRepository que proporciona métodos CRUD básicos, y
+ * JpaSpecificationExecutor para las búsquedas con criterios opcionales.
  * Spring Data JPA genera automáticamente la implementación.
  */
 @Repository
-public interface HuespedDAO extends JpaRepository<Huesped, Long> {
+public interface HuespedDAO extends JpaRepository<Huesped, Long>, JpaSpecificationExecutor<Huesped> {
 
     /**
      * Verifica si existe un huésped con el tipo y número de documento especificados.
@@ -29,23 +43,147 @@ public interface HuespedDAO extends JpaRepository<Huesped, Long> {
     boolean existsByTipoDocumentoAndDocumento(TipoDocumento tipoDocumento, String documento);
 
     /**
-     * Busca huéspedes basado en los criterios de búsqueda.
-     * La consulta JPQL maneja campos nulos o vacíos, permitiendo una búsqueda flexible.
+     * Recorre el tipo y número de documento de todos los huéspedes, sin cargar las
+     * entidades. Debe consumirse dentro de una transacción y cerrarse al terminar.
      *
-     * @param apellido      Apellido a buscar (parcial, ignora mayúsculas/minúsculas)
-     * @param nombre        Nombre a buscar (parcial, ignora mayúsculas/minúsculas)
+     * @return documentos registrados (puede haber repetidos)
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.losmergeconflicts.hotelpremier.dto.DocumentoHuespedDTO(h.tipoDocumento, h.documento) " +
+            "FROM Huesped h")
+    Stream<DocumentoHuespedDTO> streamDocumentos();
+
+    /**
+     * Documentos registrados entre los números indicados, con una sola consulta.
+     * El tipo de documento se compara después en memoria.
+     *
+     * @param documentos números de documento a verificar
+     * @return tipo y número de los huéspedes con alguno de esos números
+     */
+    @Query("SELECT new com.losmergeconflicts.hotelpremier.dto.DocumentoHuespedDTO(h.tipoDocumento, h.documento) " +
+            "FROM Huesped h WHERE h.documento IN :documentos")
+    List<DocumentoHuespedDTO> findDocumentosRegistrados(@Param("documentos") Collection<String> documentos);
+
+    /**
+     * Busca varios huéspedes con una sola consulta, trayendo en el mismo JOIN su
+     * dirección (con localidad, provincia y país) y su nacionalidad. Con findAllById
+     * cada una de esas relaciones se cargaría con una consulta aparte por huésped.
+     *
+     * @param ids IDs de los huéspedes
+     * @return huéspedes encontrados; los IDs inexistentes no aparecen
+     */
+    @Query("SELECT h FROM Huesped h " +
+            "JOIN FETCH h.direccion d JOIN FETCH d.localidad l JOIN FETCH l.provincia p JOIN FETCH p.pais " +
+            "JOIN FETCH h.nacionalidad " +
+            "WHERE h.id IN :ids")
+    List<Huesped> findAllByIdConDatos(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Busca una página de huéspedes según los criterios de búsqueda, ordenada por
+     * apellido, nombre (normalizados) e ID.
+     *
+     * Apellido y nombre se comparan por subcadena contra las columnas de búsqueda
+     * (apellido_busqueda, nombre_busqueda), que guardan el texto ya normalizado con
+     * Huesped.normalizarParaBusqueda: los criterios deben llegar normalizados de la
+     * misma forma. Así "Perez" encuentra a "Pérez" y la condición es un LIKE '%texto%'
+     * sobre la columna, sin funciones por fila, que en PostgreSQL resuelven los índices
+     * GIN de trigramas sobre esas columnas (ver init.sql).
+     *
+     * La consulta se arma sólo con los criterios informados (nulos o vacíos se
+     * omiten), de modo que cada condición queda como un predicado simple sobre la
+     * columna. El documento también se busca por subcadena con su índice GIN de
+     * trigramas (pg_trgm); con la forma "(:p IS NULL OR ... LIKE ...)" el plan
+     * genérico no podría usar ningún índice y recorrería toda la tabla.
+     *
+     * La paginación es por clave (keyset): en lugar de saltear filas con OFFSET se
+     * piden las que siguen a la última devuelta, así el costo de cada página no
+     * crece con la posición. El orden lo resuelve el índice B-tree
+     * idx_huespedes_busqueda (apellido_busqueda, nombre_busqueda, id).
+     *
+     * La dirección (con localidad, provincia y país) y la nacionalidad se traen en
+     * el mismo SELECT (JOIN FETCH): HuespedMapper.toResponse las recorre para cada
+     * huésped y, cargadas por separado, costarían varias consultas por fila.
+     *
+     * @param apellido      Apellido a buscar (parcial), normalizado
+     * @param nombre        Nombre a buscar (parcial), normalizado
      * @param tipoDocumento Tipo de documento exacto
      * @param documento     Número de documento a buscar (parcial)
-     * @return Lista de huéspedes que coinciden con los criterios
-     */
-    @Query("SELECT h FROM Huesped h WHERE " +
-            "(:apellido IS NULL OR :apellido = '' OR lower(h.apellido) LIKE lower(concat('%', :apellido, '%'))) AND " +
-            "(:nombre IS NULL OR :nombre = '' OR lower(h.nombre) LIKE lower(concat('%', :nombre, '%'))) AND " +
-            "(:tipoDocumento IS NULL OR h.tipoDocumento = :tipoDocumento) AND " +
-            "(:documento IS NULL OR :documento = '' OR h.documento LIKE concat('%', :documento, '%'))")
-    List<Huesped> buscarHuespedesPorCriterios(
-            @Param("apellido") String apellido,
-            @Param("nombre") String nombre,
-            @Param("tipoDocumento") TipoDocumento tipoDocumento,
-            @Param("documento") String documento);
+     * @param desde         último huésped de la página anterior; null para la primera página
+     * @param limite        cantidad máxima de huéspedes a devolver
+     * @return Lista de huéspedes que coinciden con los criterios, en orden
+     */
+    default List<Huesped> buscarPaginaPorCriterios(String apellido, String nombre, TipoDocumento tipoDocumento,
+                                                   String documento, CursorHuespedDTO desde, int limite) {
+        Specification<Huesped> especificacion = segunCriterios(apellido, nombre, tipoDocumento, documento)
+                .and(conDatosRelacionados());
+        if (desde != null) {
+            especificacion = especificacion.and(posterioresA(desde));
+        }
+        return findBy(especificacion, consulta -> consulta
+                .sortBy(Sort.by("apellidoBusqueda", "nombreBusqueda", "id"))
+                .limit(limite)
+                .all());
+    }
+
+    /**
+     * Cuenta los huéspedes que coinciden con los criterios de búsqueda.
+     *
+     * @see #buscarPaginaPorCriterios
+     */
+    default long contarPorCriterios(String apellido, String nombre, TipoDocumento tipoDocumento, String documento) {
+        return count(segunCriterios(apellido, nombre, tipoDocumento, documento));
+    }
+
+    private static Specification<Huesped> segunCriterios(String apellido, String nombre,
+                                                         TipoDocumento tipoDocumento, String documento) {
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+            if (apellido != null && !apellido.isEmpty()) {
+                predicados.add(cb.like(root.get("apellidoBusqueda"), "%" + apellido + "%"));
+            }
+            if (nombre != null && !nombre.isEmpty()) {
+                predicados.add(cb.like(root.get("nombreBusqueda"), "%" + nombre + "%"));
+            }
+            if (tipoDocumento != null) {
+                predicados.add(cb.equal(root.get("tipoDocumento"), tipoDocumento));
+            }
+            if (documento != null && !documento.isEmpty()) {
+                predicados.add(cb.like(root.get("documento"), "%" + documento + "%"));
+            }
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Agrega los JOIN FETCH de la dirección completa y la nacionalidad. Todas son
+     * relaciones a uno obligatorias, por lo que no multiplican filas y el límite de
+     * la página se sigue aplicando en la base.
+     */
+    private static Specification<Huesped> conDatosRelacionados() {
+        return (root, query, cb) -> {
+            root.fetch("direccion").fetch("localidad").fetch("provincia").fetch("pais");
+            root.fetch("nacionalidad");
+            return null;
+        };
+    }
+
+    /**
+     * (apellido_busqueda, nombre_busqueda, id) > (cursor), escrito sin comparación de filas para que
+     * funcione con cualquier base. La condición redundante apellido_busqueda >= cursor.apellido
+     * le da al índice el punto de partida del recorrido.
+     */
+    private static Specification<Huesped> posterioresA(CursorHuespedDTO cursor) {
+        return (root, query, cb) -> {
+            Path<String> apellido = root.get("apellidoBusqueda");
+            Path<String> nombre = root.get("nombreBusqueda");
+            Path<Long> id = root.get("id");
+            return cb.and(
+                    cb.greaterThanOrEqualTo(apellido, cursor.apellido()),
+                    cb.or(
+                            cb.greaterThan(apellido, cursor.apellido()),
+                            cb.and(cb.equal(apellido, cursor.apellido()), cb.greaterThan(nombre, cursor.nombre())),
+                            cb.and(cb.equal(apellido, cursor.apellido()), cb.equal(nombre, cursor.nombre()),
+                                    cb.greaterThan(id, cursor.id()))));
+        };
+    }
 }
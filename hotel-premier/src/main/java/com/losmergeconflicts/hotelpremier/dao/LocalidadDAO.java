@@ -1,6 +1,9 @@
 package com.losmergeconflicts.hotelpremier.dao;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.losmergeconflicts.hotelpremier.entity.Localidad;
@@ -14,4 +17,10 @@ import com.losmergeconflicts.hotelpremier.entity.Localidad;
 @Repository
 public interface LocalidadDAO extends JpaRepository<Localidad, Long> {
 
+    /**
+     * Todas las localidades con su provincia y país en una sola consulta,
+     * ordenadas por nombre.
+     */
+    @Query("SELECT l FROM Localidad l JOIN FETCH l.provincia p JOIN FETCH p.pais ORDER BY l.nombre")
+    List<Localidad> findAllConProvinciaYPais();
 }
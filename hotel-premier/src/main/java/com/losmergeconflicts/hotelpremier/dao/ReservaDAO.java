@@ -1,5 +1,6 @@
 package com.losmergeconflicts.hotelpremier.dao;
 
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
 import com.losmergeconflicts.hotelpremier.entity.Reserva;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -7,16 +8,37 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ReservaDAO extends JpaRepository<Reserva, Long> {
 
-    @Query("SELECT r FROM Reserva r WHERE " +
+    /**
+     * Intervalos reservados que se superponen con el rango, uno por habitación de cada reserva.
+     * Devuelve sólo (habitación, ingreso, egreso) sin cargar las entidades.
+     */
+    @Query("SELECT new com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO(" +
+            "h.id, r.fechaIngreso, r.fechaEgreso, " +
+            "com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion.RESERVADA) " +
+            "FROM Reserva r JOIN r.habitaciones h WHERE " +
             "r.fechaIngreso <= :fechaHasta AND r.fechaEgreso >= :fechaDesde")
-    List<Reserva> findReservasEnRango(@Param("fechaDesde") LocalDate fechaDesde,
-                                      @Param("fechaHasta") LocalDate fechaHasta);
+    List<IntervaloOcupacionDTO> findIntervalosReservadosEnRango(@Param("fechaDesde") LocalDate fechaDesde,
+                                                                @Param("fechaHasta") LocalDate fechaHasta);
+
+    /**
+     * Igual que findIntervalosReservadosEnRango pero sólo para las habitaciones indicadas.
+     * Se usa para verificar disponibilidad antes de registrar una reserva.
+     */
+    @Query("SELECT new com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO(" +
+            "h.id, r.fechaIngreso, r.fechaEgreso, " +
+            "com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion.RESERVADA) " +
+            "FROM Reserva r JOIN r.habitaciones h WHERE h.id IN :idsHabitaciones AND " +
+            "r.fechaIngreso <= :fechaHasta AND r.fechaEgreso >= :fechaDesde")
+    List<IntervaloOcupacionDTO> findIntervalosReservadosDeHabitaciones(@Param("idsHabitaciones") Collection<Long> idsHabitaciones,
+                                                                       @Param("fechaDesde") LocalDate fechaDesde,
+                                                                       @Param("fechaHasta") LocalDate fechaHasta);
 
     @Query("SELECT r FROM Reserva r JOIN r.habitaciones h WHERE h.nombre = :nombreHabitacion " +
             "AND :fecha >= r.fechaIngreso AND :fecha <= r.fechaEgreso")
@@ -0,0 +1,38 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import com.losmergeconflicts.hotelpremier.entity.TipoHabitacion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección usada para facturar estadías: una fila por cada consumo de la
+ * estadía, con los datos de la estadía y de su habitación repetidos.
+ *
+ * Una estadía sin consumos devuelve una única fila con los datos del consumo en
+ * null. La consulta que la devuelve no carga entidades, por lo que no arrastra
+ * huéspedes, reservas ni direcciones.
+ *
+ * @param idEstadia ID de la estadía
+ * @param fechaHoraIngreso ingreso de la estadía
+ * @param fechaHoraEgreso egreso de la estadía; null si todavía no hubo egreso
+ * @param facturada true si la estadía ya tiene una factura
+ * @param nombreHabitacion nombre (número) de la habitación
+ * @param tipoHabitacion tipo de la habitación
+ * @param precioHabitacion precio por noche de la habitación
+ * @param idItem ID del consumo; null si la estadía no tiene consumos
+ * @param nombreItem nombre del consumo
+ * @param precioItem precio del consumo
+ */
+public record ConsumoEstadiaDTO(
+        Long idEstadia,
+        LocalDateTime fechaHoraIngreso,
+        LocalDateTime fechaHoraEgreso,
+        boolean facturada,
+        String nombreHabitacion,
+        TipoHabitacion tipoHabitacion,
+        Float precioHabitacion,
+        Long idItem,
+        String nombreItem,
+        Float precioItem
+) {
+}
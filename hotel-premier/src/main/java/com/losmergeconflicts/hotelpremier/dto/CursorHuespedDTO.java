@@ -0,0 +1,53 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición en la búsqueda paginada de huéspedes: clave (apellido, nombre, id) del
+ * último huésped de la página anterior, con apellido y nombre normalizados
+ * (columnas de búsqueda de Huesped).
+ *
+ * Viaja al cliente como texto opaco (Base64 URL) y vuelve sin cambios para pedir
+ * la página siguiente.
+ *
+ * @param apellido apellido normalizado del último huésped devuelto
+ * @param nombre nombre normalizado del último huésped devuelto
+ * @param id ID del último huésped devuelto (desempata apellidos y nombres repetidos)
+ */
+public record CursorHuespedDTO(
+        String apellido,
+        String nombre,
+        Long id) {
+
+    private static final String SEPARADOR = "\u001F";
+
+    /**
+     * @return el cursor codificado para enviar al cliente
+     */
+    public String codificar() {
+        String texto = apellido + SEPARADOR + nombre + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido del cliente.
+     *
+     * @param cursor texto generado por codificar()
+     * @return el cursor
+     * @throws IllegalArgumentException si el texto no es un cursor válido
+     */
+    public static CursorHuespedDTO decodificar(String cursor) {
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(SEPARADOR, -1);
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("Cursor de búsqueda inválido");
+            }
+            return new CursorHuespedDTO(partes[0], partes[1], Long.valueOf(partes[2]));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException y errores de Base64 también son IllegalArgumentException
+            throw new IllegalArgumentException("Cursor de búsqueda inválido", e);
+        }
+    }
+}
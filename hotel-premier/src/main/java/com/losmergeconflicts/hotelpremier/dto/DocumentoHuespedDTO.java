@@ -0,0 +1,16 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import com.losmergeconflicts.hotelpremier.entity.TipoDocumento;
+
+/**
+ * Proyección mínima con el documento de un huésped, usada para cargar el filtro
+ * de documentos registrados sin traer las entidades.
+ *
+ * @param tipoDocumento tipo de documento
+ * @param documento número de documento
+ */
+public record DocumentoHuespedDTO(
+        TipoDocumento tipoDocumento,
+        String documento
+) {
+}
@@ -0,0 +1,16 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+/**
+ * Estadía pendiente de egreso, leída por el cierre de estadías en lote sin
+ * cargar la entidad.
+ *
+ * @param idEstadia ID de la estadía
+ * @param idHabitacion habitación a liberar
+ * @param idResponsableDePago responsable de pago con el CUIT del huésped asignado; null si no hay
+ */
+public record EgresoPendienteDTO(
+        Long idEstadia,
+        Long idHabitacion,
+        Long idResponsableDePago
+) {
+}
@@ -0,0 +1,37 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import com.losmergeconflicts.hotelpremier.entity.EstadoFactura;
+import com.losmergeconflicts.hotelpremier.entity.TipoFactura;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Factura emitida para una estadía.
+ *
+ * @param id ID de la factura
+ * @param idEstadia estadía facturada
+ * @param idResponsableDePago responsable de pago al que se emitió
+ * @param numeroHabitacion habitación de la estadía
+ * @param tipoFactura A si el responsable tiene CUIT, B si no
+ * @param estado estado de la factura (PENDIENTE al emitirse)
+ * @param fechaEmision fecha de emisión
+ * @param fechaHoraSalida salida del huésped considerada para calcular las noches
+ * @param valorEstadia noches por precio de la habitación
+ * @param montoTotal valor de la estadía más los consumos
+ * @param detalles renglones de la factura: el alojamiento y un renglón por consumo
+ */
+public record FacturaDTOResponse(
+        Long id,
+        Long idEstadia,
+        Long idResponsableDePago,
+        String numeroHabitacion,
+        TipoFactura tipoFactura,
+        EstadoFactura estado,
+        LocalDate fechaEmision,
+        LocalDateTime fechaHoraSalida,
+        Float valorEstadia,
+        Float montoTotal,
+        List<FacturaDetalleDTO> detalles
+) {}
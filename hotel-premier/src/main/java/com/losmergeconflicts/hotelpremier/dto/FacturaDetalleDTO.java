@@ -0,0 +1,18 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+/**
+ * Renglón de una factura.
+ *
+ * @param descripcion concepto facturado
+ * @param cantidad cantidad facturada
+ * @param unidadMedida unidad de la cantidad ("noche", "unidad")
+ * @param precioUnitario precio de cada unidad
+ * @param subtotal cantidad por precio unitario
+ */
+public record FacturaDetalleDTO(
+        String descripcion,
+        Integer cantidad,
+        String unidadMedida,
+        Float precioUnitario,
+        Float subtotal
+) {}
@@ -0,0 +1,16 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+/**
+ * Formato del archivo de una importación masiva de huéspedes.
+ */
+public enum FormatoImportacion {
+    /**
+     * Texto separado por comas (o punto y coma), con una fila de encabezado con
+     * los nombres de los campos de HuespedImportacionDTO.
+     */
+    CSV,
+    /**
+     * Arreglo JSON de objetos con los campos de HuespedImportacionDTO.
+     */
+    JSON
+}
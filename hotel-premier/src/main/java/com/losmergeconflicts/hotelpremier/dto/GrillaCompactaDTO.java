@@ -0,0 +1,36 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Representación compacta (por columnas) de la grilla de disponibilidad (CU05).
+ *
+ * Las habitaciones se envían una sola vez, en el orden de las columnas. Para cada
+ * habitación se envía una cadena con un carácter por día a partir de 'desde'
+ * (ver CODIGOS). Si 'rle' es true, cada cadena está comprimida por longitud de
+ * racha: "12L3R" equivale a doce 'L' seguidas de tres 'R'.
+ *
+ * @param desde primer día de la grilla
+ * @param hasta último día de la grilla (inclusive)
+ * @param nombresHabitaciones nombres en el orden de las columnas
+ * @param idsHabitaciones IDs en el mismo orden que los nombres
+ * @param codigos código de un carácter -> nombre del estado
+ * @param rle true si las columnas vienen comprimidas por longitud de racha
+ * @param estados una cadena por habitación, en el orden de las columnas
+ */
+public record GrillaCompactaDTO(
+        LocalDate desde,
+        LocalDate hasta,
+        List<String> nombresHabitaciones,
+        List<Long> idsHabitaciones,
+        Map<Character, String> codigos,
+        boolean rle,
+        List<String> estados) {
+
+    /**
+     * Tipo de contenido con el que se puede pedir este formato vía Accept.
+     */
+    public static final String MEDIA_TYPE = "application/vnd.hotelpremier.grilla-compacta+json";
+}
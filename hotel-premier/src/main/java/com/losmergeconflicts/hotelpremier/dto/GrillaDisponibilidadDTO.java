@@ -8,6 +8,14 @@ public record GrillaDisponibilidadDTO(
         List<String> nombresHabitaciones, 
         Map<String, Long> idsHabitaciones, // Mapa: NombreHabitacion -> ID
         List<FilaFechaDTO> filas) {
+    /**
+     * Primera línea de la grilla en streaming (NDJSON): las habitaciones, una sola vez.
+     */
+    public record EncabezadoDTO(
+            List<String> nombresHabitaciones,
+            Map<String, Long> idsHabitaciones
+    ) {}
+
     public record FilaFechaDTO(
             LocalDate fecha,
             Map<String, String> estadosPorHabitacion // Mapa: NombreHabitacion -> Estado (String)
@@ -0,0 +1,32 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import com.losmergeconflicts.hotelpremier.entity.Habitacion;
+import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
+import com.losmergeconflicts.hotelpremier.entity.TipoHabitacion;
+
+/**
+ * Copia inmutable de una habitación para el catálogo cacheado (CatalogoHabitaciones).
+ *
+ * Se guarda en el caché "habitaciones" y se comparte entre requests, por lo que no
+ * puede ser la entidad Habitacion: no debe quedar atada a una sesión de Hibernate
+ * ni modificarse después de cargada.
+ *
+ * @param id ID de la habitación
+ * @param nombre nombre (ej: "IE12")
+ * @param precio precio por noche
+ * @param tipoHabitacion tipo de habitación
+ * @param estadoHabitacion estado al cargar el catálogo
+ * @param version versión para control de concurrencia optimista al cargar el catálogo
+ */
+public record HabitacionCatalogo(Long id, String nombre, Float precio, TipoHabitacion tipoHabitacion,
+                                 TipoEstadoHabitacion estadoHabitacion, Long version) {
+
+    /**
+     * @param habitacion habitación leída de la base
+     * @return copia de sus datos
+     */
+    public static HabitacionCatalogo de(Habitacion habitacion) {
+        return new HabitacionCatalogo(habitacion.getId(), habitacion.getNombre(), habitacion.getPrecio(),
+                habitacion.getTipoHabitacion(), habitacion.getEstadoHabitacion(), habitacion.getVersion());
+    }
+}
@@ -0,0 +1,51 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+/**
+ * Fila de una importación masiva de huéspedes (migración desde otro sistema).
+ *
+ * Todos los campos llegan como texto, tal como vienen en el archivo; el gestor
+ * los convierte y valida con las mismas reglas que el alta de un huésped.
+ * Localidad y nacionalidad se indican por nombre en lugar de por ID.
+ *
+ * @param apellido apellido
+ * @param nombre nombre
+ * @param tipoDocumento DNI, LE, LC, PASAPORTE u OTRO (sin distinguir mayúsculas)
+ * @param documento número de documento
+ * @param fechaNacimiento fecha de nacimiento, aaaa-mm-dd o dd/mm/aaaa
+ * @param email email (opcional)
+ * @param ocupacion ocupación
+ * @param posicionFrenteAlIVA posición frente al IVA (sin distinguir mayúsculas)
+ * @param nacionalidad nombre de la nacionalidad
+ * @param telefono teléfono
+ * @param cuit CUIT (opcional)
+ * @param info información adicional
+ * @param calle calle del domicilio
+ * @param numero número del domicilio
+ * @param piso piso (opcional)
+ * @param departamento departamento (opcional)
+ * @param codigoPostal código postal
+ * @param localidad nombre de la localidad
+ * @param provincia nombre de la provincia; sólo hace falta si hay localidades con el mismo nombre
+ */
+public record HuespedImportacionDTO(
+        String apellido,
+        String nombre,
+        String tipoDocumento,
+        String documento,
+        String fechaNacimiento,
+        String email,
+        String ocupacion,
+        String posicionFrenteAlIVA,
+        String nacionalidad,
+        String telefono,
+        String cuit,
+        String info,
+        String calle,
+        String numero,
+        String piso,
+        String departamento,
+        String codigoPostal,
+        String localidad,
+        String provincia
+) {
+}
@@ -0,0 +1,25 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección mínima usada para armar la grilla de disponibilidad (CU05).
+ *
+ * Cada fila representa un intervalo [desde, hasta] (ambos inclusive) en que una
+ * habitación tiene el estado indicado. Las consultas que la devuelven no cargan
+ * entidades, por lo que no arrastran huéspedes, direcciones ni colecciones.
+ *
+ * @param idHabitacion ID de la habitación
+ * @param desde primer día del intervalo
+ * @param hasta último día del intervalo; null si sigue abierto
+ * @param estado OCUPADA, RESERVADA o FUERA_DE_SERVICIO
+ */
+public record IntervaloOcupacionDTO(
+        Long idHabitacion,
+        LocalDate desde,
+        LocalDate hasta,
+        TipoEstadoHabitacion estado
+) {
+}
@@ -0,0 +1,15 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+/**
+ * Modo de procesamiento de un alta en lote (reservas o check-ins).
+ */
+public enum ModoLote {
+    /**
+     * Si algún elemento del lote es inválido no se registra ninguno.
+     */
+    TODO_O_NADA,
+    /**
+     * Se registran los elementos válidos y se informan los rechazados.
+     */
+    MEJOR_ESFUERZO
+}
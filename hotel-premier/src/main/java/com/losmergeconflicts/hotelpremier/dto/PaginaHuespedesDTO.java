@@ -0,0 +1,19 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados de la búsqueda de huéspedes, ordenada por apellido,
+ * nombre e ID.
+ *
+ * @param huespedes huéspedes de la página
+ * @param hayMas true si hay más resultados después de esta página
+ * @param cursorSiguiente cursor para pedir la página siguiente; null si no hay más
+ * @param total cantidad total de coincidencias; sólo se informa si se pidió, en la primera página
+ */
+public record PaginaHuespedesDTO(
+        List<HuespedDTOResponse> huespedes,
+        boolean hayMas,
+        String cursorSiguiente,
+        Long total) {
+}
@@ -0,0 +1,43 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Resultado del cierre de las estadías de un día (egreso, facturación y
+ * liberación de habitaciones en lotes).
+ *
+ * @param fecha fecha de egreso prevista de las estadías cerradas
+ * @param cerradas cantidad de estadías cerradas
+ * @param facturas cantidad de facturas emitidas
+ * @param sinResponsable estadías que quedaron abiertas por no tener responsable de pago
+ * @param fallidas estadías de lotes que fallaron y quedaron abiertas para la próxima ejecución
+ * @param lotes detalle de cada lote, en el orden en que se procesaron
+ */
+public record ResultadoCierreEstadiasDTO(
+        LocalDate fecha,
+        int cerradas,
+        int facturas,
+        int sinResponsable,
+        int fallidas,
+        List<LoteDTO> lotes) {
+
+    /**
+     * Resultado de un lote, confirmado en su propia transacción.
+     *
+     * @param numero número de lote (desde 1)
+     * @param estadias estadías del lote
+     * @param facturas facturas emitidas en el lote
+     * @param milisegundos duración del lote
+     * @param estadiasPorSegundo estadías cerradas por segundo
+     * @param error motivo del fallo; null si el lote se confirmó
+     */
+    public record LoteDTO(
+            int numero,
+            int estadias,
+            int facturas,
+            long milisegundos,
+            double estadiasPorSegundo,
+            String error
+    ) {}
+}
@@ -0,0 +1,37 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de huéspedes.
+ *
+ * @param leidos filas leídas del archivo
+ * @param importados huéspedes registrados
+ * @param duplicados filas omitidas porque el documento ya estaba registrado o se repetía en el archivo
+ * @param rechazadas filas con datos inválidos o que no se pudieron guardar
+ * @param completa false si la lectura se interrumpió por un archivo mal formado
+ * @param duracionMs duración total en milisegundos
+ * @param filasPorSegundo filas procesadas por segundo
+ * @param errores detalle de las primeras filas rechazadas
+ */
+public record ResultadoImportacionDTO(
+        long leidos,
+        long importados,
+        long duplicados,
+        long rechazadas,
+        boolean completa,
+        long duracionMs,
+        double filasPorSegundo,
+        List<ErrorDTO> errores) {
+
+    /**
+     * Motivo del rechazo de una fila.
+     *
+     * @param fila número de línea (CSV) o de elemento (JSON) en el archivo, desde 1
+     * @param error motivo del rechazo
+     */
+    public record ErrorDTO(
+            long fila,
+            String error
+    ) {}
+}
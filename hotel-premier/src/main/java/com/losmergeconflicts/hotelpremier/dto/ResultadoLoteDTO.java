@@ -0,0 +1,31 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de un alta de reservas en lote.
+ *
+ * @param modo modo con que se procesó el lote
+ * @param registradas cantidad de reservas registradas
+ * @param rechazadas cantidad de reservas rechazadas
+ * @param resultados un resultado por reserva pedida, en el mismo orden
+ */
+public record ResultadoLoteDTO(
+        ModoLote modo,
+        int registradas,
+        int rechazadas,
+        List<ItemDTO> resultados) {
+
+    /**
+     * Resultado de una reserva del lote: la reserva registrada o el motivo del rechazo.
+     *
+     * @param indice posición de la reserva en el lote (desde 0)
+     * @param reserva reserva registrada; null si fue rechazada
+     * @param error motivo del rechazo; null si fue registrada
+     */
+    public record ItemDTO(
+            int indice,
+            ReservaDTOResponse reserva,
+            String error
+    ) {}
+}
@@ -0,0 +1,31 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de un check-in grupal (varias ocupaciones en lote).
+ *
+ * @param modo modo con que se procesó el lote
+ * @param registradas cantidad de estadías registradas
+ * @param rechazadas cantidad de ocupaciones rechazadas
+ * @param resultados un resultado por ocupación pedida, en el mismo orden
+ */
+public record ResultadoOcupacionLoteDTO(
+        ModoLote modo,
+        int registradas,
+        int rechazadas,
+        List<ItemDTO> resultados) {
+
+    /**
+     * Resultado de una ocupación del lote: la estadía registrada o el motivo del rechazo.
+     *
+     * @param indice posición de la ocupación en el lote (desde 0)
+     * @param estadia estadía registrada; null si fue rechazada
+     * @param error motivo del rechazo; null si fue registrada
+     */
+    public record ItemDTO(
+            int indice,
+            EstadiaDTOResponse estadia,
+            String error
+    ) {}
+}
@@ -0,0 +1,16 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+/**
+ * Token de acceso a la API.
+ *
+ * @param token token firmado, a enviar en el encabezado "Authorization: Bearer ..."
+ * @param tipo tipo de token (siempre "Bearer")
+ * @param expiraEn segundos de validez desde su emisión
+ */
+public record TokenDTOResponse(
+    String token,
+    String tipo,
+    long expiraEn
+) {
+
+}
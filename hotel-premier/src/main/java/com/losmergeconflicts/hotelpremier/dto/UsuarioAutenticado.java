@@ -0,0 +1,56 @@
+package com.losmergeconflicts.hotelpremier.dto;
+
+import com.losmergeconflicts.hotelpremier.entity.Conserje;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Copia inmutable de un conserje para Spring Security (el principal autenticado).
+ *
+ * Se guarda en el caché "usuarios" y se comparte entre logins y sesiones, por lo
+ * que no puede ser la entidad Conserje: no debe quedar atada a una sesión de
+ * Hibernate ni modificarse después de cargada.
+ *
+ * @param id ID del conserje
+ * @param username nombre de usuario
+ * @param password hash de la contraseña
+ * @param role rol (ej. ROLE_CONSERJE)
+ */
+public record UsuarioAutenticado(Long id, String username, String password, String role) implements UserDetails {
+
+    /**
+     * @param conserje conserje leído de la base
+     * @return copia de sus datos de autenticación
+     */
+    public static UsuarioAutenticado de(Conserje conserje) {
+        return new UsuarioAutenticado(conserje.getId(), conserje.getUsername(), conserje.getPassword(),
+                conserje.getRole());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role));
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Sin el hash de la contraseña, para que no aparezca en los logs.
+     */
+    @Override
+    public String toString() {
+        return "UsuarioAutenticado[id=" + id + ", username=" + username + ", role=" + role + "]";
+    }
+}
@@ -7,6 +7,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,7 +22,8 @@ import lombok.NoArgsConstructor;
 @Builder  // Implementa el patrón Builder para construcción fluida de objetos
 public class Direccion {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "direcciones_seq")
+    @SequenceGenerator(name = "direcciones_seq", sequenceName = "direcciones_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
@@ -13,8 +13,8 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -29,7 +29,8 @@ import lombok.NoArgsConstructor;
 @Builder  // Implementa el patrón Builder para construcción fluida de objetos
 public class Estadia {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "estadias_seq")
+    @SequenceGenerator(name = "estadias_seq", sequenceName = "estadias_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -44,7 +45,11 @@ public class Estadia {
     @JoinColumn(name = "huesped_id", nullable = false)
     private Huesped huespedAsignado;
 
-    @OneToMany
+    /**
+     * Un huésped puede acompañar distintas estadías a lo largo del tiempo, por eso la
+     * relación es muchos a muchos (PK compuesta en estadia_huespedes_acompaniantes).
+     */
+    @ManyToMany
     @JoinTable(
         name = "estadia_huespedes_acompaniantes",
         joinColumns = @JoinColumn(name = "estadia_id"),
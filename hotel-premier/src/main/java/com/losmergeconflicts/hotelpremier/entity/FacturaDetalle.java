@@ -7,6 +7,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,7 +23,8 @@ import lombok.NoArgsConstructor;
 public class FacturaDetalle {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "factura_detalles_seq")
+    @SequenceGenerator(name = "factura_detalles_seq", sequenceName = "factura_detalles_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 255)
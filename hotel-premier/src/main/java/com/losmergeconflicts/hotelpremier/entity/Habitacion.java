@@ -8,6 +8,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -37,4 +38,13 @@ public class Habitacion {
     @Enumerated(EnumType.STRING)
     @Column(name = "estado_habitacion", length = 20)
     private TipoEstadoHabitacion estadoHabitacion;
+
+    /**
+     * Versión para control de concurrencia optimista. Cada cambio de estado la
+     * incrementa, así un check-in que leyó la habitación antes de otro no puede
+     * confirmarse sobre datos viejos (ver GestorEstadiasImp).
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
@@ -1,6 +1,8 @@
 package com.losmergeconflicts.hotelpremier.entity;
 
+import java.text.Normalizer;
 import java.time.LocalDate;
+import java.util.Locale;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -8,7 +10,10 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -32,6 +37,22 @@ public class Huesped extends Persona {
     @Column(nullable = false, length = 100)
     private String apellido;
 
+    /**
+     * Nombre normalizado para búsquedas (ver normalizarParaBusqueda).
+     * Se recalcula antes de cada INSERT/UPDATE; no se asigna a mano.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "nombre_busqueda", nullable = false, length = 100)
+    private String nombreBusqueda;
+
+    /**
+     * Apellido normalizado para búsquedas (ver normalizarParaBusqueda).
+     * Se recalcula antes de cada INSERT/UPDATE; no se asigna a mano.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "apellido_busqueda", nullable = false, length = 100)
+    private String apellidoBusqueda;
+
     @Enumerated(EnumType.STRING)
     private TipoDocumento tipoDocumento;
 
@@ -55,4 +76,36 @@ public class Huesped extends Persona {
     @JoinColumn(name = "nacionalidad_id", nullable = false)
     private Nacionalidad nacionalidad;
 
+    /**
+     * Callback ejecutado antes de persistir o actualizar la entidad:
+     * mantiene las columnas de búsqueda al día con nombre y apellido.
+     */
+    @PrePersist
+    @PreUpdate
+    protected void actualizarCamposDeBusqueda() {
+        nombreBusqueda = normalizarParaBusqueda(nombre);
+        apellidoBusqueda = normalizarParaBusqueda(apellido);
+    }
+
+    /**
+     * Normaliza un nombre o apellido para compararlo en las búsquedas: sin
+     * acentos ni diéresis (la Ñ queda como N), en minúsculas, sólo letras y
+     * espacios simples. "Pérez", "PEREZ" y "perez" quedan iguales.
+     *
+     * Se usa tanto para las columnas guardadas como para el texto buscado.
+     *
+     * @param texto nombre o apellido
+     * @return el texto normalizado; null si texto es null
+     */
+    public static String normalizarParaBusqueda(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        return Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z ]", "")
+                .replaceAll(" +", " ")
+                .trim();
+    }
 }
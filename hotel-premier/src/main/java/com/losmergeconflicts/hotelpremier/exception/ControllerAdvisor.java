@@ -2,6 +2,7 @@ package com.losmergeconflicts.hotelpremier.exception;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
@@ -34,6 +35,17 @@ public class ControllerAdvisor {
         return new ResponseEntity<>(exceptionInfo, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ExceptionInfo> handleAuthenticationException(AuthenticationException ex, WebRequest request) {
+        ExceptionInfo exceptionInfo = new ExceptionInfo(
+                "Usuario o contraseña incorrectos",
+                request.getDescription(false),
+                String.valueOf(System.currentTimeMillis()),
+                HttpStatus.UNAUTHORIZED.value()
+        );
+        return new ResponseEntity<>(exceptionInfo, HttpStatus.UNAUTHORIZED);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ExceptionInfo> handleGeneralException(Exception ex, WebRequest request) {
         ExceptionInfo exceptionInfo = new ExceptionInfo(
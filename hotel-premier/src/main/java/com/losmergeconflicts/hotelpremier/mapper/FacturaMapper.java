@@ -0,0 +1,39 @@
+package com.losmergeconflicts.hotelpremier.mapper;
+
+import com.losmergeconflicts.hotelpremier.dto.FacturaDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.FacturaDetalleDTO;
+import com.losmergeconflicts.hotelpremier.entity.Factura;
+import com.losmergeconflicts.hotelpremier.entity.FacturaDetalle;
+import com.losmergeconflicts.hotelpremier.mapper.config.MapstructConfig;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+/**
+ * Mapper para conversión entre Factura Entity y DTOs.
+ *
+ * MapStruct genera automáticamente la implementación de este mapper.
+ * Utiliza la configuración definida en MapstructConfig.
+ */
+@Mapper(config = MapstructConfig.class)
+public interface FacturaMapper {
+
+    /**
+     * Convierte una Factura y sus renglones a FacturaDTOResponse.
+     *
+     * De la estadía y del responsable de pago sólo se lee el ID, así que pueden
+     * ser referencias sin inicializar (getReferenceById).
+     *
+     * @param factura Entidad Factura
+     * @param detalles renglones de la factura
+     * @return DTO de respuesta con la factura y sus renglones
+     */
+    @Mapping(target = "id", source = "factura.id")
+    @Mapping(target = "idEstadia", source = "factura.estadia.id")
+    @Mapping(target = "idResponsableDePago", source = "factura.responsableDePago.id")
+    @Mapping(target = "detalles", source = "detalles")
+    FacturaDTOResponse toResponse(Factura factura, List<FacturaDetalle> detalles);
+
+    FacturaDetalleDTO toDetalleDTO(FacturaDetalle detalle);
+}
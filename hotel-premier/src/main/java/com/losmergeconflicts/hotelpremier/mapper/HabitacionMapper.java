@@ -1,5 +1,6 @@
 package com.losmergeconflicts.hotelpremier.mapper;
 
+import com.losmergeconflicts.hotelpremier.dto.HabitacionCatalogo;
 import com.losmergeconflicts.hotelpremier.dto.HabitacionDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.HabitacionDTOResponse;
 import com.losmergeconflicts.hotelpremier.entity.Habitacion;
@@ -38,6 +39,15 @@ public interface HabitacionMapper {
     @Mapping(target = "idHabitacion", source = "id")
     HabitacionDTOResponse toResponse(Habitacion habitacion);
 
+    /**
+     * Convierte una habitación del catálogo cacheado a HabitacionDTOResponse.
+     *
+     * @param habitacion copia de la habitación (ver CatalogoHabitaciones)
+     * @return DTO de respuesta con todos los datos públicos
+     */
+    @Mapping(target = "idHabitacion", source = "id")
+    HabitacionDTOResponse toResponse(HabitacionCatalogo habitacion);
+
     /**
      * Convierte Habitacion Entity a HabitacionDTOResponse con datos limitados.
      * 
@@ -0,0 +1,76 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.config.CacheConfig;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionDAO;
+import com.losmergeconflicts.hotelpremier.dto.HabitacionCatalogo;
+import com.losmergeconflicts.hotelpremier.entity.Habitacion;
+import com.losmergeconflicts.hotelpremier.entity.TipoHabitacion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catálogo de habitaciones cacheado en memoria.
+ *
+ * Las habitaciones cambian muy poco y casi todas las pantallas las listan, así que
+ * se guardan ya ordenadas (orden natural por nombre) en el caché "habitaciones".
+ * Las listas devueltas son inmutables y compartidas entre requests, y contienen
+ * copias inmutables (HabitacionCatalogo), no entidades: para modificar una
+ * habitación hay que leerla de HabitacionDAO.
+ *
+ * El caché se invalida al modificar una habitación (GestorHabitacionesImp) o al
+ * cambiar su estado (HabitacionDAO.actualizarEstado), y además expira por tiempo.
+ *
+ * @Slf4j: Genera automáticamente un logger para la clase
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogoHabitaciones {
+
+    private final HabitacionDAO habitacionDAO;
+
+    /**
+     * @return copia de todas las habitaciones en orden natural
+     */
+    @Cacheable(cacheNames = CacheConfig.CACHE_HABITACIONES, key = "'TODAS'")
+    public List<HabitacionCatalogo> listarTodas() {
+        log.debug("Cargando catálogo de habitaciones");
+        return ordenadas(habitacionDAO.findAll());
+    }
+
+    /**
+     * @param tipo tipo de habitación
+     * @return copia de las habitaciones del tipo en orden natural
+     */
+    @Cacheable(cacheNames = CacheConfig.CACHE_HABITACIONES, key = "#tipo.name()")
+    public List<HabitacionCatalogo> listarPorTipo(TipoHabitacion tipo) {
+        log.debug("Cargando catálogo de habitaciones de tipo {}", tipo);
+        return ordenadas(habitacionDAO.findByTipoHabitacion(tipo));
+    }
+
+    /**
+     * Descarta todo el catálogo. Dentro de una transacción se aplica después del commit.
+     */
+    @CacheEvict(cacheNames = CacheConfig.CACHE_HABITACIONES, allEntries = true)
+    public void invalidar() {
+        log.debug("Catálogo de habitaciones invalidado");
+    }
+
+    /**
+     * Copia las habitaciones y las ordena calculando la clave de cada una una sola
+     * vez, no en cada comparación.
+     */
+    private static List<HabitacionCatalogo> ordenadas(List<Habitacion> habitaciones) {
+        return habitaciones.stream()
+                .map(h -> Map.entry(ClaveOrdenHabitacion.de(h.getNombre()), HabitacionCatalogo.de(h)))
+                .sorted(Map.Entry.comparingByKey())
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+}
@@ -0,0 +1,124 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Cerrojos por habitación, repartidos en franjas (striped locks).
+ *
+ * Serializa dentro del proceso las operaciones que reservan u ocupan una misma
+ * habitación, sin bloquear las que trabajan sobre habitaciones distintas. Es la
+ * primera barrera contra la sobreventa: la garantía entre instancias la da el
+ * SELECT ... FOR UPDATE sobre las filas de habitaciones (HabitacionDAO).
+ *
+ * - Cada habitación cae en una franja fija (ID módulo cantidad de franjas), así la
+ *   memoria usada no crece con la cantidad de habitaciones.
+ * - Las franjas se toman siempre en orden creciente, por lo que dos operaciones
+ *   sobre las mismas habitaciones nunca se bloquean mutuamente.
+ * - Dentro de una transacción los cerrojos se liberan recién al terminarla, de modo
+ *   que la siguiente operación sobre la habitación ya ve los datos confirmados.
+ *
+ * @Slf4j: Genera automáticamente un logger para la clase
+ */
+@Component
+@Slf4j
+public class CerrojosHabitaciones {
+
+    private final ReentrantLock[] franjas;
+    private final long esperaMaximaMs;
+
+    /**
+     * Constructor con la configuración de los cerrojos.
+     *
+     * @param cantidadFranjas cantidad de cerrojos; dos habitaciones comparten cerrojo sólo si sus IDs difieren en un múltiplo de este número
+     * @param esperaMaximaMs tiempo máximo de espera por una habitación ocupada por otra operación
+     */
+    @Autowired
+    public CerrojosHabitaciones(@Value("${hotel.reservas.cerrojos.franjas:256}") int cantidadFranjas,
+                                @Value("${hotel.reservas.cerrojos.espera-maxima-ms:5000}") long esperaMaximaMs) {
+        if (cantidadFranjas <= 0) {
+            throw new IllegalArgumentException("La cantidad de franjas debe ser positiva");
+        }
+        this.franjas = new ReentrantLock[cantidadFranjas];
+        for (int i = 0; i < cantidadFranjas; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    /**
+     * Ejecuta la acción con las habitaciones bloqueadas.
+     *
+     * Si hay una transacción activa los cerrojos se mantienen hasta que termine
+     * (commit o rollback); si no, se liberan al salir de la acción.
+     *
+     * @param idsHabitaciones habitaciones a bloquear
+     * @param accion operación a ejecutar
+     * @return resultado de la acción
+     * @throws IllegalStateException si alguna habitación sigue bloqueada por otra operación tras la espera máxima
+     */
+    public <T> T conHabitacionesBloqueadas(Collection<Long> idsHabitaciones, Supplier<T> accion) {
+        List<ReentrantLock> tomados = tomar(idsHabitaciones);
+
+        boolean diferir = TransactionSynchronizationManager.isSynchronizationActive();
+        if (diferir) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    liberar(tomados);
+                }
+            });
+        }
+        try {
+            return accion.get();
+        } finally {
+            if (!diferir) liberar(tomados);
+        }
+    }
+
+    private List<ReentrantLock> tomar(Collection<Long> idsHabitaciones) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (Long id : idsHabitaciones) {
+            indices.add((int) Math.floorMod(id, (long) franjas.length));
+        }
+
+        List<ReentrantLock> tomados = new ArrayList<>(indices.size());
+        try {
+            for (int indice : indices) {
+                ReentrantLock franja = franjas[indice];
+                if (!franja.tryLock(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                    log.warn("Tiempo de espera agotado bloqueando habitaciones {}", idsHabitaciones);
+                    throw new IllegalStateException(
+                            "Las habitaciones están siendo reservadas por otra operación, intente nuevamente");
+                }
+                tomados.add(franja);
+            }
+            return tomados;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            liberar(tomados);
+            throw new IllegalStateException("Operación interrumpida esperando habitaciones", e);
+        } catch (RuntimeException e) {
+            liberar(tomados);
+            throw e;
+        }
+    }
+
+    private void liberar(List<ReentrantLock> tomados) {
+        for (int i = tomados.size() - 1; i >= 0; i--) {
+            tomados.get(i).unlock();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionDAO;
+import com.losmergeconflicts.hotelpremier.dto.EgresoPendienteDTO;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoCierreEstadiasDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Cierre en lote de las estadías que terminan en el día (check-out de las 10).
+ *
+ * Busca las estadías con egreso previsto para la fecha que todavía no registraron
+ * el egreso y las procesa en lotes de hotel.cierre-estadias.tamanio-lote. Cada lote
+ * se confirma en su propia transacción:
+ * 1. Emite las facturas con GestorFacturacion.facturarEstadias (una consulta para
+ *    las estadías y sus consumos, INSERT en lote)
+ * 2. Registra el egreso de las estadías con un único UPDATE
+ * 3. Libera sus habitaciones con un único UPDATE, salvo las que ya tienen otra
+ *    estadía abierta (HabitacionDAO.liberarHabitacionesSinOtraEstadia)
+ * 4. Después del commit, recalcula esas habitaciones en IndiceOcupacion: el egreso
+ *    registrado puede no coincidir con el egreso esperado que tenía el índice
+ *
+ * La salida que se factura y se registra es la de la fecha del cierre a la hora
+ * de check-out (o ahora, si todavía no llegó), aunque el cierre corra días
+ * después para ponerse al día con estadías pendientes.
+ *
+ * El proceso se puede volver a ejecutar: los lotes confirmados ya no aparecen como
+ * pendientes, y si un lote falla sus estadías quedan abiertas para la próxima
+ * ejecución. Las estadías facturadas a mano antes del cierre sólo se cierran.
+ *
+ * Cada estadía se factura al responsable de pago con el CUIT de su huésped o, si
+ * no hay, al de hotel.cierre-estadias.id-responsable-por-defecto. Sin ninguno de
+ * los dos la estadía queda abierta para cerrarla a mano.
+ *
+ * No admite dos ejecuciones simultáneas en la misma instancia. Con varias
+ * instancias de la aplicación, hotel.cierre-estadias.habilitado=false deja el
+ * cierre programado en una sola.
+ *
+ * @Slf4j: Genera automáticamente un logger para la clase
+ */
+@Component
+@Slf4j
+public class CierreEstadias {
+
+    /** Hora de check-out: la salida que se registra a las estadías cerradas. */
+    static final LocalTime HORA_EGRESO = LocalTime.of(10, 0);
+
+    private final EstadiaDAO estadiaDAO;
+    private final HabitacionDAO habitacionDAO;
+    private final GestorFacturacion gestorFacturacion;
+    private final IndiceOcupacion indiceOcupacion;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitado;
+    private final int tamanioLote;
+    private final Long idResponsablePorDefecto;
+
+    private final ReentrantLock enEjecucion = new ReentrantLock();
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param estadiaDAO DAO para leer y cerrar estadías
+     * @param habitacionDAO DAO para liberar las habitaciones
+     * @param gestorFacturacion emisión de las facturas
+     * @param indiceOcupacion índice de la grilla, que se recalcula para las habitaciones cerradas
+     * @param transactionTemplate transacción de cada lote
+     * @param habilitado si es false el cierre no se ejecuta en forma programada (sí a pedido)
+     * @param tamanioLote estadías por lote
+     * @param idResponsablePorDefecto responsable de pago para huéspedes sin responsable con su CUIT; null si no hay
+     */
+    @Autowired
+    public CierreEstadias(EstadiaDAO estadiaDAO,
+                          HabitacionDAO habitacionDAO,
+                          GestorFacturacion gestorFacturacion,
+                          IndiceOcupacion indiceOcupacion,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${hotel.cierre-estadias.habilitado:true}") boolean habilitado,
+                          @Value("${hotel.cierre-estadias.tamanio-lote:50}") int tamanioLote,
+                          @Value("${hotel.cierre-estadias.id-responsable-por-defecto:#{null}}") Long idResponsablePorDefecto) {
+        if (tamanioLote < 1) {
+            throw new IllegalArgumentException("El tamaño de lote del cierre de estadías debe ser positivo");
+        }
+        this.estadiaDAO = estadiaDAO;
+        this.habitacionDAO = habitacionDAO;
+        this.gestorFacturacion = gestorFacturacion;
+        this.indiceOcupacion = indiceOcupacion;
+        this.transactionTemplate = transactionTemplate;
+        this.habilitado = habilitado;
+        this.tamanioLote = tamanioLote;
+        this.idResponsablePorDefecto = idResponsablePorDefecto;
+    }
+
+    /**
+     * Cierra todos los días, después del horario de check-out, las estadías del día.
+     */
+    @Scheduled(cron = "${hotel.cierre-estadias.cron:0 0 10 * * *}")
+    public void cerrarEstadiasDelDia() {
+        if (!habilitado) return;
+        try {
+            cerrarEstadias(LocalDate.now());
+        } catch (IllegalStateException e) {
+            log.warn("Cierre de estadías programado omitido: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cierra las estadías con egreso previsto para la fecha que todavía no
+     * registraron el egreso.
+     *
+     * @param fecha fecha de egreso prevista; hoy o anterior
+     * @return resultado del cierre, con el detalle de cada lote
+     * @throws IllegalArgumentException si la fecha es posterior a hoy
+     * @throws IllegalStateException si ya hay un cierre en ejecución
+     */
+    public ResultadoCierreEstadiasDTO cerrarEstadias(LocalDate fecha) {
+        if (fecha == null || fecha.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("No se pueden cerrar estadías de una fecha posterior a hoy");
+        }
+        if (!enEjecucion.tryLock()) {
+            throw new IllegalStateException("Ya hay un cierre de estadías en ejecución");
+        }
+        try {
+            return cerrar(fecha);
+        } finally {
+            enEjecucion.unlock();
+        }
+    }
+
+    private ResultadoCierreEstadiasDTO cerrar(LocalDate fecha) {
+        long inicio = System.nanoTime();
+        List<EgresoPendienteDTO> pendientes = new ArrayList<>();
+        int sinResponsable = 0;
+        for (EgresoPendienteDTO pendiente : estadiaDAO.findEgresosPendientes(fecha)) {
+            if (pendiente.idResponsableDePago() != null) {
+                pendientes.add(pendiente);
+            } else if (idResponsablePorDefecto != null) {
+                pendientes.add(new EgresoPendienteDTO(pendiente.idEstadia(), pendiente.idHabitacion(),
+                        idResponsablePorDefecto));
+            } else {
+                log.warn("La estadía {} queda abierta: su huésped no tiene responsable de pago",
+                        pendiente.idEstadia());
+                sinResponsable++;
+            }
+        }
+
+        int totalLotes = (pendientes.size() + tamanioLote - 1) / tamanioLote;
+        log.info("Cierre de estadías del {}: {} estadías en {} lotes", fecha, pendientes.size(), totalLotes);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime salida = fecha.atTime(HORA_EGRESO).isBefore(ahora) ? fecha.atTime(HORA_EGRESO) : ahora;
+
+        List<ResultadoCierreEstadiasDTO.LoteDTO> lotes = new ArrayList<>(totalLotes);
+        int cerradas = 0;
+        int facturas = 0;
+        int fallidas = 0;
+        for (int desde = 0; desde < pendientes.size(); desde += tamanioLote) {
+            List<EgresoPendienteDTO> lote = pendientes.subList(desde, Math.min(desde + tamanioLote, pendientes.size()));
+            ResultadoCierreEstadiasDTO.LoteDTO resultado = procesarLote(lotes.size() + 1, totalLotes, lote, salida);
+            lotes.add(resultado);
+            if (resultado.error() == null) {
+                cerradas += resultado.estadias();
+                facturas += resultado.facturas();
+            } else {
+                fallidas += resultado.estadias();
+            }
+        }
+
+        log.info("Cierre de estadías del {} terminado en {} ms: {} cerradas, {} facturas, {} sin responsable, {} fallidas",
+                fecha, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio),
+                cerradas, facturas, sinResponsable, fallidas);
+        return new ResultadoCierreEstadiasDTO(fecha, cerradas, facturas, sinResponsable, fallidas, lotes);
+    }
+
+    /**
+     * Factura, cierra y libera las habitaciones de un lote en una transacción. Si
+     * falla, la transacción se revierte y el error se informa en el resultado.
+     *
+     * @param salida salida que se factura y se registra a todas las estadías del lote
+     */
+    private ResultadoCierreEstadiasDTO.LoteDTO procesarLote(int numero, int totalLotes, List<EgresoPendienteDTO> lote,
+                                                            LocalDateTime salida) {
+        long inicio = System.nanoTime();
+        String error = null;
+        int facturas = 0;
+        try {
+            facturas = transactionTemplate.execute(status -> {
+                Map<Long, Long> responsablesPorEstadia = new LinkedHashMap<>();
+                lote.forEach(p -> responsablesPorEstadia.put(p.idEstadia(), p.idResponsableDePago()));
+                Set<Long> idsHabitaciones = lote.stream()
+                        .map(EgresoPendienteDTO::idHabitacion).collect(Collectors.toSet());
+
+                int emitidas = gestorFacturacion.facturarEstadias(responsablesPorEstadia, salida);
+                estadiaDAO.registrarEgresos(responsablesPorEstadia.keySet(), salida);
+                habitacionDAO.liberarHabitacionesSinOtraEstadia(idsHabitaciones, responsablesPorEstadia.keySet());
+                indiceOcupacion.recalcularHabitaciones(idsHabitaciones);
+                return emitidas;
+            });
+        } catch (RuntimeException e) {
+            log.error("Lote {}/{} del cierre de estadías revertido: {}", numero, totalLotes, e.getMessage(), e);
+            error = e.getMessage();
+        }
+
+        long milisegundos = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        double estadiasPorSegundo = error != null ? 0 : lote.size() * 1000.0 / Math.max(1, milisegundos);
+        if (error == null) {
+            log.info("Lote {}/{} del cierre de estadías: {} estadías, {} facturas en {} ms ({} estadías/s)",
+                    numero, totalLotes, lote.size(), facturas, milisegundos, String.format("%.1f", estadiasPorSegundo));
+        }
+        return new ResultadoCierreEstadiasDTO.LoteDTO(numero, lote.size(), facturas, milisegundos,
+                estadiasPorSegundo, error);
+    }
+}
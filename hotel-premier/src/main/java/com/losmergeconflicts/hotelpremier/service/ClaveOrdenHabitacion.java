@@ -0,0 +1,61 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+/**
+ * Clave de orden natural de una habitación a partir de su nombre.
+ *
+ * El nombre se separa una única vez en prefijo (las letras) y número (los dígitos),
+ * de modo que IE2 queda antes que IE10. CatalogoHabitaciones calcula la clave de
+ * cada habitación una sola vez al cargar el catálogo, y ordenar se reduce a
+ * comparar esas partes.
+ *
+ * El número se guarda como texto sin ceros a la izquierda y se compara por
+ * longitud y después carácter a carácter, así que no tiene límite de dígitos.
+ *
+ * @param prefijo caracteres no numéricos del nombre
+ * @param digitos dígitos del nombre sin ceros a la izquierda ("0" si son todos ceros); null si no tiene dígitos
+ * @param nombre nombre completo, usado como desempate
+ */
+record ClaveOrdenHabitacion(String prefijo, String digitos, String nombre)
+        implements Comparable<ClaveOrdenHabitacion> {
+
+    /**
+     * Calcula la clave de orden del nombre.
+     *
+     * @param nombre nombre de la habitación (ej: "IE12")
+     * @return clave de orden
+     */
+    static ClaveOrdenHabitacion de(String nombre) {
+        StringBuilder prefijo = new StringBuilder(nombre.length());
+        StringBuilder digitos = null;
+        for (int i = 0; i < nombre.length(); i++) {
+            char c = nombre.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digitos == null) {
+                    digitos = new StringBuilder();
+                }
+                if (c != '0' || !digitos.isEmpty()) {
+                    digitos.append(c);
+                }
+            } else {
+                prefijo.append(c);
+            }
+        }
+        String numero = digitos == null ? null : digitos.isEmpty() ? "0" : digitos.toString();
+        return new ClaveOrdenHabitacion(prefijo.toString(), numero, nombre);
+    }
+
+    @Override
+    public int compareTo(ClaveOrdenHabitacion otra) {
+        int porPrefijo = prefijo.compareTo(otra.prefijo);
+        if (porPrefijo != 0) return porPrefijo;
+        int porNumero = compararNumeros(digitos, otra.digitos);
+        return porNumero != 0 ? porNumero : nombre.compareTo(otra.nombre);
+    }
+
+    /** Sin dígitos va primero; si no, el de menos dígitos es el menor. */
+    private static int compararNumeros(String a, String b) {
+        if (a == null || b == null) return a == null ? (b == null ? 0 : -1) : 1;
+        int porLongitud = Integer.compare(a.length(), b.length());
+        return porLongitud != 0 ? porLongitud : a.compareTo(b);
+    }
+}
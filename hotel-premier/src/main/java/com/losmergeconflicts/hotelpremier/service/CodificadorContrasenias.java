@@ -0,0 +1,116 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder que calcula los hashes en un pool acotado de hilos.
+ *
+ * BCrypt ocupa un núcleo entero durante todo el cálculo. Si cada request de login
+ * lo hiciera en su propio hilo de Tomcat, una ráfaga de logins (cambio de turno)
+ * podría ocupar todos los núcleos y frenar al resto de los requests. Acá los
+ * cálculos se hacen en un pool de tamaño fijo (por defecto, la cantidad de
+ * núcleos) con una cola acotada: el hilo del request espera su turno sin consumir
+ * CPU, y si la cola está llena el login falla enseguida en lugar de acumularse.
+ *
+ * upgradeEncoding no calcula hashes y se resuelve en el hilo del llamador.
+ *
+ * @Slf4j: Genera automáticamente un logger para la clase
+ */
+@Slf4j
+public class CodificadorContrasenias implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegado;
+    private final ThreadPoolExecutor ejecutor;
+
+    /**
+     * @param delegado encoder que calcula los hashes
+     * @param hilos cálculos simultáneos como máximo
+     * @param cola cálculos que pueden esperar turno; los siguientes se rechazan
+     */
+    public CodificadorContrasenias(PasswordEncoder delegado, int hilos, int cola) {
+        if (hilos < 1 || cola < 0) {
+            throw new IllegalArgumentException("Se requiere al menos un hilo y una cola no negativa");
+        }
+        this.delegado = delegado;
+        AtomicInteger numero = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                cola == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(cola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "hash-contrasenias-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    /**
+     * @throws IllegalStateException si hay demasiados cálculos en espera
+     */
+    @Override
+    public String encode(CharSequence contrasenia) {
+        try {
+            return ejecutar(() -> delegado.encode(contrasenia));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Hay demasiadas operaciones de contraseña en curso, intente nuevamente", e);
+        }
+    }
+
+    /**
+     * @throws AuthenticationServiceException si hay demasiados cálculos en espera
+     *         (Spring Security lo informa como login fallido)
+     */
+    @Override
+    public boolean matches(CharSequence contrasenia, String hash) {
+        try {
+            return ejecutar(() -> delegado.matches(contrasenia, hash));
+        } catch (RejectedExecutionException e) {
+            log.warn("Verificación de contraseña rechazada: cola de hashing llena");
+            throw new AuthenticationServiceException("Servidor ocupado, intente nuevamente", e);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String hash) {
+        return delegado.upgradeEncoding(hash);
+    }
+
+    /**
+     * @return cálculos que esperan turno en la cola
+     */
+    int calculosEnEspera() {
+        return ejecutor.getQueue().size();
+    }
+
+    /**
+     * Detiene el pool (Spring lo llama al cerrar el contexto).
+     */
+    @Override
+    public void close() {
+        ejecutor.shutdown();
+    }
+
+    private <T> T ejecutar(Callable<T> calculo) {
+        Future<T> resultado = ejecutor.submit(calculo);
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo de contraseña interrumpido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) throw causa;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
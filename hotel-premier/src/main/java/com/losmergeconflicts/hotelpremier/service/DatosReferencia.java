@@ -0,0 +1,111 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.losmergeconflicts.hotelpremier.dto.LocalidadDTO;
+import com.losmergeconflicts.hotelpremier.dto.NacionalidadDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Instantánea inmutable en memoria de los datos de referencia del alta de huéspedes
+ * (localidades y nacionalidades).
+ *
+ * Se carga al iniciar la aplicación y se puede recargar a pedido. Cada lista lleva
+ * un ETag fuerte calculado sobre su contenido serializado: mientras los datos no
+ * cambien el ETag es el mismo, y el navegador puede revalidar con un 304 sin
+ * volver a descargar la lista.
+ *
+ * @Slf4j: Genera automáticamente un logger para la clase
+ */
+@Component
+@Slf4j
+public class DatosReferencia {
+
+    /**
+     * Lista inmutable junto con el ETag de su contenido.
+     *
+     * @param datos elementos de la lista
+     * @param etag hash del contenido serializado (sin comillas)
+     */
+    public record ListaVersionada<T>(List<T> datos, String etag) {}
+
+    private record Instantanea(ListaVersionada<LocalidadDTO> localidades,
+                               ListaVersionada<NacionalidadDTO> nacionalidades) {}
+
+    private final GestorPersonas gestorPersonas;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Se reemplaza entera en cada recarga; los lectores nunca ven una mezcla.
+     */
+    private volatile Instantanea instantanea;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param gestorPersonas gestor que lee localidades y nacionalidades de la BD
+     * @param objectMapper serializador usado para calcular los ETags
+     */
+    @Autowired
+    public DatosReferencia(GestorPersonas gestorPersonas, ObjectMapper objectMapper) {
+        this.gestorPersonas = gestorPersonas;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Vuelve a leer localidades y nacionalidades y publica una instantánea nueva.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recargar() {
+        Instantanea nueva = new Instantanea(
+                versionar(gestorPersonas.listarLocalidades()),
+                versionar(gestorPersonas.listarNacionalidades()));
+        instantanea = nueva;
+        log.info("Datos de referencia cargados: {} localidades, {} nacionalidades",
+                nueva.localidades().datos().size(), nueva.nacionalidades().datos().size());
+    }
+
+    /**
+     * @return localidades (con provincia y país) y su ETag
+     */
+    public ListaVersionada<LocalidadDTO> getLocalidades() {
+        return cargada().localidades();
+    }
+
+    /**
+     * @return nacionalidades y su ETag
+     */
+    public ListaVersionada<NacionalidadDTO> getNacionalidades() {
+        return cargada().nacionalidades();
+    }
+
+    private Instantanea cargada() {
+        Instantanea actual = instantanea;
+        if (actual == null) {
+            synchronized (this) {
+                if (instantanea == null) recargar();
+                actual = instantanea;
+            }
+        }
+        return actual;
+    }
+
+    private <T> ListaVersionada<T> versionar(List<T> datos) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(datos);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return new ListaVersionada<>(List.copyOf(datos), HexFormat.of().formatHex(hash, 0, 16));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo versionar la lista de referencia", e);
+        }
+    }
+}
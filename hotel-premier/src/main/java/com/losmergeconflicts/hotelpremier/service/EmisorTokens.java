@@ -0,0 +1,168 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.losmergeconflicts.hotelpremier.dto.TokenDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.UsuarioAutenticado;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Emite y verifica los tokens de acceso a la API (/api/**).
+ *
+ * Los tokens son JWT firmados con HMAC-SHA256 (HS256) y llevan todo lo necesario
+ * para autenticar el request (ID, username, rol y vencimiento), así que verificarlos
+ * no requiere sesión ni consultas a la base: cualquier instancia de la aplicación
+ * con el mismo secreto puede atender cualquier request.
+ *
+ * Como no se guardan del lado del servidor, un token no se puede revocar: vale
+ * hasta su vencimiento (hotel.seguridad.token.duracion).
+ *
+ * Si no se configura hotel.seguridad.token.secreto (Base64, al menos 32 bytes) se
+ * genera uno al azar al iniciar: sirve para desarrollo, pero los tokens dejan de
+ * valer al reiniciar y no los aceptan las otras instancias. Por eso, con
+ * hotel.seguridad.api.requiere-token=true el secreto es obligatorio y la
+ * aplicación no inicia sin él.
+ *
+ * @Slf4j: Genera automáticamente un logger para la clase
+ */
+@Component
+@Slf4j
+public class EmisorTokens {
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final String ENCABEZADO = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final SecretKeySpec clave;
+    private final Duration duracion;
+    private final ObjectMapper objectMapper;
+    private final Clock reloj;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param secreto clave de firma en Base64; vacío para generar una al azar
+     * @param requiereToken si la API exige token (entonces el secreto es obligatorio)
+     * @param duracion validez de cada token
+     * @param objectMapper serializador del contenido del token
+     * @throws IllegalArgumentException si el secreto es muy corto, o falta y la API exige token
+     */
+    @Autowired
+    public EmisorTokens(@Value("${hotel.seguridad.token.secreto:}") String secreto,
+                        @Value("${hotel.seguridad.api.requiere-token:false}") boolean requiereToken,
+                        @Value("${hotel.seguridad.token.duracion:8h}") Duration duracion,
+                        ObjectMapper objectMapper) {
+        this(secreto, requiereToken, duracion, objectMapper, Clock.systemUTC());
+    }
+
+    EmisorTokens(String secreto, boolean requiereToken, Duration duracion, ObjectMapper objectMapper, Clock reloj) {
+        byte[] bytes;
+        if (secreto == null || secreto.isBlank()) {
+            if (requiereToken) {
+                throw new IllegalArgumentException("Con hotel.seguridad.api.requiere-token=true hay que configurar "
+                        + "hotel.seguridad.token.secreto (el mismo en todas las instancias)");
+            }
+            log.warn("hotel.seguridad.token.secreto no está configurado: se usa un secreto al azar, "
+                    + "válido sólo para esta instancia");
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = Base64.getDecoder().decode(secreto.trim());
+            if (bytes.length < 32) {
+                throw new IllegalArgumentException("El secreto de los tokens debe tener al menos 32 bytes");
+            }
+        }
+        this.clave = new SecretKeySpec(bytes, ALGORITMO);
+        this.duracion = duracion;
+        this.objectMapper = objectMapper;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Emite un token para un usuario ya autenticado.
+     *
+     * @param usuario usuario autenticado
+     * @return token firmado y su validez
+     */
+    public TokenDTOResponse emitir(UsuarioAutenticado usuario) {
+        long ahora = reloj.instant().getEpochSecond();
+        Map<String, Object> contenido = new LinkedHashMap<>();
+        contenido.put("sub", usuario.username());
+        contenido.put("uid", usuario.id());
+        contenido.put("rol", usuario.role());
+        contenido.put("iat", ahora);
+        contenido.put("exp", ahora + duracion.toSeconds());
+
+        String cuerpo;
+        try {
+            cuerpo = ENCABEZADO + "." + base64(objectMapper.writeValueAsBytes(contenido));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo generar el token", e);
+        }
+        return new TokenDTOResponse(cuerpo + "." + base64(firmar(cuerpo)), "Bearer", duracion.toSeconds());
+    }
+
+    /**
+     * Verifica la firma y el vencimiento de un token.
+     *
+     * @param token token recibido
+     * @return el usuario del token (sin contraseña); vacío si el token es inválido o venció
+     */
+    public Optional<UsuarioAutenticado> verificar(String token) {
+        if (token == null) return Optional.empty();
+        int primerPunto = token.indexOf('.');
+        int ultimoPunto = token.lastIndexOf('.');
+        if (primerPunto < 0 || primerPunto == ultimoPunto
+                || !ENCABEZADO.equals(token.substring(0, primerPunto))) {
+            return Optional.empty();
+        }
+        try {
+            byte[] firma = Base64.getUrlDecoder().decode(token.substring(ultimoPunto + 1));
+            if (!MessageDigest.isEqual(firma, firmar(token.substring(0, ultimoPunto)))) {
+                return Optional.empty();
+            }
+            JsonNode contenido = objectMapper.readTree(
+                    Base64.getUrlDecoder().decode(token.substring(primerPunto + 1, ultimoPunto)));
+            if (contenido.path("exp").asLong() <= reloj.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+            return Optional.of(new UsuarioAutenticado(contenido.path("uid").asLong(),
+                    contenido.path("sub").asText(), null, contenido.path("rol").asText()));
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] firmar(String contenido) {
+        try {
+            // Mac no es thread-safe: una instancia por firma
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(clave);
+            return mac.doFinal(contenido.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo firmar el token", e);
+        }
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,243 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.dao.HuespedDAO;
+import com.losmergeconflicts.hotelpremier.dto.DocumentoHuespedDTO;
+import com.losmergeconflicts.hotelpremier.entity.TipoDocumento;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Filtro de Bloom en memoria con los documentos (tipo y número) de los huéspedes
+ * registrados.
+ *
+ * Responde "seguro que no existe" o "puede existir": si el documento no está en el
+ * filtro, el alta de huésped y la verificación de documento se ahorran la consulta
+ * a la base de datos; si puede existir, la base de datos decide. Con la tasa de
+ * falsos positivos por defecto (1%), casi todos los documentos nuevos se resuelven
+ * sin consultar.
+ *
+ * - Se carga al iniciar la aplicación y se reconstruye todos los días, ajustando
+ *   el tamaño a la cantidad de huéspedes.
+ * - GestorPersonas registra cada alta. Un alta que luego se revierte sólo deja un
+ *   falso positivo más.
+ *
+ * El filtro es local al proceso: con varias instancias de la aplicación cada una
+ * no ve las altas de las demás hasta la siguiente reconstrucción, y podría dar por
+ * nuevo un documento ya registrado. En ese caso se debe deshabilitar con
+ * hotel.filtro-documentos.habilitado=false.
+ *
+ * @Slf4j: Genera automáticamente un logger para la clase
+ */
+@Component
+@Slf4j
+public class FiltroDocumentos {
+
+    private final HuespedDAO huespedDAO;
+    private final boolean habilitado;
+    private final int capacidadMinima;
+    private final double tasaFalsosPositivos;
+
+    private final Object lock = new Object();
+
+    /**
+     * Filtro vigente; null mientras no fue cargado (todo documento puede existir).
+     */
+    private volatile Bloom filtro;
+
+    /**
+     * Documentos registrados mientras se reconstruye el filtro. Se agregan al filtro
+     * nuevo antes de publicarlo para no perder altas.
+     */
+    private List<String> registradosDuranteCarga;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param huespedDAO DAO para leer los documentos registrados
+     * @param habilitado si es false el filtro nunca se carga y toda verificación va a la BD
+     * @param capacidadMinima cantidad de documentos para la que se dimensiona el filtro como mínimo
+     * @param tasaFalsosPositivos proporción buscada de documentos nuevos que igual van a la BD
+     */
+    @Autowired
+    public FiltroDocumentos(HuespedDAO huespedDAO,
+                            @Value("${hotel.filtro-documentos.habilitado:true}") boolean habilitado,
+                            @Value("${hotel.filtro-documentos.capacidad-minima:100000}") int capacidadMinima,
+                            @Value("${hotel.filtro-documentos.tasa-falsos-positivos:0.01}") double tasaFalsosPositivos) {
+        this.huespedDAO = huespedDAO;
+        this.habilitado = habilitado;
+        this.capacidadMinima = capacidadMinima;
+        this.tasaFalsosPositivos = tasaFalsosPositivos;
+    }
+
+    /**
+     * Carga el filtro al arrancar y lo reconstruye cada madrugada. Se dimensiona
+     * para el doble de los huéspedes actuales, así admite altas hasta la siguiente
+     * reconstrucción sin perder precisión.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.filtro-documentos.cron:0 10 0 * * *}")
+    @Transactional(readOnly = true)
+    public void cargar() {
+        if (!habilitado) return;
+
+        synchronized (lock) {
+            registradosDuranteCarga = new ArrayList<>();
+        }
+
+        Bloom nuevo;
+        try {
+            long capacidad = Math.max(capacidadMinima, 2 * huespedDAO.count());
+            nuevo = new Bloom(capacidad, tasaFalsosPositivos);
+            try (Stream<DocumentoHuespedDTO> documentos = huespedDAO.streamDocumentos()) {
+                documentos.forEach(d -> nuevo.agregar(clave(d.tipoDocumento(), d.documento())));
+            }
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                registradosDuranteCarga = null;
+            }
+            throw e;
+        }
+
+        synchronized (lock) {
+            registradosDuranteCarga.forEach(nuevo::agregar);
+            registradosDuranteCarga = null;
+            filtro = nuevo;
+        }
+        log.info("Filtro de documentos cargado: {} documentos, {} bits, {} funciones de hash",
+                nuevo.agregados.get(), nuevo.cantidadBits, nuevo.funciones);
+    }
+
+    /**
+     * Indica si el documento puede estar registrado.
+     *
+     * @param tipoDocumento tipo de documento
+     * @param documento número de documento
+     * @return false si seguro no está registrado; true si puede estarlo (o si el
+     *         filtro no está cargado) y hay que consultar la base de datos
+     */
+    public boolean puedeExistir(TipoDocumento tipoDocumento, String documento) {
+        Bloom actual = filtro;
+        return actual == null || actual.puedeContener(clave(tipoDocumento, documento));
+    }
+
+    /**
+     * Agrega al filtro el documento de un huésped dado de alta en la transacción en curso.
+     *
+     * Se agrega enseguida, para que las verificaciones concurrentes ya lo vean, y de
+     * nuevo después del commit, por si mientras tanto se reconstruyó el filtro con
+     * una lectura que todavía no incluía el alta.
+     *
+     * @param tipoDocumento tipo de documento
+     * @param documento número de documento
+     */
+    public void registrar(TipoDocumento tipoDocumento, String documento) {
+        if (!habilitado) return;
+        String clave = clave(tipoDocumento, documento);
+        agregar(clave);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    agregar(clave);
+                }
+            });
+        }
+    }
+
+    private void agregar(String clave) {
+        synchronized (lock) {
+            if (filtro != null) {
+                filtro.agregar(clave);
+                if (filtro.agregados.get() == filtro.capacidad + 1) {
+                    log.warn("Filtro de documentos por encima de su capacidad ({}); aumentan los falsos positivos "
+                            + "hasta la próxima reconstrucción", filtro.capacidad);
+                }
+            }
+            if (registradosDuranteCarga != null) registradosDuranteCarga.add(clave);
+        }
+    }
+
+    private static String clave(TipoDocumento tipoDocumento, String documento) {
+        return tipoDocumento + ":" + documento;
+    }
+
+    /**
+     * Filtro de Bloom sobre un arreglo de bits. Cada clave marca k bits elegidos con
+     * doble hashing (h1 + i * h2) a partir de un hash de 64 bits. Las lecturas no
+     * toman el lock: los bits sólo pasan de 0 a 1.
+     */
+    private static final class Bloom {
+        private final AtomicLongArray bits;
+        private final int cantidadBits;
+        private final int funciones;
+        private final long capacidad;
+        private final AtomicInteger agregados = new AtomicInteger();
+
+        private Bloom(long capacidad, double tasaFalsosPositivos) {
+            double ln2 = Math.log(2);
+            long m = (long) Math.ceil(-capacidad * Math.log(tasaFalsosPositivos) / (ln2 * ln2));
+            this.cantidadBits = (int) Math.min(Math.max(m, 64), Integer.MAX_VALUE - 63);
+            this.funciones = Math.max(1, (int) Math.round((double) cantidadBits / capacidad * ln2));
+            this.capacidad = capacidad;
+            this.bits = new AtomicLongArray((cantidadBits + 63) / 64);
+        }
+
+        private void agregar(String clave) {
+            long hash = hash(clave);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= funciones; i++) {
+                int bit = posicion(h1 + i * h2);
+                bits.getAndAccumulate(bit >>> 6, 1L << bit, (actual, mascara) -> actual | mascara);
+            }
+            agregados.incrementAndGet();
+        }
+
+        private boolean puedeContener(String clave) {
+            long hash = hash(clave);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= funciones; i++) {
+                int bit = posicion(h1 + i * h2);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        private int posicion(int combinado) {
+            return (combinado < 0 ? ~combinado : combinado) % cantidadBits;
+        }
+
+        /**
+         * FNV-1a de 64 bits seguido del mezclador final de MurmurHash3, para que
+         * claves casi iguales (documentos consecutivos) den hashes bien distintos.
+         */
+        private static long hash(String clave) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < clave.length(); i++) {
+                h ^= clave.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -2,7 +2,23 @@ package com.losmergeconflicts.hotelpremier.service;
 
 import com.losmergeconflicts.hotelpremier.dto.EstadiaDTOResponse;
 import com.losmergeconflicts.hotelpremier.dto.EstadiaDTORequest;
+import com.losmergeconflicts.hotelpremier.dto.ModoLote;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoOcupacionLoteDTO;
+
+import java.util.List;
 
 public interface GestorEstadias {
     EstadiaDTOResponse registrarOcupacion(EstadiaDTORequest request);
-}
\ No newline at end of file
+
+    /**
+     * Registra varias ocupaciones (check-in grupal) en una única transacción.
+     *
+     * @param requests ocupaciones a registrar
+     * @param modo TODO_O_NADA rechaza el lote completo si alguna ocupación es inválida;
+     *             MEJOR_ESFUERZO registra las válidas e informa las rechazadas
+     * @return resultado por ocupación, en el orden pedido
+     * @throws IllegalArgumentException si el lote está vacío, o en modo TODO_O_NADA si alguna ocupación es inválida
+     * @throws IllegalStateException en modo TODO_O_NADA si alguna habitación no está disponible
+     */
+    ResultadoOcupacionLoteDTO registrarOcupacionesEnLote(List<EstadiaDTORequest> requests, ModoLote modo);
+}
@@ -2,9 +2,13 @@ package com.losmergeconflicts.hotelpremier.service;
 
 import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
 import com.losmergeconflicts.hotelpremier.dao.HabitacionDAO;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionFueraServicioDAO;
 import com.losmergeconflicts.hotelpremier.dao.HuespedDAO;
 import com.losmergeconflicts.hotelpremier.dto.EstadiaDTOResponse;
 import com.losmergeconflicts.hotelpremier.dto.EstadiaDTORequest;
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
+import com.losmergeconflicts.hotelpremier.dto.ModoLote;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoOcupacionLoteDTO;
 import com.losmergeconflicts.hotelpremier.entity.Estadia;
 import com.losmergeconflicts.hotelpremier.entity.Habitacion;
 import com.losmergeconflicts.hotelpremier.entity.Huesped;
@@ -13,14 +17,26 @@ import com.losmergeconflicts.hotelpremier.mapper.EstadiaMapper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Period;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -31,11 +47,44 @@ public class GestorEstadiasImp implements GestorEstadias {
     private final HabitacionDAO habitacionDAO;
     private final HuespedDAO huespedDAO;
     private final EstadiaMapper estadiaMapper;
+    private final IndiceOcupacion indiceOcupacion;
+    private final HabitacionFueraServicioDAO habitacionFueraServicioDAO;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * Intentos de un check-in ante conflictos de versión antes de informar el conflicto.
+     */
+    private static final int MAX_INTENTOS = 3;
+
+    /**
+     * Registra la ocupación de una habitación (check-in).
+     *
+     * Cada intento corre en su propia transacción: verifica que la habitación no
+     * tenga otra estadía ni esté fuera de servicio en el rango y la marca OCUPADA
+     * sólo si su versión no cambió desde que se leyó. Si otro check-in la modificó
+     * entretanto se reintenta (como máximo MAX_INTENTOS veces); el reintento ya ve
+     * la estadía confirmada por el otro y responde con el conflicto.
+     *
+     * @throws IllegalStateException si la habitación no está disponible o sigue en conflicto tras los reintentos
+     */
     @Override
-    @Transactional
     public EstadiaDTOResponse registrarOcupacion(EstadiaDTORequest request) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(status -> registrarOcupacionEnTransaccion(request));
+            } catch (ConcurrencyFailureException e) {
+                if (intento >= MAX_INTENTOS) {
+                    log.warn("Check-in de la habitación {} sin resolver tras {} intentos", request.idHabitacion(), intento);
+                    throw new IllegalStateException(
+                            "La habitación está siendo ocupada por otra operación, intente nuevamente", e);
+                }
+                log.debug("Conflicto de concurrencia en check-in de la habitación {} (intento {}): {}",
+                        request.idHabitacion(), intento, e.getMessage());
+            }
+        }
+    }
 
+    private EstadiaDTOResponse registrarOcupacionEnTransaccion(EstadiaDTORequest request) {
         Habitacion habitacion = habitacionDAO.findById(request.idHabitacion())
                 .orElseThrow(() -> new EntityNotFoundException("Habitación no encontrada"));
 
@@ -48,6 +97,15 @@ public class GestorEstadiasImp implements GestorEstadias {
         }
 
         validarReglasNegocio(habitacion, responsable, acompanantes);
+        verificarDisponibilidad(habitacion, request.fechaIngreso(), request.fechaEgreso());
+
+        // Marcar OCUPADA sólo si nadie modificó la habitación desde que se leyó. La fila
+        // queda bloqueada hasta el commit, así el resto del check-in ya no compite.
+        if (habitacionDAO.actualizarEstadoSiNoCambio(habitacion.getId(), TipoEstadoHabitacion.OCUPADA,
+                habitacion.getVersion()) == 0) {
+            throw new OptimisticLockingFailureException(
+                    "La habitación " + habitacion.getNombre() + " fue modificada por otra operación");
+        }
 
         LocalDateTime fechaIngreso = request.fechaIngreso().atTime(12, 0);
 
@@ -56,21 +114,272 @@ public class GestorEstadiasImp implements GestorEstadias {
                 .fechaEgresoEsperado(request.fechaEgreso())
                 .habitacion(habitacion)
                 .huespedAsignado(responsable)
+                .huespedesAcompaniantes(new ArrayList<>(acompanantes))
                 .itemsConsumo(new ArrayList<>())
                 .build();
 
+        // Las filas de estadia_huespedes_acompaniantes se escriben junto con la estadía,
+        // en un único lote JDBC (hibernate.jdbc.batch_size)
         Estadia estadiaGuardada = estadiaDAO.save(nuevaEstadia);
+        log.info("Estadía {} registrada con {} acompañantes", estadiaGuardada.getId(), acompanantes.size());
+
+        indiceOcupacion.registrarEstadia(habitacion.getId(), request.fechaIngreso(), request.fechaEgreso());
+
+        return estadiaMapper.toResponse(estadiaGuardada);
+    }
+
+    /**
+     * Registra varias ocupaciones (check-in grupal) en una única transacción.
+     *
+     * Proceso:
+     * 1. Valida cada ocupación y junta las habitaciones y huéspedes de todo el lote
+     * 2. Busca las habitaciones (bloqueadas con FOR UPDATE hasta el commit) y los
+     *    huéspedes con una consulta cada una
+     * 3. Verifica edad del responsable y capacidad en memoria
+     * 4. Verifica la disponibilidad contra la base de datos (una consulta de estadías
+     *    y una de períodos fuera de servicio para el rango del lote) y contra las
+     *    ocupaciones anteriores del mismo lote
+     * 5. Descarta (MEJOR_ESFUERZO) o rechaza el lote (TODO_O_NADA) si alguna ocupación es inválida
+     * 6. Guarda las estadías juntas; los INSERT de estadias y de estadia_huespedes_acompaniantes
+     *    se envían en lotes JDBC (hibernate.jdbc.batch_size), y marca las habitaciones
+     *    OCUPADAS con un único UPDATE
+     *
+     * El UPDATE incrementa la versión de las habitaciones: un check-in individual que
+     * las haya leído antes del commit falla su actualización condicional y, al
+     * reintentar, ve las estadías del lote.
+     *
+     * @param requests ocupaciones a registrar
+     * @param modo modo de procesamiento del lote
+     * @return resultado por ocupación, en el orden pedido
+     * @throws IllegalArgumentException si el lote está vacío, o en modo TODO_O_NADA si alguna ocupación es inválida
+     * @throws IllegalStateException en modo TODO_O_NADA si alguna habitación no está disponible
+     */
+    @Override
+    @Transactional
+    public ResultadoOcupacionLoteDTO registrarOcupacionesEnLote(List<EstadiaDTORequest> requests, ModoLote modo) {
+        if (requests == null || requests.isEmpty()) {
+            log.error("Intento de check-in grupal sin ocupaciones");
+            throw new IllegalArgumentException("Debe indicar al menos una ocupación");
+        }
+        ModoLote modoEfectivo = modo != null ? modo : ModoLote.TODO_O_NADA;
+        log.info("Registrando check-in grupal de {} ocupaciones en modo {}", requests.size(), modoEfectivo);
 
-        if (!acompanantes.isEmpty()) {
-            for (Huesped a : acompanantes) {
-                log.info("Registrando acompañante: {}", a.getApellido());
-                estadiaDAO.registrarAcompanante(estadiaGuardada.getId(), a.getId());
+        // 1. Validar cada ocupación y juntar habitaciones y huéspedes de todo el lote
+        String[] errores = new String[requests.size()];
+        Set<Long> idsHabitaciones = new HashSet<>();
+        Set<Long> idsHuespedes = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                EstadiaDTORequest request = requests.get(i);
+                validarRequest(request);
+                idsHabitaciones.add(request.idHabitacion());
+                idsHuespedes.add(request.idResponsable());
+                if (request.idsAcompaniantes() != null) idsHuespedes.addAll(request.idsAcompaniantes());
+            } catch (IllegalArgumentException e) {
+                errores[i] = e.getMessage();
             }
         }
 
-        habitacionDAO.actualizarEstado(habitacion.getId(), TipoEstadoHabitacion.OCUPADA);
+        // 2. Una consulta para las habitaciones y otra para los huéspedes del lote
+        Map<Long, Habitacion> habitacionesPorId = idsHabitaciones.isEmpty() ? Map.of()
+                : habitacionDAO.findAllByIdParaActualizar(idsHabitaciones).stream()
+                        .collect(Collectors.toMap(Habitacion::getId, Function.identity()));
+        Map<Long, Huesped> huespedesPorId = idsHuespedes.isEmpty() ? Map.of()
+                : huespedDAO.findAllByIdConDatos(idsHuespedes).stream()
+                        .collect(Collectors.toMap(Huesped::getId, Function.identity()));
 
-        return estadiaMapper.toResponse(estadiaGuardada);
+        // 3. Reglas de negocio en memoria
+        List<List<Huesped>> acompanantesPorOcupacion = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        for (int i = 0; i < requests.size(); i++) {
+            if (errores[i] != null) continue;
+            EstadiaDTORequest request = requests.get(i);
+            try {
+                Habitacion habitacion = habitacionesPorId.get(request.idHabitacion());
+                if (habitacion == null) {
+                    throw new IllegalArgumentException("Habitación no encontrada: " + request.idHabitacion());
+                }
+                Huesped responsable = huespedesPorId.get(request.idResponsable());
+                if (responsable == null) {
+                    throw new IllegalArgumentException("Huésped responsable no encontrado: " + request.idResponsable());
+                }
+                List<Huesped> acompanantes = resolverAcompanantes(request.idsAcompaniantes(), huespedesPorId);
+                validarReglasNegocio(habitacion, responsable, acompanantes);
+                acompanantesPorOcupacion.set(i, acompanantes);
+            } catch (IllegalArgumentException e) {
+                errores[i] = e.getMessage();
+            }
+        }
+
+        // 4. Disponibilidad: contra la base de datos y contra las ocupaciones aceptadas antes en el lote
+        boolean[] noDisponible = new boolean[requests.size()];
+        List<Integer> candidatas = IntStream.range(0, requests.size()).filter(i -> errores[i] == null).boxed().toList();
+        if (!candidatas.isEmpty()) {
+            Set<Long> idsCandidatas = candidatas.stream().map(i -> requests.get(i).idHabitacion()).collect(Collectors.toSet());
+            LocalDate desde = candidatas.stream().map(i -> requests.get(i).fechaIngreso()).min(LocalDate::compareTo).get();
+            LocalDate hasta = candidatas.stream().map(i -> finExclusivo(requests.get(i))).max(LocalDate::compareTo).get();
+            List<IntervaloOcupacionDTO> ocupacion = buscarOcupacion(idsCandidatas, desde, hasta);
+            for (int i : candidatas) {
+                EstadiaDTORequest request = requests.get(i);
+                Habitacion habitacion = habitacionesPorId.get(request.idHabitacion());
+                Optional<String> conflicto = buscarConflicto(habitacion,
+                        request.fechaIngreso(), request.fechaEgreso(), ocupacion);
+                if (conflicto.isPresent()) {
+                    errores[i] = conflicto.get();
+                    noDisponible[i] = true;
+                } else {
+                    ocupacion.add(new IntervaloOcupacionDTO(habitacion.getId(),
+                            request.fechaIngreso(), request.fechaEgreso(), TipoEstadoHabitacion.OCUPADA));
+                }
+            }
+        }
+
+        // 5. En modo TODO_O_NADA cualquier error rechaza el lote completo
+        if (modoEfectivo == ModoLote.TODO_O_NADA) {
+            String detalle = IntStream.range(0, errores.length)
+                    .filter(i -> errores[i] != null)
+                    .mapToObj(i -> "ocupación " + (i + 1) + ": " + errores[i])
+                    .collect(Collectors.joining("; "));
+            if (!detalle.isEmpty()) {
+                log.warn("Check-in grupal rechazado: {}", detalle);
+                String mensaje = "No se registró ninguna ocupación (" + detalle + ")";
+                for (boolean conflicto : noDisponible) {
+                    if (conflicto) throw new IllegalStateException(mensaje);
+                }
+                throw new IllegalArgumentException(mensaje);
+            }
+        }
+
+        // 6. Guardar juntas las estadías válidas y marcar sus habitaciones OCUPADAS
+        List<Integer> indicesValidos = new ArrayList<>();
+        List<Estadia> nuevas = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (errores[i] != null) continue;
+            EstadiaDTORequest request = requests.get(i);
+            indicesValidos.add(i);
+            nuevas.add(Estadia.builder()
+                    .fechaHoraIngreso(request.fechaIngreso().atTime(12, 0))
+                    .fechaEgresoEsperado(request.fechaEgreso())
+                    .habitacion(habitacionesPorId.get(request.idHabitacion()))
+                    .huespedAsignado(huespedesPorId.get(request.idResponsable()))
+                    .huespedesAcompaniantes(new ArrayList<>(acompanantesPorOcupacion.get(i)))
+                    .itemsConsumo(new ArrayList<>())
+                    .build());
+        }
+        List<Estadia> guardadas = List.of();
+        if (!nuevas.isEmpty()) {
+            guardadas = estadiaDAO.saveAll(nuevas);
+            habitacionDAO.actualizarEstadoDeHabitaciones(
+                    guardadas.stream().map(e -> e.getHabitacion().getId()).collect(Collectors.toSet()),
+                    TipoEstadoHabitacion.OCUPADA);
+        }
+
+        ResultadoOcupacionLoteDTO.ItemDTO[] resultados = new ResultadoOcupacionLoteDTO.ItemDTO[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            if (errores[i] != null) {
+                resultados[i] = new ResultadoOcupacionLoteDTO.ItemDTO(i, null, errores[i]);
+            }
+        }
+        for (int j = 0; j < guardadas.size(); j++) {
+            Estadia guardada = guardadas.get(j);
+            int i = indicesValidos.get(j);
+            indiceOcupacion.registrarEstadia(guardada.getHabitacion().getId(),
+                    requests.get(i).fechaIngreso(), requests.get(i).fechaEgreso());
+            resultados[i] = new ResultadoOcupacionLoteDTO.ItemDTO(i, estadiaMapper.toResponse(guardada), null);
+        }
+
+        log.info("Check-in grupal procesado: {} estadías registradas, {} rechazadas",
+                guardadas.size(), requests.size() - guardadas.size());
+        return new ResultadoOcupacionLoteDTO(modoEfectivo, guardadas.size(), requests.size() - guardadas.size(),
+                List.of(resultados));
+    }
+
+    /**
+     * Verifica que la habitación no tenga otra estadía ni un período fuera de
+     * servicio en las noches pedidas.
+     *
+     * @throws IllegalStateException si la habitación no está disponible
+     */
+    private void verificarDisponibilidad(Habitacion habitacion, LocalDate desde, LocalDate hasta) {
+        LocalDate finExclusivo = ReglaOcupacion.finExclusivo(desde, hasta);
+        buscarConflicto(habitacion, desde, hasta, buscarOcupacion(List.of(habitacion.getId()), desde, finExclusivo))
+                .ifPresent(conflicto -> {
+                    throw new IllegalStateException(conflicto);
+                });
+    }
+
+    /**
+     * Busca estadías y períodos fuera de servicio de las habitaciones que tocan las
+     * noches entre desde y finExclusivo.
+     */
+    private List<IntervaloOcupacionDTO> buscarOcupacion(Collection<Long> idsHabitaciones,
+                                                        LocalDate desde, LocalDate finExclusivo) {
+        List<IntervaloOcupacionDTO> ocupacion = new ArrayList<>(estadiaDAO.findIntervalosOcupadosDeHabitaciones(
+                idsHabitaciones, desde.atStartOfDay(), finExclusivo.atTime(23, 59)));
+        ocupacion.addAll(habitacionFueraServicioDAO.findIntervalosFueraServicioDeHabitaciones(
+                idsHabitaciones, desde, finExclusivo.minusDays(1)));
+        return ocupacion;
+    }
+
+    /**
+     * Busca el primer intervalo que impide ocupar la habitación en las noches pedidas
+     * (ReglaOcupacion): el día de egreso de una estadía queda libre para el siguiente
+     * ingreso (el ingreso se registra a las 12); los días fuera de servicio cuentan completos.
+     *
+     * @return mensaje describiendo el conflicto, o vacío si la habitación está disponible
+     */
+    private Optional<String> buscarConflicto(Habitacion habitacion, LocalDate desde, LocalDate hasta,
+                                             List<IntervaloOcupacionDTO> ocupacion) {
+        for (IntervaloOcupacionDTO intervalo : ocupacion) {
+            if (!habitacion.getId().equals(intervalo.idHabitacion())) continue;
+            if (!ReglaOcupacion.seSuperpone(intervalo, desde, hasta)) continue;
+            if (intervalo.estado() == TipoEstadoHabitacion.FUERA_DE_SERVICIO) {
+                return Optional.of("La habitación " + habitacion.getNombre()
+                        + " está fuera de servicio desde " + intervalo.desde());
+            }
+            return Optional.of("La habitación " + habitacion.getNombre()
+                    + " ya está ocupada entre " + desde + " y " + hasta);
+        }
+        return Optional.empty();
+    }
+
+    private static LocalDate finExclusivo(EstadiaDTORequest request) {
+        return ReglaOcupacion.finExclusivo(request.fechaIngreso(), request.fechaEgreso());
+    }
+
+    /**
+     * Valida los datos de una ocupación que no requieren consultar la base de datos.
+     *
+     * @throws IllegalArgumentException si la ocupación es inválida
+     */
+    private void validarRequest(EstadiaDTORequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Los datos de la ocupación no pueden ser nulos");
+        }
+        if (request.idHabitacion() == null || request.idResponsable() == null) {
+            throw new IllegalArgumentException("Debe indicar la habitación y el huésped responsable");
+        }
+        if (request.fechaIngreso() == null || request.fechaEgreso() == null
+                || request.fechaEgreso().isBefore(request.fechaIngreso())) {
+            throw new IllegalArgumentException("La fecha de egreso no puede ser anterior a la fecha de ingreso");
+        }
+    }
+
+    /**
+     * Resuelve los acompañantes de una ocupación entre los huéspedes ya cargados.
+     *
+     * @throws IllegalArgumentException si algún acompañante no existe
+     */
+    private List<Huesped> resolverAcompanantes(List<Long> ids, Map<Long, Huesped> huespedesPorId) {
+        if (ids == null || ids.isEmpty()) return List.of();
+        List<Huesped> acompanantes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Huesped acompanante = huespedesPorId.get(id);
+            if (acompanante == null) {
+                throw new IllegalArgumentException("Acompañante no encontrado: " + id);
+            }
+            acompanantes.add(acompanante);
+        }
+        return acompanantes;
     }
 
     private void validarReglasNegocio(Habitacion habitacion, Huesped responsable, List<Huesped> acompanantes) {
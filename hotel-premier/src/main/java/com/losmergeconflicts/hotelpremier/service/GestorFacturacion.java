@@ -0,0 +1,34 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.dto.FacturaDTOResponse;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public interface GestorFacturacion {
+
+    /**
+     * Emite la factura de una estadía: el alojamiento (noches por precio de la
+     * habitación) más los consumos de la estadía.
+     *
+     * @param idEstadia estadía a facturar
+     * @param idResponsableDePago responsable de pago al que se emite la factura
+     * @return factura emitida, con sus renglones
+     * @throws IllegalArgumentException si falta alguno de los IDs
+     * @throws jakarta.persistence.EntityNotFoundException si no existe la estadía o el responsable de pago
+     * @throws IllegalStateException si la estadía ya fue facturada
+     */
+    FacturaDTOResponse facturarEstadia(Long idEstadia, Long idResponsableDePago);
+
+    /**
+     * Emite las facturas de varias estadías (cierre de estadías en lote) en la
+     * transacción en curso, con una consulta para todas las estadías y sus consumos
+     * y una para los responsables de pago. Las estadías que ya tienen factura se omiten.
+     *
+     * @param responsablesPorEstadia responsable de pago de cada estadía (ID de estadía → ID de responsable)
+     * @param salida salida que se factura a las estadías sin egreso (la que después registra el cierre)
+     * @return cantidad de facturas emitidas
+     * @throws jakarta.persistence.EntityNotFoundException si no existe alguno de los responsables de pago
+     */
+    int facturarEstadias(Map<Long, Long> responsablesPorEstadia, LocalDateTime salida);
+}
@@ -0,0 +1,229 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
+import com.losmergeconflicts.hotelpremier.dao.FacturaDAO;
+import com.losmergeconflicts.hotelpremier.dao.FacturaDetalleDAO;
+import com.losmergeconflicts.hotelpremier.dao.ResponsableDePagoDAO;
+import com.losmergeconflicts.hotelpremier.dto.ConsumoEstadiaDTO;
+import com.losmergeconflicts.hotelpremier.dto.FacturaDTOResponse;
+import com.losmergeconflicts.hotelpremier.entity.EstadoFactura;
+import com.losmergeconflicts.hotelpremier.entity.Factura;
+import com.losmergeconflicts.hotelpremier.entity.FacturaDetalle;
+import com.losmergeconflicts.hotelpremier.entity.ResponsableDePago;
+import com.losmergeconflicts.hotelpremier.entity.TipoFactura;
+import com.losmergeconflicts.hotelpremier.mapper.FacturaMapper;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del servicio de facturación.
+ *
+ * Esta clase contiene la lógica de negocio de la emisión de facturas de
+ * estadías, una a una o en lote (cierre de estadías). Antes de controlar si una
+ * estadía ya fue facturada la bloquea (EstadiaDAO.bloquearParaFacturar), así dos
+ * emisiones simultáneas no la facturan dos veces.
+ *
+ * @Slf4j: Genera automáticamente un logger para la clase
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GestorFacturacionImp implements GestorFacturacion {
+
+    static final String UNIDAD_NOCHE = "noche";
+    static final String UNIDAD_CONSUMO = "unidad";
+
+    private final EstadiaDAO estadiaDAO;
+    private final ResponsableDePagoDAO responsableDePagoDAO;
+    private final FacturaDAO facturaDAO;
+    private final FacturaDetalleDAO facturaDetalleDAO;
+    private final FacturaMapper facturaMapper;
+
+    /**
+     * Factura armada en memoria, todavía sin guardar.
+     */
+    private record FacturaArmada(Factura factura, List<FacturaDetalle> detalles) {}
+
+    /**
+     * Emite la factura de una estadía.
+     *
+     * Proceso:
+     * 1. Bloquea la estadía hasta el fin de la transacción y lee la estadía, su habitación y sus consumos con una sola consulta
+     *    (EstadiaDAO.findConsumosParaFacturar), sin cargar las entidades
+     * 2. Busca el responsable de pago: la factura es A si tiene CUIT y B si no
+     * 3. Calcula en memoria el valor de la estadía (noches por precio de la
+     *    habitación), un renglón por el alojamiento y uno por cada consumo
+     * 4. Guarda la factura y sus renglones juntos: con IDs por secuencia pooled los
+     *    INSERT se envían en lotes JDBC (hibernate.jdbc.batch_size)
+     *
+     * Si la estadía todavía no tiene egreso se factura hasta ahora.
+     *
+     * @throws IllegalArgumentException si falta alguno de los IDs
+     * @throws EntityNotFoundException si no existe la estadía o el responsable de pago
+     * @throws IllegalStateException si la estadía ya fue facturada
+     */
+    @Override
+    @Transactional
+    public FacturaDTOResponse facturarEstadia(Long idEstadia, Long idResponsableDePago) {
+        if (idEstadia == null || idResponsableDePago == null) {
+            log.error("Intento de facturar sin estadía o sin responsable de pago");
+            throw new IllegalArgumentException("Debe indicar la estadía y el responsable de pago");
+        }
+
+        estadiaDAO.bloquearParaFacturar(List.of(idEstadia));
+        List<ConsumoEstadiaDTO> filas = estadiaDAO.findConsumosParaFacturar(List.of(idEstadia));
+        if (filas.isEmpty()) {
+            throw new EntityNotFoundException("Estadía no encontrada");
+        }
+        if (filas.get(0).facturada()) {
+            log.warn("La estadía {} ya fue facturada", idEstadia);
+            throw new IllegalStateException("La estadía " + idEstadia + " ya fue facturada");
+        }
+
+        ResponsableDePago responsable = responsableDePagoDAO.findById(idResponsableDePago)
+                .orElseThrow(() -> new EntityNotFoundException("Responsable de pago no encontrado"));
+
+        FacturaArmada armada = armarFactura(filas, responsable, LocalDateTime.now());
+        guardar(List.of(armada));
+
+        Factura factura = armada.factura();
+        log.info("Factura {} ({}) emitida para la estadía {}: {} noches, {} consumos, total {}",
+                factura.getId(), factura.getTipoFactura(), idEstadia, armada.detalles().get(0).getCantidad(),
+                armada.detalles().size() - 1, factura.getMontoTotal());
+        return facturaMapper.toResponse(factura, armada.detalles());
+    }
+
+    /**
+     * Emite las facturas de varias estadías en la transacción en curso.
+     *
+     * Igual que facturarEstadia, pero con una consulta para bloquear todas las
+     * estadías, una para leerlas con sus consumos, una para todos los responsables
+     * de pago y un INSERT en lote por tabla para todas las facturas.
+     */
+    @Override
+    @Transactional
+    public int facturarEstadias(Map<Long, Long> responsablesPorEstadia, LocalDateTime salida) {
+        if (responsablesPorEstadia.isEmpty()) return 0;
+
+        estadiaDAO.bloquearParaFacturar(responsablesPorEstadia.keySet());
+        Map<Long, List<ConsumoEstadiaDTO>> filasPorEstadia = estadiaDAO
+                .findConsumosParaFacturar(responsablesPorEstadia.keySet()).stream()
+                .filter(fila -> !fila.facturada())
+                .collect(Collectors.groupingBy(ConsumoEstadiaDTO::idEstadia, LinkedHashMap::new, Collectors.toList()));
+        if (filasPorEstadia.isEmpty()) return 0;
+
+        Set<Long> idsResponsables = filasPorEstadia.keySet().stream()
+                .map(responsablesPorEstadia::get).collect(Collectors.toSet());
+        Map<Long, ResponsableDePago> responsables = responsableDePagoDAO.findAllById(idsResponsables).stream()
+                .collect(Collectors.toMap(ResponsableDePago::getId, Function.identity()));
+
+        List<FacturaArmada> armadas = new ArrayList<>(filasPorEstadia.size());
+        filasPorEstadia.forEach((idEstadia, filas) -> {
+            Long idResponsable = responsablesPorEstadia.get(idEstadia);
+            ResponsableDePago responsable = responsables.get(idResponsable);
+            if (responsable == null) {
+                throw new EntityNotFoundException("Responsable de pago no encontrado: " + idResponsable);
+            }
+            armadas.add(armarFactura(filas, responsable, salida));
+        });
+        guardar(armadas);
+
+        log.info("{} facturas emitidas ({} estadías ya estaban facturadas)",
+                armadas.size(), responsablesPorEstadia.size() - armadas.size());
+        return armadas.size();
+    }
+
+    /**
+     * Arma la factura de una estadía a partir de sus filas de ConsumoEstadiaDTO.
+     *
+     * Se cobra una noche por cada cambio de fecha entre el ingreso y la salida, con
+     * un mínimo de una. Los importes se calculan con BigDecimal y se redondean a
+     * centavos antes de guardarlos como Float.
+     *
+     * @param filas filas de una misma estadía
+     * @param responsable responsable de pago
+     * @param salidaSinEgreso salida que se factura si la estadía no tiene egreso
+     */
+    private FacturaArmada armarFactura(List<ConsumoEstadiaDTO> filas, ResponsableDePago responsable,
+                                       LocalDateTime salidaSinEgreso) {
+        ConsumoEstadiaDTO estadia = filas.get(0);
+        LocalDateTime salida = estadia.fechaHoraEgreso() != null ? estadia.fechaHoraEgreso() : salidaSinEgreso;
+        int noches = (int) Math.max(1, ChronoUnit.DAYS.between(
+                estadia.fechaHoraIngreso().toLocalDate(), salida.toLocalDate()));
+
+        Factura factura = Factura.builder()
+                .estado(EstadoFactura.PENDIENTE)
+                .numeroHabitacion(estadia.nombreHabitacion())
+                .fechaEmision(LocalDate.now())
+                .fechaHoraSalida(salida)
+                .tipoFactura(responsable.getCuit() != null && !responsable.getCuit().isBlank()
+                        ? TipoFactura.A : TipoFactura.B)
+                .responsableDePago(responsable)
+                .estadia(estadiaDAO.getReferenceById(estadia.idEstadia()))
+                .build();
+
+        List<FacturaDetalle> detalles = new ArrayList<>(filas.size() + 1);
+        BigDecimal valorEstadia = subtotal(estadia.precioHabitacion(), noches);
+        detalles.add(detalle(factura, "Alojamiento habitación " + estadia.nombreHabitacion(),
+                noches, UNIDAD_NOCHE, estadia.precioHabitacion(), valorEstadia));
+
+        BigDecimal total = valorEstadia;
+        for (ConsumoEstadiaDTO fila : filas) {
+            if (fila.idItem() == null) continue;
+            BigDecimal subtotal = subtotal(fila.precioItem(), 1);
+            detalles.add(detalle(factura, fila.nombreItem(), 1, UNIDAD_CONSUMO, fila.precioItem(), subtotal));
+            total = total.add(subtotal);
+        }
+
+        factura.setValorEstadia(valorEstadia.floatValue());
+        factura.setMontoTotal(total.floatValue());
+        return new FacturaArmada(factura, detalles);
+    }
+
+    /**
+     * Guarda las facturas y sus renglones. Al confirmar la transacción Hibernate
+     * agrupa los INSERT por tabla (hibernate.order_inserts) y los envía en lotes.
+     */
+    private void guardar(List<FacturaArmada> facturas) {
+        facturaDAO.saveAll(facturas.stream().map(FacturaArmada::factura).toList());
+        facturaDetalleDAO.saveAll(facturas.stream().flatMap(f -> f.detalles().stream()).toList());
+    }
+
+    private static FacturaDetalle detalle(Factura factura, String descripcion, int cantidad, String unidad,
+                                          Float precioUnitario, BigDecimal subtotal) {
+        return FacturaDetalle.builder()
+                .descripcion(descripcion)
+                .cantidad(cantidad)
+                .unidadMedida(unidad)
+                .precioUnitario(precioUnitario)
+                .subtotal(subtotal.floatValue())
+                .factura(factura)
+                .build();
+    }
+
+    /**
+     * Precio por cantidad, redondeado a centavos. El Float se convierte por su
+     * representación decimal (1500.1f es 1500.10, no 1500.0999...).
+     */
+    private static BigDecimal subtotal(Float precio, int cantidad) {
+        return new BigDecimal(Float.toString(precio))
+                .multiply(BigDecimal.valueOf(cantidad))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+}
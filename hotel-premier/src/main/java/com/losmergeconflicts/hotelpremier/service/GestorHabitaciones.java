@@ -16,6 +16,10 @@ public interface GestorHabitaciones {
 
     GrillaDisponibilidadDTO obtenerEstados(LocalDate desde, LocalDate hasta, TipoHabitacion tipo);
 
+    GrillaEnStreaming obtenerEstadosEnStreaming(LocalDate desde, LocalDate hasta, TipoHabitacion tipo);
+
+    GrillaCompactaDTO obtenerEstadosCompactos(LocalDate desde, LocalDate hasta, TipoHabitacion tipo, boolean rle);
+
     DetalleReservaDTO obtenerDetalleReserva(String nombreHabitacion, LocalDate fecha);
 
     List<HabitacionDTOResponse> listarHabitacionesPorID(List<Long> idsHabitaciones);
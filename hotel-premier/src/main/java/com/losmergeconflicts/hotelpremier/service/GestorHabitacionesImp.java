@@ -2,6 +2,7 @@ package com.losmergeconflicts.hotelpremier.service;
 
 import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
 import com.losmergeconflicts.hotelpremier.dao.HabitacionDAO;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionFueraServicioDAO;
 import com.losmergeconflicts.hotelpremier.dao.ReservaDAO;
 import com.losmergeconflicts.hotelpremier.dto.*;
 import com.losmergeconflicts.hotelpremier.entity.*;
@@ -13,7 +14,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -22,10 +22,22 @@ import java.util.stream.Collectors;
 @Slf4j
 public class GestorHabitacionesImp implements GestorHabitaciones {
 
+    /**
+     * Código de un carácter de cada estado en la grilla compacta.
+     */
+    private static final Map<Character, String> CODIGOS_ESTADO = Map.of(
+            'L', TipoEstadoHabitacion.LIBRE.name(),
+            'O', TipoEstadoHabitacion.OCUPADA.name(),
+            'R', TipoEstadoHabitacion.RESERVADA.name(),
+            'F', TipoEstadoHabitacion.FUERA_DE_SERVICIO.name());
+
     private final HabitacionDAO habitacionDAO;
     private final ReservaDAO reservaDAO;
     private final EstadiaDAO estadiaDAO;
+    private final HabitacionFueraServicioDAO habitacionFueraServicioDAO;
     private final HabitacionMapper habitacionMapper;
+    private final IndiceOcupacion indiceOcupacion;
+    private final CatalogoHabitaciones catalogoHabitaciones;
 
     @Override
     @Transactional
@@ -38,6 +50,7 @@ public class GestorHabitacionesImp implements GestorHabitaciones {
         habitacionMapper.updateEntityFromRequest(request, habitacion);
 
         Habitacion habitacionGuardada = habitacionDAO.save(habitacion);
+        catalogoHabitaciones.invalidar();
         log.info("Habitación actualizada correctamente: {}", habitacionGuardada.getNombre());
 
         return habitacionMapper.toResponse(habitacionGuardada);
@@ -56,7 +69,7 @@ public class GestorHabitacionesImp implements GestorHabitaciones {
     @Transactional(readOnly = true)
     public List<HabitacionDTOResponse> listarHabitaciones() {
         log.debug("Listando todas las habitaciones");
-        return habitacionDAO.findAll().stream()
+        return catalogoHabitaciones.listarTodas().stream()
                 .map(habitacionMapper::toResponse)
                 .collect(Collectors.toList());
     }
@@ -65,110 +78,141 @@ public class GestorHabitacionesImp implements GestorHabitaciones {
     @Transactional(readOnly = true)
     public GrillaDisponibilidadDTO obtenerEstados(LocalDate fechaDesde, LocalDate fechaHasta, TipoHabitacion tipoHabitacion) {
 
-        if (fechaDesde == null || fechaHasta == null) {
-            throw new IllegalArgumentException("Las fechas son obligatorias");
-        }
-        if (fechaHasta.isBefore(fechaDesde)) {
-            throw new IllegalArgumentException("Fecha Hasta inválida (anterior a Fecha Desde)");
-        }
-
-        List<Habitacion> habitaciones;
-        if (tipoHabitacion == null) {
-            habitaciones = habitacionDAO.findAll();
-        } else {
-            habitaciones = habitacionDAO.findByTipoHabitacion(tipoHabitacion);
-        }
+        GrillaEnStreaming grilla = obtenerEstadosEnStreaming(fechaDesde, fechaHasta, tipoHabitacion);
 
-        habitaciones.sort((h1, h2) -> {
-            String n1 = h1.getNombre();
-            String n2 = h2.getNombre();
+        // Construir filas con un único barrido sobre el rango
+        List<GrillaDisponibilidadDTO.FilaFechaDTO> filas = new ArrayList<>(grilla.getCantidadFilas());
+        grilla.emitirFilas(filas::add);
 
-            String prefix1 = n1.replaceAll("[0-9]", "");
-            String prefix2 = n2.replaceAll("[0-9]", "");
+        GrillaDisponibilidadDTO.EncabezadoDTO encabezado = grilla.getEncabezado();
+        return new GrillaDisponibilidadDTO(encabezado.nombresHabitaciones(), encabezado.idsHabitaciones(), filas);
+    }
 
-            int compPrefix = prefix1.compareTo(prefix2);
-            if (compPrefix != 0) return compPrefix;
+    @Override
+    @Transactional(readOnly = true)
+    public GrillaEnStreaming obtenerEstadosEnStreaming(LocalDate fechaDesde, LocalDate fechaHasta,
+                                                       TipoHabitacion tipoHabitacion) {
 
-            try {
-                int num1 = Integer.parseInt(n1.replaceAll("[^0-9]", ""));
-                int num2 = Integer.parseInt(n2.replaceAll("[^0-9]", ""));
-                return Integer.compare(num1, num2);
-            } catch (NumberFormatException e) {
-                return n1.compareTo(n2);
-            }
-        });
+        List<HabitacionCatalogo> habitaciones = buscarHabitacionesOrdenadas(fechaDesde, fechaHasta, tipoHabitacion);
 
-        List<String> nombresHabitaciones = habitaciones.stream().map(Habitacion::getNombre).toList();
+        List<String> nombresHabitaciones = habitaciones.stream().map(HabitacionCatalogo::nombre).toList();
 
         // Crear mapa de nombre -> ID
         Map<String, Long> idsHabitaciones = habitaciones.stream()
-                .collect(java.util.stream.Collectors.toMap(Habitacion::getNombre, Habitacion::getId));
+                .collect(java.util.stream.Collectors.toMap(HabitacionCatalogo::nombre, HabitacionCatalogo::id));
 
-        // 2. Obtener Reservas y Estadías en el rango (EL RESTO SIGUE IGUAL...)
-        List<Reserva> reservas = reservaDAO.findReservasEnRango(fechaDesde, fechaHasta);
-        List<Estadia> estadias = estadiaDAO.findEstadiasEnRango(fechaDesde.atStartOfDay(), fechaHasta.atTime(23, 59));
+        MotorDisponibilidad motor = armarMotor(habitaciones, fechaDesde, fechaHasta);
 
-        // 3. Construir filas
-        List<GrillaDisponibilidadDTO.FilaFechaDTO> filas = new ArrayList<>();
-
-        LocalDate current = fechaDesde;
-        while (!current.isAfter(fechaHasta)) {
-            Map<String, String> estadosDia = new HashMap<>();
-
-            for (Habitacion hab : habitaciones) {
-                TipoEstadoHabitacion estado = calcularEstado(hab, current, reservas, estadias);
-                estadosDia.put(hab.getNombre(), estado.name());
-            }
-
-            filas.add(new GrillaDisponibilidadDTO.FilaFechaDTO(current, estadosDia));
-            current = current.plusDays(1);
-        }
-
-        return new GrillaDisponibilidadDTO(nombresHabitaciones, idsHabitaciones, filas);
+        return new GrillaEnStreaming(
+                new GrillaDisponibilidadDTO.EncabezadoDTO(nombresHabitaciones, idsHabitaciones), motor);
     }
 
-    private TipoEstadoHabitacion calcularEstado(Habitacion hab, LocalDate fechaEvaluada, List<Reserva> reservas, List<Estadia> estadias) {
-
-        // 1. Revisar ESTADÍAS (Color ROJO - OCUPADA)
-        boolean ocupada = estadias.stream().anyMatch(e -> {
-            if (!e.getHabitacion().getId().equals(hab.getId())) return false;
+    @Override
+    @Transactional(readOnly = true)
+    public GrillaCompactaDTO obtenerEstadosCompactos(LocalDate fechaDesde, LocalDate fechaHasta,
+                                                     TipoHabitacion tipoHabitacion, boolean rle) {
 
-            LocalDate fechaIngreso = e.getFechaHoraIngreso().toLocalDate();
-            LocalDate fechaLimite;
+        List<HabitacionCatalogo> habitaciones = buscarHabitacionesOrdenadas(fechaDesde, fechaHasta, tipoHabitacion);
+        MotorDisponibilidad motor = armarMotor(habitaciones, fechaDesde, fechaHasta);
 
-            if (e.getFechaHoraEgreso() != null) {
-                fechaLimite = e.getFechaHoraEgreso().toLocalDate();
-            } else {
-                fechaLimite = (e.getFechaEgresoEsperado() != null) ? e.getFechaEgresoEsperado() : LocalDate.MAX;
+        // Una columna de caracteres por habitación, un carácter por día
+        List<StringBuilder> columnas = new ArrayList<>(habitaciones.size());
+        for (int i = 0; i < habitaciones.size(); i++) {
+            columnas.add(new StringBuilder(motor.getCantidadDias()));
+        }
+        motor.recorrer((fecha, estados) -> {
+            for (int i = 0; i < estados.length; i++) {
+                columnas.get(i).append(codigoDe(estados[i]));
             }
-
-            return !fechaEvaluada.isBefore(fechaIngreso) && !fechaEvaluada.isAfter(fechaLimite);
         });
 
-        if (ocupada) return TipoEstadoHabitacion.OCUPADA;
+        List<String> estados = columnas.stream()
+                .map(columna -> rle ? comprimirRachas(columna) : columna.toString())
+                .toList();
+
+        return new GrillaCompactaDTO(
+                fechaDesde,
+                fechaHasta,
+                habitaciones.stream().map(HabitacionCatalogo::nombre).toList(),
+                habitaciones.stream().map(HabitacionCatalogo::id).toList(),
+                CODIGOS_ESTADO,
+                rle,
+                estados);
+    }
 
-        // 2. Revisar RESERVAS (Color AMARILLO - RESERVADA)
-        boolean reservada = reservas.stream().anyMatch(r -> {
-            if (r.getHabitaciones().stream().noneMatch(h -> h.getId().equals(hab.getId()))) return false;
-            LocalDate rIngreso = obtenerFechaPura(r.getFechaIngreso());
-            LocalDate rEgreso = obtenerFechaPura(r.getFechaEgreso());
-            return !fechaEvaluada.isBefore(rIngreso) && !fechaEvaluada.isAfter(rEgreso);
-        });
+    private static char codigoDe(TipoEstadoHabitacion estado) {
+        return switch (estado) {
+            case OCUPADA -> 'O';
+            case RESERVADA -> 'R';
+            case FUERA_DE_SERVICIO -> 'F';
+            default -> 'L';
+        };
+    }
 
-        if (reservada) return TipoEstadoHabitacion.RESERVADA;
+    /**
+     * Comprime una columna por longitud de racha: "LLLRR" -> "3L2R".
+     */
+    private static String comprimirRachas(CharSequence columna) {
+        StringBuilder comprimida = new StringBuilder();
+        int i = 0;
+        while (i < columna.length()) {
+            char codigo = columna.charAt(i);
+            int fin = i + 1;
+            while (fin < columna.length() && columna.charAt(fin) == codigo) fin++;
+            comprimida.append(fin - i).append(codigo);
+            i = fin;
+        }
+        return comprimida.toString();
+    }
 
-        return TipoEstadoHabitacion.LIBRE;
+    /**
+     * Valida el rango y devuelve las habitaciones de la grilla en orden natural
+     * (prefijo alfabético y luego número: IE2 antes que IE10), desde el catálogo cacheado.
+     */
+    private List<HabitacionCatalogo> buscarHabitacionesOrdenadas(LocalDate fechaDesde, LocalDate fechaHasta,
+                                                         TipoHabitacion tipoHabitacion) {
+        if (fechaDesde == null || fechaHasta == null) {
+            throw new IllegalArgumentException("Las fechas son obligatorias");
+        }
+        if (fechaHasta.isBefore(fechaDesde)) {
+            throw new IllegalArgumentException("Fecha Hasta inválida (anterior a Fecha Desde)");
+        }
+
+        // El catálogo ya las devuelve en orden natural
+        return (tipoHabitacion == null)
+                ? catalogoHabitaciones.listarTodas()
+                : catalogoHabitaciones.listarPorTipo(tipoHabitacion);
     }
 
-    // Método auxiliar pequeño para evitar errores si la entidad cambia entre Date/DateTime
-    private LocalDate obtenerFechaPura(Object fecha) {
-        if (fecha instanceof LocalDateTime) {
-            return ((LocalDateTime) fecha).toLocalDate();
-        } else if (fecha instanceof LocalDate) {
-            return (LocalDate) fecha;
+    /**
+     * Vuelca cada intervalo del rango una sola vez en la columna de su habitación,
+     * desde el índice en memoria si cubre el rango o, si no, desde la base de datos.
+     */
+    private MotorDisponibilidad armarMotor(List<HabitacionCatalogo> habitaciones, LocalDate fechaDesde, LocalDate fechaHasta) {
+        List<Long> idsOrdenados = habitaciones.stream().map(HabitacionCatalogo::id).toList();
+        MotorDisponibilidad motor = new MotorDisponibilidad(fechaDesde, fechaHasta, idsOrdenados);
+
+        if (indiceOcupacion.cubre(fechaDesde, fechaHasta)) {
+            // El rango está dentro de la ventana residente: se resuelve sin ir a la BD
+            indiceOcupacion.volcar(motor, idsOrdenados, fechaDesde, fechaHasta);
+        } else {
+            // Fuera de la ventana: Reservas, Estadías y períodos fuera de servicio en el rango
+            cargarIntervalosDesdeBD(motor, fechaDesde, fechaHasta);
         }
+        return motor;
+    }
 
-        return LocalDate.now();
+    /**
+     * Carga los intervalos del rango con una consulta de proyección por tipo de estado.
+     * No se materializan reservas ni estadías: sólo (habitación, desde, hasta, estado).
+     */
+    private void cargarIntervalosDesdeBD(MotorDisponibilidad motor, LocalDate fechaDesde, LocalDate fechaHasta) {
+        estadiaDAO.findIntervalosOcupadosEnRango(fechaDesde.atStartOfDay(), fechaHasta.atTime(23, 59))
+                .forEach(motor::agregarIntervalo);
+        reservaDAO.findIntervalosReservadosEnRango(fechaDesde, fechaHasta)
+                .forEach(motor::agregarIntervalo);
+        habitacionFueraServicioDAO.findIntervalosFueraServicioEnRango(fechaDesde, fechaHasta)
+                .forEach(motor::agregarIntervalo);
     }
 
     @Override
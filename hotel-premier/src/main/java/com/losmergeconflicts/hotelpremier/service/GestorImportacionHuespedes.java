@@ -0,0 +1,27 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.dto.FormatoImportacion;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoImportacionDTO;
+
+import java.io.InputStream;
+
+/**
+ * Interfaz del servicio de importación masiva de huéspedes (migración desde otro
+ * sistema de gestión hotelera).
+ */
+public interface GestorImportacionHuespedes {
+
+    /**
+     * Importa los huéspedes de un archivo CSV o JSON, leyéndolo de a una fila.
+     *
+     * Las filas inválidas se rechazan y las de documentos ya registrados (o repetidos
+     * en el archivo) se omiten; el resto se guarda en lotes, cada uno en su propia
+     * transacción.
+     *
+     * @param entrada contenido del archivo, en UTF-8
+     * @param formato formato del archivo
+     * @return cantidades de filas importadas, omitidas y rechazadas, y el detalle de los rechazos
+     * @throws IllegalArgumentException si falta la entrada o el formato, o si el archivo CSV está vacío
+     */
+    ResultadoImportacionDTO importarHuespedes(InputStream entrada, FormatoImportacion formato);
+}
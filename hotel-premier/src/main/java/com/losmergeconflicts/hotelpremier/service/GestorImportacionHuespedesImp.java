@@ -0,0 +1,512 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.losmergeconflicts.hotelpremier.dao.DireccionDAO;
+import com.losmergeconflicts.hotelpremier.dao.HuespedDAO;
+import com.losmergeconflicts.hotelpremier.dao.LocalidadDAO;
+import com.losmergeconflicts.hotelpremier.dao.NacionalidadDAO;
+import com.losmergeconflicts.hotelpremier.dto.FormatoImportacion;
+import com.losmergeconflicts.hotelpremier.dto.HuespedDTORequest;
+import com.losmergeconflicts.hotelpremier.dto.HuespedImportacionDTO;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoImportacionDTO;
+import com.losmergeconflicts.hotelpremier.entity.Direccion;
+import com.losmergeconflicts.hotelpremier.entity.Huesped;
+import com.losmergeconflicts.hotelpremier.entity.Localidad;
+import com.losmergeconflicts.hotelpremier.entity.Nacionalidad;
+import com.losmergeconflicts.hotelpremier.entity.PosicionFrenteAlIVA;
+import com.losmergeconflicts.hotelpremier.entity.TipoDocumento;
+import com.losmergeconflicts.hotelpremier.mapper.HuespedMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del servicio de importación masiva de huéspedes.
+ *
+ * Está pensada para cientos de miles de filas, por lo que evita el camino de
+ * altaHuesped (dos búsquedas, dos INSERT y una verificación de documento por huésped):
+ * - El archivo se lee de a una fila (LectorCsv o MappingIterator de Jackson), sin
+ *   cargarlo en memoria.
+ * - Localidades y nacionalidades se resuelven por nombre contra mapas cargados una
+ *   sola vez al empezar.
+ * - Los documentos repetidos en el archivo se descartan en memoria; los ya
+ *   registrados, con el filtro de documentos y una consulta por lote.
+ * - Direcciones y huéspedes se insertan en lotes JDBC (IDs por secuencia pooled),
+ *   un lote de filas por transacción.
+ *
+ * El avance y la velocidad se registran en el log cada INTERVALO_PROGRESO filas.
+ *
+ * @Slf4j: Genera automáticamente un logger para la clase
+ */
+@Service
+@Slf4j
+public class GestorImportacionHuespedesImp implements GestorImportacionHuespedes {
+
+    /**
+     * Cantidad máxima de rechazos que se detallan en el resultado.
+     */
+    static final int MAX_ERRORES_INFORMADOS = 100;
+
+    /**
+     * Cada cuántas filas leídas se registra el avance en el log.
+     */
+    static final int INTERVALO_PROGRESO = 10_000;
+
+    private static final DateTimeFormatter FECHA_DD_MM_AAAA = DateTimeFormatter.ofPattern("d/M/uuuu");
+
+    private final HuespedDAO huespedDAO;
+    private final DireccionDAO direccionDAO;
+    private final LocalidadDAO localidadDAO;
+    private final NacionalidadDAO nacionalidadDAO;
+    private final HuespedMapper huespedMapper;
+    private final FiltroDocumentos filtroDocumentos;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanioLote;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param huespedDAO DAO para operaciones con Huesped
+     * @param direccionDAO DAO para operaciones con Direccion
+     * @param localidadDAO DAO para leer las localidades
+     * @param nacionalidadDAO DAO para leer las nacionalidades
+     * @param huespedMapper mapper para conversión entre DTOs y entidades
+     * @param filtroDocumentos filtro en memoria de los documentos registrados
+     * @param objectMapper lector de JSON y conversor de filas CSV
+     * @param validator validador de las reglas del alta de huésped
+     * @param transactionTemplate transacción de cada lote
+     * @param tamanioLote filas que se guardan por transacción
+     */
+    @Autowired
+    public GestorImportacionHuespedesImp(HuespedDAO huespedDAO,
+                                         DireccionDAO direccionDAO,
+                                         LocalidadDAO localidadDAO,
+                                         NacionalidadDAO nacionalidadDAO,
+                                         HuespedMapper huespedMapper,
+                                         FiltroDocumentos filtroDocumentos,
+                                         ObjectMapper objectMapper,
+                                         Validator validator,
+                                         TransactionTemplate transactionTemplate,
+                                         @Value("${hotel.importacion.tamanio-lote:500}") int tamanioLote) {
+        this.huespedDAO = huespedDAO;
+        this.direccionDAO = direccionDAO;
+        this.localidadDAO = localidadDAO;
+        this.nacionalidadDAO = nacionalidadDAO;
+        this.huespedMapper = huespedMapper;
+        this.filtroDocumentos = filtroDocumentos;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.tamanioLote = tamanioLote;
+    }
+
+    @Override
+    public ResultadoImportacionDTO importarHuespedes(InputStream entrada, FormatoImportacion formato) {
+        if (entrada == null || formato == null) {
+            throw new IllegalArgumentException("Debe indicarse el archivo y su formato");
+        }
+        log.info("Iniciando importación de huéspedes ({}, lotes de {})", formato, tamanioLote);
+
+        Catalogos catalogos = cargarCatalogos();
+        Progreso progreso = new Progreso();
+        Set<String> vistos = new HashSet<>();
+        List<Fila> lote = new ArrayList<>(tamanioLote);
+        boolean completa = true;
+
+        try (FuenteFilas fuente = abrir(entrada, formato)) {
+            for (Fila fila = fuente.siguiente(); fila != null; fila = fuente.siguiente()) {
+                progreso.leidos++;
+                if (fila.error() != null) {
+                    progreso.rechazar(fila.numero(), fila.error());
+                } else {
+                    lote.add(fila);
+                    if (lote.size() == tamanioLote) {
+                        procesarLote(lote, catalogos, vistos, progreso);
+                        lote.clear();
+                    }
+                }
+                progreso.informar();
+            }
+        } catch (ArchivoMalFormado e) {
+            log.warn("Importación de huéspedes interrumpida: {}", e.getMessage());
+            progreso.leidos++;
+            progreso.rechazar(e.numero, e.getMessage());
+            completa = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el archivo de importación", e);
+        }
+        if (!lote.isEmpty()) {
+            procesarLote(lote, catalogos, vistos, progreso);
+        }
+
+        ResultadoImportacionDTO resultado = progreso.resultado(completa);
+        log.info("Importación de huéspedes terminada: {} filas leídas, {} importadas, {} duplicadas, {} rechazadas "
+                        + "en {} ms ({} filas/s)", resultado.leidos(), resultado.importados(), resultado.duplicados(),
+                resultado.rechazadas(), resultado.duracionMs(), Math.round(resultado.filasPorSegundo()));
+        return resultado;
+    }
+
+    /**
+     * Convierte, valida y descarta duplicados de un lote de filas, y guarda las
+     * restantes en una transacción.
+     */
+    private void procesarLote(List<Fila> lote, Catalogos catalogos, Set<String> vistos, Progreso progreso) {
+        List<FilaValida> validas = new ArrayList<>(lote.size());
+        for (Fila fila : lote) {
+            HuespedDTORequest request;
+            try {
+                request = convertir(fila.datos(), catalogos);
+            } catch (IllegalArgumentException e) {
+                progreso.rechazar(fila.numero(), e.getMessage());
+                continue;
+            }
+            Set<ConstraintViolation<HuespedDTORequest>> violaciones = validator.validate(request);
+            if (!violaciones.isEmpty()) {
+                progreso.rechazar(fila.numero(), violaciones.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+            if (!vistos.add(clave(request.tipoDocumento(), request.documento()))) {
+                progreso.duplicados++;
+                continue;
+            }
+            validas.add(new FilaValida(fila.numero(), request));
+        }
+
+        // Sólo se consultan los documentos que el filtro no descarta
+        List<String> aVerificar = validas.stream()
+                .map(FilaValida::request)
+                .filter(r -> filtroDocumentos.puedeExistir(r.tipoDocumento(), r.documento()))
+                .map(HuespedDTORequest::documento)
+                .distinct()
+                .toList();
+        Set<String> registrados = aVerificar.isEmpty() ? Set.of()
+                : huespedDAO.findDocumentosRegistrados(aVerificar).stream()
+                        .map(d -> clave(d.tipoDocumento(), d.documento()))
+                        .collect(Collectors.toSet());
+        List<FilaValida> nuevas = new ArrayList<>(validas.size());
+        for (FilaValida fila : validas) {
+            if (registrados.contains(clave(fila.request().tipoDocumento(), fila.request().documento()))) {
+                progreso.duplicados++;
+            } else {
+                nuevas.add(fila);
+            }
+        }
+        if (nuevas.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> guardar(nuevas));
+            progreso.importados += nuevas.size();
+        } catch (RuntimeException e) {
+            log.error("No se pudo guardar el lote de huéspedes desde la fila {}", nuevas.get(0).numero(), e);
+            String motivo = "No se pudo guardar el lote: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            nuevas.forEach(fila -> progreso.rechazar(fila.numero(), motivo));
+        }
+    }
+
+    /**
+     * Inserta direcciones y huéspedes del lote. Localidades y nacionalidades se
+     * asignan por referencia, sin leerlas.
+     */
+    private void guardar(List<FilaValida> filas) {
+        List<Direccion> direcciones = new ArrayList<>(filas.size());
+        List<Huesped> huespedes = new ArrayList<>(filas.size());
+        for (FilaValida fila : filas) {
+            HuespedDTORequest request = fila.request();
+            Direccion direccion = Direccion.builder()
+                    .calle(request.calle())
+                    .numero(request.numero())
+                    .piso(request.piso())
+                    .departamento(request.departamento())
+                    .codigoPostal(request.codigoPostal())
+                    .localidad(localidadDAO.getReferenceById(request.localidadId()))
+                    .build();
+            Huesped huesped = huespedMapper.toEntity(request);
+            huesped.setDireccion(direccion);
+            huesped.setNacionalidad(nacionalidadDAO.getReferenceById(request.nacionalidadId()));
+            direcciones.add(direccion);
+            huespedes.add(huesped);
+        }
+        direccionDAO.saveAll(direcciones);
+        huespedDAO.saveAll(huespedes);
+        filas.forEach(fila -> filtroDocumentos.registrar(fila.request().tipoDocumento(), fila.request().documento()));
+    }
+
+    /**
+     * Convierte una fila del archivo al request del alta de huésped, resolviendo
+     * localidad y nacionalidad por nombre.
+     *
+     * @throws IllegalArgumentException si algún valor no se puede convertir o no existe
+     */
+    private HuespedDTORequest convertir(HuespedImportacionDTO datos, Catalogos catalogos) {
+        return new HuespedDTORequest(
+                datos.cuit(),
+                datos.telefono(),
+                datos.info(),
+                datos.calle(),
+                datos.numero(),
+                datos.piso(),
+                datos.departamento(),
+                datos.codigoPostal(),
+                catalogos.localidad(datos.localidad(), datos.provincia()),
+                datos.nombre(),
+                datos.apellido(),
+                enumeracion(TipoDocumento.class, datos.tipoDocumento(), "Tipo de documento"),
+                datos.documento() == null ? null : datos.documento().replaceAll("[.\\s]", ""),
+                fecha(datos.fechaNacimiento()),
+                datos.email(),
+                datos.ocupacion(),
+                enumeracion(PosicionFrenteAlIVA.class, datos.posicionFrenteAlIVA(), "Posición frente al IVA"),
+                catalogos.nacionalidad(datos.nacionalidad()));
+    }
+
+    private static <E extends Enum<E>> E enumeracion(Class<E> tipo, String valor, String campo) {
+        if (valor == null || valor.isBlank()) return null;
+        try {
+            return Enum.valueOf(tipo, valor.trim().toUpperCase(Locale.ROOT).replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(campo + " inválido: " + valor);
+        }
+    }
+
+    private static LocalDate fecha(String valor) {
+        if (valor == null || valor.isBlank()) return null;
+        try {
+            return valor.contains("/") ? LocalDate.parse(valor.trim(), FECHA_DD_MM_AAAA) : LocalDate.parse(valor.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha de nacimiento inválida: " + valor);
+        }
+    }
+
+    private static String clave(TipoDocumento tipoDocumento, String documento) {
+        return tipoDocumento + ":" + documento;
+    }
+
+    /**
+     * Forma de comparar nombres de localidades, provincias y nacionalidades: sin
+     * acentos, en minúsculas y con espacios simples.
+     */
+    private static String normalizarNombre(String nombre) {
+        return Normalizer.normalize(nombre, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .trim()
+                .replaceAll("\\s+", " ");
+    }
+
+    private Catalogos cargarCatalogos() {
+        Map<String, Long> localidades = new HashMap<>();
+        Map<String, Long> localidadesPorNombre = new HashMap<>();
+        Set<String> nombresRepetidos = new HashSet<>();
+        for (Localidad localidad : localidadDAO.findAllConProvinciaYPais()) {
+            String nombre = normalizarNombre(localidad.getNombre());
+            localidades.put(nombre + "|" + normalizarNombre(localidad.getProvincia().getNombre()), localidad.getId());
+            if (localidadesPorNombre.putIfAbsent(nombre, localidad.getId()) != null) {
+                nombresRepetidos.add(nombre);
+            }
+        }
+        Map<String, Long> nacionalidades = new HashMap<>();
+        for (Nacionalidad nacionalidad : nacionalidadDAO.findAll()) {
+            nacionalidades.put(normalizarNombre(nacionalidad.getNombre()), nacionalidad.getId());
+        }
+        log.debug("Catálogos de importación: {} localidades, {} nacionalidades",
+                localidades.size(), nacionalidades.size());
+        return new Catalogos(localidades, localidadesPorNombre, nombresRepetidos, nacionalidades);
+    }
+
+    private FuenteFilas abrir(InputStream entrada, FormatoImportacion formato) throws IOException {
+        return switch (formato) {
+            case CSV -> abrirCsv(entrada);
+            case JSON -> abrirJson(entrada);
+        };
+    }
+
+    private FuenteFilas abrirCsv(InputStream entrada) {
+        LectorCsv lector = new LectorCsv(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        return new FuenteFilas() {
+            @Override
+            public Fila siguiente() {
+                try {
+                    Map<String, String> valores = lector.siguiente();
+                    if (valores == null) return null;
+                    return new Fila(lector.getLineaRegistro(),
+                            objectMapper.convertValue(valores, HuespedImportacionDTO.class), null);
+                } catch (IllegalArgumentException e) {
+                    // Cantidad de campos incorrecta: se rechaza la fila y se sigue con la próxima
+                    return new Fila(lector.getLineaRegistro(), null, e.getMessage());
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                lector.close();
+            }
+        };
+    }
+
+    private FuenteFilas abrirJson(InputStream entrada) throws IOException {
+        MappingIterator<HuespedImportacionDTO> elementos =
+                objectMapper.readerFor(HuespedImportacionDTO.class).readValues(entrada);
+        return new FuenteFilas() {
+            private long numero;
+
+            @Override
+            public Fila siguiente() throws IOException {
+                try {
+                    if (!elementos.hasNextValue()) return null;
+                    numero++;
+                    return new Fila(numero, elementos.nextValue(), null);
+                } catch (JsonProcessingException e) {
+                    // Después de un error de sintaxis no se puede ubicar el elemento siguiente
+                    throw new ArchivoMalFormado(numero, "JSON inválido: " + e.getOriginalMessage());
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                elementos.close();
+            }
+        };
+    }
+
+    /**
+     * Filas del archivo, de a una.
+     */
+    private interface FuenteFilas extends Closeable {
+        /**
+         * @return la fila siguiente; null al final del archivo
+         * @throws ArchivoMalFormado si el archivo no se puede seguir leyendo
+         */
+        Fila siguiente() throws IOException;
+    }
+
+    /**
+     * Fila leída del archivo: sus datos, o el motivo por el que no se pudo leer.
+     *
+     * @param numero línea (CSV) o elemento (JSON), desde 1
+     */
+    private record Fila(long numero, HuespedImportacionDTO datos, String error) {}
+
+    private record FilaValida(long numero, HuespedDTORequest request) {}
+
+    private static final class ArchivoMalFormado extends RuntimeException {
+        private final long numero;
+
+        private ArchivoMalFormado(long numero, String mensaje) {
+            super(mensaje);
+            this.numero = numero;
+        }
+    }
+
+    /**
+     * IDs de localidades y nacionalidades por nombre normalizado.
+     *
+     * @param localidades por "localidad|provincia"
+     * @param localidadesPorNombre por nombre de localidad, para filas sin provincia
+     * @param nombresRepetidos nombres de localidad presentes en más de una provincia
+     * @param nacionalidades por nombre de nacionalidad
+     */
+    private record Catalogos(Map<String, Long> localidades,
+                             Map<String, Long> localidadesPorNombre,
+                             Set<String> nombresRepetidos,
+                             Map<String, Long> nacionalidades) {
+
+        Long localidad(String localidad, String provincia) {
+            if (localidad == null || localidad.isBlank()) {
+                throw new IllegalArgumentException("La localidad no puede estar vacía");
+            }
+            String nombre = normalizarNombre(localidad);
+            Long id;
+            if (provincia != null && !provincia.isBlank()) {
+                id = localidades.get(nombre + "|" + normalizarNombre(provincia));
+            } else if (nombresRepetidos.contains(nombre)) {
+                throw new IllegalArgumentException("Hay varias localidades " + localidad + ", indique la provincia");
+            } else {
+                id = localidadesPorNombre.get(nombre);
+            }
+            if (id == null) {
+                throw new IllegalArgumentException("Localidad desconocida: " + localidad
+                        + (provincia == null ? "" : " (" + provincia + ")"));
+            }
+            return id;
+        }
+
+        Long nacionalidad(String nacionalidad) {
+            if (nacionalidad == null || nacionalidad.isBlank()) {
+                throw new IllegalArgumentException("La nacionalidad no puede estar vacía");
+            }
+            Long id = nacionalidades.get(normalizarNombre(nacionalidad));
+            if (id == null) {
+                throw new IllegalArgumentException("Nacionalidad desconocida: " + nacionalidad);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Contadores de la importación en curso.
+     */
+    private static final class Progreso {
+        private final long inicio = System.nanoTime();
+        private final List<ResultadoImportacionDTO.ErrorDTO> errores = new ArrayList<>();
+        private long leidos;
+        private long importados;
+        private long duplicados;
+        private long rechazadas;
+
+        private void rechazar(long numero, String motivo) {
+            rechazadas++;
+            if (errores.size() < MAX_ERRORES_INFORMADOS) {
+                errores.add(new ResultadoImportacionDTO.ErrorDTO(numero, motivo));
+            }
+        }
+
+        private void informar() {
+            if (leidos % INTERVALO_PROGRESO == 0) {
+                log.info("Importación de huéspedes: {} filas leídas, {} importadas, {} duplicadas, {} rechazadas "
+                        + "({} filas/s)", leidos, importados, duplicados, rechazadas, Math.round(filasPorSegundo()));
+            }
+        }
+
+        private double filasPorSegundo() {
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            return segundos > 0 ? leidos / segundos : 0;
+        }
+
+        private ResultadoImportacionDTO resultado(boolean completa) {
+            long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+            return new ResultadoImportacionDTO(leidos, importados, duplicados, rechazadas, completa,
+                    duracionMs, filasPorSegundo(), List.copyOf(errores));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.losmergeconflicts.hotelpremier.dto.HuespedDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.HuespedDTOResponse;
 import com.losmergeconflicts.hotelpremier.dto.LocalidadDTO;
 import com.losmergeconflicts.hotelpremier.dto.NacionalidadDTO;
+import com.losmergeconflicts.hotelpremier.dto.PaginaHuespedesDTO;
 import com.losmergeconflicts.hotelpremier.entity.TipoDocumento;
 
 /**
@@ -58,14 +59,20 @@ public interface GestorPersonas {
     List<NacionalidadDTO> listarNacionalidades();
 
     /**
-     * Busca huéspedes en el sistema según múltiples criterios.
+     * Busca huéspedes en el sistema según múltiples criterios, de a una página
+     * ordenada por apellido, nombre e ID.
      *
-     * @param apellido Criterio de búsqueda por apellido (parcial)
-     * @param nombre Criterio de búsqueda por nombre (parcial)
+     * @param apellido Criterio de búsqueda por parte del apellido (ignora acentos y mayúsculas)
+     * @param nombre Criterio de búsqueda por parte del nombre (ignora acentos y mayúsculas)
      * @param tipoDoc Criterio de búsqueda por tipo de documento (exacto)
      * @param nroDoc Criterio de búsqueda por número de documento (parcial)
-     * @return Una lista de HuespedDTOResponse que coinciden con la búsqueda
+     * @param cursor cursor devuelto con la página anterior; null para la primera
+     * @param tamanio tamaño de página (opcional, con un máximo)
+     * @param conTotal si es true, la primera página informa la cantidad total de coincidencias
+     * @return Página de HuespedDTOResponse que coinciden con la búsqueda
+     * @throws IllegalArgumentException si el cursor es inválido o el tamaño no es positivo
      */
-    List<HuespedDTOResponse> buscarHuespedes(String apellido, String nombre, TipoDocumento tipoDoc, String nroDoc);
+    PaginaHuespedesDTO buscarHuespedes(String apellido, String nombre, TipoDocumento tipoDoc, String nroDoc,
+                                       String cursor, Integer tamanio, boolean conTotal);
 
 }
\ No newline at end of file
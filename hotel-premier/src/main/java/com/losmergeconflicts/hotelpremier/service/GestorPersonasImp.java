@@ -11,10 +11,12 @@ import com.losmergeconflicts.hotelpremier.dao.DireccionDAO;
 import com.losmergeconflicts.hotelpremier.dao.HuespedDAO;
 import com.losmergeconflicts.hotelpremier.dao.LocalidadDAO;
 import com.losmergeconflicts.hotelpremier.dao.NacionalidadDAO;
+import com.losmergeconflicts.hotelpremier.dto.CursorHuespedDTO;
 import com.losmergeconflicts.hotelpremier.dto.HuespedDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.HuespedDTOResponse;
 import com.losmergeconflicts.hotelpremier.dto.LocalidadDTO;
 import com.losmergeconflicts.hotelpremier.dto.NacionalidadDTO;
+import com.losmergeconflicts.hotelpremier.dto.PaginaHuespedesDTO;
 import com.losmergeconflicts.hotelpremier.entity.Direccion;
 import com.losmergeconflicts.hotelpremier.entity.Huesped;
 import com.losmergeconflicts.hotelpremier.entity.Localidad;
@@ -38,6 +40,16 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class GestorPersonasImp implements GestorPersonas {
 
+    /**
+     * Tamaño de página de la búsqueda de huéspedes cuando no se indica.
+     */
+    static final int TAMANIO_PAGINA_POR_DEFECTO = 50;
+
+    /**
+     * Tamaño de página máximo de la búsqueda de huéspedes.
+     */
+    static final int TAMANIO_PAGINA_MAXIMO = 200;
+
     private final HuespedDAO huespedDAO;
     private final HuespedMapper huespedMapper;
     private final DireccionDAO direccionDAO;
@@ -45,6 +57,7 @@ public class GestorPersonasImp implements GestorPersonas {
     private final NacionalidadDAO nacionalidadDAO;
     private final LocalidadMapper localidadMapper;
     private final NacionalidadMapper nacionalidadMapper;
+    private final FiltroDocumentos filtroDocumentos;
 
     /**
      * Constructor con inyección de dependencias.
@@ -56,6 +69,7 @@ public class GestorPersonasImp implements GestorPersonas {
      * @param nacionalidadDAO DAO para operaciones con Nacionalidad
      * @param localidadMapper mapper para conversión de Localidad a DTO
      * @param nacionalidadMapper mapper para conversión de Nacionalidad a DTO
+     * @param filtroDocumentos filtro en memoria de los documentos registrados
      */
     @Autowired
     public GestorPersonasImp(HuespedDAO huespedDAO,
@@ -64,7 +78,8 @@ public class GestorPersonasImp implements GestorPersonas {
                              LocalidadDAO localidadDAO,
                              NacionalidadDAO nacionalidadDAO,
                              LocalidadMapper localidadMapper,
-                             NacionalidadMapper nacionalidadMapper) {
+                             NacionalidadMapper nacionalidadMapper,
+                             FiltroDocumentos filtroDocumentos) {
         this.huespedDAO = huespedDAO;
         this.huespedMapper = huespedMapper;
         this.direccionDAO = direccionDAO;
@@ -72,6 +87,7 @@ public class GestorPersonasImp implements GestorPersonas {
         this.nacionalidadDAO = nacionalidadDAO;
         this.localidadMapper = localidadMapper;
         this.nacionalidadMapper = nacionalidadMapper;
+        this.filtroDocumentos = filtroDocumentos;
     }
 
     /**
@@ -97,7 +113,7 @@ public class GestorPersonasImp implements GestorPersonas {
      * 3. Crea y guarda la Direccion
      * 4. Convierte el DTO a entidad usando el mapper
      * 5. Asigna las entidades relacionadas
-     * 6. Guarda el huésped en base de datos
+     * 6. Guarda el huésped en base de datos y registra su documento en el filtro en memoria
      * 7. Convierte la entidad guardada a DTO de respuesta
      *
      * @param request DTO con los datos del huésped (ya validados por @Valid)
@@ -119,7 +135,7 @@ public class GestorPersonasImp implements GestorPersonas {
                 request.tipoDocumento(), request.documento());
 
         // Validar que la combinación de tipo de documento y documento no exista
-        if (huespedDAO.existsByTipoDocumentoAndDocumento(request.tipoDocumento(), request.documento()) && !permitirDuplicados) {
+        if (existeDocumento(request.tipoDocumento(), request.documento()) && !permitirDuplicados) {
             log.warn("Intento de alta con tipo y número de documento existentes: {} {}",
                     request.tipoDocumento(), request.documento());
             throw new IllegalArgumentException(
@@ -163,6 +179,7 @@ public class GestorPersonasImp implements GestorPersonas {
 
             // 6. Guardar en base de datos
             Huesped huespedGuardado = huespedDAO.save(nuevoHuesped);
+            filtroDocumentos.registrar(request.tipoDocumento(), request.documento());
 
             log.info("Huésped dado de alta exitosamente con ID: {} - Documento: {}",
                     huespedGuardado.getId(), request.documento());
@@ -182,6 +199,9 @@ public class GestorPersonasImp implements GestorPersonas {
     /**
      * Verifica si un tipo y número de documento ya están registrados.
      *
+     * Los documentos que el filtro en memoria descarta se resuelven sin consultar
+     * la base de datos; el resto se confirma contra ella.
+     *
      * @param tipoDocumento tipo de documento (DNI, PASAPORTE, etc.)
      * @param documento número de documento a verificar
      * @return true si el tipo y documento existen, false si no
@@ -189,7 +209,8 @@ public class GestorPersonasImp implements GestorPersonas {
     @Override
     @Transactional(readOnly = true)
     public boolean existeDocumento(TipoDocumento tipoDocumento, String documento) {
-        return huespedDAO.existsByTipoDocumentoAndDocumento(tipoDocumento, documento);
+        return filtroDocumentos.puedeExistir(tipoDocumento, documento)
+                && huespedDAO.existsByTipoDocumentoAndDocumento(tipoDocumento, documento);
     }
 
     /**
@@ -202,7 +223,8 @@ public class GestorPersonasImp implements GestorPersonas {
     public List<LocalidadDTO> listarLocalidades() {
         log.info("Listando todas las localidades");
 
-        List<Localidad> localidades = localidadDAO.findAll();
+        // Provincia y país vienen en la misma consulta (sin una consulta extra por cada una)
+        List<Localidad> localidades = localidadDAO.findAllConProvinciaYPais();
 
         log.debug("Se encontraron {} localidades", localidades.size());
 
@@ -231,45 +253,67 @@ public class GestorPersonasImp implements GestorPersonas {
     }
 
     /**
-     * Busca huéspedes en el sistema según múltiples criterios.
+     * Busca huéspedes en el sistema según múltiples criterios, de a una página.
      *
      * Proceso (mapeado al Diagrama de Secuencia):
-     * 1. Sanitiza los criterios de entrada (Mayúsculas, solo números, etc.)
-     * 2. Llama al HuespedDAO con los criterios (llamada a HuespedDAOImp)
-     * 3. Recibe la lista de entidades Huesped
+     * 1. Sanitiza los criterios de entrada (apellido y nombre normalizados como las columnas de búsqueda, documento solo números)
+     * 2. Llama al HuespedDAO con los criterios y la posición de la página (llamada a HuespedDAOImp)
+     * 3. Recibe la lista de entidades Huesped (una más que el tamaño de página, para saber si hay más)
      * 4. Mapea la lista de Huesped a HuespedDTOResponse (el "loop" del diagrama)
-     * 5. Retorna la lista de DTOs
+     * 5. Retorna la página con el cursor para pedir la siguiente
      *
-     * @param apellido Criterio de búsqueda por apellido
-     * @param nombre Criterio de búsqueda por nombre
+     * @param apellido Criterio de búsqueda por apellido (parcial; ignora acentos y mayúsculas)
+     * @param nombre Criterio de búsqueda por nombre (parcial; ignora acentos y mayúsculas)
      * @param tipoDoc Criterio de búsqueda por tipo de documento
      * @param nroDoc Criterio de búsqueda por número de documento
-     * @return Lista de DTOs de huéspedes encontrados
+     * @param cursor cursor devuelto con la página anterior; null para la primera
+     * @param tamanio tamaño de página; null usa TAMANIO_PAGINA_POR_DEFECTO y se limita a TAMANIO_PAGINA_MAXIMO
+     * @param conTotal si es true, la primera página informa la cantidad total de coincidencias
+     * @return Página de DTOs de huéspedes encontrados
+     * @throws IllegalArgumentException si el cursor es inválido o el tamaño no es positivo
      */
     @Override
     @Transactional(readOnly = true)
-    public List<HuespedDTOResponse> buscarHuespedes(String apellido, String nombre, TipoDocumento tipoDoc, String nroDoc) {
+    public PaginaHuespedesDTO buscarHuespedes(String apellido, String nombre, TipoDocumento tipoDoc, String nroDoc,
+                                              String cursor, Integer tamanio, boolean conTotal) {
 
-        if (apellido != null) {
-            apellido = apellido.toUpperCase().replaceAll("[^A-ZÑÁÉÍÓÚÜ ]", "");
-        }
-        if (nombre != null) {
-            nombre = nombre.toUpperCase().replaceAll("[^A-ZÑÁÉÍÓÚÜ ]", "");
-        }
+        apellido = Huesped.normalizarParaBusqueda(apellido);
+        nombre = Huesped.normalizarParaBusqueda(nombre);
         if (nroDoc != null) {
             nroDoc = nroDoc.replaceAll("[^0-9]", "");
         }
+        if (tamanio != null && tamanio <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        }
+        int tamanioPagina = tamanio == null ? TAMANIO_PAGINA_POR_DEFECTO : Math.min(tamanio, TAMANIO_PAGINA_MAXIMO);
+        CursorHuespedDTO desde = cursor == null || cursor.isBlank() ? null : CursorHuespedDTO.decodificar(cursor);
 
-        log.info("Iniciando búsqueda de huéspedes con criterios: Apellido [{}], Nombre [{}], TipoDoc [{}], NroDoc [{}]",
-                apellido, nombre, tipoDoc, nroDoc);
-
-        List<Huesped> huespedesEncontrados = huespedDAO.buscarHuespedesPorCriterios(apellido, nombre, tipoDoc, nroDoc);
+        log.info("Iniciando búsqueda de huéspedes con criterios: Apellido [{}], Nombre [{}], TipoDoc [{}], NroDoc [{}], Página de {} {}",
+                apellido, nombre, tipoDoc, nroDoc, tamanioPagina, desde == null ? "(primera)" : "desde ID " + desde.id());
 
-        log.debug("Se encontraron {} huéspedes", huespedesEncontrados.size());
+        // Se pide un huésped de más: si llega, hay otra página
+        List<Huesped> huespedesEncontrados = huespedDAO.buscarPaginaPorCriterios(
+                apellido, nombre, tipoDoc, nroDoc, desde, tamanioPagina + 1);
 
-        return huespedesEncontrados.stream()
+        boolean hayMas = huespedesEncontrados.size() > tamanioPagina;
+        if (hayMas) {
+            huespedesEncontrados = huespedesEncontrados.subList(0, tamanioPagina);
+        }
+        Huesped ultimo = hayMas ? huespedesEncontrados.get(huespedesEncontrados.size() - 1) : null;
+        // La clave del orden son las columnas de búsqueda: el mismo texto, normalizado
+        String cursorSiguiente = ultimo == null ? null
+                : new CursorHuespedDTO(Huesped.normalizarParaBusqueda(ultimo.getApellido()),
+                        Huesped.normalizarParaBusqueda(ultimo.getNombre()), ultimo.getId()).codificar();
+        Long total = conTotal && desde == null
+                ? huespedDAO.contarPorCriterios(apellido, nombre, tipoDoc, nroDoc)
+                : null;
+
+        log.debug("Se encontraron {} huéspedes (hay más: {})", huespedesEncontrados.size(), hayMas);
+
+        List<HuespedDTOResponse> huespedes = huespedesEncontrados.stream()
                 .map(huespedMapper::toResponse)
                 .collect(Collectors.toList());
+        return new PaginaHuespedesDTO(huespedes, hayMas, cursorSiguiente, total);
     }
 
 }
@@ -2,6 +2,10 @@ package com.losmergeconflicts.hotelpremier.service;
 
 import com.losmergeconflicts.hotelpremier.dto.ReservaDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.ReservaDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.ModoLote;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoLoteDTO;
+
+import java.util.List;
 
 /**
  * Interfaz del servicio de gestión de reservas.
@@ -14,7 +18,22 @@ public interface GestorReservas {
      *
      * @param request DTO con los datos de la reserva (ya validados por @Valid)
      * @return DTO de respuesta con los datos de la reserva registrada
-     * @throws IllegalArgumentException si no se encuentran las entidades relacionadas o si hay conflictos en las reservas
+     * @throws IllegalArgumentException si no se encuentran las entidades relacionadas
+     * @throws IllegalStateException si alguna habitación ya está reservada, ocupada o fuera de servicio en el rango
      */
     public ReservaDTOResponse registrarReserva(ReservaDTORequest request);
+
+    /**
+     * Registra varias reservas en una única transacción.
+     *
+     * Todas las reservas se validan antes de escribir y las habitaciones de todo el
+     * lote se resuelven con una sola consulta.
+     *
+     * @param requests reservas a registrar
+     * @param modo TODO_O_NADA rechaza el lote completo si alguna reserva es inválida;
+     *             MEJOR_ESFUERZO registra las válidas e informa las rechazadas
+     * @return resultado por reserva, en el orden pedido
+     * @throws IllegalArgumentException si el lote está vacío, o en modo TODO_O_NADA si alguna reserva es inválida
+     */
+    public ResultadoLoteDTO registrarReservasEnLote(List<ReservaDTORequest> requests, ModoLote modo);
 }
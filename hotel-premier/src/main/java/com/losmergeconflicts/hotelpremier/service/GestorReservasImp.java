@@ -1,20 +1,35 @@
 package com.losmergeconflicts.hotelpremier.service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.losmergeconflicts.hotelpremier.dto.DetalleReservaDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
 import com.losmergeconflicts.hotelpremier.dao.HabitacionDAO;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionFueraServicioDAO;
 import com.losmergeconflicts.hotelpremier.dao.ReservaDAO;
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
 import com.losmergeconflicts.hotelpremier.dto.ReservaDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.ReservaDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.ModoLote;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoLoteDTO;
 import com.losmergeconflicts.hotelpremier.entity.Habitacion;
 import com.losmergeconflicts.hotelpremier.entity.Reserva;
+import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
 import com.losmergeconflicts.hotelpremier.mapper.ReservaMapper;
 
 import lombok.extern.slf4j.Slf4j;
@@ -34,18 +49,33 @@ public class GestorReservasImp implements GestorReservas {
     private final ReservaDAO reservaDAO;
     private final HabitacionDAO habitacionDAO;
     private final ReservaMapper reservaMapper;
+    private final IndiceOcupacion indiceOcupacion;
+    private final EstadiaDAO estadiaDAO;
+    private final HabitacionFueraServicioDAO habitacionFueraServicioDAO;
+    private final CerrojosHabitaciones cerrojosHabitaciones;
 
     /**
      * Constructor con inyección de dependencias.
      * @param reservaDAO
      * @param habitacionDAO
      * @param reservaMapper
+     * @param indiceOcupacion índice en memoria de la grilla de disponibilidad
+     * @param estadiaDAO DAO para verificar que las habitaciones no estén ocupadas
+     * @param habitacionFueraServicioDAO DAO para verificar que las habitaciones estén en servicio
+     * @param cerrojosHabitaciones cerrojos por habitación contra reservas simultáneas
      */
     @Autowired
-    public GestorReservasImp(ReservaDAO reservaDAO, HabitacionDAO habitacionDAO, ReservaMapper reservaMapper) {
+    public GestorReservasImp(ReservaDAO reservaDAO, HabitacionDAO habitacionDAO, ReservaMapper reservaMapper,
+                             IndiceOcupacion indiceOcupacion, EstadiaDAO estadiaDAO,
+                             HabitacionFueraServicioDAO habitacionFueraServicioDAO,
+                             CerrojosHabitaciones cerrojosHabitaciones) {
         this.reservaDAO = reservaDAO;
         this.habitacionDAO = habitacionDAO;
         this.reservaMapper = reservaMapper;
+        this.indiceOcupacion = indiceOcupacion;
+        this.estadiaDAO = estadiaDAO;
+        this.habitacionFueraServicioDAO = habitacionFueraServicioDAO;
+        this.cerrojosHabitaciones = cerrojosHabitaciones;
     }
     
     /**
@@ -54,15 +84,21 @@ public class GestorReservasImp implements GestorReservas {
      * Proceso:
      * 1. Valida que el request no sea nulo
      * 2. Valida que la fecha de egreso sea posterior a la de ingreso
-     * 3. Busca y valida las habitaciones solicitadas
-     * 4. Convierte el DTO a entidad usando el mapper
-     * 5. Asigna las habitaciones a la reserva
-     * 6. Guarda la reserva en base de datos
+     * 3. Bloquea las habitaciones solicitadas: en el proceso (CerrojosHabitaciones) y en
+     *    la base de datos (SELECT ... FOR UPDATE, una sola consulta)
+     * 4. Verifica que ninguna esté reservada, ocupada o fuera de servicio en el rango
+     * 5. Convierte el DTO a entidad usando el mapper y le asigna las habitaciones
+     * 6. Guarda la reserva en base de datos y la marca en el índice de ocupación
      * 7. Convierte la entidad guardada a DTO de respuesta
      *
+     * Los bloqueos se mantienen hasta el commit, así dos reservas que se superponen
+     * sobre la misma habitación no pueden confirmarse ambas. Reservas sobre
+     * habitaciones distintas no se esperan entre sí.
+     *
      * @param request DTO con los datos de la reserva (ya validados por @Valid)
      * @return DTO de respuesta con los datos de la reserva registrada
-     * @throws IllegalArgumentException si no se encuentran las entidades relacionadas o si hay conflictos en las reservas
+     * @throws IllegalArgumentException si no se encuentran las entidades relacionadas
+     * @throws IllegalStateException si alguna habitación no está disponible en el rango
      */
     @Override
     @Transactional
@@ -91,37 +127,305 @@ public class GestorReservasImp implements GestorReservas {
         }
 
         try {
-            // 1. Buscar y validar las habitaciones solicitadas
-            List<Habitacion> habitaciones = request.idsHabitaciones().stream()
-                    .map(id -> habitacionDAO.findById(id)
-                            .orElseThrow(() -> {
-                                log.error("Habitación no encontrada con ID: {}", id);
-                                return new IllegalArgumentException("La habitación con ID " + id + " no existe");
-                            }))
-                    .collect(Collectors.toList());
+            return cerrojosHabitaciones.conHabitacionesBloqueadas(request.idsHabitaciones(),
+                    () -> registrarConHabitacionesBloqueadas(request));
+        } catch (IllegalStateException e) {
+            // Habitación no disponible o tomada por otra operación: se informa tal cual (409)
+            log.warn("Reserva rechazada para {} {}: {}",
+                    request.nombreHuesped(), request.apellidoHuesped(), e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Error al registrar reserva para {} {}",
+                    request.nombreHuesped(), request.apellidoHuesped(), e);
+            throw new RuntimeException("Error al procesar el registro de la reserva", e);
+        }
+    }
 
-            log.debug("Se encontraron {} habitaciones válidas", habitaciones.size());
+    private ReservaDTOResponse registrarConHabitacionesBloqueadas(ReservaDTORequest request) {
+        // 1. Buscar, bloquear y validar las habitaciones solicitadas
+        List<Habitacion> habitaciones = buscarYBloquearHabitaciones(request.idsHabitaciones());
 
-            // 2. Convertir DTO a entidad usando MapStruct
-            Reserva nuevaReserva = reservaMapper.toEntity(request);
+        log.debug("Se encontraron {} habitaciones válidas", habitaciones.size());
 
-            // 3. Asignar las habitaciones a la reserva
-            nuevaReserva.setHabitaciones(habitaciones);
+        // 2. Verificar que estén disponibles (con las filas ya bloqueadas)
+        buscarConflicto(habitaciones, request.fechaIngreso(), request.fechaEgreso(),
+                buscarOcupacion(idsDe(habitaciones), request.fechaIngreso(), request.fechaEgreso()))
+                .ifPresent(conflicto -> {
+                    throw new IllegalStateException(conflicto);
+                });
 
-            // 4. Guardar en base de datos
-            Reserva reservaGuardada = reservaDAO.save(nuevaReserva);
+        // 3. Convertir DTO a entidad usando MapStruct
+        Reserva nuevaReserva = reservaMapper.toEntity(request);
 
-            log.info("Reserva registrada exitosamente con ID: {} para {} {}",
-                    reservaGuardada.getId(), request.nombreHuesped(), request.apellidoHuesped());
+        // 4. Asignar las habitaciones a la reserva
+        nuevaReserva.setHabitaciones(habitaciones);
 
-            // 6. Convertir entidad guardada a DTO de respuesta
-            return reservaMapper.toResponse(reservaGuardada);
+        // 5. Guardar en base de datos
+        Reserva reservaGuardada = reservaDAO.save(nuevaReserva);
 
-        } catch (Exception e) {
-            log.error("Error al registrar reserva para {} {}",
-                    request.nombreHuesped(), request.apellidoHuesped(), e);
-            throw new RuntimeException("Error al procesar el registro de la reserva", e);
+        // 6. Reflejar la reserva en la grilla en memoria (se aplica tras el commit)
+        indiceOcupacion.registrarReserva(request.idsHabitaciones(),
+                reservaGuardada.getFechaIngreso(), reservaGuardada.getFechaEgreso());
+
+        log.info("Reserva registrada exitosamente con ID: {} para {} {}",
+                reservaGuardada.getId(), request.nombreHuesped(), request.apellidoHuesped());
+
+        // 7. Convertir entidad guardada a DTO de respuesta
+        return reservaMapper.toResponse(reservaGuardada);
+    }
+
+    /**
+     * Registra varias reservas en una única transacción.
+     *
+     * Proceso:
+     * 1. Valida cada reserva del lote (fechas y habitaciones pedidas)
+     * 2. Bloquea y busca las habitaciones de todo el lote con una sola consulta
+     * 3. Verifica la disponibilidad contra la base de datos y contra las reservas
+     *    anteriores del mismo lote
+     * 4. Descarta (MEJOR_ESFUERZO) o rechaza el lote (TODO_O_NADA) si alguna reserva es inválida
+     * 5. Guarda las reservas válidas juntas; los INSERT de reservas y de reserva_habitaciones
+     *    se envían en lotes JDBC al hacer commit (hibernate.jdbc.batch_size)
+     *
+     * El modo sólo afecta la validación: un error de la base de datos al escribir
+     * revierte el lote completo.
+     *
+     * @param requests reservas a registrar
+     * @param modo modo de procesamiento del lote
+     * @return resultado por reserva, en el orden pedido
+     * @throws IllegalArgumentException si el lote está vacío, o en modo TODO_O_NADA si alguna reserva es inválida
+     * @throws IllegalStateException en modo TODO_O_NADA si alguna habitación no está disponible
+     */
+    @Override
+    @Transactional
+    public ResultadoLoteDTO registrarReservasEnLote(List<ReservaDTORequest> requests, ModoLote modo) {
+        if (requests == null || requests.isEmpty()) {
+            log.error("Intento de registro en lote sin reservas");
+            throw new IllegalArgumentException("Debe indicar al menos una reserva");
+        }
+        ModoLote modoEfectivo = modo != null ? modo : ModoLote.TODO_O_NADA;
+        log.info("Registrando lote de {} reservas en modo {}", requests.size(), modoEfectivo);
+
+        // 1. Validar cada reserva y juntar las habitaciones de todo el lote
+        String[] errores = new String[requests.size()];
+        Set<Long> idsLote = new LinkedHashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                validarRequest(requests.get(i));
+                idsLote.addAll(requests.get(i).idsHabitaciones());
+            } catch (IllegalArgumentException e) {
+                errores[i] = e.getMessage();
+            }
         }
+
+        // 2. Bloquear las habitaciones del lote hasta el fin de la transacción
+        return cerrojosHabitaciones.conHabitacionesBloqueadas(idsLote,
+                () -> registrarLoteBloqueado(requests, modoEfectivo, errores, idsLote));
     }
 
+    private ResultadoLoteDTO registrarLoteBloqueado(List<ReservaDTORequest> requests, ModoLote modoEfectivo,
+                                                    String[] errores, Set<Long> idsLote) {
+        // Una sola consulta para todas las habitaciones del lote
+        Map<Long, Habitacion> habitacionesPorId = idsLote.isEmpty()
+                ? Map.of()
+                : bloquearHabitaciones(idsLote);
+
+        List<List<Habitacion>> habitacionesPorReserva = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        for (int i = 0; i < requests.size(); i++) {
+            if (errores[i] != null) continue;
+            try {
+                habitacionesPorReserva.set(i, resolverHabitaciones(requests.get(i).idsHabitaciones(), habitacionesPorId));
+            } catch (IllegalArgumentException e) {
+                errores[i] = e.getMessage();
+            }
+        }
+
+        // 3. Verificar disponibilidad: una consulta para el rango de todo el lote y, en memoria,
+        //    cada reserva contra la ocupación existente y las reservas aceptadas antes en el lote
+        boolean[] noDisponible = new boolean[requests.size()];
+        List<Integer> candidatas = IntStream.range(0, requests.size()).filter(i -> errores[i] == null).boxed().toList();
+        if (!candidatas.isEmpty()) {
+            LocalDate desde = candidatas.stream().map(i -> requests.get(i).fechaIngreso()).min(LocalDate::compareTo).get();
+            LocalDate hasta = candidatas.stream().map(i -> requests.get(i).fechaEgreso()).max(LocalDate::compareTo).get();
+            List<IntervaloOcupacionDTO> ocupacion = new ArrayList<>(
+                    buscarOcupacion(habitacionesPorId.keySet(), desde, hasta));
+            for (int i : candidatas) {
+                ReservaDTORequest request = requests.get(i);
+                Optional<String> conflicto = buscarConflicto(habitacionesPorReserva.get(i),
+                        request.fechaIngreso(), request.fechaEgreso(), ocupacion);
+                if (conflicto.isPresent()) {
+                    errores[i] = conflicto.get();
+                    noDisponible[i] = true;
+                } else {
+                    habitacionesPorReserva.get(i).forEach(h -> ocupacion.add(new IntervaloOcupacionDTO(
+                            h.getId(), request.fechaIngreso(), request.fechaEgreso(), TipoEstadoHabitacion.RESERVADA)));
+                }
+            }
+        }
+
+        // 4. En modo TODO_O_NADA cualquier error rechaza el lote completo
+        if (modoEfectivo == ModoLote.TODO_O_NADA) {
+            String detalle = IntStream.range(0, errores.length)
+                    .filter(i -> errores[i] != null)
+                    .mapToObj(i -> "reserva " + (i + 1) + ": " + errores[i])
+                    .collect(Collectors.joining("; "));
+            if (!detalle.isEmpty()) {
+                log.warn("Lote de reservas rechazado: {}", detalle);
+                String mensaje = "No se registró ninguna reserva (" + detalle + ")";
+                for (boolean conflicto : noDisponible) {
+                    if (conflicto) throw new IllegalStateException(mensaje);
+                }
+                throw new IllegalArgumentException(mensaje);
+            }
+        }
+
+        // 5. Guardar juntas las reservas válidas
+        List<Integer> indicesValidos = new ArrayList<>();
+        List<Reserva> nuevas = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (errores[i] != null) continue;
+            Reserva reserva = reservaMapper.toEntity(requests.get(i));
+            reserva.setHabitaciones(new ArrayList<>(habitacionesPorReserva.get(i)));
+            indicesValidos.add(i);
+            nuevas.add(reserva);
+        }
+        List<Reserva> guardadas = nuevas.isEmpty() ? List.of() : reservaDAO.saveAll(nuevas);
+
+        ResultadoLoteDTO.ItemDTO[] resultados = new ResultadoLoteDTO.ItemDTO[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            if (errores[i] != null) {
+                resultados[i] = new ResultadoLoteDTO.ItemDTO(i, null, errores[i]);
+            }
+        }
+        for (int j = 0; j < guardadas.size(); j++) {
+            Reserva guardada = guardadas.get(j);
+            int i = indicesValidos.get(j);
+            indiceOcupacion.registrarReserva(idsDe(guardada.getHabitaciones()),
+                    guardada.getFechaIngreso(), guardada.getFechaEgreso());
+            resultados[i] = new ResultadoLoteDTO.ItemDTO(i, reservaMapper.toResponse(guardada), null);
+        }
+
+        log.info("Lote de reservas procesado: {} registradas, {} rechazadas",
+                guardadas.size(), requests.size() - guardadas.size());
+        return new ResultadoLoteDTO(modoEfectivo, guardadas.size(), requests.size() - guardadas.size(),
+                List.of(resultados));
+    }
+
+    /**
+     * Busca reservas, estadías y períodos fuera de servicio de las habitaciones que
+     * tocan el rango.
+     *
+     * @param idsHabitaciones habitaciones a consultar
+     * @param desde primer día (inclusive)
+     * @param hasta último día (inclusive)
+     * @return intervalos que impiden reservar esas habitaciones en alguna parte del rango
+     */
+    private List<IntervaloOcupacionDTO> buscarOcupacion(Collection<Long> idsHabitaciones, LocalDate desde, LocalDate hasta) {
+        if (idsHabitaciones.isEmpty()) return List.of();
+        List<IntervaloOcupacionDTO> ocupacion = new ArrayList<>(
+                reservaDAO.findIntervalosReservadosDeHabitaciones(idsHabitaciones, desde, hasta));
+        ocupacion.addAll(estadiaDAO.findIntervalosOcupadosDeHabitaciones(idsHabitaciones,
+                desde.atStartOfDay(), hasta.atTime(23, 59)));
+        ocupacion.addAll(habitacionFueraServicioDAO.findIntervalosFueraServicioDeHabitaciones(idsHabitaciones,
+                desde, hasta));
+        return ocupacion;
+    }
+
+    /**
+     * Busca el primer intervalo que se superpone con el rango en alguna de las habitaciones,
+     * con la misma regla que el check-in (ReglaOcupacion): el día de egreso queda libre.
+     *
+     * @param habitaciones habitaciones pedidas
+     * @param desde fecha de ingreso pedida
+     * @param hasta fecha de egreso pedida
+     * @param ocupacion intervalos a considerar
+     * @return mensaje describiendo el conflicto, o vacío si todas las habitaciones están disponibles
+     */
+    private Optional<String> buscarConflicto(List<Habitacion> habitaciones, LocalDate desde, LocalDate hasta,
+                                             List<IntervaloOcupacionDTO> ocupacion) {
+        for (IntervaloOcupacionDTO intervalo : ocupacion) {
+            if (!ReglaOcupacion.seSuperpone(intervalo, desde, hasta)) continue;
+            for (Habitacion habitacion : habitaciones) {
+                if (habitacion.getId().equals(intervalo.idHabitacion())) {
+                    return Optional.of("La habitación " + habitacion.getNombre() + " no está disponible entre "
+                            + desde + " y " + hasta + " (" + intervalo.estado() + ")");
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static List<Long> idsDe(List<Habitacion> habitaciones) {
+        return habitaciones.stream().map(Habitacion::getId).toList();
+    }
+
+    /**
+     * Valida los datos de una reserva que no requieren consultar la base de datos.
+     *
+     * @param request datos de la reserva
+     * @throws IllegalArgumentException si la reserva es inválida
+     */
+    private void validarRequest(ReservaDTORequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Los datos de la reserva no pueden ser nulos");
+        }
+        if (request.fechaIngreso() == null || request.fechaEgreso() == null
+                || !request.fechaEgreso().isAfter(request.fechaIngreso())) {
+            throw new IllegalArgumentException("La fecha de egreso debe ser posterior a la fecha de ingreso");
+        }
+        if (request.idsHabitaciones() == null || request.idsHabitaciones().isEmpty()) {
+            throw new IllegalArgumentException("Debe seleccionar al menos una habitación");
+        }
+    }
+
+    /**
+     * Resuelve y bloquea las habitaciones pedidas con una única consulta.
+     *
+     * @param idsHabitaciones IDs pedidos
+     * @return habitaciones en el orden pedido
+     * @throws IllegalArgumentException si alguna habitación no existe
+     */
+    private List<Habitacion> buscarYBloquearHabitaciones(List<Long> idsHabitaciones) {
+        return resolverHabitaciones(idsHabitaciones, bloquearHabitaciones(new LinkedHashSet<>(idsHabitaciones)));
+    }
+
+    /**
+     * Busca y bloquea las habitaciones indicadas.
+     *
+     * Las filas quedan bloqueadas (FOR UPDATE, en orden de ID) hasta el commit, así
+     * dos reservas sobre la misma habitación no avanzan a la vez.
+     *
+     * @param ids IDs sin repetir
+     * @return habitaciones encontradas por ID; los IDs inexistentes no aparecen
+     */
+    private Map<Long, Habitacion> bloquearHabitaciones(Set<Long> ids) {
+        return habitacionDAO.findAllByIdParaActualizar(ids).stream()
+                .collect(Collectors.toMap(Habitacion::getId, Function.identity()));
+    }
+
+    /**
+     * Arma la lista de habitaciones de una reserva a partir de las ya buscadas.
+     * Los IDs repetidos se consideran una sola vez y el resultado respeta el orden
+     * pedido. Si falta alguna habitación se informan exactamente las que no existen.
+     *
+     * @param idsHabitaciones IDs pedidos
+     * @param porId habitaciones buscadas
+     * @return habitaciones en el orden pedido
+     * @throws IllegalArgumentException si alguna habitación no existe
+     */
+    private List<Habitacion> resolverHabitaciones(List<Long> idsHabitaciones, Map<Long, Habitacion> porId) {
+        Set<Long> ids = new LinkedHashSet<>(idsHabitaciones);
+
+        List<Long> faltantes = ids.stream().filter(id -> !porId.containsKey(id)).toList();
+        if (faltantes.size() == 1) {
+            log.error("Habitación no encontrada con ID: {}", faltantes.get(0));
+            throw new IllegalArgumentException("La habitación con ID " + faltantes.get(0) + " no existe");
+        }
+        if (!faltantes.isEmpty()) {
+            log.error("Habitaciones no encontradas con IDs: {}", faltantes);
+            throw new IllegalArgumentException("Las habitaciones con ID " + faltantes.stream()
+                    .map(String::valueOf).collect(Collectors.joining(", ")) + " no existen");
+        }
+
+        return ids.stream().map(porId::get).toList();
+    }
 }
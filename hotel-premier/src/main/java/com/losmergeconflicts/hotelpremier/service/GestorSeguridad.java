@@ -2,6 +2,7 @@ package com.losmergeconflicts.hotelpremier.service;
 
 import com.losmergeconflicts.hotelpremier.dto.ConserjeDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.ConserjeDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.TokenDTOResponse;
 
 /**
  * Interfaz del servicio de seguridad.
@@ -26,4 +27,13 @@ public interface GestorSeguridad {
      * @return true si el username existe, false si no
      */
     boolean existeUsername(String username);
+
+    /**
+     * Verifica las credenciales de un conserje y emite un token de acceso a la API.
+     * 
+     * @param request DTO con username y password
+     * @return token firmado y su validez
+     * @throws org.springframework.security.core.AuthenticationException si las credenciales son incorrectas
+     */
+    TokenDTOResponse emitirToken(ConserjeDTORequest request);
 }
@@ -3,10 +3,15 @@ package com.losmergeconflicts.hotelpremier.service;
 import com.losmergeconflicts.hotelpremier.dao.ConserjeDAO;
 import com.losmergeconflicts.hotelpremier.dto.ConserjeDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.ConserjeDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.TokenDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.UsuarioAutenticado;
 import com.losmergeconflicts.hotelpremier.entity.Conserje;
 import com.losmergeconflicts.hotelpremier.mapper.ConserjeMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +31,8 @@ public class GestorSeguridadImp implements GestorSeguridad {
     private final ConserjeDAO conserjeDAO;
     private final PasswordEncoder passwordEncoder;
     private final ConserjeMapper conserjeMapper;
+    private final AuthenticationManager authenticationManager;
+    private final EmisorTokens emisorTokens;
 
     /**
      * Constructor con inyección de dependencias.
@@ -33,14 +40,20 @@ public class GestorSeguridadImp implements GestorSeguridad {
      * @param conserjeDAO DAO para operaciones con Conserje
      * @param passwordEncoder encoder para hashear contraseñas
      * @param conserjeMapper mapper para conversión entre DTOs y entidades
+     * @param authenticationManager verificación de credenciales
+     * @param emisorTokens emisión de tokens de la API
      */
     @Autowired
     public GestorSeguridadImp(ConserjeDAO conserjeDAO, 
                           PasswordEncoder passwordEncoder,
-                          ConserjeMapper conserjeMapper) {
+                          ConserjeMapper conserjeMapper,
+                          AuthenticationManager authenticationManager,
+                          EmisorTokens emisorTokens) {
         this.conserjeDAO = conserjeDAO;
         this.passwordEncoder = passwordEncoder;
         this.conserjeMapper = conserjeMapper;
+        this.authenticationManager = authenticationManager;
+        this.emisorTokens = emisorTokens;
     }
 
     /**
@@ -103,4 +116,22 @@ public class GestorSeguridadImp implements GestorSeguridad {
     public boolean existeUsername(String username) {
         return conserjeDAO.existsByUsername(username);
     }
+
+    /**
+     * Emite un token de acceso a la API.
+     * 
+     * Las credenciales se verifican con el mismo AuthenticationManager que el login
+     * por formulario (incluye la actualización de hashes viejos).
+     * 
+     * @param request DTO con username y password
+     * @return token firmado y su validez
+     * @throws org.springframework.security.core.AuthenticationException si las credenciales son incorrectas
+     */
+    @Override
+    public TokenDTOResponse emitirToken(ConserjeDTORequest request) {
+        Authentication autenticacion = authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(request.username(), request.password()));
+        log.info("Token de API emitido para: {}", request.username());
+        return emisorTokens.emitir((UsuarioAutenticado) autenticacion.getPrincipal());
+    }
 }
@@ -0,0 +1,58 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.dto.GrillaDisponibilidadDTO;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Grilla de disponibilidad (CU05) lista para emitirse fila por fila.
+ *
+ * Los intervalos ya fueron cargados en el motor dentro de la transacción del gestor,
+ * por lo que emitir las filas no vuelve a la base de datos y puede hacerse fuera de
+ * ella (por ejemplo, mientras se escribe la respuesta HTTP). Cada fila se arma y se
+ * entrega de a una, y el motor guarda sólo los intervalos, no una matriz de días por
+ * habitaciones: la memoria usada no depende de cuántas filas se emitan.
+ */
+public class GrillaEnStreaming {
+
+    private final GrillaDisponibilidadDTO.EncabezadoDTO encabezado;
+    private final MotorDisponibilidad motor;
+
+    GrillaEnStreaming(GrillaDisponibilidadDTO.EncabezadoDTO encabezado, MotorDisponibilidad motor) {
+        this.encabezado = encabezado;
+        this.motor = motor;
+    }
+
+    /**
+     * @return habitaciones de la grilla, en el orden de las columnas
+     */
+    public GrillaDisponibilidadDTO.EncabezadoDTO getEncabezado() {
+        return encabezado;
+    }
+
+    /**
+     * @return cantidad de filas (días) que se van a emitir
+     */
+    public int getCantidadFilas() {
+        return motor.getCantidadDias();
+    }
+
+    /**
+     * Barre el rango y entrega cada fila apenas se calcula.
+     *
+     * @param consumidor recibe las filas en orden de fecha
+     */
+    public void emitirFilas(Consumer<GrillaDisponibilidadDTO.FilaFechaDTO> consumidor) {
+        List<String> nombres = encabezado.nombresHabitaciones();
+        motor.recorrer((fecha, estados) -> {
+            Map<String, String> estadosDia = new HashMap<>(nombres.size() * 2);
+            for (int i = 0; i < estados.length; i++) {
+                estadosDia.put(nombres.get(i), estados[i].name());
+            }
+            consumidor.accept(new GrillaDisponibilidadDTO.FilaFechaDTO(fecha, estadosDia));
+        });
+    }
+}
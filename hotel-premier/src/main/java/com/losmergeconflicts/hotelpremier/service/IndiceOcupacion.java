@@ -0,0 +1,364 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionFueraServicioDAO;
+import com.losmergeconflicts.hotelpremier.dao.ReservaDAO;
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
+import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice de ocupación residente en memoria.
+ *
+ * Mantiene, para cada habitación, un BitSet por estado (OCUPADA, RESERVADA,
+ * FUERA_DE_SERVICIO) sobre una ventana móvil de días alrededor de hoy. Permite
+ * responder la grilla de disponibilidad (CU05) sin consultar la base de datos.
+ *
+ * - Se carga al iniciar la aplicación y se reconstruye todos los días para
+ *   desplazar la ventana.
+ * - Los gestores lo actualizan en el mismo camino transaccional en que registran
+ *   reservas y estadías; el cambio se aplica recién después del commit.
+ * - Las escrituras que acortan o quitan intervalos (por ejemplo, el egreso de una
+ *   estadía) no se pueden marcar encima: recalcularHabitaciones vuelve a leer de la
+ *   base los intervalos de esas habitaciones y reemplaza los suyos en el índice.
+ *
+ * El índice es local al proceso: con varias instancias de la aplicación cada una
+ * sólo ve sus propias escrituras hasta la siguiente reconstrucción. En ese caso
+ * se puede deshabilitar con hotel.indice-ocupacion.habilitado=false.
+ *
+ * @Slf4j: Genera automáticamente un logger para la clase
+ */
+@Component
+@Slf4j
+public class IndiceOcupacion {
+
+    private static final TipoEstadoHabitacion[] ESTADOS = {
+            TipoEstadoHabitacion.OCUPADA,
+            TipoEstadoHabitacion.RESERVADA,
+            TipoEstadoHabitacion.FUERA_DE_SERVICIO
+    };
+
+    private final ReservaDAO reservaDAO;
+    private final EstadiaDAO estadiaDAO;
+    private final HabitacionFueraServicioDAO habitacionFueraServicioDAO;
+    private final boolean habilitado;
+    private final int diasAtras;
+    private final int diasAdelante;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Ordena los cambios posteriores al commit. Un recálculo lee la base fuera de
+     * lock (sin bloquear la grilla) y un cambio confirmado mientras tanto no debe
+     * quedar pisado por esa lectura anterior.
+     */
+    private final Lock cambiosEnOrden = new ReentrantLock();
+
+    /**
+     * Ventana vigente; null mientras el índice no fue cargado.
+     */
+    private Ventana ventana;
+
+    /**
+     * Cambios aplicados mientras se reconstruye la ventana. Se vuelven a aplicar
+     * sobre la ventana nueva antes de publicarla para no perder escrituras.
+     */
+    private List<Consumer<Ventana>> cambiosDuranteCarga;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param reservaDAO DAO para leer reservas
+     * @param estadiaDAO DAO para leer estadías
+     * @param habitacionFueraServicioDAO DAO para leer períodos fuera de servicio
+     * @param habilitado si es false el índice nunca se carga y la grilla siempre va a la BD
+     * @param diasAtras días anteriores a hoy que cubre la ventana
+     * @param diasAdelante días posteriores a hoy que cubre la ventana
+     */
+    @Autowired
+    public IndiceOcupacion(ReservaDAO reservaDAO,
+                           EstadiaDAO estadiaDAO,
+                           HabitacionFueraServicioDAO habitacionFueraServicioDAO,
+                           @Value("${hotel.indice-ocupacion.habilitado:true}") boolean habilitado,
+                           @Value("${hotel.indice-ocupacion.dias-atras:30}") int diasAtras,
+                           @Value("${hotel.indice-ocupacion.dias-adelante:365}") int diasAdelante) {
+        this.reservaDAO = reservaDAO;
+        this.estadiaDAO = estadiaDAO;
+        this.habitacionFueraServicioDAO = habitacionFueraServicioDAO;
+        this.habilitado = habilitado;
+        this.diasAtras = diasAtras;
+        this.diasAdelante = diasAdelante;
+    }
+
+    /**
+     * Carga el índice al arrancar y lo vuelve a cargar cada madrugada para
+     * desplazar la ventana.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.indice-ocupacion.cron:0 5 0 * * *}")
+    @Transactional(readOnly = true)
+    public void cargar() {
+        if (!habilitado) return;
+
+        LocalDate hoy = LocalDate.now();
+        LocalDate inicio = hoy.minusDays(diasAtras);
+        LocalDate fin = hoy.plusDays(diasAdelante);
+        log.info("Cargando índice de ocupación entre {} y {}", inicio, fin);
+
+        lock.writeLock().lock();
+        try {
+            cambiosDuranteCarga = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Ventana nueva = new Ventana(inicio, fin);
+        try {
+            estadiaDAO.findIntervalosOcupadosEnRango(inicio.atStartOfDay(), fin.atTime(23, 59))
+                    .forEach(nueva::marcar);
+            reservaDAO.findIntervalosReservadosEnRango(inicio, fin)
+                    .forEach(nueva::marcar);
+            habitacionFueraServicioDAO.findIntervalosFueraServicioEnRango(inicio, fin)
+                    .forEach(nueva::marcar);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                cambiosDuranteCarga = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            cambiosDuranteCarga.forEach(cambio -> cambio.accept(nueva));
+            cambiosDuranteCarga = null;
+            ventana = nueva;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de ocupación cargado: {} habitaciones con movimientos", nueva.porHabitacion.size());
+    }
+
+    /**
+     * Indica si el rango completo está dentro de la ventana cargada.
+     *
+     * @param desde primer día (inclusive)
+     * @param hasta último día (inclusive)
+     * @return true si la grilla puede resolverse desde memoria
+     */
+    public boolean cubre(LocalDate desde, LocalDate hasta) {
+        lock.readLock().lock();
+        try {
+            return ventana != null && !desde.isBefore(ventana.inicio) && !hasta.isAfter(ventana.fin);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelca en el motor los intervalos del índice para las habitaciones pedidas.
+     * Cada racha de días consecutivos en un mismo estado se registra como un único intervalo.
+     *
+     * @param motor motor de la grilla que recibe los intervalos
+     * @param idsHabitaciones habitaciones de la grilla
+     * @param desde primer día (inclusive)
+     * @param hasta último día (inclusive)
+     */
+    void volcar(MotorDisponibilidad motor, Collection<Long> idsHabitaciones, LocalDate desde, LocalDate hasta) {
+        lock.readLock().lock();
+        try {
+            if (ventana == null) return;
+            int primero = ventana.offset(desde);
+            int ultimo = ventana.offset(hasta);
+            for (Long id : idsHabitaciones) {
+                BitSet[] bits = ventana.porHabitacion.get(id);
+                if (bits == null) continue;
+                for (int i = 0; i < ESTADOS.length; i++) {
+                    int inicioRacha = bits[i].nextSetBit(primero);
+                    while (inicioRacha >= 0 && inicioRacha <= ultimo) {
+                        int finRacha = Math.min(bits[i].nextClearBit(inicioRacha) - 1, ultimo);
+                        motor.agregarIntervalo(id, ventana.inicio.plusDays(inicioRacha),
+                                ventana.inicio.plusDays(finRacha), ESTADOS[i]);
+                        inicioRacha = bits[i].nextSetBit(finRacha + 1);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marca una reserva en el índice una vez confirmada la transacción en curso.
+     *
+     * @param idsHabitaciones habitaciones reservadas
+     * @param desde fecha de ingreso
+     * @param hasta fecha de egreso (inclusive, igual que en la grilla)
+     */
+    public void registrarReserva(Collection<Long> idsHabitaciones, LocalDate desde, LocalDate hasta) {
+        List<Long> ids = List.copyOf(idsHabitaciones);
+        trasCommit(() -> aplicar(v -> ids.forEach(id -> v.marcar(id, desde, hasta, TipoEstadoHabitacion.RESERVADA))));
+    }
+
+    /**
+     * Marca una estadía en el índice una vez confirmada la transacción en curso.
+     *
+     * @param idHabitacion habitación ocupada
+     * @param desde fecha de ingreso
+     * @param hasta fecha de egreso esperada; null si la estadía queda abierta
+     */
+    public void registrarEstadia(Long idHabitacion, LocalDate desde, LocalDate hasta) {
+        trasCommit(() -> aplicar(v -> v.marcar(idHabitacion, desde, hasta, TipoEstadoHabitacion.OCUPADA)));
+    }
+
+    /**
+     * Una vez confirmada la transacción en curso, vuelve a leer de la base los
+     * intervalos de las habitaciones (con las mismas consultas que la grilla fuera
+     * de la ventana) y reemplaza los que tenían en el índice.
+     *
+     * Lo usan las escrituras que acortan o quitan intervalos, como el egreso.
+     *
+     * @param idsHabitaciones habitaciones cuyos intervalos cambiaron
+     */
+    public void recalcularHabitaciones(Collection<Long> idsHabitaciones) {
+        if (idsHabitaciones.isEmpty()) return;
+        List<Long> ids = List.copyOf(idsHabitaciones);
+        trasCommit(() -> recalcular(ids));
+    }
+
+    private void recalcular(List<Long> ids) {
+        LocalDate hoy = LocalDate.now();
+        LocalDate desde = hoy.minusDays(diasAtras);
+        LocalDate hasta = hoy.plusDays(diasAdelante);
+        lock.readLock().lock();
+        try {
+            if (ventana == null && cambiosDuranteCarga == null) return;
+            // Cubre también la ventana vigente si todavía no se desplazó
+            if (ventana != null) {
+                if (ventana.inicio.isBefore(desde)) desde = ventana.inicio;
+                if (ventana.fin.isAfter(hasta)) hasta = ventana.fin;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<IntervaloOcupacionDTO> intervalos = new ArrayList<>();
+        intervalos.addAll(estadiaDAO.findIntervalosOcupadosDeHabitaciones(ids, desde.atStartOfDay(), hasta.atTime(23, 59)));
+        intervalos.addAll(reservaDAO.findIntervalosReservadosDeHabitaciones(ids, desde, hasta));
+        intervalos.addAll(habitacionFueraServicioDAO.findIntervalosFueraServicioDeHabitaciones(ids, desde, hasta));
+        aplicar(v -> v.reemplazar(ids, intervalos));
+    }
+
+    /**
+     * Ejecuta el cambio después del commit (o ya, fuera de una transacción), en el
+     * orden en que se confirman las transacciones.
+     */
+    private void trasCommit(Runnable cambio) {
+        if (!habilitado) return;
+        Runnable enOrden = () -> {
+            cambiosEnOrden.lock();
+            try {
+                cambio.run();
+            } finally {
+                cambiosEnOrden.unlock();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enOrden.run();
+                }
+            });
+        } else {
+            enOrden.run();
+        }
+    }
+
+    private void aplicar(Consumer<Ventana> cambio) {
+        lock.writeLock().lock();
+        try {
+            if (ventana != null) cambio.accept(ventana);
+            if (cambiosDuranteCarga != null) cambiosDuranteCarga.add(cambio);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ventana de días cubierta por el índice. El bit i de cada BitSet corresponde
+     * al día inicio + i.
+     */
+    private static final class Ventana {
+        private final LocalDate inicio;
+        private final LocalDate fin;
+        private final Map<Long, BitSet[]> porHabitacion = new HashMap<>();
+
+        private Ventana(LocalDate inicio, LocalDate fin) {
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        private int offset(LocalDate fecha) {
+            return (int) ChronoUnit.DAYS.between(inicio, fecha);
+        }
+
+        private void marcar(IntervaloOcupacionDTO intervalo) {
+            marcar(intervalo.idHabitacion(), intervalo.desde(), intervalo.hasta(), intervalo.estado());
+        }
+
+        private void marcar(Long idHabitacion, LocalDate desde, LocalDate hasta, TipoEstadoHabitacion estado) {
+            if (idHabitacion == null || desde == null) return;
+            LocalDate desdeRecortado = desde.isBefore(inicio) ? inicio : desde;
+            LocalDate hastaRecortado = (hasta == null || hasta.isAfter(fin)) ? fin : hasta;
+            if (desdeRecortado.isAfter(hastaRecortado)) return;
+
+            BitSet[] bits = porHabitacion.computeIfAbsent(idHabitacion, id -> {
+                BitSet[] nuevos = new BitSet[ESTADOS.length];
+                for (int i = 0; i < nuevos.length; i++) nuevos[i] = new BitSet();
+                return nuevos;
+            });
+            bits[indiceDe(estado)].set(offset(desdeRecortado), offset(hastaRecortado) + 1);
+        }
+
+        /**
+         * Borra todo lo marcado para las habitaciones y marca sus intervalos nuevos.
+         */
+        private void reemplazar(List<Long> idsHabitaciones, List<IntervaloOcupacionDTO> intervalos) {
+            idsHabitaciones.forEach(porHabitacion::remove);
+            intervalos.forEach(this::marcar);
+        }
+
+        private static int indiceDe(TipoEstadoHabitacion estado) {
+            for (int i = 0; i < ESTADOS.length; i++) {
+                if (ESTADOS[i] == estado) return i;
+            }
+            throw new IllegalArgumentException("Estado no soportado por el índice: " + estado);
+        }
+    }
+}
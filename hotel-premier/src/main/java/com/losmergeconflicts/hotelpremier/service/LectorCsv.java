@@ -0,0 +1,152 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lector incremental de un archivo CSV con encabezado: lee de a un registro, sin
+ * cargar el archivo en memoria.
+ *
+ * - El separador es coma, o punto y coma si el encabezado tiene más de esos.
+ * - Los campos entre comillas dobles pueden contener separadores, saltos de línea
+ *   y comillas escritas dobles ("").
+ * - Los valores se devuelven recortados; los vacíos, como null.
+ */
+class LectorCsv implements Closeable {
+
+    private final BufferedReader entrada;
+    private final char separador;
+    private final List<String> encabezado;
+
+    /**
+     * Línea del archivo (desde 1) en que empieza el último registro leído.
+     */
+    private long lineaRegistro;
+    private long lineaActual;
+
+    /**
+     * Lee el encabezado del archivo.
+     *
+     * @param entrada texto del archivo
+     * @throws IllegalArgumentException si el archivo está vacío
+     */
+    LectorCsv(Reader entrada) {
+        this.entrada = entrada instanceof BufferedReader b ? b : new BufferedReader(entrada);
+        String primera = leerLinea();
+        if (primera == null) {
+            throw new IllegalArgumentException("El archivo CSV está vacío");
+        }
+        if (!primera.isEmpty() && primera.charAt(0) == '\uFEFF') {
+            primera = primera.substring(1);
+        }
+        this.separador = contar(primera, ';') > contar(primera, ',') ? ';' : ',';
+        this.encabezado = dividir(primera).stream().map(String::trim).toList();
+    }
+
+    /**
+     * Lee el registro siguiente. Las líneas en blanco se saltean.
+     *
+     * @return campos del registro por nombre de columna; null al final del archivo
+     * @throws IllegalArgumentException si la cantidad de campos no coincide con el
+     *         encabezado (el lector queda listo para el registro siguiente) o si el
+     *         archivo termina con comillas sin cerrar
+     */
+    Map<String, String> siguiente() {
+        String linea;
+        do {
+            linea = leerLinea();
+            if (linea == null) return null;
+        } while (linea.isBlank());
+        lineaRegistro = lineaActual;
+
+        StringBuilder registro = new StringBuilder(linea);
+        while (comillasAbiertas(registro)) {
+            String continuacion = leerLinea();
+            if (continuacion == null) {
+                throw new IllegalArgumentException("Comillas sin cerrar desde la línea " + lineaRegistro);
+            }
+            registro.append('\n').append(continuacion);
+        }
+
+        List<String> campos = dividir(registro);
+        if (campos.size() != encabezado.size()) {
+            throw new IllegalArgumentException("Se esperaban " + encabezado.size()
+                    + " campos y hay " + campos.size());
+        }
+        Map<String, String> valores = new HashMap<>();
+        for (int i = 0; i < campos.size(); i++) {
+            String valor = campos.get(i).trim();
+            valores.put(encabezado.get(i), valor.isEmpty() ? null : valor);
+        }
+        return valores;
+    }
+
+    /**
+     * @return línea del archivo (desde 1) en que empieza el último registro leído
+     */
+    long getLineaRegistro() {
+        return lineaRegistro;
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+
+    private String leerLinea() {
+        try {
+            String linea = entrada.readLine();
+            if (linea != null) lineaActual++;
+            return linea;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean comillasAbiertas(CharSequence texto) {
+        return contar(texto, '"') % 2 != 0;
+    }
+
+    private static int contar(CharSequence texto, char caracter) {
+        int cantidad = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == caracter) cantidad++;
+        }
+        return cantidad;
+    }
+
+    private List<String> dividir(CharSequence registro) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < registro.length(); i++) {
+            char c = registro.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < registro.length() && registro.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+}
@@ -0,0 +1,164 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
+import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Motor de cálculo de la grilla de disponibilidad (CU05).
+ *
+ * En lugar de recorrer todas las reservas y estadías por cada celda (día × habitación),
+ * cada intervalo se registra una única vez como un par de marcas (inicio, fin + 1) en
+ * la columna de su habitación. Luego un barrido día por día aplica las marcas de cada
+ * día y resuelve el estado de cada celda.
+ *
+ * Las marcas se guardan como eventos sueltos, no como una matriz de días × habitaciones:
+ * la memoria es O(habitaciones + intervalos) y no crece con la cantidad de días, así
+ * una grilla de varios años se puede emitir fila por fila (GrillaEnStreaming).
+ *
+ * Costo: O(habitaciones × días + intervalos × log intervalos).
+ *
+ * Si varios intervalos cubren la misma celda gana el de mayor prioridad:
+ * OCUPADA > FUERA_DE_SERVICIO > RESERVADA > LIBRE.
+ */
+class MotorDisponibilidad {
+
+    /**
+     * Estados que se registran como intervalos, ordenados de mayor a menor prioridad.
+     */
+    private static final TipoEstadoHabitacion[] PRIORIDAD = {
+            TipoEstadoHabitacion.OCUPADA,
+            TipoEstadoHabitacion.FUERA_DE_SERVICIO,
+            TipoEstadoHabitacion.RESERVADA
+    };
+
+    private final LocalDate desde;
+    private final int cantidadDias;
+    private final int cantidadHabitaciones;
+    private final Map<Long, Integer> columnas;
+
+    /**
+     * Marcas de inicio (+1) y de fin + 1 (-1) por estado. Cada marca es la celda
+     * dia * cantidadHabitaciones + columna; al ordenarlas quedan agrupadas por día.
+     */
+    private final long[][] inicios;
+    private final long[][] fines;
+    private final int[] cantidadMarcas;
+
+    /**
+     * @param desde primer día de la grilla
+     * @param hasta último día de la grilla (inclusive)
+     * @param idsHabitaciones IDs de las habitaciones en el orden de las columnas
+     */
+    MotorDisponibilidad(LocalDate desde, LocalDate hasta, List<Long> idsHabitaciones) {
+        this.desde = desde;
+        this.cantidadDias = (int) ChronoUnit.DAYS.between(desde, hasta) + 1;
+        this.cantidadHabitaciones = idsHabitaciones.size();
+        this.columnas = new HashMap<>(idsHabitaciones.size() * 2);
+        for (int i = 0; i < idsHabitaciones.size(); i++) {
+            columnas.put(idsHabitaciones.get(i), i);
+        }
+        this.inicios = new long[PRIORIDAD.length][16];
+        this.fines = new long[PRIORIDAD.length][16];
+        this.cantidadMarcas = new int[PRIORIDAD.length];
+    }
+
+    /**
+     * Registra un intervalo [inicio, fin] (ambos inclusive) para una habitación.
+     *
+     * El intervalo se recorta al rango de la grilla. Se ignoran los intervalos de
+     * habitaciones que no forman parte de la grilla (por ejemplo, de otro tipo).
+     *
+     * @param idHabitacion ID de la habitación
+     * @param inicio primer día del intervalo
+     * @param fin último día del intervalo; null indica que sigue abierto
+     * @param estado estado que aporta el intervalo (OCUPADA, FUERA_DE_SERVICIO o RESERVADA)
+     */
+    void agregarIntervalo(Long idHabitacion, LocalDate inicio, LocalDate fin, TipoEstadoHabitacion estado) {
+        Integer columna = columnas.get(idHabitacion);
+        if (columna == null || inicio == null) return;
+
+        long primerDia = Math.max(0, ChronoUnit.DAYS.between(desde, inicio));
+        long ultimoDia = (fin == null)
+                ? cantidadDias - 1
+                : Math.min(cantidadDias - 1, ChronoUnit.DAYS.between(desde, fin));
+        if (primerDia > ultimoDia) return;
+
+        int p = indiceDe(estado);
+        if (cantidadMarcas[p] == inicios[p].length) {
+            inicios[p] = Arrays.copyOf(inicios[p], inicios[p].length * 2);
+            fines[p] = Arrays.copyOf(fines[p], fines[p].length * 2);
+        }
+        inicios[p][cantidadMarcas[p]] = primerDia * cantidadHabitaciones + columna;
+        fines[p][cantidadMarcas[p]] = (ultimoDia + 1) * cantidadHabitaciones + columna;
+        cantidadMarcas[p]++;
+    }
+
+    /**
+     * Registra un intervalo proveniente de las consultas de proyección de los DAOs.
+     *
+     * @param intervalo habitación, rango y estado del intervalo
+     */
+    void agregarIntervalo(IntervaloOcupacionDTO intervalo) {
+        agregarIntervalo(intervalo.idHabitacion(), intervalo.desde(), intervalo.hasta(), intervalo.estado());
+    }
+
+    /**
+     * Barre el rango día por día e informa el estado de cada habitación.
+     *
+     * El arreglo de estados respeta el orden de columnas recibido en el constructor
+     * y se reutiliza entre días: el consumidor no debe guardarlo.
+     *
+     * @param consumidor recibe la fecha y los estados de ese día
+     */
+    void recorrer(BiConsumer<LocalDate, TipoEstadoHabitacion[]> consumidor) {
+        for (int p = 0; p < PRIORIDAD.length; p++) {
+            Arrays.sort(inicios[p], 0, cantidadMarcas[p]);
+            Arrays.sort(fines[p], 0, cantidadMarcas[p]);
+        }
+        int[][] activos = new int[PRIORIDAD.length][cantidadHabitaciones];
+        int[] siguienteInicio = new int[PRIORIDAD.length];
+        int[] siguienteFin = new int[PRIORIDAD.length];
+        TipoEstadoHabitacion[] fila = new TipoEstadoHabitacion[cantidadHabitaciones];
+
+        LocalDate fecha = desde;
+        for (int dia = 0; dia < cantidadDias; dia++) {
+            long finDelDia = (long) (dia + 1) * cantidadHabitaciones;
+            for (int p = 0; p < PRIORIDAD.length; p++) {
+                while (siguienteInicio[p] < cantidadMarcas[p] && inicios[p][siguienteInicio[p]] < finDelDia) {
+                    activos[p][(int) (inicios[p][siguienteInicio[p]++] % cantidadHabitaciones)]++;
+                }
+                while (siguienteFin[p] < cantidadMarcas[p] && fines[p][siguienteFin[p]] < finDelDia) {
+                    activos[p][(int) (fines[p][siguienteFin[p]++] % cantidadHabitaciones)]--;
+                }
+            }
+            for (int columna = 0; columna < cantidadHabitaciones; columna++) {
+                TipoEstadoHabitacion estado = TipoEstadoHabitacion.LIBRE;
+                for (int p = PRIORIDAD.length - 1; p >= 0; p--) {
+                    if (activos[p][columna] > 0) estado = PRIORIDAD[p];
+                }
+                fila[columna] = estado;
+            }
+            consumidor.accept(fecha, fila);
+            fecha = fecha.plusDays(1);
+        }
+    }
+
+    int getCantidadDias() {
+        return cantidadDias;
+    }
+
+    private static int indiceDe(TipoEstadoHabitacion estado) {
+        for (int i = 0; i < PRIORIDAD.length; i++) {
+            if (PRIORIDAD[i] == estado) return i;
+        }
+        throw new IllegalArgumentException("Estado no soportado por la grilla: " + estado);
+    }
+}
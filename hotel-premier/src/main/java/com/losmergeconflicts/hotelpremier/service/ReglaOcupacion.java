@@ -0,0 +1,50 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
+import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
+
+import java.time.LocalDate;
+
+/**
+ * Regla única para decidir si un intervalo de ocupación impide ocupar o reservar
+ * una habitación en un rango de fechas. La usan GestorReservasImp y GestorEstadiasImp.
+ *
+ * Reservas y estadías ocupan noches: de la fecha de ingreso (inclusive) a la de
+ * egreso (exclusive), así el día de egreso queda libre para el siguiente ingreso.
+ * Si el egreso es el mismo día del ingreso se cuenta una noche. Los períodos fuera
+ * de servicio, en cambio, bloquean sus días completos, el último incluido.
+ */
+final class ReglaOcupacion {
+
+    private ReglaOcupacion() {
+    }
+
+    /**
+     * Día siguiente a la última noche del rango (el día de egreso, o el siguiente
+     * al ingreso si el egreso no es posterior).
+     *
+     * @param desde fecha de ingreso
+     * @param hasta fecha de egreso
+     * @return fin del rango, exclusive
+     */
+    static LocalDate finExclusivo(LocalDate desde, LocalDate hasta) {
+        return hasta.isAfter(desde) ? hasta : desde.plusDays(1);
+    }
+
+    /**
+     * Indica si el intervalo comparte alguna noche con el rango pedido.
+     *
+     * @param intervalo reserva, estadía o período fuera de servicio; hasta = null si está abierto
+     * @param desde fecha de ingreso pedida
+     * @param hasta fecha de egreso pedida
+     * @return true si el intervalo impide ocupar la habitación en el rango
+     */
+    static boolean seSuperpone(IntervaloOcupacionDTO intervalo, LocalDate desde, LocalDate hasta) {
+        if (!intervalo.desde().isBefore(finExclusivo(desde, hasta))) return false;
+        if (intervalo.hasta() == null) return true;
+        LocalDate finIntervalo = intervalo.estado() == TipoEstadoHabitacion.FUERA_DE_SERVICIO
+                ? intervalo.hasta().plusDays(1)
+                : finExclusivo(intervalo.desde(), intervalo.hasta());
+        return finIntervalo.isAfter(desde);
+    }
+}
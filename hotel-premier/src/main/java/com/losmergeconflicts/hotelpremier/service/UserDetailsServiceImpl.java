@@ -1,9 +1,14 @@
 package com.losmergeconflicts.hotelpremier.service;
 
+import com.losmergeconflicts.hotelpremier.config.CacheConfig;
 import com.losmergeconflicts.hotelpremier.dao.ConserjeDAO;
+import com.losmergeconflicts.hotelpremier.dto.UsuarioAutenticado;
+import com.losmergeconflicts.hotelpremier.entity.Conserje;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -16,11 +21,22 @@ import org.springframework.transaction.annotation.Transactional;
  * Spring Security llamará a loadUserByUsername() durante el proceso de autenticación
  * para obtener los detalles del usuario (credenciales, roles, etc.).
  * 
+ * Los usuarios se guardan en el caché "usuarios" (ver CacheConfig), acotado en
+ * tamaño y con expiración, para que los logins de un cambio de turno no vayan
+ * todos a la base. Lo que se cachea es una copia inmutable (UsuarioAutenticado),
+ * no la entidad. La entrada se invalida cuando ConserjeDAO.save guarda el
+ * conserje (alta o cambio de contraseña). Los usuarios inexistentes no se cachean.
+ * 
+ * También implementa UserDetailsPasswordService: después de un login correcto,
+ * si el hash guardado usa un formato o costo anterior al configurado (ver
+ * SecurityConfig.passwordEncoder), Spring Security llama a updatePassword con el
+ * hash recalculado.
+ * 
  * @Slf4j: Genera automáticamente un logger para la clase
  */
 @Service
 @Slf4j
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final ConserjeDAO conserjeDAO;
 
@@ -42,20 +58,22 @@ public class UserDetailsServiceImpl implements UserDetailsService {
      * Proceso:
      * 1. Spring Security recibe username y password del formulario de login
      * 2. Llama a este método con el username
-     * 3. Este método busca al usuario en la BD
+     * 3. Este método busca al usuario en el caché o, si no está, en la BD
      * 4. Spring Security compara el password ingresado con el hash almacenado
      * 5. Si coinciden, autentica al usuario y crea la sesión
      * 
      * @param username el nombre de usuario ingresado en el login
-     * @return UserDetails con la información del usuario (nuestra entidad Conserje)
+     * @return UserDetails con la información del usuario (copia inmutable del Conserje)
      * @throws UsernameNotFoundException si el usuario no existe
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.CACHE_USUARIOS, key = "#username")
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         log.debug("Intentando cargar usuario: {}", username);
         
         return conserjeDAO.findByUsername(username)
+                .map(UsuarioAutenticado::de)
                 .orElseThrow(() -> {
                     log.warn("Usuario no encontrado: {}", username);
                     return new UsernameNotFoundException(
@@ -63,4 +81,26 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                     );
                 });
     }
+
+    /**
+     * Reemplaza el hash de la contraseña de un conserje.
+     * 
+     * Lo invoca Spring Security durante el login para actualizar hashes viejos;
+     * la contraseña en sí no cambia. Al guardar se invalida la entrada del caché.
+     * 
+     * @param user usuario autenticado
+     * @param newPassword hash nuevo, ya calculado
+     * @return el usuario con el hash nuevo
+     * @throws UsernameNotFoundException si el usuario ya no existe
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Conserje conserje = conserjeDAO.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + user.getUsername()));
+        conserje.setPassword(newPassword);
+        conserjeDAO.save(conserje);
+        log.info("Hash de contraseña actualizado para el usuario: {}", user.getUsername());
+        return UsuarioAutenticado.de(conserje);
+    }
 }
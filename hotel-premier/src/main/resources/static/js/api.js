@@ -0,0 +1,27 @@
+/**
+ * Llamadas a la API (/api/**) desde las pantallas.
+ *
+ * Se autentican con la sesión del login por formulario (cookie JSESSIONID). Las
+ * que modifican datos llevan el token CSRF de la página, publicado en las meta
+ * "_csrf" y "_csrf_header". Si la sesión venció, la API responde 401 y se vuelve
+ * al login.
+ *
+ * Mismos parámetros y resultado que fetch.
+ */
+async function apiFetch(url, opciones = {}) {
+    const metodo = (opciones.method || 'GET').toUpperCase();
+    const headers = new Headers(opciones.headers || {});
+    if (!['GET', 'HEAD', 'OPTIONS', 'TRACE'].includes(metodo)) {
+        const token = document.querySelector('meta[name="_csrf"]');
+        const encabezado = document.querySelector('meta[name="_csrf_header"]');
+        if (token && encabezado) {
+            headers.set(encabezado.content, token.content);
+        }
+    }
+
+    const respuesta = await fetch(url, { ...opciones, headers, credentials: 'same-origin' });
+    if (respuesta.status === 401) {
+        window.location.href = '/login';
+    }
+    return respuesta;
+}
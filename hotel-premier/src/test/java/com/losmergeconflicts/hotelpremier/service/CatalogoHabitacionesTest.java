@@ -0,0 +1,103 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.losmergeconflicts.hotelpremier.dao.HabitacionDAO;
+import com.losmergeconflicts.hotelpremier.dto.HabitacionCatalogo;
+import com.losmergeconflicts.hotelpremier.entity.Habitacion;
+import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
+import com.losmergeconflicts.hotelpremier.entity.TipoHabitacion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogoHabitacionesTest {
+
+    @Mock private HabitacionDAO habitacionDAO;
+
+    @InjectMocks
+    private CatalogoHabitaciones catalogo;
+
+    /**
+     * Orden natural: prefijo alfabético y luego número (IE2 antes que IE10).
+     */
+    @Test
+    void testListarTodas_OrdenNatural() {
+        // --- ARRANGE ---
+        List<Habitacion> habitaciones = new ArrayList<>();
+        for (String nombre : List.of("IE10", "IE2", "DE1", "IE1", "SUITE")) {
+            habitaciones.add(Habitacion.builder().nombre(nombre).build());
+        }
+        when(habitacionDAO.findAll()).thenReturn(habitaciones);
+
+        // --- ACT ---
+        List<HabitacionCatalogo> resultado = catalogo.listarTodas();
+
+        // --- ASSERT ---
+        assertEquals(List.of("DE1", "IE1", "IE2", "IE10", "SUITE"),
+                resultado.stream().map(HabitacionCatalogo::nombre).toList());
+    }
+
+    /**
+     * Números de más de 9 dígitos (que no entran en un int) siguen en orden natural.
+     */
+    @Test
+    void testListarTodas_OrdenNaturalConNumerosLargos() {
+        // --- ARRANGE ---
+        List<Habitacion> habitaciones = new ArrayList<>();
+        for (String nombre : List.of("A99999999999", "A3000000000", "A9", "A0010", "A")) {
+            habitaciones.add(Habitacion.builder().nombre(nombre).build());
+        }
+        when(habitacionDAO.findAll()).thenReturn(habitaciones);
+
+        // --- ACT ---
+        List<HabitacionCatalogo> resultado = catalogo.listarTodas();
+
+        // --- ASSERT ---
+        assertEquals(List.of("A", "A9", "A0010", "A3000000000", "A99999999999"),
+                resultado.stream().map(HabitacionCatalogo::nombre).toList());
+    }
+
+    /**
+     * Las listas se comparten entre requests, así que no se pueden modificar.
+     */
+    @Test
+    void testListarPorTipo_ListaInmutable() {
+        // --- ARRANGE ---
+        when(habitacionDAO.findByTipoHabitacion(TipoHabitacion.DOBLE_ESTANDAR))
+                .thenReturn(new ArrayList<>(List.of(Habitacion.builder().nombre("DE1").build())));
+
+        // --- ACT ---
+        List<HabitacionCatalogo> resultado = catalogo.listarPorTipo(TipoHabitacion.DOBLE_ESTANDAR);
+
+        // --- ASSERT ---
+        assertThrows(UnsupportedOperationException.class, () -> resultado.add(resultado.get(0)));
+    }
+
+    /**
+     * El catálogo guarda copias: cambiar la entidad después de cargarlo no lo altera.
+     */
+    @Test
+    void testListarTodas_CopiaDeLasEntidades() {
+        // --- ARRANGE ---
+        Habitacion habitacion = Habitacion.builder().id(1L).nombre("DE1").precio(1000f)
+                .tipoHabitacion(TipoHabitacion.DOBLE_ESTANDAR).estadoHabitacion(TipoEstadoHabitacion.LIBRE)
+                .version(3L).build();
+        when(habitacionDAO.findAll()).thenReturn(List.of(habitacion));
+
+        // --- ACT ---
+        List<HabitacionCatalogo> resultado = catalogo.listarTodas();
+        habitacion.setEstadoHabitacion(TipoEstadoHabitacion.OCUPADA);
+
+        // --- ASSERT ---
+        assertEquals(new HabitacionCatalogo(1L, "DE1", 1000f, TipoHabitacion.DOBLE_ESTANDAR,
+                TipoEstadoHabitacion.LIBRE, 3L), resultado.get(0));
+    }
+}
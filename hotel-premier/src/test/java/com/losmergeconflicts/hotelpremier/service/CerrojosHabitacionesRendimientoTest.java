@@ -0,0 +1,66 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de contención de CerrojosHabitaciones.
+ *
+ * No corre con el resto de los tests. Para ejecutarlo:
+ *
+ *   mvn test -Dtest=CerrojosHabitacionesRendimientoTest -Dbenchmark.cerrojos=true \
+ *       -Dbenchmark.cerrojos.hilos=8 -Dbenchmark.cerrojos.operaciones=15
+ *
+ * Cada hilo hace reservas de 2 ms repartidas sobre 1, 2, 4, ... habitaciones e
+ * informa reservas por segundo para cada cantidad. El rendimiento debería crecer
+ * con la cantidad de habitaciones porque sólo compiten las que piden la misma.
+ */
+@EnabledIfSystemProperty(named = "benchmark.cerrojos", matches = "true")
+class CerrojosHabitacionesRendimientoTest {
+
+    @Test
+    void medirReservasPorSegundo() throws Exception {
+        int hilos = Integer.getInteger("benchmark.cerrojos.hilos", 8);
+        int operacionesPorHilo = Integer.getInteger("benchmark.cerrojos.operaciones", 15);
+        CerrojosHabitaciones cerrojos = new CerrojosHabitaciones(64, 2000);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(hilos)) {
+            for (int cantidad = 1; cantidad <= hilos; cantidad *= 2) {
+                List<Future<?>> resultados = new ArrayList<>();
+                long inicio = System.nanoTime();
+                for (int hilo = 0; hilo < hilos; hilo++) {
+                    long idHabitacion = hilo % cantidad;
+                    resultados.add(executor.submit(() -> {
+                        for (int op = 0; op < operacionesPorHilo; op++) {
+                            cerrojos.conHabitacionesBloqueadas(List.of(idHabitacion), () -> {
+                                dormir(2);
+                                return null;
+                            });
+                        }
+                    }));
+                }
+                for (Future<?> resultado : resultados) {
+                    resultado.get(1, TimeUnit.MINUTES);
+                }
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+                System.out.printf("Contención: %d habitaciones -> %8.1f reservas/s%n",
+                        cantidad, hilos * operacionesPorHilo / segundos);
+            }
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
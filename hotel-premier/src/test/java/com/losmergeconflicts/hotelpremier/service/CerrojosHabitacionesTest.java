@@ -0,0 +1,124 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests de concurrencia para CerrojosHabitaciones.
+ */
+public class CerrojosHabitacionesTest {
+
+    private static final int HILOS = 8;
+
+    private CerrojosHabitaciones cerrojos;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        cerrojos = new CerrojosHabitaciones(64, 2000);
+        executor = Executors.newFixedThreadPool(HILOS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Operaciones sobre habitaciones distintas están todas dentro de la sección
+     * crítica al mismo tiempo (la barrera sólo se abre si llegan las 8).
+     */
+    @Test
+    void testHabitacionesDistintas_AvanzanEnParalelo() throws Exception {
+        CyclicBarrier todasAdentro = new CyclicBarrier(HILOS);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        for (long id = 1; id <= HILOS; id++) {
+            long idHabitacion = id;
+            resultados.add(executor.submit(() -> cerrojos.conHabitacionesBloqueadas(List.of(idHabitacion), () -> {
+                try {
+                    todasAdentro.await(5, TimeUnit.SECONDS);
+                    return true;
+                } catch (Exception e) {
+                    return false;
+                }
+            })));
+        }
+        for (Future<Boolean> resultado : resultados) {
+            assertTrue(resultado.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Operaciones sobre la misma habitación nunca se superponen.
+     */
+    @Test
+    void testMismaHabitacion_SeSerializa() throws Exception {
+        AtomicInteger adentro = new AtomicInteger();
+        AtomicInteger maximo = new AtomicInteger();
+        List<Future<?>> resultados = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            // Mismas habitaciones en distinto orden: no debe haber deadlock
+            List<Long> ids = i % 2 == 0 ? List.of(3L, 7L) : List.of(7L, 3L);
+            resultados.add(executor.submit(() -> cerrojos.conHabitacionesBloqueadas(ids, () -> {
+                maximo.accumulateAndGet(adentro.incrementAndGet(), Math::max);
+                dormir(5);
+                adentro.decrementAndGet();
+                return null;
+            })));
+        }
+        for (Future<?> resultado : resultados) {
+            resultado.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(1, maximo.get());
+    }
+
+    /**
+     * Si otra operación retiene la habitación más allá de la espera máxima se
+     * informa un conflicto en lugar de esperar indefinidamente.
+     */
+    @Test
+    void testEsperaAgotada_LanzaIllegalState() throws Exception {
+        CerrojosHabitaciones conEsperaCorta = new CerrojosHabitaciones(64, 50);
+        CountDownLatch tomada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        Future<?> retenedor = executor.submit(() -> conEsperaCorta.conHabitacionesBloqueadas(List.of(1L), () -> {
+            tomada.countDown();
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        assertTrue(tomada.await(5, TimeUnit.SECONDS));
+
+        assertThrows(IllegalStateException.class,
+                () -> conEsperaCorta.conHabitacionesBloqueadas(List.of(1L), () -> null));
+
+        liberar.countDown();
+        retenedor.get(5, TimeUnit.SECONDS);
+        // Liberada, la habitación vuelve a poder tomarse
+        assertEquals("ok", conEsperaCorta.conHabitacionesBloqueadas(List.of(1L), () -> "ok"));
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.losmergeconflicts.hotelpremier.dto.ResultadoCierreEstadiasDTO;
+import com.losmergeconflicts.hotelpremier.entity.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cierre de estadías contra la base de datos (H2), con lotes de 2 estadías.
+ *
+ * Usa su propia base H2: al cerrarse, este contexto borra el esquema
+ * (create-drop) y no debe afectar al contexto compartido por los demás tests.
+ */
+@SpringBootTest(properties = {
+        "hotel.cierre-estadias.tamanio-lote=2",
+        "spring.datasource.url=jdbc:h2:mem:cierreestadias;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class CierreEstadiasIntegracionTest {
+
+    @Autowired private CierreEstadias cierreEstadias;
+    @Autowired private GestorFacturacion gestorFacturacion;
+    @Autowired private IndiceOcupacion indiceOcupacion;
+    @Autowired private EntityManager entityManager;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    /**
+     * 5 estadías terminan hoy: 4 de un huésped con responsable de pago (una ya
+     * facturada a mano) y una de un huésped sin responsable. Otra termina mañana.
+     * El cierre factura y cierra las 4 en 2 lotes, libera sus habitaciones y deja
+     * abiertas las otras dos; una segunda ejecución no hace nada.
+     */
+    @Test
+    void testCerrarEstadias_CierraFacturaYEsReejecutable() {
+        LocalDate hoy = LocalDate.now();
+        List<Long> idsEstadias = new ArrayList<>();
+        List<Long> idsHabitaciones = new ArrayList<>();
+        Long[] idResponsable = new Long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            DatosPrueba datos = new DatosPrueba(entityManager);
+            Localidad localidad = datos.localidad();
+            Nacionalidad nacionalidad = datos.nacionalidad();
+
+            Huesped conResponsable = datos.huesped("Juan", "Pérez", localidad, nacionalidad);
+            conResponsable.setCuit("20301112225");
+            Huesped sinResponsable = datos.huesped("Juan", "Pérez", localidad, nacionalidad);
+
+            ResponsableDePago responsable = ResponsableDePago.builder().razonSocial("Juan Pérez").build();
+            responsable.setCuit("20301112225");
+            responsable.setTelefono("3421234567");
+            responsable.setDireccion(datos.direccion(localidad));
+            entityManager.persist(responsable);
+            idResponsable[0] = responsable.getId();
+
+            for (int i = 0; i < 6; i++) {
+                Habitacion habitacion = datos.habitacion("C" + i, 1000f, TipoEstadoHabitacion.OCUPADA);
+                Estadia estadia = Estadia.builder()
+                        .fechaHoraIngreso(hoy.minusDays(3).atTime(12, 0))
+                        .fechaEgresoEsperado(i == 5 ? hoy.plusDays(1) : hoy)
+                        .habitacion(habitacion)
+                        .huespedAsignado(i == 4 ? sinResponsable : conResponsable)
+                        .huespedesAcompaniantes(new ArrayList<>())
+                        .itemsConsumo(new ArrayList<>())
+                        .build();
+                entityManager.persist(estadia);
+                idsEstadias.add(estadia.getId());
+                idsHabitaciones.add(habitacion.getId());
+            }
+        });
+        gestorFacturacion.facturarEstadia(idsEstadias.get(0), idResponsable[0]);
+
+        ResultadoCierreEstadiasDTO resultado = cierreEstadias.cerrarEstadias(hoy);
+
+        assertEquals(4, resultado.cerradas());
+        assertEquals(3, resultado.facturas());
+        assertEquals(1, resultado.sinResponsable());
+        assertEquals(0, resultado.fallidas());
+        assertEquals(2, resultado.lotes().size());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 6; i++) {
+                Estadia estadia = entityManager.find(Estadia.class, idsEstadias.get(i));
+                Habitacion habitacion = entityManager.find(Habitacion.class, idsHabitaciones.get(i));
+                boolean cerrada = i < 4;
+                assertEquals(cerrada, estadia.getFechaHoraEgreso() != null, "estadía " + i);
+                assertEquals(cerrada ? TipoEstadoHabitacion.LIBRE : TipoEstadoHabitacion.OCUPADA,
+                        habitacion.getEstadoHabitacion(), "habitación " + i);
+            }
+            assertEquals(4L, (long) contarFacturas(idsEstadias));
+            assertEquals(3000f, entityManager.createQuery(
+                            "SELECT f.valorEstadia FROM Factura f WHERE f.estadia.id = :id", Float.class)
+                    .setParameter("id", idsEstadias.get(1)).getSingleResult());
+        });
+
+        ResultadoCierreEstadiasDTO repetido = cierreEstadias.cerrarEstadias(hoy);
+
+        assertEquals(0, repetido.cerradas());
+        assertEquals(1, repetido.sinResponsable());
+        long facturas = transactionTemplate.execute(status -> contarFacturas(idsEstadias));
+        assertEquals(4L, facturas);
+    }
+
+    /**
+     * Cierre atrasado: la estadía debía terminar ayer y el cierre corre hoy con la
+     * fecha de ayer. Se cobran las noches hasta ayer (no una más por el atraso), el
+     * egreso queda ayer a la hora de check-out y el índice de la grilla, que tenía
+     * la habitación ocupada más días, coincide con la base.
+     */
+    @Test
+    void testCerrarEstadias_FechaAnteriorFacturaHastaEsaFecha() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        Long[] ids = new Long[2];
+        transactionTemplate.executeWithoutResult(status -> {
+            DatosPrueba datos = new DatosPrueba(entityManager);
+            Localidad localidad = datos.localidad();
+            Huesped huesped = datos.huesped("Luis", "Atrasado", localidad, datos.nacionalidad());
+            huesped.setCuit("20303334445");
+            ResponsableDePago responsable = ResponsableDePago.builder().razonSocial("Luis Atrasado").build();
+            responsable.setCuit("20303334445");
+            responsable.setTelefono("3421234567");
+            responsable.setDireccion(datos.direccion(localidad));
+            entityManager.persist(responsable);
+
+            Habitacion habitacion = datos.habitacion("A1", 1000f, TipoEstadoHabitacion.OCUPADA);
+            Estadia estadia = Estadia.builder()
+                    .fechaHoraIngreso(ayer.minusDays(2).atTime(12, 0))
+                    .fechaEgresoEsperado(ayer)
+                    .habitacion(habitacion)
+                    .huespedAsignado(huesped)
+                    .huespedesAcompaniantes(new ArrayList<>())
+                    .itemsConsumo(new ArrayList<>())
+                    .build();
+            entityManager.persist(estadia);
+            ids[0] = estadia.getId();
+            ids[1] = habitacion.getId();
+        });
+        // El índice tenía la habitación ocupada hasta pasado mañana
+        indiceOcupacion.registrarEstadia(ids[1], ayer.minusDays(2), ayer.plusDays(3));
+
+        ResultadoCierreEstadiasDTO resultado = cierreEstadias.cerrarEstadias(ayer);
+
+        assertEquals(1, resultado.cerradas());
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(ayer.atTime(CierreEstadias.HORA_EGRESO),
+                    entityManager.find(Estadia.class, ids[0]).getFechaHoraEgreso());
+            Factura factura = entityManager.createQuery(
+                            "SELECT f FROM Factura f WHERE f.estadia.id = :id", Factura.class)
+                    .setParameter("id", ids[0]).getSingleResult();
+            assertEquals(2000f, factura.getValorEstadia());
+            assertEquals(ayer.atTime(CierreEstadias.HORA_EGRESO), factura.getFechaHoraSalida());
+        });
+
+        LocalDate hoy = LocalDate.now();
+        MotorDisponibilidad motor = new MotorDisponibilidad(ayer.minusDays(2), hoy.plusDays(2), List.of(ids[1]));
+        indiceOcupacion.volcar(motor, List.of(ids[1]), ayer.minusDays(2), hoy.plusDays(2));
+        List<TipoEstadoHabitacion> estados = new ArrayList<>();
+        motor.recorrer((dia, fila) -> estados.add(fila[0]));
+        assertEquals(List.of(TipoEstadoHabitacion.OCUPADA, TipoEstadoHabitacion.OCUPADA, TipoEstadoHabitacion.OCUPADA,
+                TipoEstadoHabitacion.LIBRE, TipoEstadoHabitacion.LIBRE, TipoEstadoHabitacion.LIBRE), estados);
+    }
+
+    /**
+     * Cambio de huésped en el día: un huésped ingresa a la habitación el mismo día
+     * en que egresa el anterior. El cierre cierra la estadía anterior pero la
+     * habitación sigue OCUPADA; la otra habitación del lote sí se libera.
+     */
+    @Test
+    void testCerrarEstadias_NoLiberaHabitacionConIngresoDelDia() {
+        LocalDate fecha = LocalDate.now().minusDays(7);
+        List<Long> idsEstadias = new ArrayList<>();
+        List<Long> idsHabitaciones = new ArrayList<>();
+        Long[] idEstadiaNueva = new Long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            DatosPrueba datos = new DatosPrueba(entityManager);
+            Localidad localidad = datos.localidad();
+            Nacionalidad nacionalidad = datos.nacionalidad();
+
+            Huesped saliente = datos.huesped("Juan", "Pérez", localidad, nacionalidad);
+            saliente.setCuit("20302221115");
+            Huesped entrante = datos.huesped("Ana", "Gómez", localidad, nacionalidad);
+            ResponsableDePago responsable = ResponsableDePago.builder().razonSocial("Ana Gómez").build();
+            responsable.setCuit("20302221115");
+            responsable.setTelefono("3421234567");
+            responsable.setDireccion(datos.direccion(localidad));
+            entityManager.persist(responsable);
+
+            for (int i = 0; i < 2; i++) {
+                Habitacion habitacion = datos.habitacion("T" + i, 1000f, TipoEstadoHabitacion.OCUPADA);
+                Estadia estadia = Estadia.builder()
+                        .fechaHoraIngreso(fecha.minusDays(2).atTime(12, 0))
+                        .fechaEgresoEsperado(fecha)
+                        .habitacion(habitacion)
+                        .huespedAsignado(saliente)
+                        .huespedesAcompaniantes(new ArrayList<>())
+                        .itemsConsumo(new ArrayList<>())
+                        .build();
+                entityManager.persist(estadia);
+                idsEstadias.add(estadia.getId());
+                idsHabitaciones.add(habitacion.getId());
+            }
+
+            Estadia nueva = Estadia.builder()
+                    .fechaHoraIngreso(fecha.atTime(9, 0))
+                    .fechaEgresoEsperado(fecha.plusDays(3))
+                    .habitacion(entityManager.find(Habitacion.class, idsHabitaciones.get(0)))
+                    .huespedAsignado(entrante)
+                    .huespedesAcompaniantes(new ArrayList<>())
+                    .itemsConsumo(new ArrayList<>())
+                    .build();
+            entityManager.persist(nueva);
+            idEstadiaNueva[0] = nueva.getId();
+        });
+
+        ResultadoCierreEstadiasDTO resultado = cierreEstadias.cerrarEstadias(fecha);
+
+        assertEquals(2, resultado.cerradas());
+        transactionTemplate.executeWithoutResult(status -> {
+            assertNotNull(entityManager.find(Estadia.class, idsEstadias.get(0)).getFechaHoraEgreso());
+            assertNull(entityManager.find(Estadia.class, idEstadiaNueva[0]).getFechaHoraEgreso());
+            assertEquals(TipoEstadoHabitacion.OCUPADA,
+                    entityManager.find(Habitacion.class, idsHabitaciones.get(0)).getEstadoHabitacion());
+            assertEquals(TipoEstadoHabitacion.LIBRE,
+                    entityManager.find(Habitacion.class, idsHabitaciones.get(1)).getEstadoHabitacion());
+        });
+    }
+
+    private Long contarFacturas(List<Long> idsEstadias) {
+        return entityManager.createQuery("SELECT COUNT(f) FROM Factura f WHERE f.estadia.id IN :ids", Long.class)
+                .setParameter("ids", idsEstadias).getSingleResult();
+    }
+}
@@ -0,0 +1,155 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionDAO;
+import com.losmergeconflicts.hotelpremier.dto.EgresoPendienteDTO;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoCierreEstadiasDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Tests unitarios para CierreEstadias, con lotes de 2 estadías.
+ */
+@ExtendWith(MockitoExtension.class)
+class CierreEstadiasTest {
+
+    private static final LocalDate HOY = LocalDate.of(2025, 3, 13);
+
+    @Mock private EstadiaDAO estadiaDAO;
+    @Mock private HabitacionDAO habitacionDAO;
+    @Mock private GestorFacturacion gestorFacturacion;
+    @Mock private IndiceOcupacion indiceOcupacion;
+
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    private CierreEstadias cierreEstadias;
+
+    @BeforeEach
+    void setUp() {
+        cierreEstadias = cierre(null);
+    }
+
+    private CierreEstadias cierre(Long idResponsablePorDefecto) {
+        return new CierreEstadias(estadiaDAO, habitacionDAO, gestorFacturacion, indiceOcupacion, transactionTemplate,
+                true, 2, idResponsablePorDefecto);
+    }
+
+    private static EgresoPendienteDTO pendiente(long id, Long idResponsable) {
+        return new EgresoPendienteDTO(id, 100 + id, idResponsable);
+    }
+
+    /**
+     * CAMINO FELIZ: 5 estadías en 3 lotes; cada lote factura, registra los egresos
+     * y libera sus habitaciones con un único UPDATE, y después recalcula esas
+     * habitaciones en el índice. La salida es la de la fecha del cierre a las 10,
+     * aunque el cierre corra después.
+     */
+    @Test
+    void testCerrarEstadias_EnLotes() {
+        when(estadiaDAO.findEgresosPendientes(HOY)).thenReturn(List.of(
+                pendiente(1, 20L), pendiente(2, 20L), pendiente(3, 21L), pendiente(4, 21L), pendiente(5, 20L)));
+        when(gestorFacturacion.facturarEstadias(anyMap(), any(LocalDateTime.class)))
+                .thenAnswer(inv -> ((Map<?, ?>) inv.getArgument(0)).size());
+
+        ResultadoCierreEstadiasDTO resultado = cierreEstadias.cerrarEstadias(HOY);
+
+        assertEquals(5, resultado.cerradas());
+        assertEquals(5, resultado.facturas());
+        assertEquals(0, resultado.fallidas());
+        assertEquals(List.of(2, 2, 1), resultado.lotes().stream().map(ResultadoCierreEstadiasDTO.LoteDTO::estadias).toList());
+        assertTrue(resultado.lotes().stream().allMatch(l -> l.error() == null && l.estadiasPorSegundo() > 0));
+
+        LocalDateTime salida = HOY.atTime(10, 0);
+        verify(gestorFacturacion).facturarEstadias(Map.of(1L, 20L, 2L, 20L), salida);
+        verify(estadiaDAO).registrarEgresos(Set.of(3L, 4L), salida);
+        verify(habitacionDAO).liberarHabitacionesSinOtraEstadia(Set.of(105L), Set.of(5L));
+        verify(habitacionDAO, times(3)).liberarHabitacionesSinOtraEstadia(anyCollection(), anyCollection());
+        verify(indiceOcupacion).recalcularHabitaciones(Set.of(103L, 104L));
+        verify(indiceOcupacion, times(3)).recalcularHabitaciones(anyCollection());
+    }
+
+    /**
+     * ERROR: No se cierran estadías de una fecha posterior a hoy.
+     */
+    @Test
+    void testCerrarEstadias_FechaFutura() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cierreEstadias.cerrarEstadias(LocalDate.now().plusDays(1)));
+        verifyNoInteractions(estadiaDAO, gestorFacturacion, indiceOcupacion);
+    }
+
+    /**
+     * Sin responsable con el CUIT del huésped se usa el responsable por defecto; si
+     * tampoco hay, la estadía queda abierta.
+     */
+    @Test
+    void testCerrarEstadias_ResponsablePorDefecto() {
+        when(estadiaDAO.findEgresosPendientes(HOY)).thenReturn(List.of(pendiente(1, 20L), pendiente(2, null)));
+
+        ResultadoCierreEstadiasDTO sinDefecto = cierreEstadias.cerrarEstadias(HOY);
+
+        assertEquals(1, sinDefecto.cerradas());
+        assertEquals(1, sinDefecto.sinResponsable());
+        verify(estadiaDAO).registrarEgresos(eq(Set.of(1L)), any(LocalDateTime.class));
+
+        ResultadoCierreEstadiasDTO conDefecto = cierre(99L).cerrarEstadias(HOY);
+
+        assertEquals(2, conDefecto.cerradas());
+        assertEquals(0, conDefecto.sinResponsable());
+        verify(gestorFacturacion).facturarEstadias(eq(Map.of(1L, 20L, 2L, 99L)), any(LocalDateTime.class));
+    }
+
+    /**
+     * ERROR: Si un lote falla se revierte e informa, y el cierre sigue con los demás.
+     */
+    @Test
+    void testCerrarEstadias_LoteFallidoNoDetieneElCierre() {
+        when(estadiaDAO.findEgresosPendientes(HOY)).thenReturn(List.of(
+                pendiente(1, 20L), pendiente(2, 20L), pendiente(3, 20L), pendiente(4, 20L)));
+        when(gestorFacturacion.facturarEstadias(anyMap(), any(LocalDateTime.class)))
+                .thenThrow(new IllegalStateException("Falla de prueba"))
+                .thenReturn(2);
+
+        ResultadoCierreEstadiasDTO resultado = cierreEstadias.cerrarEstadias(HOY);
+
+        assertEquals(2, resultado.cerradas());
+        assertEquals(2, resultado.fallidas());
+        assertEquals("Falla de prueba", resultado.lotes().get(0).error());
+        assertNull(resultado.lotes().get(1).error());
+        verify(estadiaDAO, never()).registrarEgresos(eq(Set.of(1L, 2L)), any());
+        verify(estadiaDAO).registrarEgresos(eq(Set.of(3L, 4L)), any(LocalDateTime.class));
+    }
+
+    /**
+     * ERROR: Mientras hay un cierre en ejecución no se inicia otro.
+     */
+    @Test
+    void testCerrarEstadias_UnoPorVez() {
+        when(estadiaDAO.findEgresosPendientes(HOY)).thenAnswer(inv -> {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> CompletableFuture.supplyAsync(() -> cierreEstadias.cerrarEstadias(HOY)).get());
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            return List.of();
+        });
+
+        assertEquals(0, cierreEstadias.cerrarEstadias(HOY).cerradas());
+        verify(estadiaDAO, times(1)).findEgresosPendientes(HOY);
+    }
+}
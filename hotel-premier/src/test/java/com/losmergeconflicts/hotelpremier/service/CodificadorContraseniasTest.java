@@ -0,0 +1,107 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.losmergeconflicts.hotelpremier.config.SecurityConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests unitarios para CodificadorContrasenias y el encoder de SecurityConfig.
+ */
+class CodificadorContraseniasTest {
+
+    private CodificadorContrasenias codificador;
+
+    @AfterEach
+    void tearDown() {
+        if (codificador != null) codificador.close();
+    }
+
+    /**
+     * Los hashes nuevos llevan el prefijo {bcrypt} y el costo configurado; se
+     * verifican tanto ellos como los hashes viejos sin prefijo.
+     */
+    @Test
+    void testEncodeYMatches_ConPrefijoYCompatibleConHashesViejos() {
+        PasswordEncoder encoder = new SecurityConfig().passwordEncoder(5, 1, 10);
+        codificador = (CodificadorContrasenias) encoder;
+
+        String hash = encoder.encode("password123");
+        String hashViejo = new BCryptPasswordEncoder(4).encode("password123");
+
+        assertTrue(hash.startsWith("{bcrypt}$2a$05$"), hash);
+        assertTrue(encoder.matches("password123", hash));
+        assertFalse(encoder.matches("otra", hash));
+        assertTrue(encoder.matches("password123", hashViejo));
+    }
+
+    /**
+     * Se pide recalcular un hash si no tiene prefijo o si su costo es menor al configurado.
+     */
+    @Test
+    void testUpgradeEncoding() {
+        PasswordEncoder encoder = new SecurityConfig().passwordEncoder(5, 1, 10);
+        codificador = (CodificadorContrasenias) encoder;
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("x")));
+        assertTrue(encoder.upgradeEncoding("{bcrypt}" + new BCryptPasswordEncoder(4).encode("x")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("x")));
+    }
+
+    /**
+     * Con el pool y la cola ocupados, los cálculos siguientes se rechazan enseguida:
+     * el login como falla de autenticación, el alta como estado inválido.
+     */
+    @Test
+    void testPoolAcotado_RechazaConColaLlena() throws Exception {
+        // --- ARRANGE ---
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        PasswordEncoder lento = mock(PasswordEncoder.class);
+        when(lento.matches(any(), any())).thenAnswer(invocacion -> {
+            enCurso.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+        codificador = new CodificadorContrasenias(lento, 1, 1);
+
+        // Uno calculando y otro en la cola
+        CompletableFuture<Boolean> primero = CompletableFuture.supplyAsync(() -> codificador.matches("a", "h"));
+        assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> segundo = CompletableFuture.supplyAsync(() -> codificador.matches("b", "h"));
+        while (codificador.calculosEnEspera() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // --- ACT & ASSERT ---
+        assertThrows(AuthenticationServiceException.class, () -> codificador.matches("c", "h"));
+        assertThrows(IllegalStateException.class, () -> codificador.encode("c"));
+
+        liberar.countDown();
+        assertTrue(primero.get(5, TimeUnit.SECONDS));
+        assertTrue(segundo.get(5, TimeUnit.SECONDS));
+        verify(lento, times(2)).matches(any(), any());
+    }
+
+    /**
+     * Los errores del encoder delegado llegan al llamador sin envolver.
+     */
+    @Test
+    void testErrorDelDelegadoSePropaga() {
+        PasswordEncoder delegado = mock(PasswordEncoder.class);
+        when(delegado.encode(any())).thenThrow(new IllegalArgumentException("Contraseña inválida"));
+        codificador = new CodificadorContrasenias(delegado, 1, 1);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> codificador.encode("x"));
+        assertEquals("Contraseña inválida", e.getMessage());
+    }
+}
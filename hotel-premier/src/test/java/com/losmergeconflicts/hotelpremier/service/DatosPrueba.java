@@ -0,0 +1,122 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.entity.*;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Siembra de datos para los tests contra la base de datos (H2): país, provincia,
+ * localidad, nacionalidad, dirección, huésped y habitación.
+ *
+ * Los métodos persisten con el EntityManager recibido, así que deben llamarse
+ * dentro de una transacción. Nombres de país y nacionalidad y documentos salen de
+ * una secuencia compartida por todos los tests, porque deben ser únicos en la base.
+ */
+class DatosPrueba {
+
+    private static final AtomicInteger secuencia = new AtomicInteger();
+
+    private final EntityManager entityManager;
+
+    DatosPrueba(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @return número de documento de 8 dígitos que no se repite entre tests
+     */
+    static String documento() {
+        return String.valueOf(30000000 + secuencia.getAndIncrement());
+    }
+
+    /**
+     * @return localidad nueva, con su propia provincia y su propio país
+     */
+    Localidad localidad() {
+        int i = secuencia.getAndIncrement();
+        Pais pais = Pais.builder().nombre("País " + i).build();
+        entityManager.persist(pais);
+        Provincia provincia = Provincia.builder().nombre("Provincia " + i).pais(pais).build();
+        entityManager.persist(provincia);
+        Localidad localidad = Localidad.builder().nombre("Localidad " + i).provincia(provincia).build();
+        entityManager.persist(localidad);
+        return localidad;
+    }
+
+    /**
+     * @return nacionalidad nueva
+     */
+    Nacionalidad nacionalidad() {
+        Nacionalidad nacionalidad = Nacionalidad.builder().nombre("Nacionalidad " + secuencia.getAndIncrement()).build();
+        entityManager.persist(nacionalidad);
+        return nacionalidad;
+    }
+
+    /**
+     * @param localidad localidad de la dirección
+     * @return dirección nueva
+     */
+    Direccion direccion(Localidad localidad) {
+        int i = secuencia.getAndIncrement();
+        Direccion direccion = Direccion.builder()
+                .calle("Calle " + i).numero(String.valueOf(i % 10000)).codigoPostal("3000")
+                .localidad(localidad).build();
+        entityManager.persist(direccion);
+        return direccion;
+    }
+
+    /**
+     * Huésped con su propia localidad, nacionalidad y dirección.
+     *
+     * @param nombre nombre
+     * @param apellido apellido
+     * @return huésped persistido
+     */
+    Huesped huesped(String nombre, String apellido) {
+        return huesped(nombre, apellido, localidad(), nacionalidad());
+    }
+
+    /**
+     * Huésped con su propia dirección en la localidad indicada.
+     *
+     * @param nombre nombre
+     * @param apellido apellido
+     * @param localidad localidad de la dirección
+     * @param nacionalidad nacionalidad
+     * @return huésped persistido
+     */
+    Huesped huesped(String nombre, String apellido, Localidad localidad, Nacionalidad nacionalidad) {
+        Huesped huesped = new Huesped();
+        huesped.setNombre(nombre);
+        huesped.setApellido(apellido);
+        huesped.setTipoDocumento(TipoDocumento.DNI);
+        huesped.setDocumento(documento());
+        huesped.setFechaNacimiento(LocalDate.now().minusYears(30));
+        huesped.setOcupacion("Empleado");
+        huesped.setPosicionFrenteAlIVA(PosicionFrenteAlIVA.CONSUMIDOR_FINAL);
+        huesped.setNacionalidad(nacionalidad);
+        huesped.setTelefono("3421234567");
+        huesped.setDireccion(direccion(localidad));
+        entityManager.persist(huesped);
+        return huesped;
+    }
+
+    /**
+     * @param nombre nombre de la habitación (hasta 5 caracteres)
+     * @param precio precio por noche
+     * @param estado estado inicial
+     * @return habitación doble estándar persistida
+     */
+    Habitacion habitacion(String nombre, float precio, TipoEstadoHabitacion estado) {
+        Habitacion habitacion = Habitacion.builder()
+                .nombre(nombre)
+                .precio(precio)
+                .tipoHabitacion(TipoHabitacion.DOBLE_ESTANDAR)
+                .estadoHabitacion(estado)
+                .build();
+        entityManager.persist(habitacion);
+        return habitacion;
+    }
+}
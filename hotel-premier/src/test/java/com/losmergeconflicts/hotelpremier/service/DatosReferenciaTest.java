@@ -0,0 +1,66 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.losmergeconflicts.hotelpremier.dto.NacionalidadDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class DatosReferenciaTest {
+
+    @Mock private GestorPersonas gestorPersonas;
+
+    private DatosReferencia datosReferencia;
+
+    @BeforeEach
+    void setUp() {
+        datosReferencia = new DatosReferencia(gestorPersonas, new ObjectMapper());
+        when(gestorPersonas.listarLocalidades()).thenReturn(Collections.emptyList());
+    }
+
+    /**
+     * Se carga una sola vez: las lecturas siguientes salen de memoria.
+     */
+    @Test
+    void testGetNacionalidades_CargaUnaSolaVez() {
+        when(gestorPersonas.listarNacionalidades()).thenReturn(List.of(new NacionalidadDTO(1L, "Argentina")));
+
+        datosReferencia.getNacionalidades();
+        DatosReferencia.ListaVersionada<NacionalidadDTO> lista = datosReferencia.getNacionalidades();
+
+        assertEquals(1, lista.datos().size());
+        verify(gestorPersonas, times(1)).listarNacionalidades();
+    }
+
+    /**
+     * El ETag depende sólo del contenido: se mantiene si nada cambió y cambia si cambió la lista.
+     */
+    @Test
+    void testRecargar_ETagSegunContenido() {
+        when(gestorPersonas.listarNacionalidades())
+                .thenReturn(List.of(new NacionalidadDTO(1L, "Argentina")))
+                .thenReturn(List.of(new NacionalidadDTO(1L, "Argentina")))
+                .thenReturn(List.of(new NacionalidadDTO(1L, "Argentina"), new NacionalidadDTO(2L, "Uruguaya")));
+
+        datosReferencia.recargar();
+        String etagInicial = datosReferencia.getNacionalidades().etag();
+        datosReferencia.recargar();
+        String etagSinCambios = datosReferencia.getNacionalidades().etag();
+        datosReferencia.recargar();
+        String etagConCambios = datosReferencia.getNacionalidades().etag();
+
+        assertEquals(etagInicial, etagSinCambios);
+        assertNotEquals(etagInicial, etagConCambios);
+        assertThrows(UnsupportedOperationException.class,
+                () -> datosReferencia.getNacionalidades().datos().add(new NacionalidadDTO(3L, "Chilena")));
+    }
+}
@@ -0,0 +1,116 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.losmergeconflicts.hotelpremier.dto.TokenDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.UsuarioAutenticado;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Tests unitarios para EmisorTokens.
+ */
+class EmisorTokensTest {
+
+    private static final String SECRETO = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String OTRO_SECRETO = Base64.getEncoder().encodeToString("x".repeat(32).getBytes());
+    private static final Instant AHORA = Instant.parse("2025-06-01T10:00:00Z");
+
+    private final UsuarioAutenticado usuario = new UsuarioAutenticado(7L, "conserje123", "$2a$10$hash", "ROLE_CONSERJE");
+
+    private static EmisorTokens emisor(String secreto, Instant ahora) {
+        return new EmisorTokens(secreto, true, Duration.ofHours(8), new ObjectMapper(), Clock.fixed(ahora, ZoneOffset.UTC));
+    }
+
+    /**
+     * CAMINO FELIZ: Un token emitido se verifica y devuelve el usuario, sin contraseña.
+     */
+    @Test
+    void testEmitirYVerificar() {
+        EmisorTokens emisor = emisor(SECRETO, AHORA);
+
+        TokenDTOResponse token = emisor.emitir(usuario);
+        Optional<UsuarioAutenticado> verificado = emisor.verificar(token.token());
+
+        assertEquals("Bearer", token.tipo());
+        assertEquals(8 * 3600, token.expiraEn());
+        assertTrue(verificado.isPresent());
+        assertEquals(7L, verificado.get().id());
+        assertEquals("conserje123", verificado.get().getUsername());
+        assertEquals("ROLE_CONSERJE", verificado.get().role());
+        assertNull(verificado.get().getPassword());
+        assertFalse(token.token().contains("hash"));
+    }
+
+    /**
+     * Otra instancia con el mismo secreto acepta el token; con otro secreto, no.
+     */
+    @Test
+    void testVerificar_SegunSecreto() {
+        String token = emisor(SECRETO, AHORA).emitir(usuario).token();
+
+        assertTrue(emisor(SECRETO, AHORA).verificar(token).isPresent());
+        assertTrue(emisor(OTRO_SECRETO, AHORA).verificar(token).isEmpty());
+    }
+
+    /**
+     * ERROR: Un token vencido no se acepta.
+     */
+    @Test
+    void testVerificar_Vencido() {
+        String token = emisor(SECRETO, AHORA).emitir(usuario).token();
+
+        assertTrue(emisor(SECRETO, AHORA.plus(Duration.ofHours(8)).minusSeconds(1)).verificar(token).isPresent());
+        assertTrue(emisor(SECRETO, AHORA.plus(Duration.ofHours(8))).verificar(token).isEmpty());
+    }
+
+    /**
+     * ERROR: Un token con el contenido alterado (por ejemplo, otro rol) no se acepta.
+     */
+    @Test
+    void testVerificar_Alterado() {
+        EmisorTokens emisor = emisor(SECRETO, AHORA);
+        String[] partes = emisor.emitir(usuario).token().split("\\.");
+        String contenido = new String(Base64.getUrlDecoder().decode(partes[1])).replace("ROLE_CONSERJE", "ROLE_ADMIN");
+        String alterado = partes[0] + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(contenido.getBytes())
+                + "." + partes[2];
+
+        assertTrue(emisor.verificar(alterado).isEmpty());
+        assertTrue(emisor.verificar("no-es-un-token").isEmpty());
+        assertTrue(emisor.verificar(partes[0] + ".%%%." + partes[2]).isEmpty());
+        assertTrue(emisor.verificar(null).isEmpty());
+    }
+
+    /**
+     * ERROR: Un secreto de menos de 32 bytes se rechaza al iniciar.
+     */
+    @Test
+    void testSecretoCorto() {
+        String corto = Base64.getEncoder().encodeToString(new byte[16]);
+        assertThrows(IllegalArgumentException.class, () -> emisor(corto, AHORA));
+    }
+
+    /**
+     * ERROR: Si la API exige token, el secreto es obligatorio; si no, se genera uno
+     * al azar que sólo vale para esta instancia.
+     */
+    @Test
+    void testSinSecreto_SegunRequiereToken() {
+        Clock reloj = Clock.fixed(AHORA, ZoneOffset.UTC);
+        assertThrows(IllegalArgumentException.class,
+                () -> new EmisorTokens("", true, Duration.ofHours(8), new ObjectMapper(), reloj));
+
+        EmisorTokens alAzar = new EmisorTokens(" ", false, Duration.ofHours(8), new ObjectMapper(), reloj);
+        String token = alAzar.emitir(usuario).token();
+
+        assertTrue(alAzar.verificar(token).isPresent());
+        assertTrue(emisor(SECRETO, AHORA).verificar(token).isEmpty());
+    }
+}
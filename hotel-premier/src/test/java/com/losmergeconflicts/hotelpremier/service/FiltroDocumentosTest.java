@@ -0,0 +1,117 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.losmergeconflicts.hotelpremier.dao.HuespedDAO;
+import com.losmergeconflicts.hotelpremier.dto.DocumentoHuespedDTO;
+import com.losmergeconflicts.hotelpremier.entity.TipoDocumento;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+@ExtendWith(MockitoExtension.class)
+public class FiltroDocumentosTest {
+
+    private static final int REGISTRADOS = 10_000;
+
+    @Mock private HuespedDAO huespedDAO;
+
+    private FiltroDocumentos filtro;
+
+    @BeforeEach
+    void setUp() {
+        filtro = new FiltroDocumentos(huespedDAO, true, 1_000, 0.01);
+    }
+
+    private static Stream<DocumentoHuespedDTO> documentos(int desde, int cantidad) {
+        return IntStream.range(desde, desde + cantidad)
+                .mapToObj(i -> new DocumentoHuespedDTO(TipoDocumento.DNI, String.valueOf(30_000_000 + i)));
+    }
+
+    /**
+     * Antes de cargarse el filtro no descarta ningún documento.
+     */
+    @Test
+    void testPuedeExistir_SinCargar() {
+        assertTrue(filtro.puedeExistir(TipoDocumento.DNI, "12345678"));
+    }
+
+    /**
+     * Cargado, nunca descarta un documento registrado y descarta casi todos los
+     * nuevos (con holgura sobre la tasa de falsos positivos configurada).
+     */
+    @Test
+    void testCargar_SinFalsosNegativos() {
+        // --- ARRANGE ---
+        when(huespedDAO.count()).thenReturn((long) REGISTRADOS);
+        when(huespedDAO.streamDocumentos()).thenReturn(documentos(0, REGISTRADOS));
+
+        // --- ACT ---
+        filtro.cargar();
+
+        // --- ASSERT ---
+        documentos(0, REGISTRADOS).forEach(d ->
+                assertTrue(filtro.puedeExistir(d.tipoDocumento(), d.documento()), d.documento()));
+
+        long falsosPositivos = documentos(REGISTRADOS, REGISTRADOS)
+                .filter(d -> filtro.puedeExistir(d.tipoDocumento(), d.documento()))
+                .count();
+        assertTrue(falsosPositivos < REGISTRADOS * 0.02, "Falsos positivos: " + falsosPositivos);
+    }
+
+    /**
+     * El tipo de documento forma parte de la clave.
+     */
+    @Test
+    void testPuedeExistir_DistingueTipoDocumento() {
+        when(huespedDAO.streamDocumentos()).thenReturn(Stream.of(
+                new DocumentoHuespedDTO(TipoDocumento.DNI, "12345678")));
+        filtro.cargar();
+
+        assertTrue(filtro.puedeExistir(TipoDocumento.DNI, "12345678"));
+        assertFalse(filtro.puedeExistir(TipoDocumento.PASAPORTE, "12345678"));
+    }
+
+    /**
+     * Un alta registrada después de la carga queda en el filtro, y también una
+     * registrada mientras se recorren los documentos para reconstruirlo.
+     */
+    @Test
+    void testRegistrar_DespuesYDuranteLaCarga() {
+        when(huespedDAO.streamDocumentos())
+                .thenReturn(Stream.empty())
+                .thenAnswer(invocacion -> {
+                    filtro.registrar(TipoDocumento.DNI, "22222222");
+                    return Stream.empty();
+                });
+        filtro.cargar();
+
+        assertFalse(filtro.puedeExistir(TipoDocumento.DNI, "11111111"));
+        filtro.registrar(TipoDocumento.DNI, "11111111");
+        assertTrue(filtro.puedeExistir(TipoDocumento.DNI, "11111111"));
+
+        // Reconstrucción: la lectura no incluye el alta concurrente
+        filtro.cargar();
+
+        assertTrue(filtro.puedeExistir(TipoDocumento.DNI, "22222222"));
+    }
+
+    /**
+     * Deshabilitado, nunca se carga ni descarta documentos.
+     */
+    @Test
+    void testDeshabilitado() {
+        filtro = new FiltroDocumentos(huespedDAO, false, 1_000, 0.01);
+
+        filtro.cargar();
+
+        assertTrue(filtro.puedeExistir(TipoDocumento.DNI, "12345678"));
+        verifyNoInteractions(huespedDAO);
+    }
+}
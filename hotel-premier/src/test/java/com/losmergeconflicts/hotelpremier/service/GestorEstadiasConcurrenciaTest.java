@@ -0,0 +1,96 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
+import com.losmergeconflicts.hotelpremier.dto.EstadiaDTORequest;
+import com.losmergeconflicts.hotelpremier.entity.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test de concurrencia de GestorEstadiasImp.registrarOcupacion contra la base de datos (H2).
+ *
+ * Lanza 100 check-ins simultáneos repartidos en 5 habitaciones, todos para las
+ * mismas fechas, y verifica que cada habitación quede con una única estadía.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class GestorEstadiasConcurrenciaTest {
+
+    private static final int CHECK_INS = 100;
+    private static final int HABITACIONES = 5;
+
+    @Autowired private GestorEstadias gestorEstadias;
+    @Autowired private EstadiaDAO estadiaDAO;
+    @Autowired private EntityManager entityManager;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private final List<Long> idsHabitaciones = new ArrayList<>();
+    private Long idResponsable;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            DatosPrueba datos = new DatosPrueba(entityManager);
+            idResponsable = datos.huesped("Juan", "Pérez").getId();
+            for (int i = 1; i <= HABITACIONES; i++) {
+                idsHabitaciones.add(datos.habitacion("DE" + i, 70230f, TipoEstadoHabitacion.LIBRE).getId());
+            }
+        });
+    }
+
+    @Test
+    void testCheckInsSimultaneos_SinDobleOcupacion() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger exitosos = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+
+        for (int i = 0; i < CHECK_INS; i++) {
+            Long idHabitacion = idsHabitaciones.get(i % HABITACIONES);
+            EstadiaDTORequest request = new EstadiaDTORequest(
+                    idHabitacion, LocalDate.now(), LocalDate.now().plusDays(2), idResponsable, List.of());
+            tareas.add(executor.submit(() -> {
+                largada.await();
+                try {
+                    gestorEstadias.registrarOcupacion(request);
+                    exitosos.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    rechazados.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Una sola estadía por habitación; el resto de los check-ins se rechaza con conflicto
+        assertEquals(HABITACIONES, exitosos.get());
+        assertEquals(CHECK_INS - HABITACIONES, rechazados.get());
+        for (Long idHabitacion : idsHabitaciones) {
+            assertEquals(1, estadiaDAO.findIntervalosOcupadosDeHabitaciones(List.of(idHabitacion),
+                    LocalDate.now().atStartOfDay(), LocalDate.now().plusDays(2).atTime(23, 59)).size());
+        }
+    }
+}
@@ -5,9 +5,13 @@ import static org.mockito.Mockito.*;
 
 import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
 import com.losmergeconflicts.hotelpremier.dao.HabitacionDAO;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionFueraServicioDAO;
 import com.losmergeconflicts.hotelpremier.dao.HuespedDAO;
 import com.losmergeconflicts.hotelpremier.dto.EstadiaDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.EstadiaDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
+import com.losmergeconflicts.hotelpremier.dto.ModoLote;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoOcupacionLoteDTO;
 import com.losmergeconflicts.hotelpremier.entity.*;
 import com.losmergeconflicts.hotelpremier.mapper.EstadiaMapper;
 import jakarta.persistence.EntityNotFoundException;
@@ -16,7 +20,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -25,6 +32,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @ExtendWith(MockitoExtension.class)
 class GestorEstadiasImpTest {
@@ -33,6 +41,9 @@ class GestorEstadiasImpTest {
     @Mock private HabitacionDAO habitacionDAO;
     @Mock private HuespedDAO huespedDAO;
     @Mock private EstadiaMapper estadiaMapper;
+    @Mock private IndiceOcupacion indiceOcupacion;
+    @Mock private HabitacionFueraServicioDAO habitacionFueraServicioDAO;
+    @Spy private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
 
     @InjectMocks
     private GestorEstadiasImp gestorEstadias;
@@ -87,9 +98,8 @@ class GestorEstadiasImpTest {
      * - Responsable mayor de edad.
      * - Capacidad correcta (1 responsable + 1 acompañante <= 2).
      * * Verificaciones Clave (Diagrama de Secuencia):
-     * - Se llama a save() para la estadía base.
-     * - Se llama a registrarAcompanante() manualmente en un bucle.
-     * - Se llama a actualizarEstado() al final.
+     * - Se llama a save() una sola vez, con los acompañantes ya asignados a la estadía.
+     * - La habitación se marca OCUPADA sólo si su versión no cambió.
      */
     @Test
     void testRegistrarOcupacion_CaminoFeliz_SecuenciaCorrecta() {
@@ -98,6 +108,7 @@ class GestorEstadiasImpTest {
         when(huespedDAO.findById(10L)).thenReturn(Optional.of(responsableAdulto));
         when(huespedDAO.findAllById(anyList())).thenReturn(Collections.singletonList(acompanante));
 
+        when(habitacionDAO.actualizarEstadoSiNoCambio(eq(1L), eq(TipoEstadoHabitacion.OCUPADA), any())).thenReturn(1);
         when(estadiaDAO.save(any(Estadia.class))).thenReturn(estadiaGuardada);
 
         EstadiaDTOResponse responseDTO = new EstadiaDTOResponse(100L, LocalDateTime.now(), "DE1", "Juan");
@@ -109,14 +120,12 @@ class GestorEstadiasImpTest {
         // --- ASSERT ---
         assertNotNull(resultado);
 
-        // 1. Verificar guardado de Estadia Base
-        verify(estadiaDAO, times(1)).save(any(Estadia.class));
-
-        // 2. Verificar Bucle de Acompañantes (SQL Nativo)
-        verify(estadiaDAO, times(1)).registrarAcompanante(100L, 11L);
+        // 1-2. Verificar guardado de la Estadía junto con sus Acompañantes
+        verify(estadiaDAO, times(1)).save(argThat(estadia ->
+                estadia.getHuespedesAcompaniantes().equals(List.of(acompanante))));
 
-        // 3. Verificar Actualización de Estado de Habitación
-        verify(habitacionDAO, times(1)).actualizarEstado(1L, TipoEstadoHabitacion.OCUPADA);
+        // 3. Verificar Actualización de Estado de Habitación (condicionada a la versión leída)
+        verify(habitacionDAO, times(1)).actualizarEstadoSiNoCambio(1L, TipoEstadoHabitacion.OCUPADA, null);
     }
 
     /**
@@ -186,4 +195,198 @@ class GestorEstadiasImpTest {
                 gestorEstadias.registrarOcupacion(requestValido)
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * CONCURRENCIA: La habitación ya tiene una estadía en el rango.
+     * * Resultado:
+     * - IllegalStateException (409).
+     * - No se modifica la habitación ni se guarda la estadía.
+     */
+    @Test
+    void testRegistrarOcupacion_ErrorHabitacionYaOcupada() {
+        // --- ARRANGE ---
+        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacionDoble));
+        when(huespedDAO.findById(10L)).thenReturn(Optional.of(responsableAdulto));
+        when(huespedDAO.findAllById(anyList())).thenReturn(Collections.singletonList(acompanante));
+        when(estadiaDAO.findIntervalosOcupadosDeHabitaciones(anyCollection(), any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, LocalDate.now().minusDays(1), LocalDate.now().plusDays(1),
+                        TipoEstadoHabitacion.OCUPADA)));
+
+        // --- ACT & ASSERT ---
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+                gestorEstadias.registrarOcupacion(requestValido)
+        );
+
+        assertTrue(ex.getMessage().contains("ya está ocupada"));
+        verify(habitacionDAO, never()).actualizarEstadoSiNoCambio(anyLong(), any(), any());
+        verify(estadiaDAO, never()).save(any());
+    }
+
+    /**
+     * El día de egreso de la estadía anterior queda libre para el siguiente ingreso.
+     */
+    @Test
+    void testRegistrarOcupacion_EgresoAnteriorElMismoDia() {
+        // --- ARRANGE ---
+        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacionDoble));
+        when(huespedDAO.findById(10L)).thenReturn(Optional.of(responsableAdulto));
+        when(huespedDAO.findAllById(anyList())).thenReturn(Collections.singletonList(acompanante));
+        when(estadiaDAO.findIntervalosOcupadosDeHabitaciones(anyCollection(), any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, LocalDate.now().minusDays(3), LocalDate.now(),
+                        TipoEstadoHabitacion.OCUPADA)));
+        when(habitacionDAO.actualizarEstadoSiNoCambio(eq(1L), eq(TipoEstadoHabitacion.OCUPADA), any())).thenReturn(1);
+        when(estadiaDAO.save(any(Estadia.class))).thenReturn(estadiaGuardada);
+
+        // --- ACT ---
+        gestorEstadias.registrarOcupacion(requestValido);
+
+        // --- ASSERT ---
+        verify(estadiaDAO, times(1)).save(any(Estadia.class));
+    }
+
+    /**
+     * CONCURRENCIA: Otro check-in modificó la habitación entre la lectura y la
+     * actualización. Se reintenta en una transacción nueva y el segundo intento confirma.
+     */
+    @Test
+    void testRegistrarOcupacion_ReintentaAnteConflictoDeVersion() {
+        // --- ARRANGE ---
+        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacionDoble));
+        when(huespedDAO.findById(10L)).thenReturn(Optional.of(responsableAdulto));
+        when(huespedDAO.findAllById(anyList())).thenReturn(Collections.singletonList(acompanante));
+        when(habitacionDAO.actualizarEstadoSiNoCambio(eq(1L), eq(TipoEstadoHabitacion.OCUPADA), any()))
+                .thenReturn(0)
+                .thenReturn(1);
+        when(estadiaDAO.save(any(Estadia.class))).thenReturn(estadiaGuardada);
+
+        // --- ACT ---
+        gestorEstadias.registrarOcupacion(requestValido);
+
+        // --- ASSERT ---
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(habitacionDAO, times(2)).findById(1L);
+        verify(estadiaDAO, times(1)).save(any(Estadia.class));
+    }
+
+    /**
+     * CONCURRENCIA: El conflicto de versión persiste; tras MAX_INTENTOS se informa 409.
+     */
+    @Test
+    void testRegistrarOcupacion_ConflictoPersistente() {
+        // --- ARRANGE ---
+        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacionDoble));
+        when(huespedDAO.findById(10L)).thenReturn(Optional.of(responsableAdulto));
+        when(huespedDAO.findAllById(anyList())).thenReturn(Collections.singletonList(acompanante));
+        when(habitacionDAO.actualizarEstadoSiNoCambio(eq(1L), eq(TipoEstadoHabitacion.OCUPADA), any())).thenReturn(0);
+
+        // --- ACT & ASSERT ---
+        assertThrows(IllegalStateException.class, () ->
+                gestorEstadias.registrarOcupacion(requestValido)
+        );
+
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(estadiaDAO, never()).save(any());
+    }
+
+    /**
+     * CHECK-IN GRUPAL: Dos habitaciones en un solo lote.
+     * * Verificaciones Clave:
+     * - Habitaciones y huéspedes se buscan con una consulta cada uno (nunca de a uno).
+     * - Las estadías se guardan juntas (saveAll) y las habitaciones se marcan en un único UPDATE.
+     */
+    @Test
+    void testRegistrarOcupacionesEnLote_CaminoFeliz() {
+        // --- ARRANGE ---
+        Habitacion habitacionIndividual = Habitacion.builder()
+                .id(2L)
+                .nombre("IE1")
+                .tipoHabitacion(TipoHabitacion.INDIVIDUAL_ESTANDAR)
+                .build();
+        Huesped otroResponsable = new Huesped();
+        otroResponsable.setId(12L);
+        otroResponsable.setFechaNacimiento(LocalDate.now().minusYears(40));
+
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection()))
+                .thenReturn(List.of(habitacionDoble, habitacionIndividual));
+        when(huespedDAO.findAllByIdConDatos(anyCollection()))
+                .thenReturn(List.of(responsableAdulto, acompanante, otroResponsable));
+        when(estadiaDAO.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        EstadiaDTORequest segunda = new EstadiaDTORequest(2L, LocalDate.now(), LocalDate.now().plusDays(3), 12L, null);
+
+        // --- ACT ---
+        ResultadoOcupacionLoteDTO resultado = gestorEstadias.registrarOcupacionesEnLote(
+                List.of(requestValido, segunda), ModoLote.TODO_O_NADA);
+
+        // --- ASSERT ---
+        assertEquals(2, resultado.registradas());
+        assertEquals(0, resultado.rechazadas());
+
+        verify(habitacionDAO, times(1)).findAllByIdParaActualizar(Set.of(1L, 2L));
+        verify(huespedDAO, times(1)).findAllByIdConDatos(Set.of(10L, 11L, 12L));
+        verify(estadiaDAO, times(1)).findIntervalosOcupadosDeHabitaciones(anyCollection(), any(), any());
+        verify(estadiaDAO, times(1)).saveAll(argThat((List<Estadia> estadias) -> estadias.size() == 2
+                && estadias.get(0).getHuespedesAcompaniantes().equals(List.of(acompanante))));
+        verify(habitacionDAO, times(1)).actualizarEstadoDeHabitaciones(Set.of(1L, 2L), TipoEstadoHabitacion.OCUPADA);
+        verify(habitacionDAO, never()).findById(anyLong());
+        verify(huespedDAO, never()).findById(anyLong());
+        verify(estadiaDAO, never()).save(any());
+    }
+
+    /**
+     * CHECK-IN GRUPAL en modo MEJOR_ESFUERZO: se registran las ocupaciones válidas y se
+     * informa el motivo de las rechazadas (capacidad excedida y misma habitación
+     * pedida dos veces en el lote para fechas superpuestas).
+     */
+    @Test
+    void testRegistrarOcupacionesEnLote_MejorEsfuerzo_InformaRechazadas() {
+        // --- ARRANGE ---
+        Huesped otroAcompanante = new Huesped();
+        otroAcompanante.setId(13L);
+
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacionDoble));
+        when(huespedDAO.findAllByIdConDatos(anyCollection()))
+                .thenReturn(List.of(responsableAdulto, acompanante, otroAcompanante));
+        when(estadiaDAO.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        EstadiaDTORequest excedida = new EstadiaDTORequest(1L, LocalDate.now().plusDays(10),
+                LocalDate.now().plusDays(12), 10L, List.of(11L, 13L));
+        EstadiaDTORequest superpuesta = new EstadiaDTORequest(1L, LocalDate.now().plusDays(1),
+                LocalDate.now().plusDays(2), 10L, null);
+
+        // --- ACT ---
+        ResultadoOcupacionLoteDTO resultado = gestorEstadias.registrarOcupacionesEnLote(
+                List.of(requestValido, excedida, superpuesta), ModoLote.MEJOR_ESFUERZO);
+
+        // --- ASSERT ---
+        assertEquals(1, resultado.registradas());
+        assertEquals(2, resultado.rechazadas());
+        assertNull(resultado.resultados().get(0).error());
+        assertTrue(resultado.resultados().get(1).error().contains("Capacidad excedida"));
+        assertTrue(resultado.resultados().get(2).error().contains("ya está ocupada"));
+        verify(estadiaDAO, times(1)).saveAll(argThat((List<Estadia> estadias) -> estadias.size() == 1));
+    }
+
+    /**
+     * CHECK-IN GRUPAL en modo TODO_O_NADA: una habitación ya ocupada rechaza el lote
+     * completo con 409 y no se escribe nada.
+     */
+    @Test
+    void testRegistrarOcupacionesEnLote_TodoONada_ConflictoRechazaElLote() {
+        // --- ARRANGE ---
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacionDoble));
+        when(huespedDAO.findAllByIdConDatos(anyCollection())).thenReturn(List.of(responsableAdulto, acompanante));
+        when(estadiaDAO.findIntervalosOcupadosDeHabitaciones(anyCollection(), any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, LocalDate.now().minusDays(1), LocalDate.now().plusDays(1),
+                        TipoEstadoHabitacion.OCUPADA)));
+
+        // --- ACT & ASSERT ---
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+                gestorEstadias.registrarOcupacionesEnLote(List.of(requestValido), ModoLote.TODO_O_NADA)
+        );
+
+        assertTrue(ex.getMessage().contains("No se registró ninguna ocupación"));
+        verify(estadiaDAO, never()).saveAll(anyList());
+        verify(habitacionDAO, never()).actualizarEstadoDeHabitaciones(anyCollection(), any());
+    }
+}
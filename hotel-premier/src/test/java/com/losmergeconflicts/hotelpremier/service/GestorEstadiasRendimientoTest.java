@@ -0,0 +1,117 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import com.losmergeconflicts.hotelpremier.dto.EstadiaDTORequest;
+import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark de latencia de check-ins simultáneos (GestorEstadiasImp.registrarOcupacion)
+ * contra la base de datos (H2).
+ *
+ * No corre con el resto de los tests. Para ejecutarlo:
+ *
+ *   mvn test -Dtest=GestorEstadiasRendimientoTest -Dbenchmark.check-ins=true \
+ *       -Dbenchmark.check-ins.cantidad=100 -Dbenchmark.check-ins.habitaciones=5
+ *
+ * Lanza la ráfaga de check-ins para las mismas fechas e informa p50 y p99 junto
+ * con la latencia de un check-in rechazado sin concurrencia, como referencia.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark.check-ins", matches = "true")
+class GestorEstadiasRendimientoTest {
+
+    @Autowired private GestorEstadias gestorEstadias;
+    @Autowired private EntityManager entityManager;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void medirLatenciaDeCheckInsSimultaneos() throws Exception {
+        int checkIns = Integer.getInteger("benchmark.check-ins.cantidad", 100);
+        int cantidadHabitaciones = Integer.getInteger("benchmark.check-ins.habitaciones", 5);
+        int concurrencia = Integer.getInteger("benchmark.check-ins.concurrencia", 32);
+
+        List<Long> idsHabitaciones = new ArrayList<>();
+        Long idResponsable = transactionTemplate.execute(status -> {
+            DatosPrueba datos = new DatosPrueba(entityManager);
+            for (int i = 1; i <= cantidadHabitaciones; i++) {
+                idsHabitaciones.add(datos.habitacion("B" + i, 70230f, TipoEstadoHabitacion.LIBRE).getId());
+            }
+            return datos.huesped("Juan", "Pérez").getId();
+        });
+
+        // Calentamiento (compilación de consultas, JIT) con fechas que no interfieren, y
+        // latencia de referencia de un check-in rechazado sin concurrencia
+        LocalDate desdeCalentamiento = LocalDate.now().plusDays(30);
+        for (Long idHabitacion : idsHabitaciones) {
+            gestorEstadias.registrarOcupacion(new EstadiaDTORequest(idHabitacion,
+                    desdeCalentamiento, desdeCalentamiento.plusDays(1), idResponsable, List.of()));
+        }
+        List<Long> referencia = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            long inicio = System.nanoTime();
+            try {
+                gestorEstadias.registrarOcupacion(new EstadiaDTORequest(idsHabitaciones.get(0),
+                        desdeCalentamiento, desdeCalentamiento.plusDays(1), idResponsable, List.of()));
+            } catch (IllegalStateException e) {
+                // Esperado: la habitación ya está ocupada
+            }
+            referencia.add(System.nanoTime() - inicio);
+        }
+        Collections.sort(referencia);
+
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger exitosos = new AtomicInteger();
+        List<Long> latenciasNs = Collections.synchronizedList(new ArrayList<>());
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrencia)) {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < checkIns; i++) {
+                EstadiaDTORequest request = new EstadiaDTORequest(idsHabitaciones.get(i % cantidadHabitaciones),
+                        LocalDate.now(), LocalDate.now().plusDays(2), idResponsable, List.of());
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    long inicio = System.nanoTime();
+                    try {
+                        gestorEstadias.registrarOcupacion(request);
+                        exitosos.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        // Rechazado por conflicto: también cuenta su latencia
+                    } finally {
+                        latenciasNs.add(System.nanoTime() - inicio);
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(5, TimeUnit.MINUTES);
+            }
+        }
+
+        List<Long> ordenadas = new ArrayList<>(latenciasNs);
+        Collections.sort(ordenadas);
+        System.out.printf("Check-ins: %d en %d habitaciones, concurrencia %d: %d exitosos, p50=%.1f ms, "
+                        + "p99=%.1f ms (referencia sin concurrencia %.1f ms)%n",
+                checkIns, cantidadHabitaciones, concurrencia, exitosos.get(),
+                ordenadas.get(ordenadas.size() / 2) / 1e6,
+                ordenadas.get((int) Math.ceil(ordenadas.size() * 0.99) - 1) / 1e6,
+                referencia.get(referencia.size() / 2) / 1e6);
+    }
+}
@@ -0,0 +1,195 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.losmergeconflicts.hotelpremier.dto.FacturaDTOResponse;
+import com.losmergeconflicts.hotelpremier.entity.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Facturación de estadías contra la base de datos (H2): cantidad de sentencias,
+ * medida con las estadísticas de Hibernate, y facturación concurrente.
+ *
+ * Si los consumos se cargaran por separado, o si los renglones no se insertaran
+ * en lote, la cantidad de sentencias crecería con la cantidad de consumos.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class GestorFacturacionConsultasTest {
+
+    /** Numera las habitaciones sembradas. */
+    private static final AtomicInteger secuencia = new AtomicInteger();
+
+    @Autowired private GestorFacturacion gestorFacturacion;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private Statistics estadisticas;
+    private Huesped huesped;
+    private ResponsableDePago responsable;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            DatosPrueba datos = new DatosPrueba(entityManager);
+            huesped = datos.huesped("Juan", "Facturado");
+
+            responsable = ResponsableDePago.builder().razonSocial("Empresa Facturada SA").build();
+            responsable.setCuit("30712345678");
+            responsable.setTelefono("3421234567");
+            responsable.setDireccion(datos.direccion(huesped.getDireccion().getLocalidad()));
+            entityManager.persist(responsable);
+        });
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        estadisticas.setStatisticsEnabled(false);
+    }
+
+    /**
+     * Estadía de 2 noches en una habitación de 1000 con los consumos indicados, de 100 cada uno.
+     */
+    private Long crearEstadia(int consumos) {
+        return transactionTemplate.execute(status -> {
+            Habitacion habitacion = new DatosPrueba(entityManager)
+                    .habitacion("F" + secuencia.getAndIncrement() % 1000, 1000f, TipoEstadoHabitacion.OCUPADA);
+
+            List<ItemConsumo> items = new ArrayList<>();
+            for (int n = 0; n < consumos; n++) {
+                ItemConsumo item = ItemConsumo.builder().nombre("Consumo " + n).precio(100f).build();
+                entityManager.persist(item);
+                items.add(item);
+            }
+
+            LocalDate ingreso = LocalDate.now().minusDays(2);
+            Estadia estadia = Estadia.builder()
+                    .fechaHoraIngreso(ingreso.atTime(12, 0))
+                    .fechaHoraEgreso(LocalDate.now().atTime(10, 0))
+                    .fechaEgresoEsperado(LocalDate.now())
+                    .habitacion(habitacion)
+                    .huespedAsignado(entityManager.getReference(Huesped.class, huesped.getId()))
+                    .huespedesAcompaniantes(new ArrayList<>())
+                    .itemsConsumo(items)
+                    .build();
+            entityManager.persist(estadia);
+            return estadia.getId();
+        });
+    }
+
+    /**
+     * Facturar una estadía con 1 o con 8 consumos lleva las mismas sentencias: una
+     * para bloquear la estadía, una consulta para la estadía y sus consumos, una
+     * para el responsable y un INSERT en lote por tabla.
+     */
+    @Test
+    void testFacturarEstadia_CantidadDeSentenciasConstante() {
+        // Las primeras facturas reservan los bloques de IDs de las secuencias
+        gestorFacturacion.facturarEstadia(crearEstadia(1), responsable.getId());
+        gestorFacturacion.facturarEstadia(crearEstadia(1), responsable.getId());
+
+        Long conUnConsumo = crearEstadia(1);
+        Long conOchoConsumos = crearEstadia(8);
+
+        estadisticas.clear();
+        FacturaDTOResponse chica = gestorFacturacion.facturarEstadia(conUnConsumo, responsable.getId());
+        long sentenciasChica = estadisticas.getPrepareStatementCount();
+
+        estadisticas.clear();
+        FacturaDTOResponse grande = gestorFacturacion.facturarEstadia(conOchoConsumos, responsable.getId());
+        long sentenciasGrande = estadisticas.getPrepareStatementCount();
+
+        assertEquals(2, chica.detalles().size());
+        assertEquals(9, grande.detalles().size());
+        assertEquals(2000f, grande.valorEstadia());
+        assertEquals(2800f, grande.montoTotal());
+        assertEquals(TipoFactura.A, grande.tipoFactura());
+        assertEquals(sentenciasChica, sentenciasGrande);
+        assertEquals(5, sentenciasGrande);
+        assertEquals(0, estadisticas.getCollectionFetchCount());
+    }
+
+    /**
+     * La factura y sus renglones quedan guardados; una segunda factura de la misma
+     * estadía se rechaza.
+     */
+    @Test
+    void testFacturarEstadia_GuardaYRechazaDuplicada() {
+        Long idEstadia = crearEstadia(2);
+
+        FacturaDTOResponse factura = gestorFacturacion.facturarEstadia(idEstadia, responsable.getId());
+
+        Long renglones = transactionTemplate.execute(status -> entityManager.createQuery(
+                        "SELECT COUNT(d) FROM FacturaDetalle d WHERE d.factura.id = :id", Long.class)
+                .setParameter("id", factura.id()).getSingleResult());
+        assertEquals(3L, renglones);
+        assertEquals(idEstadia, factura.idEstadia());
+        assertThrows(IllegalStateException.class,
+                () -> gestorFacturacion.facturarEstadia(idEstadia, responsable.getId()));
+    }
+
+    /**
+     * Varias facturaciones simultáneas de la misma estadía: la estadía se bloquea
+     * antes del control, así que se emite una sola factura y las demás se rechazan.
+     */
+    @Test
+    void testFacturarEstadia_ConcurrenteEmiteUnaSola() throws Exception {
+        Long idEstadia = crearEstadia(1);
+        int hilos = 4;
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        try {
+            for (int n = 0; n < hilos; n++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    try {
+                        gestorFacturacion.facturarEstadia(idEstadia, responsable.getId());
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                }));
+            }
+            largada.countDown();
+
+            int emitidas = 0;
+            for (Future<Boolean> resultado : resultados) {
+                if (resultado.get(30, TimeUnit.SECONDS)) emitidas++;
+            }
+            assertEquals(1, emitidas);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Long facturas = transactionTemplate.execute(status -> entityManager.createQuery(
+                        "SELECT COUNT(f) FROM Factura f WHERE f.estadia.id = :id", Long.class)
+                .setParameter("id", idEstadia).getSingleResult());
+        assertEquals(1L, facturas);
+    }
+}
@@ -0,0 +1,220 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
+import com.losmergeconflicts.hotelpremier.dao.FacturaDAO;
+import com.losmergeconflicts.hotelpremier.dao.FacturaDetalleDAO;
+import com.losmergeconflicts.hotelpremier.dao.ResponsableDePagoDAO;
+import com.losmergeconflicts.hotelpremier.dto.ConsumoEstadiaDTO;
+import com.losmergeconflicts.hotelpremier.dto.FacturaDTOResponse;
+import com.losmergeconflicts.hotelpremier.entity.*;
+import com.losmergeconflicts.hotelpremier.mapper.FacturaMapper;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@ExtendWith(MockitoExtension.class)
+class GestorFacturacionImpTest {
+
+    @Mock private EstadiaDAO estadiaDAO;
+    @Mock private ResponsableDePagoDAO responsableDePagoDAO;
+    @Mock private FacturaDAO facturaDAO;
+    @Mock private FacturaDetalleDAO facturaDetalleDAO;
+    @Mock private FacturaMapper facturaMapper;
+
+    @InjectMocks
+    private GestorFacturacionImp gestorFacturacion;
+
+    @Captor private ArgumentCaptor<List<Factura>> facturasCaptor;
+    @Captor private ArgumentCaptor<List<FacturaDetalle>> detallesCaptor;
+
+    private static final LocalDateTime INGRESO = LocalDateTime.of(2025, 3, 10, 12, 0);
+    private static final LocalDateTime EGRESO = LocalDateTime.of(2025, 3, 13, 10, 0);
+
+    private ResponsableDePago responsable;
+
+    @BeforeEach
+    void setUp() {
+        responsable = ResponsableDePago.builder().razonSocial("Empresa SA").build();
+        responsable.setId(20L);
+        responsable.setCuit("30712345678");
+    }
+
+    private static ConsumoEstadiaDTO fila(LocalDateTime egreso, Long idItem, String nombreItem, Float precioItem) {
+        return new ConsumoEstadiaDTO(1L, INGRESO, egreso, false, "DE1", TipoHabitacion.DOBLE_ESTANDAR,
+                1500.1f, idItem, nombreItem, precioItem);
+    }
+
+    private void prepararGuardado() {
+        when(estadiaDAO.getReferenceById(1L)).thenReturn(Estadia.builder().id(1L).build());
+        when(responsableDePagoDAO.findById(20L)).thenReturn(Optional.of(responsable));
+        when(facturaMapper.toResponse(any(Factura.class), anyList())).thenReturn(mock(FacturaDTOResponse.class));
+    }
+
+    /**
+     * CAMINO FELIZ: 3 noches más dos consumos. La factura y sus renglones se
+     * guardan juntos, con un saveAll por tabla.
+     */
+    @Test
+    void testFacturarEstadia_NochesYConsumos() {
+        when(estadiaDAO.findConsumosParaFacturar(List.of(1L))).thenReturn(List.of(
+                fila(EGRESO, 5L, "Minibar", 250.5f),
+                fila(EGRESO, 6L, "Lavandería", 1000f)));
+        prepararGuardado();
+
+        gestorFacturacion.facturarEstadia(1L, 20L);
+
+        verify(facturaDAO).saveAll(facturasCaptor.capture());
+        verify(facturaDetalleDAO).saveAll(detallesCaptor.capture());
+        Factura factura = facturasCaptor.getValue().get(0);
+        List<FacturaDetalle> detalles = detallesCaptor.getValue();
+
+        assertEquals(4500.3f, factura.getValorEstadia());
+        assertEquals(5750.8f, factura.getMontoTotal());
+        assertEquals(TipoFactura.A, factura.getTipoFactura());
+        assertEquals(EstadoFactura.PENDIENTE, factura.getEstado());
+        assertEquals("DE1", factura.getNumeroHabitacion());
+        assertEquals(EGRESO, factura.getFechaHoraSalida());
+        assertSame(responsable, factura.getResponsableDePago());
+
+        assertEquals(3, detalles.size());
+        assertEquals(3, detalles.get(0).getCantidad());
+        assertEquals(GestorFacturacionImp.UNIDAD_NOCHE, detalles.get(0).getUnidadMedida());
+        assertEquals(1500.1f, detalles.get(0).getPrecioUnitario());
+        assertEquals("Minibar", detalles.get(1).getDescripcion());
+        assertEquals(GestorFacturacionImp.UNIDAD_CONSUMO, detalles.get(1).getUnidadMedida());
+        assertEquals(250.5f, detalles.get(1).getSubtotal());
+        assertTrue(detalles.stream().allMatch(d -> d.getFactura() == factura));
+        verify(facturaMapper).toResponse(factura, detalles);
+        InOrder enOrden = inOrder(estadiaDAO);
+        enOrden.verify(estadiaDAO).bloquearParaFacturar(List.of(1L));
+        enOrden.verify(estadiaDAO).findConsumosParaFacturar(List.of(1L));
+    }
+
+    /**
+     * Sin consumos ni egreso (se factura hasta ahora) y responsable sin CUIT:
+     * un único renglón y factura B.
+     */
+    @Test
+    void testFacturarEstadia_SinConsumosNiEgreso() {
+        responsable.setCuit(null);
+        when(estadiaDAO.findConsumosParaFacturar(List.of(1L))).thenReturn(List.of(fila(null, null, null, null)));
+        prepararGuardado();
+
+        gestorFacturacion.facturarEstadia(1L, 20L);
+
+        verify(facturaDAO).saveAll(facturasCaptor.capture());
+        verify(facturaDetalleDAO).saveAll(detallesCaptor.capture());
+        Factura factura = facturasCaptor.getValue().get(0);
+
+        assertEquals(TipoFactura.B, factura.getTipoFactura());
+        assertEquals(1, detallesCaptor.getValue().size());
+        assertEquals(factura.getValorEstadia(), factura.getMontoTotal());
+        assertEquals(factura.getFechaEmision(), factura.getFechaHoraSalida().toLocalDate());
+    }
+
+    /**
+     * Ingreso y egreso el mismo día: se cobra una noche.
+     */
+    @Test
+    void testFacturarEstadia_MismoDiaCobraUnaNoche() {
+        when(estadiaDAO.findConsumosParaFacturar(List.of(1L)))
+                .thenReturn(List.of(fila(INGRESO.plusHours(4), null, null, null)));
+        prepararGuardado();
+
+        gestorFacturacion.facturarEstadia(1L, 20L);
+
+        verify(facturaDAO).saveAll(facturasCaptor.capture());
+        assertEquals(1500.1f, facturasCaptor.getValue().get(0).getValorEstadia());
+    }
+
+    /**
+     * ERROR: La estadía ya tiene factura.
+     */
+    @Test
+    void testFacturarEstadia_YaFacturada() {
+        when(estadiaDAO.findConsumosParaFacturar(List.of(1L))).thenReturn(List.of(new ConsumoEstadiaDTO(
+                1L, INGRESO, EGRESO, true, "DE1", TipoHabitacion.DOBLE_ESTANDAR, 1500f, null, null, null)));
+
+        assertThrows(IllegalStateException.class, () -> gestorFacturacion.facturarEstadia(1L, 20L));
+        verifyNoInteractions(facturaDAO, facturaDetalleDAO);
+    }
+
+    /**
+     * ERROR: No existe la estadía o el responsable de pago.
+     */
+    @Test
+    void testFacturarEstadia_NoEncontrados() {
+        when(estadiaDAO.findConsumosParaFacturar(List.of(1L))).thenReturn(List.of());
+        assertThrows(EntityNotFoundException.class, () -> gestorFacturacion.facturarEstadia(1L, 20L));
+
+        when(estadiaDAO.findConsumosParaFacturar(List.of(1L))).thenReturn(List.of(fila(EGRESO, null, null, null)));
+        when(responsableDePagoDAO.findById(20L)).thenReturn(Optional.empty());
+        assertThrows(EntityNotFoundException.class, () -> gestorFacturacion.facturarEstadia(1L, 20L));
+
+        verifyNoInteractions(facturaDAO, facturaDetalleDAO);
+    }
+
+    /**
+     * ERROR: Faltan los IDs.
+     */
+    @Test
+    void testFacturarEstadia_SinIds() {
+        assertThrows(IllegalArgumentException.class, () -> gestorFacturacion.facturarEstadia(null, 20L));
+        assertThrows(IllegalArgumentException.class, () -> gestorFacturacion.facturarEstadia(1L, null));
+        verifyNoInteractions(estadiaDAO);
+    }
+
+    /**
+     * En lote: una consulta para todas las estadías, se omiten las ya facturadas y
+     * se guardan todas las facturas juntas.
+     */
+    @Test
+    void testFacturarEstadias_OmiteFacturadas() {
+        LocalDateTime ahora = LocalDateTime.of(2025, 3, 13, 10, 0);
+        when(estadiaDAO.findConsumosParaFacturar(Set.of(1L, 2L, 3L))).thenReturn(List.of(
+                fila(null, 5L, "Minibar", 250.5f),
+                new ConsumoEstadiaDTO(2L, INGRESO, null, true, "DE2", TipoHabitacion.DOBLE_ESTANDAR, 1000f, null, null, null),
+                new ConsumoEstadiaDTO(3L, INGRESO, null, false, "DE3", TipoHabitacion.DOBLE_ESTANDAR, 1000f, null, null, null)));
+        when(estadiaDAO.getReferenceById(anyLong())).thenAnswer(inv -> Estadia.builder().id(inv.getArgument(0)).build());
+        when(responsableDePagoDAO.findAllById(Set.of(20L))).thenReturn(List.of(responsable));
+
+        int emitidas = gestorFacturacion.facturarEstadias(Map.of(1L, 20L, 2L, 20L, 3L, 20L), ahora);
+
+        assertEquals(2, emitidas);
+        verify(facturaDAO).saveAll(facturasCaptor.capture());
+        verify(facturaDetalleDAO).saveAll(detallesCaptor.capture());
+        assertEquals(List.of(1L, 3L), facturasCaptor.getValue().stream().map(f -> f.getEstadia().getId()).sorted().toList());
+        assertEquals(3, detallesCaptor.getValue().size());
+        assertTrue(facturasCaptor.getValue().stream().allMatch(f -> ahora.equals(f.getFechaHoraSalida())));
+    }
+
+    /**
+     * ERROR: En lote, un responsable de pago inexistente rechaza el lote completo.
+     */
+    @Test
+    void testFacturarEstadias_ResponsableInexistente() {
+        when(estadiaDAO.findConsumosParaFacturar(Set.of(1L))).thenReturn(List.of(fila(null, null, null, null)));
+        when(responsableDePagoDAO.findAllById(Set.of(99L))).thenReturn(List.of());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> gestorFacturacion.facturarEstadias(Map.of(1L, 99L), LocalDateTime.now()));
+        verifyNoInteractions(facturaDAO, facturaDetalleDAO);
+    }
+}
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.*;
 
 import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
 import com.losmergeconflicts.hotelpremier.dao.HabitacionDAO;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionFueraServicioDAO;
 import com.losmergeconflicts.hotelpremier.dao.ReservaDAO;
 import com.losmergeconflicts.hotelpremier.dto.*;
 import com.losmergeconflicts.hotelpremier.entity.*;
@@ -17,6 +18,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -29,6 +31,9 @@ class GestorHabitacionesImpTest {
     @Mock private ReservaDAO reservaDAO;
     @Mock private EstadiaDAO estadiaDAO;
     @Mock private HabitacionMapper habitacionMapper;
+    @Mock private HabitacionFueraServicioDAO habitacionFueraServicioDAO;
+    @Mock private IndiceOcupacion indiceOcupacion;
+    @Mock private CatalogoHabitaciones catalogoHabitaciones;
 
     @InjectMocks
     private GestorHabitacionesImp gestorHabitaciones;
@@ -123,4 +128,240 @@ class GestorHabitacionesImpTest {
         assertEquals(2, resultado.size());
         verify(habitacionDAO).findAllById(ids);
     }
-}
\ No newline at end of file
+
+    /**
+     * Grilla: una estadía pisa a una reserva en los días que se superponen
+     * y los días sin intervalos quedan LIBRE.
+     */
+    @Test
+    void testObtenerEstados_PrioridadOcupadaSobreReservada() {
+        // --- ARRANGE ---
+        LocalDate desde = LocalDate.of(2025, 3, 1);
+        LocalDate hasta = LocalDate.of(2025, 3, 5);
+
+        HabitacionCatalogo ie1 = HabitacionCatalogo.de(Habitacion.builder().id(1L).nombre("IE1").build());
+        HabitacionCatalogo ie2 = HabitacionCatalogo.de(Habitacion.builder().id(2L).nombre("IE2").build());
+        when(catalogoHabitaciones.listarTodas()).thenReturn(List.of(ie1, ie2));
+
+        when(reservaDAO.findIntervalosReservadosEnRango(desde, hasta)).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 4), TipoEstadoHabitacion.RESERVADA)));
+        when(estadiaDAO.findIntervalosOcupadosEnRango(any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, LocalDate.of(2025, 3, 3), LocalDate.of(2025, 3, 3), TipoEstadoHabitacion.OCUPADA)));
+
+        // --- ACT ---
+        GrillaDisponibilidadDTO grilla = gestorHabitaciones.obtenerEstados(desde, hasta, null);
+
+        // --- ASSERT ---
+        assertEquals(List.of("IE1", "IE2"), grilla.nombresHabitaciones());
+        assertEquals(5, grilla.filas().size());
+        assertEquals("LIBRE", grilla.filas().get(0).estadosPorHabitacion().get("IE1"));
+        assertEquals("RESERVADA", grilla.filas().get(1).estadosPorHabitacion().get("IE1"));
+        assertEquals("OCUPADA", grilla.filas().get(2).estadosPorHabitacion().get("IE1"));
+        assertEquals("RESERVADA", grilla.filas().get(3).estadosPorHabitacion().get("IE1"));
+        assertEquals("LIBRE", grilla.filas().get(4).estadosPorHabitacion().get("IE1"));
+        grilla.filas().forEach(f -> assertEquals("LIBRE", f.estadosPorHabitacion().get("IE2")));
+    }
+
+    /**
+     * Grilla: una estadía sin egreso registrado ni esperado ocupa la habitación
+     * hasta el final del rango consultado.
+     */
+    @Test
+    void testObtenerEstados_EstadiaAbiertaCubreHastaElFinal() {
+        // --- ARRANGE ---
+        LocalDate desde = LocalDate.of(2025, 3, 1);
+        LocalDate hasta = LocalDate.of(2025, 3, 3);
+
+        HabitacionCatalogo de1 = HabitacionCatalogo.de(Habitacion.builder().id(5L).nombre("DE1").build());
+        when(catalogoHabitaciones.listarPorTipo(TipoHabitacion.DOBLE_ESTANDAR)).thenReturn(List.of(de1));
+        when(reservaDAO.findIntervalosReservadosEnRango(desde, hasta)).thenReturn(Collections.emptyList());
+        when(estadiaDAO.findIntervalosOcupadosEnRango(any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(5L, LocalDate.of(2025, 2, 20), null, TipoEstadoHabitacion.OCUPADA)));
+
+        // --- ACT ---
+        GrillaDisponibilidadDTO grilla = gestorHabitaciones.obtenerEstados(desde, hasta, TipoHabitacion.DOBLE_ESTANDAR);
+
+        // --- ASSERT ---
+        assertEquals(3, grilla.filas().size());
+        grilla.filas().forEach(f -> assertEquals("OCUPADA", f.estadosPorHabitacion().get("DE1")));
+        assertEquals(5L, grilla.idsHabitaciones().get("DE1"));
+    }
+
+    /**
+     * Grilla: un período fuera de servicio pisa a una reserva, pero no a una estadía.
+     */
+    @Test
+    void testObtenerEstados_FueraDeServicio() {
+        // --- ARRANGE ---
+        LocalDate desde = LocalDate.of(2025, 3, 1);
+        LocalDate hasta = LocalDate.of(2025, 3, 3);
+
+        HabitacionCatalogo ie1 = HabitacionCatalogo.de(Habitacion.builder().id(1L).nombre("IE1").build());
+        when(catalogoHabitaciones.listarTodas()).thenReturn(List.of(ie1));
+
+        when(reservaDAO.findIntervalosReservadosEnRango(desde, hasta)).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, desde, hasta, TipoEstadoHabitacion.RESERVADA)));
+        when(estadiaDAO.findIntervalosOcupadosEnRango(any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, desde, desde, TipoEstadoHabitacion.OCUPADA)));
+        when(habitacionFueraServicioDAO.findIntervalosFueraServicioEnRango(desde, hasta)).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, desde, LocalDate.of(2025, 3, 2), TipoEstadoHabitacion.FUERA_DE_SERVICIO)));
+
+        // --- ACT ---
+        GrillaDisponibilidadDTO grilla = gestorHabitaciones.obtenerEstados(desde, hasta, null);
+
+        // --- ASSERT ---
+        assertEquals("OCUPADA", grilla.filas().get(0).estadosPorHabitacion().get("IE1"));
+        assertEquals("FUERA_DE_SERVICIO", grilla.filas().get(1).estadosPorHabitacion().get("IE1"));
+        assertEquals("RESERVADA", grilla.filas().get(2).estadosPorHabitacion().get("IE1"));
+    }
+
+    /**
+     * Grilla: si el rango está dentro del índice en memoria no se consulta la base de datos.
+     */
+    @Test
+    void testObtenerEstados_DesdeIndiceEnMemoria() {
+        // --- ARRANGE ---
+        LocalDate desde = LocalDate.of(2025, 3, 1);
+        LocalDate hasta = LocalDate.of(2025, 3, 2);
+
+        HabitacionCatalogo ie1 = HabitacionCatalogo.de(Habitacion.builder().id(1L).nombre("IE1").build());
+        when(catalogoHabitaciones.listarTodas()).thenReturn(List.of(ie1));
+        when(indiceOcupacion.cubre(desde, hasta)).thenReturn(true);
+        doAnswer(inv -> {
+            MotorDisponibilidad motor = inv.getArgument(0);
+            motor.agregarIntervalo(1L, hasta, hasta, TipoEstadoHabitacion.RESERVADA);
+            return null;
+        }).when(indiceOcupacion).volcar(any(), any(), eq(desde), eq(hasta));
+
+        // --- ACT ---
+        GrillaDisponibilidadDTO grilla = gestorHabitaciones.obtenerEstados(desde, hasta, null);
+
+        // --- ASSERT ---
+        assertEquals("LIBRE", grilla.filas().get(0).estadosPorHabitacion().get("IE1"));
+        assertEquals("RESERVADA", grilla.filas().get(1).estadosPorHabitacion().get("IE1"));
+        verifyNoInteractions(reservaDAO, estadiaDAO, habitacionFueraServicioDAO);
+    }
+
+    /**
+     * Grilla compacta: una cadena por habitación, un carácter por día, con y sin RLE.
+     */
+    @Test
+    void testObtenerEstadosCompactos() {
+        // --- ARRANGE ---
+        LocalDate desde = LocalDate.of(2025, 3, 1);
+        LocalDate hasta = LocalDate.of(2025, 3, 5);
+
+        HabitacionCatalogo ie1 = HabitacionCatalogo.de(Habitacion.builder().id(1L).nombre("IE1").build());
+        HabitacionCatalogo ie2 = HabitacionCatalogo.de(Habitacion.builder().id(2L).nombre("IE2").build());
+        when(catalogoHabitaciones.listarTodas()).thenReturn(List.of(ie1, ie2));
+        when(reservaDAO.findIntervalosReservadosEnRango(desde, hasta)).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 4), TipoEstadoHabitacion.RESERVADA)));
+        when(estadiaDAO.findIntervalosOcupadosEnRango(any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(2L, desde, null, TipoEstadoHabitacion.OCUPADA)));
+
+        // --- ACT ---
+        GrillaCompactaDTO plana = gestorHabitaciones.obtenerEstadosCompactos(desde, hasta, null, false);
+        GrillaCompactaDTO rle = gestorHabitaciones.obtenerEstadosCompactos(desde, hasta, null, true);
+
+        // --- ASSERT ---
+        assertEquals(List.of("IE1", "IE2"), plana.nombresHabitaciones());
+        assertEquals(List.of(1L, 2L), plana.idsHabitaciones());
+        assertEquals(List.of("LRRRL", "OOOOO"), plana.estados());
+        assertEquals(List.of("1L3R1L", "5O"), rle.estados());
+        assertTrue(rle.rle());
+        assertEquals("RESERVADA", plana.codigos().get('R'));
+    }
+
+    /**
+     * Grilla en streaming: valida y carga antes de emitir; luego entrega las filas en orden.
+     */
+    @Test
+    void testObtenerEstadosEnStreaming() {
+        // --- ARRANGE ---
+        LocalDate desde = LocalDate.of(2025, 3, 1);
+        LocalDate hasta = LocalDate.of(2025, 3, 3);
+
+        HabitacionCatalogo ie1 = HabitacionCatalogo.de(Habitacion.builder().id(1L).nombre("IE1").build());
+        when(catalogoHabitaciones.listarTodas()).thenReturn(List.of(ie1));
+        when(reservaDAO.findIntervalosReservadosEnRango(desde, hasta)).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, hasta, hasta, TipoEstadoHabitacion.RESERVADA)));
+
+        // --- ACT ---
+        GrillaEnStreaming grilla = gestorHabitaciones.obtenerEstadosEnStreaming(desde, hasta, null);
+        List<GrillaDisponibilidadDTO.FilaFechaDTO> filas = new ArrayList<>();
+        grilla.emitirFilas(filas::add);
+
+        // --- ASSERT ---
+        assertEquals(List.of("IE1"), grilla.getEncabezado().nombresHabitaciones());
+        assertEquals(3, filas.size());
+        assertEquals(desde, filas.get(0).fecha());
+        assertEquals("LIBRE", filas.get(0).estadosPorHabitacion().get("IE1"));
+        assertEquals("RESERVADA", filas.get(2).estadosPorHabitacion().get("IE1"));
+    }
+
+    /**
+     * Grilla en streaming de 10 años: intervalos superpuestos, contiguos y que
+     * exceden el rango se resuelven igual en cualquier parte del rango.
+     */
+    @Test
+    void testObtenerEstadosEnStreaming_RangoLargo() {
+        // --- ARRANGE ---
+        LocalDate desde = LocalDate.of(2025, 1, 1);
+        LocalDate hasta = desde.plusYears(10).minusDays(1);
+        LocalDate dia3000 = desde.plusDays(3000);
+
+        HabitacionCatalogo ie1 = HabitacionCatalogo.de(Habitacion.builder().id(1L).nombre("IE1").build());
+        HabitacionCatalogo ie2 = HabitacionCatalogo.de(Habitacion.builder().id(2L).nombre("IE2").build());
+        when(catalogoHabitaciones.listarTodas()).thenReturn(List.of(ie1, ie2));
+        when(reservaDAO.findIntervalosReservadosEnRango(desde, hasta)).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, dia3000, dia3000.plusDays(4), TipoEstadoHabitacion.RESERVADA),
+                new IntervaloOcupacionDTO(1L, dia3000.plusDays(5), dia3000.plusDays(6), TipoEstadoHabitacion.RESERVADA),
+                new IntervaloOcupacionDTO(2L, desde.minusDays(10), desde, TipoEstadoHabitacion.RESERVADA)));
+        when(estadiaDAO.findIntervalosOcupadosEnRango(any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, dia3000.plusDays(2), dia3000.plusDays(2), TipoEstadoHabitacion.OCUPADA),
+                new IntervaloOcupacionDTO(2L, hasta.minusDays(1), null, TipoEstadoHabitacion.OCUPADA)));
+
+        // --- ACT ---
+        GrillaEnStreaming grilla = gestorHabitaciones.obtenerEstadosEnStreaming(desde, hasta, null);
+        List<String> ie1PorDia = new ArrayList<>();
+        List<String> ie2PorDia = new ArrayList<>();
+        grilla.emitirFilas(fila -> {
+            ie1PorDia.add(fila.estadosPorHabitacion().get("IE1"));
+            ie2PorDia.add(fila.estadosPorHabitacion().get("IE2"));
+        });
+
+        // --- ASSERT ---
+        assertEquals(grilla.getCantidadFilas(), ie1PorDia.size());
+        assertEquals(List.of("LIBRE", "RESERVADA", "RESERVADA", "OCUPADA", "RESERVADA", "RESERVADA",
+                "RESERVADA", "RESERVADA", "LIBRE"), ie1PorDia.subList(2999, 3008));
+        assertEquals(List.of("RESERVADA", "LIBRE"), ie2PorDia.subList(0, 2));
+        assertEquals(List.of("LIBRE", "OCUPADA", "OCUPADA"), ie2PorDia.subList(ie2PorDia.size() - 3, ie2PorDia.size()));
+    }
+
+    /**
+     * Modificar una habitación invalida el catálogo cacheado.
+     */
+    @Test
+    void testModificarHabitacion_InvalidaCatalogo() {
+        // --- ARRANGE ---
+        Habitacion habitacion = Habitacion.builder().id(1L).nombre("IE1").build();
+        HabitacionDTORequest request = new HabitacionDTORequest("IE1", 100f, TipoHabitacion.INDIVIDUAL_ESTANDAR, TipoEstadoHabitacion.LIBRE);
+        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacion));
+        when(habitacionDAO.save(habitacion)).thenReturn(habitacion);
+
+        // --- ACT ---
+        gestorHabitaciones.modificarHabitacion(1L, request);
+
+        // --- ASSERT ---
+        verify(habitacionMapper).updateEntityFromRequest(request, habitacion);
+        verify(catalogoHabitaciones).invalidar();
+    }
+
+    @Test
+    void testObtenerEstados_ErrorFechaHastaAnterior() {
+        assertThrows(IllegalArgumentException.class, () ->
+                gestorHabitaciones.obtenerEstados(LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 1), null)
+        );
+        verifyNoInteractions(reservaDAO, estadiaDAO);
+    }
+}
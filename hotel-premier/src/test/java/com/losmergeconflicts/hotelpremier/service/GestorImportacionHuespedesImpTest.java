@@ -0,0 +1,290 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.losmergeconflicts.hotelpremier.dao.DireccionDAO;
+import com.losmergeconflicts.hotelpremier.dao.HuespedDAO;
+import com.losmergeconflicts.hotelpremier.dao.LocalidadDAO;
+import com.losmergeconflicts.hotelpremier.dao.NacionalidadDAO;
+import com.losmergeconflicts.hotelpremier.dto.DocumentoHuespedDTO;
+import com.losmergeconflicts.hotelpremier.dto.FormatoImportacion;
+import com.losmergeconflicts.hotelpremier.dto.HuespedDTORequest;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoImportacionDTO;
+import com.losmergeconflicts.hotelpremier.entity.Direccion;
+import com.losmergeconflicts.hotelpremier.entity.Huesped;
+import com.losmergeconflicts.hotelpremier.entity.Localidad;
+import com.losmergeconflicts.hotelpremier.entity.Nacionalidad;
+import com.losmergeconflicts.hotelpremier.entity.Pais;
+import com.losmergeconflicts.hotelpremier.entity.Provincia;
+import com.losmergeconflicts.hotelpremier.entity.TipoDocumento;
+import com.losmergeconflicts.hotelpremier.mapper.HuespedMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Tests unitarios para GestorImportacionHuespedesImp.
+ *
+ * El archivo se lee y valida de verdad (ObjectMapper y Validator reales); los
+ * DAOs y el filtro de documentos se simulan con Mockito.
+ */
+@ExtendWith(MockitoExtension.class)
+public class GestorImportacionHuespedesImpTest {
+
+    private static final String ENCABEZADO = "apellido,nombre,tipoDocumento,documento,fechaNacimiento,email,ocupacion,"
+            + "posicionFrenteAlIVA,nacionalidad,telefono,cuit,info,calle,numero,piso,departamento,codigoPostal,"
+            + "localidad,provincia\n";
+
+    @Mock private HuespedDAO huespedDAO;
+    @Mock private DireccionDAO direccionDAO;
+    @Mock private LocalidadDAO localidadDAO;
+    @Mock private NacionalidadDAO nacionalidadDAO;
+    @Mock private HuespedMapper huespedMapper;
+    @Mock private FiltroDocumentos filtroDocumentos;
+
+    private GestorImportacionHuespedesImp gestor;
+    private Localidad santaFe;
+    private Nacionalidad argentina;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        // Lotes de 2 filas para ver varias transacciones con pocos datos
+        gestor = new GestorImportacionHuespedesImp(huespedDAO, direccionDAO, localidadDAO, nacionalidadDAO,
+                huespedMapper, filtroDocumentos, objectMapper, validator, transactionTemplate, 2);
+
+        Pais pais = Pais.builder().id(1L).nombre("Argentina").build();
+        Provincia provinciaSantaFe = Provincia.builder().id(1L).nombre("Santa Fe").pais(pais).build();
+        Provincia provinciaBuenosAires = Provincia.builder().id(2L).nombre("Buenos Aires").pais(pais).build();
+        santaFe = Localidad.builder().id(10L).nombre("Santa Fe").provincia(provinciaSantaFe).build();
+        argentina = Nacionalidad.builder().id(20L).nombre("Argentina").build();
+
+        lenient().when(localidadDAO.findAllConProvinciaYPais()).thenReturn(List.of(
+                santaFe,
+                Localidad.builder().id(11L).nombre("San Martín").provincia(provinciaSantaFe).build(),
+                Localidad.builder().id(12L).nombre("San Martín").provincia(provinciaBuenosAires).build()));
+        lenient().when(nacionalidadDAO.findAll()).thenReturn(List.of(argentina));
+        lenient().when(localidadDAO.getReferenceById(anyLong())).thenReturn(santaFe);
+        lenient().when(nacionalidadDAO.getReferenceById(anyLong())).thenReturn(argentina);
+        lenient().when(huespedMapper.toEntity(any(HuespedDTORequest.class))).thenAnswer(invocacion -> {
+            HuespedDTORequest request = invocacion.getArgument(0);
+            Huesped huesped = new Huesped();
+            huesped.setApellido(request.apellido());
+            huesped.setTipoDocumento(request.tipoDocumento());
+            huesped.setDocumento(request.documento());
+            return huesped;
+        });
+    }
+
+    private static InputStream archivo(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String fila(String apellido, String tipo, String documento, String localidad, String provincia) {
+        return apellido + ",Juan," + tipo + "," + documento + ",1980-05-10,,Empleado,CONSUMIDOR_FINAL,Argentina,"
+                + "3421234567,,Sin observaciones,San Martín,1234,,,3000," + localidad + "," + provincia + "\n";
+    }
+
+    /**
+     * CAMINO FELIZ: Las filas válidas se guardan en lotes (una transacción por lote),
+     * resolviendo localidad y nacionalidad por nombre y sin consultar documentos que
+     * el filtro descarta.
+     */
+    @Test
+    void testImportarCsv_GuardaEnLotes() {
+        // --- ARRANGE ---
+        String csv = ENCABEZADO
+                + fila("Pérez", "DNI", "30111222", "Santa Fe", "Santa Fe")
+                + fila("Gómez", "dni", "30.111.223", "santa fe", "")
+                + "López,Ana,Pasaporte,30111224,10/05/1980,,Docente,Consumidor final,ARGENTINA,"
+                + "3421234567,,\"Cliente, frecuente\nVIP\",Rivadavia,50,,,3000,San Martín,Buenos Aires\n";
+
+        // --- ACT ---
+        ResultadoImportacionDTO resultado = gestor.importarHuespedes(archivo(csv), FormatoImportacion.CSV);
+
+        // --- ASSERT ---
+        assertEquals(3, resultado.leidos());
+        assertEquals(3, resultado.importados());
+        assertEquals(0, resultado.rechazadas(), resultado.errores().toString());
+        assertTrue(resultado.completa());
+
+        // 3 filas en lotes de 2: dos llamadas de cada saveAll
+        verify(direccionDAO, times(2)).saveAll(anyList());
+        verify(huespedDAO, times(2)).saveAll(anyList());
+        verify(huespedDAO, never()).findDocumentosRegistrados(any());
+        verify(localidadDAO).getReferenceById(12L);
+        verify(filtroDocumentos).registrar(TipoDocumento.DNI, "30111223");
+        verify(filtroDocumentos).registrar(TipoDocumento.PASAPORTE, "30111224");
+        // Catálogos leídos una sola vez
+        verify(localidadDAO, times(1)).findAllConProvinciaYPais();
+        verify(nacionalidadDAO, times(1)).findAll();
+    }
+
+    /**
+     * Los documentos repetidos en el archivo o ya registrados se omiten; sólo se
+     * consultan en BD los que el filtro no descarta, con una consulta por lote.
+     */
+    @Test
+    void testImportarCsv_OmiteDuplicados() {
+        // --- ARRANGE ---
+        String csv = ENCABEZADO
+                + fila("Pérez", "DNI", "30111222", "Santa Fe", "Santa Fe")
+                + fila("Pérez", "DNI", "30111222", "Santa Fe", "Santa Fe")
+                + fila("Gómez", "DNI", "30111223", "Santa Fe", "Santa Fe");
+        lenient().when(filtroDocumentos.puedeExistir(TipoDocumento.DNI, "30111223")).thenReturn(true);
+        when(huespedDAO.findDocumentosRegistrados(List.of("30111223")))
+                .thenReturn(List.of(new DocumentoHuespedDTO(TipoDocumento.DNI, "30111223")));
+
+        // --- ACT ---
+        ResultadoImportacionDTO resultado = gestor.importarHuespedes(archivo(csv), FormatoImportacion.CSV);
+
+        // --- ASSERT ---
+        assertEquals(3, resultado.leidos());
+        assertEquals(1, resultado.importados());
+        assertEquals(2, resultado.duplicados());
+        verify(huespedDAO, times(1)).findDocumentosRegistrados(any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Huesped>> guardados = ArgumentCaptor.forClass(List.class);
+        verify(huespedDAO).saveAll(guardados.capture());
+        assertEquals("30111222", guardados.getValue().get(0).getDocumento());
+    }
+
+    /**
+     * Las filas inválidas se rechazan con su número de línea y el motivo, sin
+     * detener la importación.
+     */
+    @Test
+    void testImportarCsv_RechazaFilasInvalidas() {
+        // --- ARRANGE ---
+        String csv = ENCABEZADO
+                + fila("Pérez", "CEDULA", "30111222", "Santa Fe", "Santa Fe")      // línea 2
+                + fila("Gómez", "DNI", "30111223", "Rosario", "Santa Fe")          // línea 3
+                + fila("López", "DNI", "ABC", "Santa Fe", "Santa Fe")              // línea 4
+                + fila("Díaz", "DNI", "30111225", "San Martín", "")                // línea 5
+                + "Suárez,Juan,DNI\n"                                              // línea 6
+                + fila("Ruiz", "DNI", "30111226", "Santa Fe", "Santa Fe");         // línea 7
+
+        // --- ACT ---
+        ResultadoImportacionDTO resultado = gestor.importarHuespedes(archivo(csv), FormatoImportacion.CSV);
+
+        // --- ASSERT ---
+        assertEquals(6, resultado.leidos());
+        assertEquals(1, resultado.importados());
+        assertEquals(5, resultado.rechazadas());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), resultado.errores().stream()
+                .map(ResultadoImportacionDTO.ErrorDTO::fila).sorted().toList());
+        assertTrue(resultado.errores().stream().anyMatch(e -> e.error().contains("Tipo de documento inválido")));
+        assertTrue(resultado.errores().stream().anyMatch(e -> e.error().contains("Localidad desconocida")));
+        assertTrue(resultado.errores().stream().anyMatch(e -> e.error().contains("solo puede contener dígitos")));
+        assertTrue(resultado.errores().stream().anyMatch(e -> e.error().contains("indique la provincia")));
+        verify(huespedDAO, times(1)).saveAll(anyList());
+    }
+
+    /**
+     * Si un lote no se puede guardar, sus filas se informan como rechazadas y la
+     * importación sigue con el lote siguiente.
+     */
+    @Test
+    void testImportarCsv_ErrorAlGuardarUnLote() {
+        // --- ARRANGE ---
+        String csv = ENCABEZADO
+                + fila("Pérez", "DNI", "30111222", "Santa Fe", "Santa Fe")
+                + fila("Gómez", "DNI", "30111223", "Santa Fe", "Santa Fe")
+                + fila("López", "DNI", "30111224", "Santa Fe", "Santa Fe");
+        when(direccionDAO.saveAll(anyList()))
+                .thenThrow(new IllegalStateException("Conexión perdida"))
+                .thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        // --- ACT ---
+        ResultadoImportacionDTO resultado = gestor.importarHuespedes(archivo(csv), FormatoImportacion.CSV);
+
+        // --- ASSERT ---
+        assertEquals(1, resultado.importados());
+        assertEquals(2, resultado.rechazadas());
+        assertTrue(resultado.errores().get(0).error().contains("Conexión perdida"));
+        verify(filtroDocumentos, never()).registrar(TipoDocumento.DNI, "30111222");
+    }
+
+    /**
+     * CAMINO FELIZ: Importación de un arreglo JSON.
+     */
+    @Test
+    void testImportarJson() {
+        // --- ARRANGE ---
+        String json = """
+                [
+                  {"apellido": "Pérez", "nombre": "Juan", "tipoDocumento": "DNI", "documento": 30111222,
+                   "fechaNacimiento": "1980-05-10", "ocupacion": "Empleado", "posicionFrenteAlIVA": "CONSUMIDOR_FINAL",
+                   "nacionalidad": "Argentina", "telefono": "3421234567", "info": "-", "calle": "San Martín",
+                   "numero": "1234", "codigoPostal": "3000", "localidad": "Santa Fe", "origen": "PMS anterior"}
+                ]
+                """;
+
+        // --- ACT ---
+        ResultadoImportacionDTO resultado = gestor.importarHuespedes(archivo(json), FormatoImportacion.JSON);
+
+        // --- ASSERT ---
+        assertEquals(1, resultado.importados(), resultado.errores().toString());
+        assertTrue(resultado.completa());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Direccion>> direcciones = ArgumentCaptor.forClass(List.class);
+        verify(direccionDAO).saveAll(direcciones.capture());
+        assertEquals("San Martín", direcciones.getValue().get(0).getCalle());
+        assertSame(santaFe, direcciones.getValue().get(0).getLocalidad());
+    }
+
+    /**
+     * Un JSON mal formado interrumpe la lectura: se guarda lo leído hasta ahí y el
+     * resultado queda marcado como incompleto.
+     */
+    @Test
+    void testImportarJson_MalFormado() {
+        // --- ARRANGE ---
+        String json = "[{\"apellido\": \"Pérez\", \"nombre\": \"Juan\", \"tipoDocumento\": \"DNI\","
+                + " \"documento\": \"30111222\", \"fechaNacimiento\": \"1980-05-10\", \"ocupacion\": \"Empleado\","
+                + " \"posicionFrenteAlIVA\": \"CONSUMIDOR_FINAL\", \"nacionalidad\": \"Argentina\","
+                + " \"telefono\": \"3421234567\", \"info\": \"-\", \"calle\": \"San Martín\", \"numero\": \"1\","
+                + " \"codigoPostal\": \"3000\", \"localidad\": \"Santa Fe\"}, {\"apellido\": ]";
+
+        // --- ACT ---
+        ResultadoImportacionDTO resultado = gestor.importarHuespedes(archivo(json), FormatoImportacion.JSON);
+
+        // --- ASSERT ---
+        assertFalse(resultado.completa());
+        assertEquals(1, resultado.importados());
+        assertEquals(1, resultado.rechazadas());
+        assertEquals(2, resultado.errores().get(0).fila());
+        assertTrue(resultado.errores().get(0).error().startsWith("JSON inválido"));
+    }
+
+    /**
+     * ERROR: Archivo CSV vacío o sin formato.
+     */
+    @Test
+    void testImportar_EntradaInvalida() {
+        assertThrows(IllegalArgumentException.class,
+                () -> gestor.importarHuespedes(archivo(""), FormatoImportacion.CSV));
+        assertThrows(IllegalArgumentException.class,
+                () -> gestor.importarHuespedes(archivo(ENCABEZADO), null));
+        verify(huespedDAO, never()).saveAll(anyList());
+    }
+}
@@ -0,0 +1,135 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.losmergeconflicts.hotelpremier.dto.HuespedDTORequest;
+import com.losmergeconflicts.hotelpremier.dto.HuespedDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.PaginaHuespedesDTO;
+import com.losmergeconflicts.hotelpremier.entity.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Búsqueda de huéspedes contra la base de datos (H2): comparación por las columnas
+ * normalizadas y cantidad de consultas, medida con las estadísticas de Hibernate.
+ *
+ * Cada huésped tiene su propia dirección, localidad, provincia y nacionalidad: si
+ * alguna relación se cargara por separado, la cantidad de consultas crecería con
+ * la cantidad de resultados.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class GestorPersonasConsultasTest {
+
+    private static final int HUESPEDES = 30;
+
+    @Autowired private GestorPersonas gestorPersonas;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private Statistics estadisticas;
+    private Long idLocalidad;
+    private Long idNacionalidad;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            DatosPrueba datos = new DatosPrueba(entityManager);
+            for (int n = 0; n < HUESPEDES; n++) {
+                Huesped huesped = datos.huesped("HUESPED", "CONSULTAS");
+                idLocalidad = huesped.getDireccion().getLocalidad().getId();
+                idNacionalidad = huesped.getNacionalidad().getId();
+            }
+        });
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        estadisticas.setStatisticsEnabled(false);
+    }
+
+    /**
+     * Una página de 25 huéspedes, con todos sus datos mapeados, se resuelve con una
+     * sola consulta; lo mismo que una página de 3.
+     */
+    @Test
+    void testBuscarHuespedes_CantidadDeConsultasConstante() {
+        PaginaHuespedesDTO pagina = gestorPersonas.buscarHuespedes("CONSULTAS", null, null, null, null, 25, false);
+
+        assertEquals(25, pagina.huespedes().size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        for (HuespedDTOResponse huesped : pagina.huespedes()) {
+            assertNotNull(huesped.nombrePais());
+            assertNotNull(huesped.nombreNacionalidad());
+        }
+
+        estadisticas.clear();
+        PaginaHuespedesDTO chica = gestorPersonas.buscarHuespedes("CONSULTAS", null, null, null, null, 3, false);
+
+        assertEquals(3, chica.huespedes().size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    /**
+     * La página siguiente y el total tampoco agregan consultas por huésped.
+     */
+    @Test
+    void testBuscarHuespedes_PaginaSiguienteYTotal() {
+        PaginaHuespedesDTO primera = gestorPersonas.buscarHuespedes("CONSULTAS", null, null, null, null, 10, true);
+        assertTrue(primera.total() >= HUESPEDES);
+        // Página + conteo
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+
+        estadisticas.clear();
+        PaginaHuespedesDTO segunda = gestorPersonas.buscarHuespedes("CONSULTAS", null, null, null,
+                primera.cursorSiguiente(), 10, true);
+
+        assertEquals(10, segunda.huespedes().size());
+        assertNull(segunda.total());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    /**
+     * El alta guarda nombre y apellido normalizados: la búsqueda por subcadena los
+     * encuentra sin importar acentos, Ñ ni mayúsculas.
+     */
+    @Test
+    void testBuscarHuespedes_IgnoraAcentosYMayusculas() {
+        String documento = DatosPrueba.documento();
+        HuespedDTOResponse alta = gestorPersonas.altaHuesped(new HuespedDTORequest(
+                null, "3421234567", null, "San Martín", "1234", null, null, "3000", idLocalidad,
+                "José María", "Núñez", TipoDocumento.DNI, documento, LocalDate.now().minusYears(40),
+                null, "Docente", PosicionFrenteAlIVA.CONSUMIDOR_FINAL, idNacionalidad));
+
+        for (String apellido : new String[] {"Núñez", "NUNEZ", "nun", "  ñu", "unez", "ÚÑE"}) {
+            PaginaHuespedesDTO pagina = gestorPersonas.buscarHuespedes(apellido, null, null, null, null, 10, false);
+            assertEquals(1, pagina.huespedes().size(), apellido);
+            assertEquals(alta.id(), pagina.huespedes().get(0).id());
+            // Se muestran los datos tal como se cargaron
+            assertEquals("Núñez", pagina.huespedes().get(0).apellido());
+        }
+
+        assertEquals(1, gestorPersonas.buscarHuespedes("nunez", "JOSE MARIA", null, null, null, 10, false)
+                .huespedes().size());
+        assertEquals(1, gestorPersonas.buscarHuespedes(null, "maria", null, null, null, 10, false)
+                .huespedes().stream().filter(h -> h.id().equals(alta.id())).count());
+        assertTrue(gestorPersonas.buscarHuespedes("nunezz", null, null, null, null, 10, false)
+                .huespedes().isEmpty());
+    }
+}
@@ -7,10 +7,12 @@ import com.losmergeconflicts.hotelpremier.dao.DireccionDAO;
 import com.losmergeconflicts.hotelpremier.dao.HuespedDAO;
 import com.losmergeconflicts.hotelpremier.dao.LocalidadDAO;
 import com.losmergeconflicts.hotelpremier.dao.NacionalidadDAO;
+import com.losmergeconflicts.hotelpremier.dto.CursorHuespedDTO;
 import com.losmergeconflicts.hotelpremier.dto.HuespedDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.HuespedDTOResponse;
 import com.losmergeconflicts.hotelpremier.dto.LocalidadDTO;
 import com.losmergeconflicts.hotelpremier.dto.NacionalidadDTO;
+import com.losmergeconflicts.hotelpremier.dto.PaginaHuespedesDTO;
 import com.losmergeconflicts.hotelpremier.dto.PaisDTO;
 import com.losmergeconflicts.hotelpremier.dto.ProvinciaDTO;
 import com.losmergeconflicts.hotelpremier.entity.Direccion;
@@ -45,6 +47,11 @@ import java.util.Optional;
 @ExtendWith(MockitoExtension.class)
 public class GestorPersonasImpTest {
 
+    /**
+     * La búsqueda pide al DAO un huésped más que el tamaño de página para saber si hay más.
+     */
+    private static final int LIMITE_PRIMERA_PAGINA = GestorPersonasImp.TAMANIO_PAGINA_POR_DEFECTO + 1;
+
     @Mock
     private HuespedDAO huespedDAO;
 
@@ -66,6 +73,9 @@ public class GestorPersonasImpTest {
     @Mock
     private NacionalidadMapper nacionalidadMapper;
 
+    @Mock
+    private FiltroDocumentos filtroDocumentos;
+
     @InjectMocks
     private GestorPersonasImp gestorPersonas;
 
@@ -80,6 +90,9 @@ public class GestorPersonasImpTest {
 
     @BeforeEach
     void setUp() {
+        // Por defecto el filtro de documentos no descarta nada: decide la BD
+        lenient().when(filtroDocumentos.puedeExistir(any(), any())).thenReturn(true);
+
         // Datos de prueba reutilizables
         
         // 1. Crear entidades relacionadas
@@ -519,6 +532,46 @@ public class GestorPersonasImpTest {
         verify(huespedDAO, times(1)).existsByTipoDocumentoAndDocumento(tipo, documento);
     }
 
+    /**
+     * FILTRO: Un documento que el filtro en memoria descarta no se consulta en BD.
+     */
+    @Test
+    void testExisteDocumento_DescartadoPorFiltro_SinConsultarBD() {
+        // --- ARRANGE ---
+        when(filtroDocumentos.puedeExistir(TipoDocumento.DNI, "99999999")).thenReturn(false);
+
+        // --- ACT ---
+        boolean resultado = gestorPersonas.existeDocumento(TipoDocumento.DNI, "99999999");
+
+        // --- ASSERT ---
+        assertFalse(resultado);
+        verify(huespedDAO, never()).existsByTipoDocumentoAndDocumento(any(), any());
+    }
+
+    /**
+     * FILTRO: El alta de un documento nuevo descartado por el filtro no consulta la BD
+     * para verificar duplicados, y registra el documento en el filtro.
+     */
+    @Test
+    void testAltaHuesped_DocumentoDescartadoPorFiltro_RegistraEnFiltro() {
+        // --- ARRANGE ---
+        when(filtroDocumentos.puedeExistir(TipoDocumento.DNI, "12345678")).thenReturn(false);
+        when(nacionalidadDAO.findById(1L)).thenReturn(Optional.of(nacionalidadEntity));
+        when(localidadDAO.findById(1L)).thenReturn(Optional.of(localidadEntity));
+        when(direccionDAO.save(any(Direccion.class))).thenReturn(direccionEntity);
+        when(huespedMapper.toEntity(validRequest)).thenReturn(huespedEntity);
+        when(huespedDAO.save(huespedEntity)).thenReturn(huespedEntity);
+        when(huespedMapper.toResponse(huespedEntity)).thenReturn(expectedResponse);
+
+        // --- ACT ---
+        HuespedDTOResponse resultado = gestorPersonas.altaHuesped(validRequest);
+
+        // --- ASSERT ---
+        assertEquals(expectedResponse, resultado);
+        verify(huespedDAO, never()).existsByTipoDocumentoAndDocumento(any(), any());
+        verify(filtroDocumentos, times(1)).registrar(TipoDocumento.DNI, "12345678");
+    }
+
     /**
      * CAMINO FELIZ: Listar todas las localidades.
      * 
@@ -551,7 +604,7 @@ public class GestorPersonasImpTest {
                 new ProvinciaDTO(1L, "Buenos Aires", new PaisDTO(1L, "Argentina"))
         );
         
-        when(localidadDAO.findAll()).thenReturn(localidades);
+        when(localidadDAO.findAllConProvinciaYPais()).thenReturn(localidades);
         when(localidadMapper.toDTO(localidades.get(0))).thenReturn(dto1);
         when(localidadMapper.toDTO(localidades.get(1))).thenReturn(dto2);
         
@@ -566,7 +619,7 @@ public class GestorPersonasImpTest {
         assertEquals("La Plata", resultado.get(0).nombre());
         assertEquals("Mar del Plata", resultado.get(1).nombre());
         
-        verify(localidadDAO, times(1)).findAll();
+        verify(localidadDAO, times(1)).findAllConProvinciaYPais();
         verify(localidadMapper, times(2)).toDTO(any(Localidad.class));
     }
 
@@ -1001,8 +1054,8 @@ public class GestorPersonasImpTest {
         String nroDoc = "12345678";
 
         // Datos esperados en el DAO.
-        String apellidoSanitizado = "PÉREZ";
-        String nombreSanitizado = "JUAN";
+        String apellidoSanitizado = "perez";
+        String nombreSanitizado = "juan";
 
         // Crear huéspedes de prueba
         Huesped huesped1 = new Huesped();
@@ -1041,7 +1094,7 @@ public class GestorPersonasImpTest {
         );
         
         // Simular respuesta del DAO
-        when(huespedDAO.buscarHuespedesPorCriterios(apellidoSanitizado, nombreSanitizado, tipoDoc, nroDoc))
+        when(huespedDAO.buscarPaginaPorCriterios(apellidoSanitizado, nombreSanitizado, tipoDoc, nroDoc, null, LIMITE_PRIMERA_PAGINA))
                 .thenReturn(huespedesEncontrados);
         
         // Simular mapper
@@ -1050,7 +1103,7 @@ public class GestorPersonasImpTest {
         
         // --- ACT ---
         
-        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(apellido, nombre, tipoDoc, nroDoc);
+        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(apellido, nombre, tipoDoc, nroDoc, null, null, false).huespedes();
         
         // --- ASSERT ---
         
@@ -1067,7 +1120,7 @@ public class GestorPersonasImpTest {
         assertEquals("Pérez", resultado.get(1).apellido());
         
         // Verificar interacciones con los mocks
-        verify(huespedDAO, times(1)).buscarHuespedesPorCriterios(apellidoSanitizado, nombreSanitizado, tipoDoc, nroDoc);
+        verify(huespedDAO, times(1)).buscarPaginaPorCriterios(apellidoSanitizado, nombreSanitizado, tipoDoc, nroDoc, null, LIMITE_PRIMERA_PAGINA);
         verify(huespedMapper, times(1)).toResponse(huesped1);
         verify(huespedMapper, times(1)).toResponse(huesped2);
     }
@@ -1089,7 +1142,7 @@ public class GestorPersonasImpTest {
         
         String apellido = "García";
 
-        String apellidoSanitizado = "GARCÍA";
+        String apellidoSanitizado = "garcia";
 
         Huesped huesped = new Huesped();
         huesped.setId(3L);
@@ -1108,13 +1161,13 @@ public class GestorPersonasImpTest {
                 1L, "Argentina"
         );
         
-        when(huespedDAO.buscarHuespedesPorCriterios(apellidoSanitizado, null, null, null))
+        when(huespedDAO.buscarPaginaPorCriterios(apellidoSanitizado, null, null, null, null, LIMITE_PRIMERA_PAGINA))
                 .thenReturn(huespedesEncontrados);
         when(huespedMapper.toResponse(huesped)).thenReturn(response);
         
         // --- ACT ---
         
-        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(apellido, null, null, null);
+        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(apellido, null, null, null, null, null, false).huespedes();
         
         // --- ASSERT ---
         
@@ -1123,7 +1176,7 @@ public class GestorPersonasImpTest {
         assertEquals("María", resultado.get(0).nombre());
         assertEquals("García", resultado.get(0).apellido());
         
-        verify(huespedDAO, times(1)).buscarHuespedesPorCriterios(apellidoSanitizado, null, null, null);
+        verify(huespedDAO, times(1)).buscarPaginaPorCriterios(apellidoSanitizado, null, null, null, null, LIMITE_PRIMERA_PAGINA);
         verify(huespedMapper, times(1)).toResponse(huesped);
     }
 
@@ -1144,7 +1197,7 @@ public class GestorPersonasImpTest {
         
         String nombre = "Carlos";
 
-        String nombreSanitizado = "CARLOS";
+        String nombreSanitizado = "carlos";
 
         Huesped huesped1 = new Huesped();
         huesped1.setId(4L);
@@ -1174,14 +1227,14 @@ public class GestorPersonasImpTest {
                 1L, "Argentina"
         );
         
-        when(huespedDAO.buscarHuespedesPorCriterios(null, nombreSanitizado, null, null))
+        when(huespedDAO.buscarPaginaPorCriterios(null, nombreSanitizado, null, null, null, LIMITE_PRIMERA_PAGINA))
                 .thenReturn(huespedesEncontrados);
         when(huespedMapper.toResponse(huesped1)).thenReturn(response1);
         when(huespedMapper.toResponse(huesped2)).thenReturn(response2);
         
         // --- ACT ---
         
-        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(null, nombre, null, null);
+        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(null, nombre, null, null, null, null, false).huespedes();
         
         // --- ASSERT ---
         
@@ -1190,7 +1243,7 @@ public class GestorPersonasImpTest {
         assertEquals("Carlos", resultado.get(0).nombre());
         assertEquals("Carlos Alberto", resultado.get(1).nombre());
         
-        verify(huespedDAO, times(1)).buscarHuespedesPorCriterios(null, nombreSanitizado, null, null);
+        verify(huespedDAO, times(1)).buscarPaginaPorCriterios(null, nombreSanitizado, null, null, null, LIMITE_PRIMERA_PAGINA);
         verify(huespedMapper, times(2)).toResponse(any(Huesped.class));
     }
 
@@ -1231,13 +1284,13 @@ public class GestorPersonasImpTest {
                 2L, "Estados Unidos"
         );
         
-        when(huespedDAO.buscarHuespedesPorCriterios(null, null, tipoDoc, nroDocSanitizado))
+        when(huespedDAO.buscarPaginaPorCriterios(null, null, tipoDoc, nroDocSanitizado, null, LIMITE_PRIMERA_PAGINA))
                 .thenReturn(huespedesEncontrados);
         when(huespedMapper.toResponse(huesped)).thenReturn(response);
         
         // --- ACT ---
         
-        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(null, null, tipoDoc, nroDoc);
+        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(null, null, tipoDoc, nroDoc, null, null, false).huespedes();
         
         // --- ASSERT ---
         
@@ -1248,7 +1301,7 @@ public class GestorPersonasImpTest {
         assertEquals(TipoDocumento.PASAPORTE, resultado.get(0).tipoDocumento());
         assertEquals("ABC123456", resultado.get(0).documento());
         
-        verify(huespedDAO, times(1)).buscarHuespedesPorCriterios(null, null, tipoDoc, nroDocSanitizado);
+        verify(huespedDAO, times(1)).buscarPaginaPorCriterios(null, null, tipoDoc, nroDocSanitizado, null, LIMITE_PRIMERA_PAGINA);
         verify(huespedMapper, times(1)).toResponse(huesped);
     }
 
@@ -1269,19 +1322,19 @@ public class GestorPersonasImpTest {
         
         List<Huesped> huespedesEncontrados = Arrays.asList();
         
-        when(huespedDAO.buscarHuespedesPorCriterios(null, null, null, null))
+        when(huespedDAO.buscarPaginaPorCriterios(null, null, null, null, null, LIMITE_PRIMERA_PAGINA))
                 .thenReturn(huespedesEncontrados);
         
         // --- ACT ---
         
-        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(null, null, null, null);
+        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(null, null, null, null, null, null, false).huespedes();
         
         // --- ASSERT ---
         
         assertNotNull(resultado);
         assertEquals(0, resultado.size());
         
-        verify(huespedDAO, times(1)).buscarHuespedesPorCriterios(null, null, null, null);
+        verify(huespedDAO, times(1)).buscarPaginaPorCriterios(null, null, null, null, null, LIMITE_PRIMERA_PAGINA);
         verify(huespedMapper, never()).toResponse(any(Huesped.class));
     }
 
@@ -1303,24 +1356,24 @@ public class GestorPersonasImpTest {
         String apellido = "NoExiste";
         String nombre = "Nadie";
 
-        String apellidoSanitizado = "NOEXISTE";
-        String nombreSanitizado = "NADIE";
+        String apellidoSanitizado = "noexiste";
+        String nombreSanitizado = "nadie";
 
         List<Huesped> huespedesEncontrados = Arrays.asList();
         
-        when(huespedDAO.buscarHuespedesPorCriterios(apellidoSanitizado, nombreSanitizado, null, null))
+        when(huespedDAO.buscarPaginaPorCriterios(apellidoSanitizado, nombreSanitizado, null, null, null, LIMITE_PRIMERA_PAGINA))
                 .thenReturn(huespedesEncontrados);
         
         // --- ACT ---
         
-        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(apellido, nombre, null, null);
+        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(apellido, nombre, null, null, null, null, false).huespedes();
         
         // --- ASSERT ---
         
         assertNotNull(resultado);
         assertTrue(resultado.isEmpty());
         
-        verify(huespedDAO, times(1)).buscarHuespedesPorCriterios(apellidoSanitizado, nombreSanitizado, null, null);
+        verify(huespedDAO, times(1)).buscarPaginaPorCriterios(apellidoSanitizado, nombreSanitizado, null, null, null, LIMITE_PRIMERA_PAGINA);
         verify(huespedMapper, never()).toResponse(any(Huesped.class));
     }
 
@@ -1342,7 +1395,7 @@ public class GestorPersonasImpTest {
         String apellido = "Rodríguez";
         TipoDocumento tipoDoc = TipoDocumento.DNI;
 
-        String apellidoSanitizado = "RODRÍGUEZ";
+        String apellidoSanitizado = "rodriguez";
 
         Huesped huesped1 = new Huesped();
         huesped1.setId(7L);
@@ -1376,14 +1429,14 @@ public class GestorPersonasImpTest {
                 1L, "Argentina"
         );
         
-        when(huespedDAO.buscarHuespedesPorCriterios(apellidoSanitizado, null, tipoDoc, null))
+        when(huespedDAO.buscarPaginaPorCriterios(apellidoSanitizado, null, tipoDoc, null, null, LIMITE_PRIMERA_PAGINA))
                 .thenReturn(huespedesEncontrados);
         when(huespedMapper.toResponse(huesped1)).thenReturn(response1);
         when(huespedMapper.toResponse(huesped2)).thenReturn(response2);
         
         // --- ACT ---
         
-        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(apellido, null, tipoDoc, null);
+        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(apellido, null, tipoDoc, null, null, null, false).huespedes();
         
         // --- ASSERT ---
         
@@ -1394,7 +1447,7 @@ public class GestorPersonasImpTest {
         assertEquals(TipoDocumento.DNI, resultado.get(0).tipoDocumento());
         assertEquals(TipoDocumento.DNI, resultado.get(1).tipoDocumento());
         
-        verify(huespedDAO, times(1)).buscarHuespedesPorCriterios(apellidoSanitizado, null, tipoDoc, null);
+        verify(huespedDAO, times(1)).buscarPaginaPorCriterios(apellidoSanitizado, null, tipoDoc, null, null, LIMITE_PRIMERA_PAGINA);
         verify(huespedMapper, times(2)).toResponse(any(Huesped.class));
     }
 
@@ -1416,7 +1469,7 @@ public class GestorPersonasImpTest {
         String nombre = "Pedro";
         String nroDoc = "55555555";
 
-        String nombreSanitizado = "PEDRO";
+        String nombreSanitizado = "pedro";
         
         Huesped huesped = new Huesped();
         huesped.setId(9L);
@@ -1435,13 +1488,13 @@ public class GestorPersonasImpTest {
                 1L, "Argentina"
         );
         
-        when(huespedDAO.buscarHuespedesPorCriterios(null, nombreSanitizado, null, nroDoc))
+        when(huespedDAO.buscarPaginaPorCriterios(null, nombreSanitizado, null, nroDoc, null, LIMITE_PRIMERA_PAGINA))
                 .thenReturn(huespedesEncontrados);
         when(huespedMapper.toResponse(huesped)).thenReturn(response);
         
         // --- ACT ---
         
-        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(null, nombre, null, nroDoc);
+        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(null, nombre, null, nroDoc, null, null, false).huespedes();
         
         // --- ASSERT ---
         
@@ -1450,7 +1503,7 @@ public class GestorPersonasImpTest {
         assertEquals("Pedro", resultado.get(0).nombre());
         assertEquals("55555555", resultado.get(0).documento());
         
-        verify(huespedDAO, times(1)).buscarHuespedesPorCriterios(null, nombreSanitizado, null, nroDoc);
+        verify(huespedDAO, times(1)).buscarPaginaPorCriterios(null, nombreSanitizado, null, nroDoc, null, LIMITE_PRIMERA_PAGINA);
         verify(huespedMapper, times(1)).toResponse(huesped);
     }
 
@@ -1470,7 +1523,7 @@ public class GestorPersonasImpTest {
         
         String apellido = "Test";
 
-        String apellidoSanitizado = "TEST";
+        String apellidoSanitizado = "test";
         
         Huesped huesped1 = new Huesped();
         huesped1.setId(10L);
@@ -1510,7 +1563,7 @@ public class GestorPersonasImpTest {
                 1L, "Argentina"
         );
         
-        when(huespedDAO.buscarHuespedesPorCriterios(apellidoSanitizado, null, null, null))
+        when(huespedDAO.buscarPaginaPorCriterios(apellidoSanitizado, null, null, null, null, LIMITE_PRIMERA_PAGINA))
                 .thenReturn(huespedesEncontrados);
         when(huespedMapper.toResponse(huesped1)).thenReturn(response1);
         when(huespedMapper.toResponse(huesped2)).thenReturn(response2);
@@ -1518,7 +1571,7 @@ public class GestorPersonasImpTest {
         
         // --- ACT ---
         
-        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(apellido, null, null, null);
+        List<HuespedDTOResponse> resultado = gestorPersonas.buscarHuespedes(apellido, null, null, null, null, null, false).huespedes();
         
         // --- ASSERT ---
         
@@ -1536,4 +1589,92 @@ public class GestorPersonasImpTest {
         verify(huespedMapper, times(1)).toResponse(huesped3);
         verify(huespedMapper, times(3)).toResponse(any(Huesped.class));
     }
+
+    /**
+     * PAGINACIÓN: Hay más resultados que el tamaño de página.
+     *
+     * Escenario:
+     * - Se piden páginas de 2 y el DAO devuelve 3 huéspedes (uno de más)
+     *
+     * Resultado esperado:
+     * - Se devuelven 2 huéspedes, hayMas = true y un cursor con la clave del último
+     * - Con ese cursor, la página siguiente se pide al DAO a partir de ese huésped
+     */
+    @Test
+    void testBuscarHuespedes_Paginacion_CursorSiguiente() {
+        // --- ARRANGE ---
+        Huesped huesped1 = new Huesped();
+        huesped1.setId(1L);
+        huesped1.setApellido("GARCÍA");
+        huesped1.setNombre("ANA");
+        Huesped huesped2 = new Huesped();
+        huesped2.setId(2L);
+        huesped2.setApellido("GARCÍA");
+        huesped2.setNombre("LUIS");
+        Huesped huesped3 = new Huesped();
+        huesped3.setId(3L);
+        huesped3.setApellido("GÓMEZ");
+        huesped3.setNombre("ANA");
+
+        when(huespedDAO.buscarPaginaPorCriterios("g", null, null, null, null, 3))
+                .thenReturn(List.of(huesped1, huesped2, huesped3));
+
+        // --- ACT ---
+        PaginaHuespedesDTO pagina = gestorPersonas.buscarHuespedes("G", null, null, null, null, 2, false);
+
+        // --- ASSERT ---
+        assertEquals(2, pagina.huespedes().size());
+        assertTrue(pagina.hayMas());
+        assertNull(pagina.total());
+        assertEquals(new CursorHuespedDTO("garcia", "luis", 2L), CursorHuespedDTO.decodificar(pagina.cursorSiguiente()));
+        verify(huespedMapper, times(2)).toResponse(any(Huesped.class));
+
+        // Página siguiente: a partir del último huésped devuelto
+        when(huespedDAO.buscarPaginaPorCriterios("g", null, null, null, new CursorHuespedDTO("garcia", "luis", 2L), 3))
+                .thenReturn(List.of(huesped3));
+
+        PaginaHuespedesDTO siguiente = gestorPersonas.buscarHuespedes("G", null, null, null,
+                pagina.cursorSiguiente(), 2, false);
+
+        assertEquals(1, siguiente.huespedes().size());
+        assertFalse(siguiente.hayMas());
+        assertNull(siguiente.cursorSiguiente());
+    }
+
+    /**
+     * PAGINACIÓN: El tamaño de página pedido se limita al máximo y el total sólo se
+     * cuenta cuando se pide, en la primera página.
+     */
+    @Test
+    void testBuscarHuespedes_Paginacion_TamanioMaximoYTotal() {
+        // --- ARRANGE ---
+        when(huespedDAO.buscarPaginaPorCriterios(null, null, null, null, null,
+                GestorPersonasImp.TAMANIO_PAGINA_MAXIMO + 1)).thenReturn(List.of());
+        when(huespedDAO.contarPorCriterios(null, null, null, null)).thenReturn(0L);
+
+        // --- ACT ---
+        PaginaHuespedesDTO pagina = gestorPersonas.buscarHuespedes(null, null, null, null, null, 100_000, true);
+
+        // --- ASSERT ---
+        assertEquals(0L, pagina.total());
+        assertFalse(pagina.hayMas());
+        verify(huespedDAO, times(1)).buscarPaginaPorCriterios(null, null, null, null, null,
+                GestorPersonasImp.TAMANIO_PAGINA_MAXIMO + 1);
+    }
+
+    /**
+     * CASO DE ERROR: Cursor alterado o tamaño de página no positivo.
+     *
+     * Resultado esperado:
+     * - IllegalArgumentException (400) sin consultar la base de datos
+     */
+    @Test
+    void testBuscarHuespedes_Paginacion_ParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () ->
+                gestorPersonas.buscarHuespedes("PEREZ", null, null, null, "no-es-un-cursor", null, false));
+        assertThrows(IllegalArgumentException.class, () ->
+                gestorPersonas.buscarHuespedes("PEREZ", null, null, null, null, 0, false));
+
+        verify(huespedDAO, never()).buscarPaginaPorCriterios(any(), any(), any(), any(), any(), anyInt());
+    }
 }
@@ -3,10 +3,15 @@ package com.losmergeconflicts.hotelpremier.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
 import com.losmergeconflicts.hotelpremier.dao.HabitacionDAO;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionFueraServicioDAO;
 import com.losmergeconflicts.hotelpremier.dao.ReservaDAO;
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
 import com.losmergeconflicts.hotelpremier.dto.ReservaDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.ReservaDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.ModoLote;
+import com.losmergeconflicts.hotelpremier.dto.ResultadoLoteDTO;
 import com.losmergeconflicts.hotelpremier.entity.Habitacion;
 import com.losmergeconflicts.hotelpremier.entity.Reserva;
 import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
@@ -17,13 +22,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
 /**
  * Tests unitarios para GestorReservasImp.
@@ -43,6 +49,18 @@ public class GestorReservasImpTest {
     @Mock
     private ReservaMapper reservaMapper;
 
+    @Mock
+    private IndiceOcupacion indiceOcupacion;
+
+    @Mock
+    private EstadiaDAO estadiaDAO;
+
+    @Mock
+    private HabitacionFueraServicioDAO habitacionFueraServicioDAO;
+
+    @Spy
+    private CerrojosHabitaciones cerrojosHabitaciones = new CerrojosHabitaciones(16, 1000);
+
     @InjectMocks
     private GestorReservasImp gestorReservas;
 
@@ -129,8 +147,7 @@ public class GestorReservasImpTest {
         // --- ARRANGE ---
 
         // 1. Simulamos que las habitaciones existen
-        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacion1));
-        when(habitacionDAO.findById(2L)).thenReturn(Optional.of(habitacion2));
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2));
 
         // 2. Simulamos el mapeo de DTO a entidad
         when(reservaMapper.toEntity(validRequest)).thenReturn(reservaEntity);
@@ -164,11 +181,12 @@ public class GestorReservasImpTest {
         assertEquals(idsHabitaciones, resultado.idsHabitaciones());
 
         // Verificar que los mocks fueron llamados correctamente
-        verify(habitacionDAO, times(1)).findById(1L);
-        verify(habitacionDAO, times(1)).findById(2L);
+        verify(habitacionDAO, times(1)).findAllByIdParaActualizar(anyCollection());
         verify(reservaMapper, times(1)).toEntity(validRequest);
         verify(reservaDAO, times(1)).save(any(Reserva.class));
         verify(reservaMapper, times(1)).toResponse(reservaGuardada);
+        verify(indiceOcupacion, times(1)).registrarReserva(idsHabitaciones,
+                validRequest.fechaIngreso(), validRequest.fechaEgreso());
     }
 
     /**
@@ -193,7 +211,7 @@ public class GestorReservasImpTest {
         assertEquals("Los datos de la reserva no pueden ser nulos", exception.getMessage());
 
         // Verificar que no se llamó a ningún DAO
-        verify(habitacionDAO, never()).findById(anyLong());
+        verify(habitacionDAO, never()).findAllByIdParaActualizar(anyCollection());
         verify(reservaDAO, never()).save(any(Reserva.class));
         verify(reservaMapper, never()).toEntity(any());
         verify(reservaMapper, never()).toResponse(any());
@@ -232,7 +250,7 @@ public class GestorReservasImpTest {
         assertEquals("La fecha de egreso debe ser posterior a la fecha de ingreso", exception.getMessage());
 
         // Verificar que no se realizaron operaciones de BD
-        verify(habitacionDAO, never()).findById(anyLong());
+        verify(habitacionDAO, never()).findAllByIdParaActualizar(anyCollection());
         verify(reservaDAO, never()).save(any(Reserva.class));
     }
 
@@ -268,7 +286,7 @@ public class GestorReservasImpTest {
         assertEquals("La fecha de egreso debe ser posterior a la fecha de ingreso", exception.getMessage());
 
         // Verificar que no se realizaron operaciones de BD
-        verify(habitacionDAO, never()).findById(anyLong());
+        verify(habitacionDAO, never()).findAllByIdParaActualizar(anyCollection());
         verify(reservaDAO, never()).save(any(Reserva.class));
     }
 
@@ -304,7 +322,7 @@ public class GestorReservasImpTest {
         assertEquals("Debe seleccionar al menos una habitación", exception.getMessage());
 
         // Verificar que no se realizaron operaciones de BD
-        verify(habitacionDAO, never()).findById(anyLong());
+        verify(habitacionDAO, never()).findAllByIdParaActualizar(anyCollection());
         verify(reservaDAO, never()).save(any(Reserva.class));
     }
 
@@ -340,7 +358,7 @@ public class GestorReservasImpTest {
         assertEquals("Debe seleccionar al menos una habitación", exception.getMessage());
 
         // Verificar que no se realizaron operaciones de BD
-        verify(habitacionDAO, never()).findById(anyLong());
+        verify(habitacionDAO, never()).findAllByIdParaActualizar(anyCollection());
         verify(reservaDAO, never()).save(any(Reserva.class));
     }
 
@@ -359,11 +377,8 @@ public class GestorReservasImpTest {
     void testRegistrarReserva_ErrorHabitacionNoExiste() {
         // --- ARRANGE ---
 
-        // Simulamos que la primera habitación existe
-        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacion1));
-
-        // Simulamos que la segunda habitación NO existe
-        when(habitacionDAO.findById(2L)).thenReturn(Optional.empty());
+        // Simulamos que sólo la primera habitación existe: la segunda NO aparece en la consulta
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1));
 
         // --- ACT & ASSERT ---
         RuntimeException exception = assertThrows(
@@ -385,20 +400,19 @@ public class GestorReservasImpTest {
      * CASO DE ERROR: Múltiples habitaciones no encontradas.
      * 
      * Escenario:
-     * - La primera habitación solicitada no existe en BD
-     * - La excepción se lanza inmediatamente, sin buscar las demás habitaciones
+     * - Ninguna de las habitaciones solicitadas existe en BD
+     * - Todas se buscan en una única consulta
      * 
      * Resultado esperado:
-     * - Se lanza RuntimeException (envuelve IllegalArgumentException para la primera habitación no encontrada)
+     * - Se lanza RuntimeException (envuelve IllegalArgumentException que lista todos los IDs inexistentes)
      * - NO se guarda la reserva
      */
     @Test
     void testRegistrarReserva_ErrorVariasHabitacionesNoExisten() {
         // --- ARRANGE ---
 
-        // Simulamos que la primera habitación no existe
-        // (no se necesita configurar la segunda porque nunca se buscará)
-        when(habitacionDAO.findById(1L)).thenReturn(Optional.empty());
+        // Simulamos que ninguna de las habitaciones existe
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of());
 
         // --- ACT & ASSERT ---
         RuntimeException exception = assertThrows(
@@ -409,7 +423,7 @@ public class GestorReservasImpTest {
         assertEquals("Error al procesar el registro de la reserva", exception.getMessage());
         assertNotNull(exception.getCause());
         assertTrue(exception.getCause() instanceof IllegalArgumentException);
-        assertTrue(exception.getCause().getMessage().contains("La habitación con ID 1 no existe"));
+        assertTrue(exception.getCause().getMessage().contains("Las habitaciones con ID 1, 2 no existen"));
 
         // Verificar que NO se guardó la reserva
         verify(reservaDAO, never()).save(any(Reserva.class));
@@ -432,8 +446,7 @@ public class GestorReservasImpTest {
         // --- ARRANGE ---
 
         // Simulamos que las habitaciones existen
-        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacion1));
-        when(habitacionDAO.findById(2L)).thenReturn(Optional.of(habitacion2));
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2));
 
         // Simulamos el mapeo correcto
         when(reservaMapper.toEntity(validRequest)).thenReturn(reservaEntity);
@@ -454,8 +467,9 @@ public class GestorReservasImpTest {
 
         // Verificar que se intentó guardar
         verify(reservaDAO, times(1)).save(any(Reserva.class));
-        // Verificar que NO se llamó al mapper de respuesta
+        // Verificar que NO se llamó al mapper de respuesta ni se tocó el índice
         verify(reservaMapper, never()).toResponse(any());
+        verify(indiceOcupacion, never()).registrarReserva(any(), any(), any());
     }
 
     /**
@@ -513,7 +527,7 @@ public class GestorReservasImpTest {
         );
 
         // Configurar mocks
-        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacion1));
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1));
         when(reservaMapper.toEntity(requestUnaHabitacion)).thenReturn(reservaUnaHabitacion);
         when(reservaDAO.save(any(Reserva.class))).thenReturn(reservaGuardada);
         when(reservaMapper.toResponse(reservaGuardada)).thenReturn(responseEsperado);
@@ -527,7 +541,7 @@ public class GestorReservasImpTest {
         assertEquals(1, resultado.idsHabitaciones().size());
         assertEquals(1L, resultado.idsHabitaciones().get(0));
 
-        verify(habitacionDAO, times(1)).findById(1L);
+        verify(habitacionDAO, times(1)).findAllByIdParaActualizar(anyCollection());
         verify(reservaDAO, times(1)).save(any(Reserva.class));
     }
 
@@ -594,9 +608,7 @@ public class GestorReservasImpTest {
         );
 
         // Configurar mocks
-        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacion1));
-        when(habitacionDAO.findById(2L)).thenReturn(Optional.of(habitacion2));
-        when(habitacionDAO.findById(3L)).thenReturn(Optional.of(habitacion3));
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2, habitacion3));
         when(reservaMapper.toEntity(requestTresHabitaciones)).thenReturn(reservaTresHabitaciones);
         when(reservaDAO.save(any(Reserva.class))).thenReturn(reservaGuardada);
         when(reservaMapper.toResponse(reservaGuardada)).thenReturn(responseEsperado);
@@ -612,9 +624,7 @@ public class GestorReservasImpTest {
         assertTrue(resultado.idsHabitaciones().contains(2L));
         assertTrue(resultado.idsHabitaciones().contains(3L));
 
-        verify(habitacionDAO, times(1)).findById(1L);
-        verify(habitacionDAO, times(1)).findById(2L);
-        verify(habitacionDAO, times(1)).findById(3L);
+        verify(habitacionDAO, times(1)).findAllByIdParaActualizar(anyCollection());
         verify(reservaDAO, times(1)).save(any(Reserva.class));
     }
 
@@ -632,8 +642,7 @@ public class GestorReservasImpTest {
     void testRegistrarReserva_HabitacionesSeAsignanCorrectamente() {
         // --- ARRANGE ---
 
-        when(habitacionDAO.findById(1L)).thenReturn(Optional.of(habitacion1));
-        when(habitacionDAO.findById(2L)).thenReturn(Optional.of(habitacion2));
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2));
         when(reservaMapper.toEntity(validRequest)).thenReturn(reservaEntity);
 
         Reserva reservaGuardada = Reserva.builder()
@@ -663,4 +672,210 @@ public class GestorReservasImpTest {
             return true;
         }));
     }
+
+    /**
+     * LOTE: Todas las reservas son válidas.
+     *
+     * Resultado esperado:
+     * - Las habitaciones de todo el lote se buscan con una sola consulta
+     * - Las reservas se guardan juntas (saveAll) y se reflejan en el índice
+     */
+    @Test
+    void testRegistrarReservasEnLote_CaminoFeliz() {
+        // --- ARRANGE ---
+        ReservaDTORequest otraRequest = new ReservaDTORequest(
+                LocalDate.now().plusDays(6), LocalDate.now().plusDays(7),
+                "Ana", "Gómez", "987654321", List.of(2L));
+
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2));
+        when(reservaMapper.toEntity(any(ReservaDTORequest.class))).thenAnswer(inv -> {
+            ReservaDTORequest r = inv.getArgument(0);
+            return Reserva.builder().fechaIngreso(r.fechaIngreso()).fechaEgreso(r.fechaEgreso()).build();
+        });
+        when(reservaDAO.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(reservaMapper.toResponse(any(Reserva.class))).thenReturn(expectedResponse);
+
+        // --- ACT ---
+        ResultadoLoteDTO resultado = gestorReservas.registrarReservasEnLote(
+                List.of(validRequest, otraRequest), ModoLote.TODO_O_NADA);
+
+        // --- ASSERT ---
+        assertEquals(2, resultado.registradas());
+        assertEquals(0, resultado.rechazadas());
+        assertEquals(2, resultado.resultados().size());
+        assertNull(resultado.resultados().get(1).error());
+
+        verify(habitacionDAO, times(1)).findAllByIdParaActualizar(Set.of(1L, 2L));
+        verify(reservaDAO, times(1)).saveAll(argThat(reservas -> {
+            List<Reserva> lista = (List<Reserva>) reservas;
+            return lista.size() == 2 && lista.get(1).getHabitaciones().equals(List.of(habitacion2));
+        }));
+        verify(reservaDAO, never()).save(any(Reserva.class));
+        verify(indiceOcupacion, times(1)).registrarReserva(List.of(2L),
+                otraRequest.fechaIngreso(), otraRequest.fechaEgreso());
+    }
+
+    /**
+     * LOTE TODO_O_NADA: Una reserva inválida rechaza el lote completo.
+     *
+     * Resultado esperado:
+     * - Se lanza IllegalArgumentException indicando la reserva inválida
+     * - NO se guarda ninguna reserva
+     */
+    @Test
+    void testRegistrarReservasEnLote_TodoONada_RechazaLote() {
+        // --- ARRANGE ---
+        ReservaDTORequest habitacionInexistente = new ReservaDTORequest(
+                LocalDate.now().plusDays(2), LocalDate.now().plusDays(3),
+                "Ana", "Gómez", "987654321", List.of(99L));
+
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2));
+
+        // --- ACT & ASSERT ---
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> gestorReservas.registrarReservasEnLote(
+                        List.of(validRequest, habitacionInexistente), ModoLote.TODO_O_NADA)
+        );
+
+        assertTrue(exception.getMessage().contains("reserva 2: La habitación con ID 99 no existe"));
+        verify(reservaDAO, never()).saveAll(anyList());
+        verifyNoInteractions(indiceOcupacion);
+    }
+
+    /**
+     * LOTE MEJOR_ESFUERZO: Se registran las reservas válidas y se informan las rechazadas.
+     */
+    @Test
+    void testRegistrarReservasEnLote_MejorEsfuerzo_RegistraValidas() {
+        // --- ARRANGE ---
+        ReservaDTORequest fechasInvalidas = new ReservaDTORequest(
+                LocalDate.now().plusDays(3), LocalDate.now().plusDays(3),
+                "Ana", "Gómez", "987654321", List.of(2L));
+
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2));
+        when(reservaMapper.toEntity(validRequest)).thenReturn(reservaEntity);
+        when(reservaDAO.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(reservaMapper.toResponse(reservaEntity)).thenReturn(expectedResponse);
+
+        // --- ACT ---
+        ResultadoLoteDTO resultado = gestorReservas.registrarReservasEnLote(
+                List.of(fechasInvalidas, validRequest), ModoLote.MEJOR_ESFUERZO);
+
+        // --- ASSERT ---
+        assertEquals(1, resultado.registradas());
+        assertEquals(1, resultado.rechazadas());
+        assertEquals("La fecha de egreso debe ser posterior a la fecha de ingreso",
+                resultado.resultados().get(0).error());
+        assertNull(resultado.resultados().get(0).reserva());
+        assertEquals(expectedResponse, resultado.resultados().get(1).reserva());
+        verify(reservaMapper, never()).toEntity(fechasInvalidas);
+    }
+
+    /**
+     * CASO DE ERROR: Habitación ya reservada en el rango.
+     *
+     * Escenario:
+     * - Las habitaciones existen, pero una de ellas tiene una reserva que se superpone
+     *
+     * Resultado esperado:
+     * - Se lanza IllegalStateException (conflicto, 409) sin envolver
+     * - La disponibilidad se verifica con las habitaciones ya bloqueadas
+     * - NO se guarda la reserva
+     */
+    @Test
+    void testRegistrarReserva_ErrorHabitacionYaReservada() {
+        // --- ARRANGE ---
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2));
+        when(reservaDAO.findIntervalosReservadosDeHabitaciones(anyCollection(), any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(2L, validRequest.fechaEgreso().minusDays(1), validRequest.fechaEgreso().plusDays(2),
+                        TipoEstadoHabitacion.RESERVADA)));
+
+        // --- ACT & ASSERT ---
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> gestorReservas.registrarReserva(validRequest)
+        );
+
+        assertTrue(exception.getMessage().contains("La habitación DE1 no está disponible"));
+        verify(reservaDAO, never()).save(any(Reserva.class));
+        verifyNoInteractions(indiceOcupacion);
+    }
+
+    /**
+     * CAMINO FELIZ: Igual que en el check-in, el día de egreso queda libre: una
+     * reserva que ingresa el día de egreso de otra, o que egresa el día en que
+     * otra ingresa, no se superpone con ella.
+     */
+    @Test
+    void testRegistrarReserva_DiaDeEgresoLibre() {
+        // --- ARRANGE ---
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2));
+        when(reservaDAO.findIntervalosReservadosDeHabitaciones(anyCollection(), any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, validRequest.fechaEgreso(), validRequest.fechaEgreso().plusDays(2),
+                        TipoEstadoHabitacion.RESERVADA)));
+        when(estadiaDAO.findIntervalosOcupadosDeHabitaciones(anyCollection(), any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(2L, validRequest.fechaIngreso().minusDays(3), validRequest.fechaIngreso(),
+                        TipoEstadoHabitacion.OCUPADA)));
+        when(reservaMapper.toEntity(validRequest)).thenReturn(reservaEntity);
+        when(reservaDAO.save(any(Reserva.class))).thenReturn(reservaEntity);
+        when(reservaMapper.toResponse(reservaEntity)).thenReturn(expectedResponse);
+
+        // --- ACT ---
+        ReservaDTOResponse resultado = gestorReservas.registrarReserva(validRequest);
+
+        // --- ASSERT ---
+        assertEquals(expectedResponse, resultado);
+        verify(reservaDAO, times(1)).save(any(Reserva.class));
+    }
+
+    /**
+     * CAMINO FELIZ: Una estadía que terminó antes del ingreso no impide la reserva.
+     */
+    @Test
+    void testRegistrarReserva_OcupacionFueraDelRango() {
+        // --- ARRANGE ---
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2));
+        when(estadiaDAO.findIntervalosOcupadosDeHabitaciones(anyCollection(), any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, validRequest.fechaIngreso().minusDays(5),
+                        validRequest.fechaIngreso().minusDays(1), TipoEstadoHabitacion.OCUPADA)));
+        when(reservaMapper.toEntity(validRequest)).thenReturn(reservaEntity);
+        when(reservaDAO.save(any(Reserva.class))).thenReturn(reservaEntity);
+        when(reservaMapper.toResponse(reservaEntity)).thenReturn(expectedResponse);
+
+        // --- ACT ---
+        ReservaDTOResponse resultado = gestorReservas.registrarReserva(validRequest);
+
+        // --- ASSERT ---
+        assertEquals(expectedResponse, resultado);
+        verify(estadiaDAO, times(1)).findIntervalosOcupadosDeHabitaciones(List.of(1L, 2L),
+                validRequest.fechaIngreso().atStartOfDay(), validRequest.fechaEgreso().atTime(23, 59));
+    }
+
+    /**
+     * LOTE MEJOR_ESFUERZO: Dos reservas del mismo lote sobre la misma habitación y fechas
+     * superpuestas; sólo se registra la primera.
+     */
+    @Test
+    void testRegistrarReservasEnLote_MejorEsfuerzo_ConflictoDentroDelLote() {
+        // --- ARRANGE ---
+        ReservaDTORequest superpuesta = new ReservaDTORequest(
+                validRequest.fechaIngreso().plusDays(1), validRequest.fechaEgreso().plusDays(1),
+                "Ana", "Gómez", "987654321", List.of(2L));
+
+        when(habitacionDAO.findAllByIdParaActualizar(anyCollection())).thenReturn(List.of(habitacion1, habitacion2));
+        when(reservaMapper.toEntity(validRequest)).thenReturn(reservaEntity);
+        when(reservaDAO.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(reservaMapper.toResponse(reservaEntity)).thenReturn(expectedResponse);
+
+        // --- ACT ---
+        ResultadoLoteDTO resultado = gestorReservas.registrarReservasEnLote(
+                List.of(validRequest, superpuesta), ModoLote.MEJOR_ESFUERZO);
+
+        // --- ASSERT ---
+        assertEquals(1, resultado.registradas());
+        assertEquals(1, resultado.rechazadas());
+        assertTrue(resultado.resultados().get(1).error().contains("La habitación DE1 no está disponible"));
+        verify(reservaMapper, never()).toEntity(superpuesta);
+    }
 }
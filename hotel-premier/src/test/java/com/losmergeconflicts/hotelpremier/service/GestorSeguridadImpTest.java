@@ -6,6 +6,8 @@ import static org.mockito.Mockito.*;
 import com.losmergeconflicts.hotelpremier.dao.ConserjeDAO;
 import com.losmergeconflicts.hotelpremier.dto.ConserjeDTORequest;
 import com.losmergeconflicts.hotelpremier.dto.ConserjeDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.TokenDTOResponse;
+import com.losmergeconflicts.hotelpremier.dto.UsuarioAutenticado;
 import com.losmergeconflicts.hotelpremier.entity.Conserje;
 import com.losmergeconflicts.hotelpremier.mapper.ConserjeMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +16,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
@@ -36,6 +41,12 @@ class GestorSeguridadImpTest {
     @Mock
     private ConserjeMapper conserjeMapper;
 
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private EmisorTokens emisorTokens;
+
     @InjectMocks
     private GestorSeguridadImp gestorSeguridad;
 
@@ -309,5 +320,51 @@ class GestorSeguridadImpTest {
             conserje.getPassword().equals(hashedPassword)
         ));
     }
-}
 
+    /**
+     * CAMINO FELIZ: Emisión de token con credenciales correctas.
+     * 
+     * Resultado esperado:
+     * - Se verifican las credenciales con el AuthenticationManager
+     * - Se emite el token para el usuario autenticado
+     */
+    @Test
+    void testEmitirToken_CaminoFeliz() {
+        // --- ARRANGE ---
+        
+        UsuarioAutenticado usuario = UsuarioAutenticado.de(conserjeEntity);
+        when(authenticationManager.authenticate(any())).thenReturn(
+                UsernamePasswordAuthenticationToken.authenticated(usuario, null, usuario.getAuthorities()));
+        TokenDTOResponse token = new TokenDTOResponse("a.b.c", "Bearer", 28800);
+        when(emisorTokens.emitir(usuario)).thenReturn(token);
+        
+        // --- ACT ---
+        
+        TokenDTOResponse resultado = gestorSeguridad.emitirToken(validRequest);
+        
+        // --- ASSERT ---
+        
+        assertSame(token, resultado);
+        verify(authenticationManager).authenticate(argThat(a ->
+                a.getName().equals("nuevoUsuario") && a.getCredentials().equals("password123")));
+    }
+
+    /**
+     * CASO DE ERROR: Credenciales incorrectas.
+     * 
+     * Resultado esperado:
+     * - Se propaga la AuthenticationException (401 en ControllerAdvisor)
+     * - NO se emite ningún token
+     */
+    @Test
+    void testEmitirToken_CredencialesIncorrectas() {
+        // --- ARRANGE ---
+        
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+        
+        // --- ACT & ASSERT ---
+        
+        assertThrows(BadCredentialsException.class, () -> gestorSeguridad.emitirToken(validRequest));
+        verify(emisorTokens, never()).emitir(any());
+    }
+}
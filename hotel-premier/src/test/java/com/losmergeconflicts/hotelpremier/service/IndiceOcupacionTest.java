@@ -0,0 +1,149 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.losmergeconflicts.hotelpremier.dao.EstadiaDAO;
+import com.losmergeconflicts.hotelpremier.dao.HabitacionFueraServicioDAO;
+import com.losmergeconflicts.hotelpremier.dao.ReservaDAO;
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
+import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class IndiceOcupacionTest {
+
+    @Mock private ReservaDAO reservaDAO;
+    @Mock private EstadiaDAO estadiaDAO;
+    @Mock private HabitacionFueraServicioDAO habitacionFueraServicioDAO;
+
+    private IndiceOcupacion indice;
+    private final LocalDate hoy = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceOcupacion(reservaDAO, estadiaDAO, habitacionFueraServicioDAO, true, 10, 10);
+    }
+
+    /**
+     * Antes de cargarse el índice no cubre ningún rango.
+     */
+    @Test
+    void testCubre_SinCargar() {
+        assertFalse(indice.cubre(hoy, hoy));
+    }
+
+    /**
+     * Al cargarse vuelca reservas y estadías en la ventana, y sólo cubre rangos dentro de ella.
+     */
+    @Test
+    void testCargar_VuelcaIntervalos() {
+        // --- ARRANGE ---
+        when(reservaDAO.findIntervalosReservadosEnRango(any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, hoy.plusDays(1), hoy.plusDays(2), TipoEstadoHabitacion.RESERVADA)));
+        when(estadiaDAO.findIntervalosOcupadosEnRango(any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, hoy.minusDays(3), hoy, TipoEstadoHabitacion.OCUPADA)));
+        when(habitacionFueraServicioDAO.findIntervalosFueraServicioEnRango(any(), any())).thenReturn(Collections.emptyList());
+
+        // --- ACT ---
+        indice.cargar();
+
+        // --- ASSERT ---
+        assertTrue(indice.cubre(hoy.minusDays(10), hoy.plusDays(10)));
+        assertFalse(indice.cubre(hoy, hoy.plusDays(11)));
+
+        List<TipoEstadoHabitacion> estados = estadosDe(1L, hoy.minusDays(1), hoy.plusDays(3));
+        assertEquals(List.of(
+                TipoEstadoHabitacion.OCUPADA,
+                TipoEstadoHabitacion.OCUPADA,
+                TipoEstadoHabitacion.RESERVADA,
+                TipoEstadoHabitacion.RESERVADA,
+                TipoEstadoHabitacion.LIBRE), estados);
+    }
+
+    /**
+     * Fuera de una transacción, una reserva nueva se refleja inmediatamente.
+     */
+    @Test
+    void testRegistrarReserva_SeReflejaEnLaGrilla() {
+        // --- ARRANGE ---
+        when(reservaDAO.findIntervalosReservadosEnRango(any(), any())).thenReturn(Collections.emptyList());
+        when(estadiaDAO.findIntervalosOcupadosEnRango(any(), any())).thenReturn(Collections.emptyList());
+        when(habitacionFueraServicioDAO.findIntervalosFueraServicioEnRango(any(), any())).thenReturn(Collections.emptyList());
+        indice.cargar();
+
+        // --- ACT ---
+        indice.registrarReserva(List.of(2L), hoy, hoy);
+
+        // --- ASSERT ---
+        assertEquals(List.of(TipoEstadoHabitacion.RESERVADA, TipoEstadoHabitacion.LIBRE),
+                estadosDe(2L, hoy, hoy.plusDays(1)));
+    }
+
+    /**
+     * Tras un egreso anticipado la estadía termina antes: al recalcular la habitación
+     * el índice deja de marcarla OCUPADA y la grilla coincide con la que se arma
+     * desde la base de datos. Las demás habitaciones no se tocan.
+     */
+    @Test
+    void testRecalcularHabitaciones_EgresoCoincideConLaBD() {
+        // --- ARRANGE ---
+        when(reservaDAO.findIntervalosReservadosEnRango(any(), any())).thenReturn(Collections.emptyList());
+        when(estadiaDAO.findIntervalosOcupadosEnRango(any(), any())).thenReturn(List.of(
+                new IntervaloOcupacionDTO(1L, hoy.minusDays(2), hoy.plusDays(3), TipoEstadoHabitacion.OCUPADA),
+                new IntervaloOcupacionDTO(2L, hoy.minusDays(2), hoy.plusDays(3), TipoEstadoHabitacion.OCUPADA)));
+        when(habitacionFueraServicioDAO.findIntervalosFueraServicioEnRango(any(), any())).thenReturn(Collections.emptyList());
+        indice.cargar();
+
+        List<IntervaloOcupacionDTO> enBD = List.of(
+                new IntervaloOcupacionDTO(1L, hoy.minusDays(2), hoy, TipoEstadoHabitacion.OCUPADA),
+                new IntervaloOcupacionDTO(1L, hoy.plusDays(2), hoy.plusDays(2), TipoEstadoHabitacion.RESERVADA));
+        when(estadiaDAO.findIntervalosOcupadosDeHabitaciones(eq(List.of(1L)), any(), any())).thenReturn(enBD.subList(0, 1));
+        when(reservaDAO.findIntervalosReservadosDeHabitaciones(eq(List.of(1L)), any(), any())).thenReturn(enBD.subList(1, 2));
+        when(habitacionFueraServicioDAO.findIntervalosFueraServicioDeHabitaciones(eq(List.of(1L)), any(), any()))
+                .thenReturn(Collections.emptyList());
+
+        // --- ACT ---
+        indice.recalcularHabitaciones(List.of(1L));
+
+        // --- ASSERT ---
+        MotorDisponibilidad desdeBD = new MotorDisponibilidad(hoy.minusDays(3), hoy.plusDays(4), List.of(1L));
+        enBD.forEach(desdeBD::agregarIntervalo);
+        List<TipoEstadoHabitacion> esperados = new ArrayList<>();
+        desdeBD.recorrer((fecha, fila) -> esperados.add(fila[0]));
+
+        assertEquals(esperados, estadosDe(1L, hoy.minusDays(3), hoy.plusDays(4)));
+        assertEquals(TipoEstadoHabitacion.LIBRE, estadosDe(1L, hoy.plusDays(1), hoy.plusDays(1)).get(0));
+        assertEquals(TipoEstadoHabitacion.OCUPADA, estadosDe(2L, hoy.plusDays(3), hoy.plusDays(3)).get(0));
+    }
+
+    /**
+     * Deshabilitado, el índice nunca consulta la base de datos ni cubre rangos.
+     */
+    @Test
+    void testCargar_Deshabilitado() {
+        IndiceOcupacion deshabilitado = new IndiceOcupacion(reservaDAO, estadiaDAO, habitacionFueraServicioDAO, false, 10, 10);
+
+        deshabilitado.cargar();
+
+        assertFalse(deshabilitado.cubre(hoy, hoy));
+        verifyNoInteractions(reservaDAO, estadiaDAO, habitacionFueraServicioDAO);
+    }
+
+    private List<TipoEstadoHabitacion> estadosDe(Long idHabitacion, LocalDate desde, LocalDate hasta) {
+        MotorDisponibilidad motor = new MotorDisponibilidad(desde, hasta, List.of(idHabitacion));
+        indice.volcar(motor, List.of(idHabitacion), desde, hasta);
+        List<TipoEstadoHabitacion> estados = new ArrayList<>();
+        motor.recorrer((fecha, fila) -> estados.add(fila[0]));
+        return estados;
+    }
+}
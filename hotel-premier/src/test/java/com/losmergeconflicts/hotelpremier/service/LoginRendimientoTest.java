@@ -0,0 +1,88 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.losmergeconflicts.hotelpremier.config.SecurityConfig;
+import com.losmergeconflicts.hotelpremier.dto.UsuarioAutenticado;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de logins por segundo según el costo de BCrypt.
+ *
+ * No corre con el resto de los tests. Para ejecutarlo:
+ *
+ *   mvn test -Dtest=LoginRendimientoTest -Dbenchmark.login=true \
+ *       -Dbenchmark.login.costos=10,11,12 -Dbenchmark.login.concurrencia=64
+ *
+ * Simula una ráfaga de logins concurrentes (como hilos de Tomcat) contra
+ * DaoAuthenticationProvider con el encoder de SecurityConfig, sin base de datos,
+ * e informa logins por segundo y latencia promedio para cada costo.
+ */
+@EnabledIfSystemProperty(named = "benchmark.login", matches = "true")
+class LoginRendimientoTest {
+
+    private static final String CONTRASENIA = "password123";
+
+    @Test
+    void medirLoginsPorSegundo() throws Exception {
+        int[] costos = Arrays.stream(System.getProperty("benchmark.login.costos", "10,12").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+        int concurrencia = Integer.getInteger("benchmark.login.concurrencia", 50);
+        int logins = Integer.getInteger("benchmark.login.cantidad", 200);
+        int hilosHash = Integer.getInteger("benchmark.login.hilos-hash", 0);
+
+        System.out.printf("Logins: %d, concurrencia: %d, hilos de hash: %s%n", logins, concurrencia,
+                hilosHash > 0 ? hilosHash : Runtime.getRuntime().availableProcessors() + " (núcleos)");
+        for (int costo : costos) {
+            medir(costo, concurrencia, logins, hilosHash);
+        }
+    }
+
+    private void medir(int costo, int concurrencia, int logins, int hilosHash) throws Exception {
+        CodificadorContrasenias encoder =
+                (CodificadorContrasenias) new SecurityConfig().passwordEncoder(costo, hilosHash, logins);
+        try (encoder; ExecutorService requests = Executors.newFixedThreadPool(concurrencia)) {
+            UsuarioAutenticado usuario = new UsuarioAutenticado(1L, "conserje", encoder.encode(CONTRASENIA),
+                    "ROLE_CONSERJE");
+            DaoAuthenticationProvider proveedor = new DaoAuthenticationProvider(username -> usuario);
+            proveedor.setPasswordEncoder(encoder);
+
+            // Calentamiento (JIT)
+            autenticar(proveedor);
+
+            long inicio = System.nanoTime();
+            List<Future<Long>> resultados = new ArrayList<>(logins);
+            for (int i = 0; i < logins; i++) {
+                resultados.add(requests.submit(() -> {
+                    long desde = System.nanoTime();
+                    autenticar(proveedor);
+                    return System.nanoTime() - desde;
+                }));
+            }
+            long latenciaTotal = 0;
+            for (Future<Long> resultado : resultados) {
+                latenciaTotal += resultado.get(10, TimeUnit.MINUTES);
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            System.out.printf("Costo %2d: %8.1f logins/s, latencia promedio %8.1f ms%n",
+                    costo, logins / segundos, latenciaTotal / 1e6 / logins);
+        }
+    }
+
+    private static void autenticar(DaoAuthenticationProvider proveedor) {
+        assertTrue(proveedor.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("conserje", CONTRASENIA)).isAuthenticated());
+    }
+}
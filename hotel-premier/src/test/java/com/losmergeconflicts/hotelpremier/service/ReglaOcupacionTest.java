@@ -0,0 +1,64 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.losmergeconflicts.hotelpremier.dto.IntervaloOcupacionDTO;
+import com.losmergeconflicts.hotelpremier.entity.TipoEstadoHabitacion;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+/**
+ * Días límite de la regla de ocupación compartida por reservas y check-ins.
+ */
+class ReglaOcupacionTest {
+
+    private static final LocalDate DIA_10 = LocalDate.of(2025, 3, 10);
+    private static final LocalDate DIA_13 = LocalDate.of(2025, 3, 13);
+
+    private static IntervaloOcupacionDTO intervalo(LocalDate desde, LocalDate hasta, TipoEstadoHabitacion estado) {
+        return new IntervaloOcupacionDTO(1L, desde, hasta, estado);
+    }
+
+    /**
+     * El día de egreso de una reserva o estadía queda libre para el siguiente ingreso,
+     * y el día de ingreso pedido puede ser el de egreso de la anterior.
+     */
+    @Test
+    void testSeSuperpone_DiaDeEgresoLibre() {
+        for (TipoEstadoHabitacion estado : new TipoEstadoHabitacion[]{
+                TipoEstadoHabitacion.RESERVADA, TipoEstadoHabitacion.OCUPADA}) {
+            IntervaloOcupacionDTO anterior = intervalo(DIA_10, DIA_13, estado);
+
+            assertFalse(ReglaOcupacion.seSuperpone(anterior, DIA_13, DIA_13.plusDays(2)), estado.name());
+            assertTrue(ReglaOcupacion.seSuperpone(anterior, DIA_13.minusDays(1), DIA_13.plusDays(2)), estado.name());
+            assertFalse(ReglaOcupacion.seSuperpone(anterior, DIA_10.minusDays(2), DIA_10), estado.name());
+            assertTrue(ReglaOcupacion.seSuperpone(anterior, DIA_10.minusDays(2), DIA_10.plusDays(1)), estado.name());
+        }
+    }
+
+    /**
+     * Ingreso y egreso el mismo día ocupa una noche, tanto pedido como existente.
+     */
+    @Test
+    void testSeSuperpone_MismoDiaOcupaUnaNoche() {
+        IntervaloOcupacionDTO deUnDia = intervalo(DIA_10, DIA_10, TipoEstadoHabitacion.OCUPADA);
+
+        assertTrue(ReglaOcupacion.seSuperpone(deUnDia, DIA_10, DIA_10));
+        assertFalse(ReglaOcupacion.seSuperpone(deUnDia, DIA_10.plusDays(1), DIA_10.plusDays(2)));
+        assertEquals(DIA_10.plusDays(1), ReglaOcupacion.finExclusivo(DIA_10, DIA_10));
+    }
+
+    /**
+     * Un período fuera de servicio bloquea su último día; uno abierto bloquea todo lo posterior.
+     */
+    @Test
+    void testSeSuperpone_FueraDeServicioIncluyeElUltimoDia() {
+        IntervaloOcupacionDTO fueraDeServicio = intervalo(DIA_10, DIA_13, TipoEstadoHabitacion.FUERA_DE_SERVICIO);
+        IntervaloOcupacionDTO abierto = intervalo(DIA_10, null, TipoEstadoHabitacion.OCUPADA);
+
+        assertTrue(ReglaOcupacion.seSuperpone(fueraDeServicio, DIA_13, DIA_13.plusDays(2)));
+        assertFalse(ReglaOcupacion.seSuperpone(fueraDeServicio, DIA_13.plusDays(1), DIA_13.plusDays(2)));
+        assertTrue(ReglaOcupacion.seSuperpone(abierto, DIA_13.plusDays(30), DIA_13.plusDays(31)));
+    }
+}
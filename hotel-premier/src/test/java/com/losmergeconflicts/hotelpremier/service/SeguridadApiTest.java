@@ -0,0 +1,152 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.losmergeconflicts.hotelpremier.dto.ConserjeDTORequest;
+import com.losmergeconflicts.hotelpremier.dto.TokenDTOResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cadena de seguridad de la API (/api/**) con tokens, exigiendo token
+ * (hotel.seguridad.api.requiere-token=true) como en producción.
+ *
+ * Usa su propia base H2: al cerrarse, este contexto borra el esquema
+ * (create-drop) y no debe afectar al contexto compartido por los demás tests.
+ */
+@SpringBootTest(properties = {
+        "hotel.seguridad.api.requiere-token=true",
+        "hotel.seguridad.token.secreto=MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=",
+        "spring.datasource.url=jdbc:h2:mem:seguridadapi;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE"
+})
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class SeguridadApiTest {
+
+    /** Cada test registra su propio conserje. */
+    private static final AtomicInteger secuencia = new AtomicInteger();
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private GestorSeguridad gestorSeguridad;
+    @Autowired private ObjectMapper objectMapper;
+
+    private ConserjeDTORequest credenciales;
+
+    @BeforeEach
+    void setUp() {
+        credenciales = new ConserjeDTORequest("api" + secuencia.getAndIncrement(), "password123");
+        gestorSeguridad.registrarConserje(credenciales);
+    }
+
+    private String obtenerToken() throws Exception {
+        MvcResult resultado = mockMvc.perform(post("/api/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(credenciales)))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNull(resultado.getRequest().getSession(false));
+        return objectMapper.readValue(resultado.getResponse().getContentAsString(), TokenDTOResponse.class).token();
+    }
+
+    /**
+     * Con token, la API responde sin crear sesión ni enviar JSESSIONID.
+     */
+    @Test
+    void testApi_ConTokenSinSesion() throws Exception {
+        String token = obtenerToken();
+
+        MvcResult resultado = mockMvc.perform(get("/api/personas/nacionalidades")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE))
+                .andReturn();
+
+        assertNull(resultado.getRequest().getSession(false));
+    }
+
+    /**
+     * Sin token o con uno inválido, 401 (sin redirigir al formulario de login).
+     */
+    @Test
+    void testApi_SinTokenOInvalido() throws Exception {
+        mockMvc.perform(get("/api/personas/nacionalidades"))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/api/personas/nacionalidades")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + obtenerToken() + "x"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().exists(HttpHeaders.WWW_AUTHENTICATE));
+    }
+
+    /**
+     * Con contraseña incorrecta no se emite token.
+     */
+    @Test
+    void testEmitirToken_CredencialesIncorrectas() throws Exception {
+        mockMvc.perform(post("/api/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new ConserjeDTORequest(credenciales.username(), "incorrecta123"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * Las pantallas siguen con login por formulario.
+     */
+    @Test
+    void testPantallas_RedirigenAlLogin() throws Exception {
+        mockMvc.perform(get("/menu-principal"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(header().string(HttpHeaders.LOCATION, endsWith("/login")));
+    }
+
+    /**
+     * Las pantallas llaman a la API con la sesión del login por formulario: las
+     * consultas pasan y las que modifican datos exigen el token CSRF de la página.
+     */
+    @Test
+    void testApi_ConSesionDeLasPantallas() throws Exception {
+        MockHttpSession sesion = (MockHttpSession) mockMvc.perform(post("/login")
+                        .param("username", credenciales.username())
+                        .param("password", credenciales.password())
+                        .with(csrf()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(header().string(HttpHeaders.LOCATION, endsWith("/menu-principal")))
+                .andReturn().getRequest().getSession(false);
+        assertNotNull(sesion);
+
+        mockMvc.perform(get("/huesped/buscar").session(sesion))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("name=\"_csrf\"")))
+                .andExpect(content().string(containsString("/js/api.js")));
+
+        mockMvc.perform(get("/api/personas/nacionalidades").session(sesion))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/personas/huesped/buscar").param("apellido", "X").session(sesion))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/api/personas/huesped/buscar").param("apellido", "X").session(sesion).with(csrf()))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,107 @@
+package com.losmergeconflicts.hotelpremier.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.losmergeconflicts.hotelpremier.config.CacheConfig;
+import com.losmergeconflicts.hotelpremier.dao.ConserjeDAO;
+import com.losmergeconflicts.hotelpremier.dto.ConserjeDTORequest;
+import com.losmergeconflicts.hotelpremier.entity.Conserje;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caché de usuarios del login contra la base de datos (H2): aciertos sin consultas
+ * y invalidación al guardar el conserje.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class UserDetailsServiceCacheTest {
+
+    /** Cada test registra su propio conserje. */
+    private static final AtomicInteger secuencia = new AtomicInteger();
+
+    @Autowired private UserDetailsService userDetailsService;
+    @Autowired private GestorSeguridad gestorSeguridad;
+    @Autowired private ConserjeDAO conserjeDAO;
+    @Autowired private CacheManager cacheManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private Statistics estadisticas;
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        username = "cache" + secuencia.getAndIncrement();
+        gestorSeguridad.registrarConserje(new ConserjeDTORequest(username, "password123"));
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        estadisticas.setStatisticsEnabled(false);
+    }
+
+    private CacheStats estadisticasCache() {
+        TransactionAwareCacheDecorator cache =
+                (TransactionAwareCacheDecorator) cacheManager.getCache(CacheConfig.CACHE_USUARIOS);
+        return ((CaffeineCache) cache.getTargetCache()).getNativeCache().stats();
+    }
+
+    /**
+     * El segundo login del mismo usuario sale del caché, sin consultar la base, y
+     * recibe la misma copia.
+     */
+    @Test
+    void testLoadUserByUsername_SegundaVezDesdeElCache() {
+        long aciertos = estadisticasCache().hitCount();
+
+        UserDetails primero = userDetailsService.loadUserByUsername(username);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        estadisticas.clear();
+        UserDetails segundo = userDetailsService.loadUserByUsername(username);
+
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertSame(primero, segundo);
+        assertEquals(aciertos + 1, estadisticasCache().hitCount());
+    }
+
+    /**
+     * Un cambio de contraseña guardado con ConserjeDAO invalida la entrada: el
+     * login siguiente ve el hash nuevo.
+     */
+    @Test
+    void testLoadUserByUsername_InvalidadoAlGuardar() {
+        String hashAnterior = userDetailsService.loadUserByUsername(username).getPassword();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Conserje conserje = conserjeDAO.findByUsername(username).orElseThrow();
+            conserje.setPassword("$2a$10$hashNuevo");
+            conserjeDAO.save(conserje);
+        });
+
+        UserDetails recargado = userDetailsService.loadUserByUsername(username);
+        assertNotEquals(hashAnterior, recargado.getPassword());
+        assertEquals("$2a$10$hashNuevo", recargado.getPassword());
+    }
+}
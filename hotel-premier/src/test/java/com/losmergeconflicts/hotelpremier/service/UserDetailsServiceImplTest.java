@@ -3,7 +3,9 @@ package com.losmergeconflicts.hotelpremier.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.losmergeconflicts.hotelpremier.config.SecurityConfig;
 import com.losmergeconflicts.hotelpremier.dao.ConserjeDAO;
+import com.losmergeconflicts.hotelpremier.dto.UsuarioAutenticado;
 import com.losmergeconflicts.hotelpremier.entity.Conserje;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +13,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -136,18 +142,19 @@ class UserDetailsServiceImplTest {
     }
 
     /**
-     * VERIFICACIÓN: La entidad Conserje implementa UserDetails correctamente.
+     * VERIFICACIÓN: Se retorna una copia inmutable, no la entidad.
      * 
      * Escenario:
      * - Se carga un usuario existente
+     * - Después se modifica la entidad Conserje
      * 
      * Resultado esperado:
-     * - El objeto retornado ES una instancia de UserDetails
-     * - También ES una instancia de Conserje (nuestra entidad)
-     * - Se puede hacer cast a ambas interfaces
+     * - El objeto retornado ES un UsuarioAutenticado (se puede cachear y compartir)
+     * - NO es la entidad Conserje
+     * - Los cambios posteriores en la entidad no lo afectan
      */
     @Test
-    void testLoadUserByUsername_RetornaUserDetailsYConserje() {
+    void testLoadUserByUsername_RetornaCopiaInmutable() {
         // --- ARRANGE ---
         
         String username = "conserje123";
@@ -156,20 +163,17 @@ class UserDetailsServiceImplTest {
         // --- ACT ---
         
         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        conserjeExistente.setPassword("$2a$10$otroHash");
         
         // --- ASSERT ---
         
-        // Verificar que es UserDetails
-        assertInstanceOf(UserDetails.class, userDetails);
+        UsuarioAutenticado usuario = assertInstanceOf(UsuarioAutenticado.class, userDetails);
+        assertFalse(userDetails instanceof Conserje);
+        assertEquals(1L, usuario.id());
+        assertEquals("$2a$10$hashedPassword", usuario.getPassword());
         
-        // Verificar que también es Conserje
-        assertInstanceOf(Conserje.class, userDetails);
-        
-        // Verificar que podemos hacer cast y acceder a propiedades de Conserje
-        Conserje conserje = (Conserje) userDetails;
-        assertEquals(1L, conserje.getId());
-        assertNotNull(conserje.getCreatedAt());
-        assertNotNull(conserje.getUpdatedAt());
+        // El hash no aparece en los logs
+        assertFalse(usuario.toString().contains("hashedPassword"));
     }
 
     /**
@@ -309,5 +313,68 @@ class UserDetailsServiceImplTest {
                 .anyMatch(auth -> !auth.getAuthority().equals("ROLE_CONSERJE"));
         assertFalse(tieneOtrosRoles);
     }
-}
 
+    /**
+     * CAMINO FELIZ: Login con un hash viejo (sin prefijo y de menor costo).
+     * 
+     * Escenario:
+     * - El conserje tiene un hash BCrypt anterior a DelegatingPasswordEncoder
+     * - Inicia sesión con la contraseña correcta
+     * 
+     * Resultado esperado:
+     * - El login es exitoso
+     * - Se guarda un hash nuevo con prefijo {bcrypt} y el costo configurado
+     */
+    @Test
+    void testLogin_ActualizaHashViejo() {
+        // --- ARRANGE ---
+        
+        conserjeExistente.setPassword(new BCryptPasswordEncoder(4).encode("password123"));
+        when(conserjeDAO.findByUsername("conserje123")).thenReturn(Optional.of(conserjeExistente));
+        
+        CodificadorContrasenias encoder = (CodificadorContrasenias) new SecurityConfig().passwordEncoder(5, 1, 10);
+        DaoAuthenticationProvider proveedor = new DaoAuthenticationProvider(userDetailsService);
+        proveedor.setPasswordEncoder(encoder);
+        proveedor.setUserDetailsPasswordService(userDetailsService);
+        
+        // --- ACT ---
+        
+        Authentication autenticacion;
+        try (encoder) {
+            autenticacion = proveedor.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated("conserje123", "password123"));
+        }
+        
+        // --- ASSERT ---
+        
+        assertTrue(autenticacion.isAuthenticated());
+        verify(conserjeDAO).save(conserjeExistente);
+        assertTrue(conserjeExistente.getPassword().startsWith("{bcrypt}$2a$05$"));
+    }
+
+    /**
+     * VERIFICACIÓN: Un hash ya actualizado no se vuelve a guardar.
+     */
+    @Test
+    void testLogin_HashActualNoSeGuarda() {
+        // --- ARRANGE ---
+        
+        CodificadorContrasenias encoder = (CodificadorContrasenias) new SecurityConfig().passwordEncoder(5, 1, 10);
+        conserjeExistente.setPassword(encoder.encode("password123"));
+        when(conserjeDAO.findByUsername("conserje123")).thenReturn(Optional.of(conserjeExistente));
+        
+        DaoAuthenticationProvider proveedor = new DaoAuthenticationProvider(userDetailsService);
+        proveedor.setPasswordEncoder(encoder);
+        proveedor.setUserDetailsPasswordService(userDetailsService);
+        
+        // --- ACT ---
+        
+        try (encoder) {
+            proveedor.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("conserje123", "password123"));
+        }
+        
+        // --- ASSERT ---
+        
+        verify(conserjeDAO, never()).save(any());
+    }
+}
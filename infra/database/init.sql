@@ -3,6 +3,15 @@
 -- Script de Inicialización de Base de Datos
 -- ========================================
 
+-- Extensión de trigramas: permite indexar búsquedas por subcadena (LIKE '%texto%')
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Secuencias pooled: Direccion, Persona, Reserva, Estadia, Factura y FacturaDetalle
+-- toman sus IDs de a bloques de 50 (@SequenceGenerator con allocationSize = 50), así
+-- Hibernate conoce el ID antes del INSERT y envía las altas en lotes JDBC. El
+-- INCREMENT BY de cada secuencia (ALTER SEQUENCE junto a su tabla) debe coincidir
+-- con allocationSize; si no, los bloques de IDs se superponen.
+
 -- ========================================
 -- TABLA: conserjes
 -- Descripción: Almacena los usuarios del sistema (conserjes) con sus credenciales
@@ -101,6 +110,8 @@ CREATE TABLE IF NOT EXISTS direcciones (
 -- Índice para mejorar búsquedas por localidad
 CREATE INDEX idx_direcciones_localidad_id ON direcciones(localidad_id);
 
+ALTER SEQUENCE direcciones_id_seq INCREMENT BY 50;
+
 -- ========================================
 -- TABLA: personas (Tabla padre - JOINED inheritance)
 -- Descripción: Tabla padre abstracta para huéspedes y responsables de pago
@@ -118,6 +129,8 @@ CREATE TABLE IF NOT EXISTS personas (
 CREATE INDEX idx_personas_cuit ON personas(cuit);
 CREATE INDEX idx_personas_direccion_id ON personas(direccion_id);
 
+ALTER SEQUENCE personas_id_seq INCREMENT BY 50;
+
 -- ========================================
 -- TABLA: huespedes (Tabla hija - JOINED inheritance)
 -- Descripción: Información específica de los huéspedes del hotel
@@ -126,6 +139,11 @@ CREATE TABLE IF NOT EXISTS huespedes (
     id BIGINT PRIMARY KEY,
     nombre VARCHAR(100) NOT NULL,
     apellido VARCHAR(100) NOT NULL,
+    -- Nombre y apellido normalizados (sin acentos, minúsculas) para las búsquedas;
+    -- los mantiene la aplicación (Huesped.normalizarParaBusqueda). Con intercalación
+    -- "C" el orden del índice B-tree coincide con el ORDER BY de la paginación.
+    nombre_busqueda VARCHAR(100) COLLATE "C" NOT NULL,
+    apellido_busqueda VARCHAR(100) COLLATE "C" NOT NULL,
     tipo_documento VARCHAR(20),
     documento VARCHAR(8) NOT NULL,
     fecha_nacimiento DATE NOT NULL,
@@ -138,10 +156,21 @@ CREATE TABLE IF NOT EXISTS huespedes (
 );
 
 -- Índices
-CREATE INDEX idx_huespedes_documento ON huespedes(documento);
+-- Verificación de documento repetido (alta de huésped): tipo y número juntos.
+-- No es UNIQUE porque el alta permite registrar un documento repetido si el
+-- conserje lo acepta igualmente.
+CREATE INDEX idx_huespedes_tipo_documento_documento ON huespedes(tipo_documento, documento);
 CREATE INDEX idx_huespedes_email ON huespedes(email);
 CREATE INDEX idx_huespedes_nacionalidad_id ON huespedes(nacionalidad_id);
-CREATE INDEX idx_huespedes_apellido_nombre ON huespedes(apellido, nombre);
+-- Búsqueda de huéspedes (HuespedDAO.buscarPaginaPorCriterios): orden y paginación
+-- por clave (apellido_busqueda, nombre_busqueda, id)
+CREATE INDEX idx_huespedes_busqueda ON huespedes(apellido_busqueda, nombre_busqueda, id);
+
+-- Búsqueda de huéspedes por subcadena de apellido, nombre y documento: los
+-- LIKE '%texto%' no pueden usar índices B-tree; los índices GIN de trigramas sí.
+CREATE INDEX idx_huespedes_apellido_busqueda_trgm ON huespedes USING gin (apellido_busqueda gin_trgm_ops);
+CREATE INDEX idx_huespedes_nombre_busqueda_trgm ON huespedes USING gin (nombre_busqueda gin_trgm_ops);
+CREATE INDEX idx_huespedes_documento_trgm ON huespedes USING gin (documento gin_trgm_ops);
 
 -- ========================================
 -- TABLA: responsables_de_pago (Tabla hija - JOINED inheritance)
@@ -197,7 +226,8 @@ CREATE TABLE IF NOT EXISTS habitaciones (
     nombre VARCHAR(5) NOT NULL,
     precio REAL NOT NULL,
     tipo_habitacion VARCHAR(20) NOT NULL,
-    estado_habitacion VARCHAR(20) NOT NULL
+    estado_habitacion VARCHAR(20) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0 -- Control de concurrencia optimista (@Version)
 );
 
 -- Índice para mejorar búsquedas por nombre y estado
@@ -245,6 +275,8 @@ CREATE INDEX idx_reservas_huesped_id ON reservas(huesped_id);
 CREATE INDEX idx_reservas_fechas ON reservas(fecha_ingreso, fecha_egreso);
 CREATE INDEX idx_reservas_apellido_nombre ON reservas(apellido_huesped, nombre_huesped);
 
+ALTER SEQUENCE reservas_id_seq INCREMENT BY 50;
+
 -- ========================================
 -- TABLA: reserva_habitaciones
 -- Descripción: Tabla de relación many-to-many entre reservas y habitaciones
@@ -284,9 +316,11 @@ CREATE INDEX idx_estadias_habitacion_id ON estadias(habitacion_id);
 CREATE INDEX idx_estadias_reserva_id ON estadias(reserva_id);
 CREATE INDEX idx_estadias_fecha_ingreso ON estadias(fecha_hora_ingreso);
 
+ALTER SEQUENCE estadias_id_seq INCREMENT BY 50;
+
 -- ========================================
 -- TABLA: estadia_huespedes_acompaniantes
--- Descripción: Tabla de relación one-to-many entre estadías y huéspedes acompañantes
+-- Descripción: Tabla de relación many-to-many entre estadías y huéspedes acompañantes
 -- ========================================
 CREATE TABLE IF NOT EXISTS estadia_huespedes_acompaniantes (
     estadia_id BIGINT NOT NULL,
@@ -341,6 +375,8 @@ CREATE INDEX idx_facturas_estadia_id ON facturas(id_estadia);
 CREATE INDEX idx_facturas_fecha_emision ON facturas(fecha_emision);
 CREATE INDEX idx_facturas_estado ON facturas(estado_factura);
 
+ALTER SEQUENCE facturas_id_seq INCREMENT BY 50;
+
 -- Comentarios sobre tipos enumerados:
 -- estado_factura: PAGADA, PENDIENTE, CANCELADA
 -- tipo_factura: A, B
@@ -363,6 +399,8 @@ CREATE TABLE IF NOT EXISTS factura_detalles (
 -- Índice
 CREATE INDEX idx_factura_detalles_factura_id ON factura_detalles(factura_id);
 
+ALTER SEQUENCE factura_detalles_id_seq INCREMENT BY 50;
+
 -- ========================================
 -- TABLA: medios_de_pago (Tabla padre - JOINED inheritance)
 -- Descripción: Tabla padre abstracta para medios de pago (tarjetas y cheques)